@@ -0,0 +1,467 @@
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+/**
+   A sorted dictionary that picks its representation as it is used. It
+   starts as a compact SortedArrayDictionary, which searches and scans
+   quickly but shifts entries on every insert and remove, and moves to a
+   BPlusTreeDictionary once it is both large and written often. It moves
+   back when it shrinks, or when the workload becomes read mostly while
+   it is below the size that would move it to the tree again; a large
+   tree stays a tree, since an array that large pays O(n) for each of
+   even a few writes.
+   The reads and writes of recent operations are counted with a decay,
+   so old traffic fades. The size and write share thresholds for moving
+   each way are apart, so a workload near one threshold does not make it
+   move back and forth, and a move, which copies every entry in O(n), is
+   only made after at least as many operations as there are entries, so
+   its cost is amortized to O(1) per operation. Moves are only made by
+   add, remove and addAll calls that change the set of keys, which would
+   end open iterators anyway.
+   @author Minwoo Soh
+*/
+public class AdaptiveSortedDictionary<K extends Comparable<? super K>, V> implements SortedDictionaryInterface<K, V>
+{
+  /** The representations this dictionary can have. */
+  public enum Representation { SORTED_ARRAY, B_PLUS_TREE }
+
+  private SortedDictionaryInterface<K, V> dictionary;
+  private Representation representation;
+  private final int promoteSize;        // Least size for moving to the tree.
+  private final int demoteSize;         // Size below which the tree moves back.
+  private int recentReads;              // Decayed counts of recent operations.
+  private int recentWrites;
+  private long operationsSinceMigration;
+  private long migrations;
+  private int modCount;                 // Counts structural changes, migrations included.
+  private final static int DEFAULT_PROMOTE_SIZE = 4096;
+  private final static int DEFAULT_DEMOTE_SIZE = 1024;
+  private final static int DECAY_WINDOW = 1024;        // Halve the counts once they reach this total.
+  private final static int PROMOTE_WRITE_DIVISOR = 4;  // Move to the tree at 1/4 writes or more.
+  private final static int DEMOTE_WRITE_DIVISOR = 16;  // Move back below 1/16 writes.
+
+  /** Creates an empty dictionary that moves to a tree at 4096 entries and
+      back below 1024. */
+  public AdaptiveSortedDictionary()
+  {
+    this(DEFAULT_PROMOTE_SIZE, DEFAULT_DEMOTE_SIZE);
+  } // end default constructor
+
+  /** Creates an empty dictionary with given size thresholds.
+      @param promoteSize  The least size at which a write heavy dictionary
+                          moves to a tree.
+      @param demoteSize   The size below which a tree moves back to an array.
+      @throws IllegalArgumentException if demoteSize is negative or
+              greater than promoteSize. */
+  public AdaptiveSortedDictionary(int promoteSize, int demoteSize)
+  {
+    if( (demoteSize < 0) || (demoteSize > promoteSize) )
+    {
+      throw new IllegalArgumentException("Need 0 <= demoteSize <= promoteSize, got " +
+                                         demoteSize + " and " + promoteSize);
+    } // end if
+    this.promoteSize = promoteSize;
+    this.demoteSize = demoteSize;
+    dictionary = new SortedArrayDictionary<>();
+    representation = Representation.SORTED_ARRAY;
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    int oldSize = dictionary.getSize();
+    V result = dictionary.add(key, value);
+    countWrite(oldSize);
+    return result;
+  } // end add
+
+  /** Adds a batch of entries to this dictionary in one pass. The batch
+      need not be sorted. Pairs are taken in order, so when a search key
+      appears more than once the last pair wins, and a key that already
+      exists in the dictionary has its value replaced, just as with add.
+      Pairs with a null key or value are not added.
+      @param keys    The search keys of the new entries.
+      @param values  The values associated with keys, position by position.
+      @throws IllegalArgumentException if the arrays differ in length. */
+  public void addAll(K[] keys, V[] values)
+  {
+    int oldSize = dictionary.getSize();
+    dictionary.addAll(keys, values);
+    countWrite(oldSize);
+  } // end addAll
+
+  /** Removes a specific entry from this dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    int oldSize = dictionary.getSize();
+    V result = dictionary.remove(key);
+    countWrite(oldSize);
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(K key)
+  {
+    countRead();
+    return dictionary.getValue(key);
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(K key)
+  {
+    countRead();
+    return dictionary.contains(key);
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator fails fast if the dictionary changes representation.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new RepresentationIterator<>(dictionary.getKeyIterator());
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      The iterator fails fast if the dictionary changes representation.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new RepresentationIterator<>(dictionary.getValueIterator());
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    dictionary.forEach(action);
+  } // end forEach
+
+  /** Finds the greatest search key that is less than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K floorKey(K key)
+  {
+    countRead();
+    return dictionary.floorKey(key);
+  } // end floorKey
+
+  /** Finds the least search key that is greater than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K ceilingKey(K key)
+  {
+    countRead();
+    return dictionary.ceilingKey(key);
+  } // end ceilingKey
+
+  /** Finds the greatest search key that is strictly less than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K lowerKey(K key)
+  {
+    countRead();
+    return dictionary.lowerKey(key);
+  } // end lowerKey
+
+  /** Finds the least search key that is strictly greater than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K higherKey(K key)
+  {
+    countRead();
+    return dictionary.higherKey(key);
+  } // end higherKey
+
+  /** Creates an iterator that traverses the search keys in this dictionary,
+      starting at the first key that is greater than or equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the search
+               keys from fromKey onward. */
+  public Iterator<K> getKeyIterator(K fromKey)
+  {
+    countRead();
+    return new RepresentationIterator<>(dictionary.getKeyIterator(fromKey));
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses the values in this dictionary,
+      starting at the entry of the first key that is greater than or
+      equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the values
+               from fromKey onward. */
+  public Iterator<V> getValueIterator(K fromKey)
+  {
+    countRead();
+    return new RepresentationIterator<>(dictionary.getValueIterator(fromKey));
+  } // end getValueIterator
+
+  /** Creates a view of the entries whose search keys are strictly less
+      than toKey. The view is backed by this dictionary, so changes to
+      either one are seen by the other, whatever the representation.
+      @param toKey  The exclusive upper bound of the view.
+      @return  A live view of the head of this dictionary. */
+  public SortedDictionaryInterface<K, V> headDictionary(K toKey)
+  {
+    return new SortedSubDictionary<>(this, null, toKey);
+  } // end headDictionary
+
+  /** Creates a view of the entries whose search keys are greater than or
+      equal to fromKey. The view is backed by this dictionary, so changes
+      to either one are seen by the other, whatever the representation.
+      @param fromKey  The inclusive lower bound of the view.
+      @return  A live view of the tail of this dictionary. */
+  public SortedDictionaryInterface<K, V> tailDictionary(K fromKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, null);
+  } // end tailDictionary
+
+  /** Creates a view of the entries whose search keys range from fromKey,
+      inclusive, to toKey, exclusive. The view is backed by this
+      dictionary, so changes to either one are seen by the other,
+      whatever the representation.
+      @param fromKey  The inclusive lower bound of the view.
+      @param toKey    The exclusive upper bound of the view.
+      @return  A live view of the range of this dictionary.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public SortedDictionaryInterface<K, V> subDictionary(K fromKey, K toKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, toKey);
+  } // end subDictionary
+
+  /** Counts the search keys that are strictly less than a given key.
+      @param key  An object search key to count up to.
+      @return  The number of keys less than key. */
+  public int rank(K key)
+  {
+    countRead();
+    return dictionary.rank(key);
+  } // end rank
+
+  /** Finds the search key at a position in search key order.
+      @param index  The position, from 0 to getSize() - 1.
+      @return  The key that has index keys before it.
+      @throws IndexOutOfBoundsException if index is out of range. */
+  public K select(int index)
+  {
+    countRead();
+    return dictionary.select(index);
+  } // end select
+
+  /** Removes every entry whose search key ranges from fromKey, inclusive,
+      to toKey, exclusive, in the representation in use.
+      @param fromKey  The inclusive lower bound, or null for none.
+      @param toKey    The exclusive upper bound, or null for none.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public void removeRange(K fromKey, K toKey)
+  {
+    int oldSize = dictionary.getSize();
+    dictionary.removeRange(fromKey, toKey);
+    countWrite(oldSize);
+  } // end removeRange
+
+  /** Gets the count of structural changes, which also changes when the
+      representation is replaced.
+      @return  A number that changes whenever an entry is added or removed. */
+  public int getModCount()
+  {
+    return modCount;
+  } // end getModCount
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return dictionary.isEmpty();
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    return dictionary.getSize();
+  } // end getSize
+
+  /** Removes all entries from this dictionary, going back to an empty
+      sorted array and forgetting the recent workload. */
+  public void clear()
+  {
+    dictionary.clear();
+    modCount++;
+    if(representation != Representation.SORTED_ARRAY)
+    {
+      migrateTo(Representation.SORTED_ARRAY);
+    } // end if
+    recentReads = 0;
+    recentWrites = 0;
+    operationsSinceMigration = 0;
+  } // end clear
+
+  /** Gets the representation now in use.
+      @return  The representation. */
+  public Representation getRepresentation()
+  {
+    return representation;
+  } // end getRepresentation
+
+  /** Gets the number of times this dictionary has changed representation.
+      @return  The count of migrations. */
+  public long getMigrationCount()
+  {
+    return migrations;
+  } // end getMigrationCount
+
+  /** Gets the share of recent operations that were writes.
+      @return  A number from 0 to 1, or 0 if nothing was done recently. */
+  public double getRecentWriteShare()
+  {
+    int total = recentReads + recentWrites;
+    return (total == 0) ? 0 : (double)recentWrites / total;
+  } // end getRecentWriteShare
+
+  /** Counts a read in the recent workload. */
+  private void countRead()
+  {
+    recentReads++;
+    operationsSinceMigration++;
+    decay();
+  } // end countRead
+
+  /** Counts a write in the recent workload and, if the write changed the
+      set of keys, sees whether the representation should change.
+      @param oldSize  The size before the write. */
+  private void countWrite(int oldSize)
+  {
+    recentWrites++;
+    operationsSinceMigration++;
+    decay();
+    int size = dictionary.getSize();
+    if(size != oldSize)
+    {
+      modCount++;
+    } // end if
+    if( (size != oldSize) && (operationsSinceMigration >= size) )
+    {
+      int total = recentReads + recentWrites;
+      if(representation == Representation.SORTED_ARRAY)
+      {
+        if( (size >= promoteSize) && (PROMOTE_WRITE_DIVISOR * recentWrites >= total) )
+        {
+          migrateTo(Representation.B_PLUS_TREE);
+        } // end if
+      }
+      else if( (size < demoteSize) || ((size < promoteSize) && (DEMOTE_WRITE_DIVISOR * recentWrites < total)) )
+      {
+        migrateTo(Representation.SORTED_ARRAY);
+      } // end if
+    } // end if
+  } // end countWrite
+
+  /** Halves the recent counts once they reach DECAY_WINDOW, so older
+      operations weigh less than newer ones. */
+  private void decay()
+  {
+    if(recentReads + recentWrites >= DECAY_WINDOW)
+    {
+      recentReads /= 2;
+      recentWrites /= 2;
+    } // end if
+  } // end decay
+
+  /** Copies every entry into a new dictionary of the given representation,
+      in one sorted batch.
+      @param target  The representation to move to. */
+  private void migrateTo(Representation target)
+  {
+    int size = dictionary.getSize();
+    @SuppressWarnings("unchecked")
+    K[] keys = (K[])new Comparable[size];
+    @SuppressWarnings("unchecked")
+    V[] values = (V[])new Object[size];
+    Iterator<K> keyIterator = dictionary.getKeyIterator();
+    Iterator<V> valueIterator = dictionary.getValueIterator();
+    for(int i = 0; i < size; i++)
+    {
+      keys[i] = keyIterator.next();
+      values[i] = valueIterator.next();
+    } // end for
+    SortedDictionaryInterface<K, V> replacement;
+    if(target == Representation.B_PLUS_TREE)
+    {
+      replacement = new BPlusTreeDictionary<>();
+    }
+    else
+    {
+      replacement = new SortedArrayDictionary<>(0);
+    } // end if
+    replacement.addAll(keys, values);
+    dictionary = replacement;
+    representation = target;
+    operationsSinceMigration = 0;
+    migrations++;
+    modCount++;
+  } // end migrateTo
+
+  /** Private inner class that passes an iterator of the representation
+      through, failing fast once the representation has been replaced. */
+  private class RepresentationIterator<T> implements Iterator<T>
+  {
+    private final Iterator<T> iterator;
+    private final long expectedMigrations;
+
+    private RepresentationIterator(Iterator<T> iterator)
+    {
+      this.iterator = iterator;
+      expectedMigrations = migrations;
+    } // end constructor
+
+    public boolean hasNext()
+    {
+      checkForMigration();
+      return iterator.hasNext();
+    } // end hasNext
+
+    public T next()
+    {
+      checkForMigration();
+      return iterator.next();
+    } // end next
+
+    public void remove()
+    {
+      checkForMigration();
+      iterator.remove();
+      modCount++;
+      recentWrites++;
+      operationsSinceMigration++;
+      decay();
+    } // end remove
+
+    private void checkForMigration()
+    {
+      if(migrations != expectedMigrations)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForMigration
+  } // end RepresentationIterator
+} // end AdaptiveSortedDictionary
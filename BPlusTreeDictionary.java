@@ -0,0 +1,1188 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
+/**
+   A dictionary using a B+ tree that implements SortedDictionaryInterface.
+   Every entry is kept in a leaf, and the leaves are linked in key order so
+   that iteration and range walks read one leaf array after another. The
+   internal nodes hold only separator keys, up to fanout - 1 of them, which
+   keeps the tree shallow: each add, remove and lookup visits O(log n)
+   nodes, with one binary search per node.
+   @author Minwoo Soh
+*/
+public class BPlusTreeDictionary<K extends Comparable<? super K>, V> implements SortedDictionaryInterface<K, V>
+{
+  private Node root;
+  private LeafNode firstLeaf;           // Leftmost leaf; merges always keep it.
+  private int numberOfEntries;
+  private int modCount;                 // Counts structural changes for the iterators.
+  private final int fanout;             // Most children of an internal node, most entries of a leaf.
+  private final int minLeafSize;
+  private final int minInternalSize;    // Fewest keys an internal node other than the root may keep.
+  private final static int DEFAULT_FANOUT = 64;
+  private final static int MIN_FANOUT = 4;
+
+  // Results handed up the recursion of add and remove.
+  private K splitKey;
+  private V oldValue;
+
+  /** Creates an empty B+ tree whose nodes have up to 64 children. */
+  public BPlusTreeDictionary()
+  {
+    this(DEFAULT_FANOUT);
+  } // end default constructor
+
+  /** Creates an empty B+ tree with the given node fanout.
+      @param fanout  The most children of an internal node, which is also
+                     the most entries a leaf holds. */
+  public BPlusTreeDictionary(int fanout)
+  {
+    if(fanout < MIN_FANOUT)
+    {
+      throw new IllegalArgumentException("Fanout must be at least " + MIN_FANOUT + ": " + fanout);
+    } // end if
+    this.fanout = fanout;
+    minLeafSize = fanout / 2;
+    minInternalSize = (fanout - 1) / 2;
+    firstLeaf = new LeafNode();
+    root = firstLeaf;
+    numberOfEntries = 0;
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    V result = null;
+    try
+    {
+      if( (key == null) || (value == null) )
+      {
+        throw new IllegalStateException("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        oldValue = null;
+        Node sibling = insert(root, key, value);
+        if(sibling != null) // If the root split, grow the tree by one level.
+        {
+          InternalNode newRoot = new InternalNode();
+          newRoot.keys[0] = splitKey;
+          newRoot.children[0] = root;
+          newRoot.children[1] = sibling;
+          newRoot.size = 1;
+          newRoot.entryCount = countOf(root) + countOf(sibling);
+          root = newRoot;
+        } // end if
+        result = oldValue;
+        oldValue = null;
+        splitKey = null;
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    return result;
+  } // end add
+
+  /** Adds a batch of entries to this dictionary in one pass. The batch
+      need not be sorted. Pairs are taken in order, so when a search key
+      appears more than once the last pair wins, and a key that already
+      exists in the dictionary has its value replaced, just as with add.
+      Pairs with a null key or value are not added.
+      The batch is merge sorted once, merged with the leaf chain, and the
+      tree is rebuilt bottom up from the merged run with nodes filled to
+      three quarters, in time linear in the merged size.
+      @param keys    The search keys of the new entries.
+      @param values  The values associated with keys, position by position.
+      @throws IllegalArgumentException if the arrays differ in length. */
+  public void addAll(K[] keys, V[] values)
+  {
+    if(keys.length != values.length)
+    {
+      throw new IllegalArgumentException("Got " + keys.length + " keys but " + values.length + " values.");
+    } // end if
+
+    // Collect the pairs, then sort them stably so equal keys keep their order.
+    K[] sortedKeys = Arrays.copyOf(keys, keys.length);
+    V[] sortedValues = Arrays.copyOf(values, values.length);
+    int batchSize = 0;
+    for(int i = 0; i < keys.length; i++)
+    {
+      if( (keys[i] == null) || (values[i] == null) )
+      {
+        System.out.println("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        sortedKeys[batchSize] = keys[i];
+        sortedValues[batchSize] = values[i];
+        batchSize++;
+      } // end if
+    } // end for
+    sortBatch(sortedKeys, sortedValues, batchSize);
+
+    // Merge the leaf chain and the batch into one sorted run.
+    @SuppressWarnings("unchecked")
+    K[] mergedKeys = (K[])new Comparable[numberOfEntries + batchSize];
+    @SuppressWarnings("unchecked")
+    V[] mergedValues = (V[])new Object[numberOfEntries + batchSize];
+    int mergedSize = 0;
+    LeafNode leaf = firstLeaf;
+    int oldIndex = 0;
+    int newIndex = 0;
+    while( (leaf != null) || (newIndex < batchSize) )
+    {
+      if( (leaf != null) && (oldIndex == leaf.size) )
+      {
+        leaf = leaf.next;
+        oldIndex = 0;
+      }
+      else
+      {
+        int comparison;
+        if(leaf == null)
+        {
+          comparison = 1;
+        }
+        else if(newIndex == batchSize)
+        {
+          comparison = -1;
+        }
+        else
+        {
+          comparison = leaf.keys[oldIndex].compareTo(sortedKeys[newIndex]);
+        } // end if
+
+        if(comparison < 0)
+        {
+          mergedKeys[mergedSize] = leaf.keys[oldIndex];
+          mergedValues[mergedSize] = leaf.values[oldIndex];
+        }
+        else
+        {
+          // Skip ahead to the last pair of a run of equal batch keys.
+          while( (newIndex + 1 < batchSize) && (sortedKeys[newIndex].compareTo(sortedKeys[newIndex + 1]) == 0) )
+          {
+            newIndex++;
+          } // end while
+          mergedKeys[mergedSize] = sortedKeys[newIndex];
+          mergedValues[mergedSize] = sortedValues[newIndex];
+          newIndex++;
+        } // end if
+        if(comparison <= 0) // The old entry is used or replaced.
+        {
+          oldIndex++;
+        } // end if
+        mergedSize++;
+      } // end if
+    } // end while
+
+    if(mergedSize != numberOfEntries)
+    {
+      modCount++;
+    } // end if
+    buildFrom(mergedKeys, mergedValues, mergedSize);
+  } // end addAll
+
+  /** Removes a specific entry from this dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    oldValue = null;
+    if(delete(root, key))
+    {
+      if( (root instanceof BPlusTreeDictionary.InternalNode) && (root.size == 0) )
+      {
+        root = ((InternalNode)root).children[0]; // Shrink the tree by one level.
+      } // end if
+      numberOfEntries--;
+      modCount++;
+    } // end if
+    V result = oldValue;
+    oldValue = null;
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(K key)
+  {
+    V result = null;
+    LeafNode leaf = findLeaf(key);
+    int keyIndex = leaf.locateIndex(key);
+    if(leaf.isKeyAt(keyIndex, key)) // If key is found.
+    {
+      result = leaf.values[keyIndex];
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(K key)
+  {
+    LeafNode leaf = findLeaf(key);
+    return leaf.isKeyAt(leaf.locateIndex(key), key);
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator follows the leaf chain in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new KeyIterator(null);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      The iterator follows the leaf chain in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new ValueIterator(null);
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass. The walk
+      follows the leaf chain and allocates nothing per entry.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    int expectedModCount = modCount;
+    LeafNode leaf = firstLeaf;
+    while( (leaf != null) && (modCount == expectedModCount) )
+    {
+      for(int i = 0; (i < leaf.size) && (modCount == expectedModCount); i++)
+      {
+        action.accept(leaf.keys[i], leaf.values[i]);
+      } // end for
+      leaf = leaf.next;
+    } // end while
+    if(modCount != expectedModCount)
+    {
+      throw new ConcurrentModificationException();
+    } // end if
+  } // end forEach
+
+  /** Finds the greatest search key that is less than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K floorKey(K key)
+  {
+    LeafNode leaf = findLeaf(key);
+    int keyIndex = leaf.locateIndex(key);
+    if(leaf.isKeyAt(keyIndex, key))
+    {
+      keyIndex++;
+    } // end if
+    return keyBefore(leaf, keyIndex);
+  } // end floorKey
+
+  /** Finds the least search key that is greater than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K ceilingKey(K key)
+  {
+    LeafNode leaf = findLeaf(key);
+    return keyAtOrAfter(leaf, leaf.locateIndex(key));
+  } // end ceilingKey
+
+  /** Finds the greatest search key that is strictly less than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K lowerKey(K key)
+  {
+    LeafNode leaf = findLeaf(key);
+    return keyBefore(leaf, leaf.locateIndex(key));
+  } // end lowerKey
+
+  /** Finds the least search key that is strictly greater than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K higherKey(K key)
+  {
+    LeafNode leaf = findLeaf(key);
+    int keyIndex = leaf.locateIndex(key);
+    if(leaf.isKeyAt(keyIndex, key))
+    {
+      keyIndex++;
+    } // end if
+    return keyAtOrAfter(leaf, keyIndex);
+  } // end higherKey
+
+  /** Creates an iterator that traverses the search keys in this dictionary,
+      starting at the first key that is greater than or equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the search
+               keys from fromKey onward. */
+  public Iterator<K> getKeyIterator(K fromKey)
+  {
+    return new KeyIterator(fromKey);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses the values in this dictionary,
+      starting at the entry of the first key that is greater than or
+      equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the values
+               from fromKey onward. */
+  public Iterator<V> getValueIterator(K fromKey)
+  {
+    return new ValueIterator(fromKey);
+  } // end getValueIterator
+
+  /** Creates a view of the entries whose search keys are strictly less
+      than toKey. The view is backed by this dictionary, so changes to
+      either one are seen by the other.
+      @param toKey  The exclusive upper bound of the view.
+      @return  A live view of the head of this dictionary. */
+  public SortedDictionaryInterface<K, V> headDictionary(K toKey)
+  {
+    return new SortedSubDictionary<>(this, null, toKey);
+  } // end headDictionary
+
+  /** Creates a view of the entries whose search keys are greater than or
+      equal to fromKey. The view is backed by this dictionary, so changes
+      to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @return  A live view of the tail of this dictionary. */
+  public SortedDictionaryInterface<K, V> tailDictionary(K fromKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, null);
+  } // end tailDictionary
+
+  /** Creates a view of the entries whose search keys range from fromKey,
+      inclusive, to toKey, exclusive. The view is backed by this
+      dictionary, so changes to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @param toKey    The exclusive upper bound of the view.
+      @return  A live view of the range of this dictionary.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public SortedDictionaryInterface<K, V> subDictionary(K fromKey, K toKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, toKey);
+  } // end subDictionary
+
+  /** Counts the search keys that are strictly less than a given key. On
+      the way down, the entry counts of the children left of the path are
+      added up, so it costs O(fanout) per level, or O(log n) in all.
+      @param key  An object search key to count up to.
+      @return  The number of keys less than key, which is also the
+               position key has, or would have, in search key order. */
+  public int rank(K key)
+  {
+    int result = 0;
+    Node node = root;
+    while(node instanceof BPlusTreeDictionary.InternalNode)
+    {
+      InternalNode internal = (InternalNode)node;
+      int childIndex = internal.childIndex(key);
+      for(int i = 0; i < childIndex; i++)
+      {
+        result += countOf(internal.children[i]);
+      } // end for
+      node = internal.children[childIndex];
+    } // end while
+    return result + ((LeafNode)node).locateIndex(key);
+  } // end rank
+
+  /** Finds the search key at a position in search key order, choosing
+      each child on the way down by the entry counts, in O(log n) time.
+      @param index  The position, from 0 to getSize() - 1.
+      @return  The key that has index keys before it.
+      @throws IndexOutOfBoundsException if index is out of range. */
+  public K select(int index)
+  {
+    if( (index < 0) || (index >= numberOfEntries) )
+    {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + numberOfEntries);
+    } // end if
+    int position = index;
+    Node node = root;
+    while(node instanceof BPlusTreeDictionary.InternalNode)
+    {
+      InternalNode internal = (InternalNode)node;
+      int childIndex = 0;
+      while(position >= countOf(internal.children[childIndex]))
+      {
+        position -= countOf(internal.children[childIndex]);
+        childIndex++;
+      } // end while
+      node = internal.children[childIndex];
+    } // end while
+    return node.keys[position];
+  } // end select
+
+  /** Gets the count of structural changes its iterators check.
+      @return  A number that changes whenever an entry is added or removed. */
+  public int getModCount()
+  {
+    return modCount;
+  } // end getModCount
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return numberOfEntries == 0;
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    return numberOfEntries;
+  } // end getSize
+
+  /** Removes all entries from this dictionary. */
+  public void clear()
+  {
+    firstLeaf = new LeafNode();
+    root = firstLeaf;
+    numberOfEntries = 0;
+    modCount++;
+  } // end clear
+
+  /** Descends from the root to the leaf that would hold key.
+      @param key  The search key to look for.
+      @return  The leaf whose range covers key. */
+  private LeafNode findLeaf(K key)
+  {
+    Node node = root;
+    while(node instanceof BPlusTreeDictionary.InternalNode)
+    {
+      InternalNode internal = (InternalNode)node;
+      node = internal.children[internal.childIndex(key)];
+    } // end while
+    return (LeafNode)node;
+  } // end findLeaf
+
+  /** Returns the search key just before a position in a leaf, stepping
+      back to the previous leaf if the position is at the front.
+      @param leaf      The leaf of the position.
+      @param keyIndex  The position within the leaf.
+      @return  Either the key found or null if no key precedes it. */
+  private K keyBefore(LeafNode leaf, int keyIndex)
+  {
+    K result = null;
+    if(keyIndex > 0)
+    {
+      result = leaf.keys[keyIndex - 1];
+    }
+    else if(leaf.previous != null)
+    {
+      result = leaf.previous.keys[leaf.previous.size - 1];
+    } // end if
+    return result;
+  } // end keyBefore
+
+  /** Returns the search key at a position in a leaf, moving on to the
+      next leaf if the position is just past the end.
+      @param leaf      The leaf of the position.
+      @param keyIndex  The position within the leaf.
+      @return  Either the key found or null if the dictionary ends there. */
+  private K keyAtOrAfter(LeafNode leaf, int keyIndex)
+  {
+    K result = null;
+    if(keyIndex < leaf.size)
+    {
+      result = leaf.keys[keyIndex];
+    }
+    else if(leaf.next != null)
+    {
+      result = leaf.next.keys[0];
+    } // end if
+    return result;
+  } // end keyAtOrAfter
+
+  /** Adds an entry to the subtree under node, splitting nodes that overflow.
+      If key exists, its value is replaced and the old one is left in oldValue.
+      @param node   The root of the subtree.
+      @param key    The search key of the entry.
+      @param value  The value of the entry.
+      @return  Either the new right sibling of node if node split, with its
+               separator left in splitKey, or null. */
+  private Node insert(Node node, K key, V value)
+  {
+    Node result = null;
+    if(node instanceof BPlusTreeDictionary.InternalNode)
+    {
+      InternalNode internal = (InternalNode)node;
+      int childIndex = internal.childIndex(key);
+      Node newChild = insert(internal.children[childIndex], key, value);
+      if(oldValue == null) // If an entry was added below.
+      {
+        internal.entryCount++;
+      } // end if
+      if(newChild != null)
+      {
+        internal.insertAt(childIndex, splitKey, newChild);
+        if(internal.size == fanout)
+        {
+          result = internal.split();
+        } // end if
+      } // end if
+    }
+    else
+    {
+      LeafNode leaf = (LeafNode)node;
+      int keyIndex = leaf.locateIndex(key);
+      if(leaf.isKeyAt(keyIndex, key))
+      {
+        // If key already exists in the dictionary.
+        oldValue = leaf.values[keyIndex];
+        leaf.values[keyIndex] = value;
+      }
+      else // If key is new.
+      {
+        leaf.insertAt(keyIndex, key, value);
+        numberOfEntries++;
+        modCount++;
+        if(leaf.size > fanout)
+        {
+          result = leaf.split();
+        } // end if
+      } // end if
+    } // end if
+    return result;
+  } // end insert
+
+  /** Removes an entry from the subtree under node, repairing children that
+      fall below their minimum size. The removed value is left in oldValue.
+      @param node  The root of the subtree.
+      @param key   The search key of the entry.
+      @return  True if the entry was found and removed. */
+  private boolean delete(Node node, K key)
+  {
+    boolean result = false;
+    if(node instanceof BPlusTreeDictionary.InternalNode)
+    {
+      InternalNode internal = (InternalNode)node;
+      int childIndex = internal.childIndex(key);
+      Node child = internal.children[childIndex];
+      result = delete(child, key);
+      if(result)
+      {
+        internal.entryCount--;
+        if(child.size < minimumSize(child))
+        {
+          repairChild(internal, childIndex);
+        } // end if
+      } // end if
+    }
+    else
+    {
+      LeafNode leaf = (LeafNode)node;
+      int keyIndex = leaf.locateIndex(key);
+      if(leaf.isKeyAt(keyIndex, key)) // If key is found.
+      {
+        oldValue = leaf.values[keyIndex];
+        leaf.removeAt(keyIndex);
+        result = true;
+      } // end if
+    } // end if
+    return result;
+  } // end delete
+
+  /** Returns the number of entries in the subtree under a node. */
+  private int countOf(Node node)
+  {
+    return (node instanceof BPlusTreeDictionary.InternalNode) ? ((InternalNode)node).entryCount : node.size;
+  } // end countOf
+
+  /** Returns the fewest keys a node other than the root may keep. */
+  private int minimumSize(Node node)
+  {
+    return (node instanceof BPlusTreeDictionary.InternalNode) ? minInternalSize : minLeafSize;
+  } // end minimumSize
+
+  /** Brings an underfull child back to its minimum size by borrowing an
+      entry from a sibling that can spare one, or else merging it with a
+      sibling.
+      @param parent      The internal node holding the child.
+      @param childIndex  The position of the underfull child. */
+  private void repairChild(InternalNode parent, int childIndex)
+  {
+    Node child = parent.children[childIndex];
+    Node left = (childIndex > 0) ? parent.children[childIndex - 1] : null;
+    Node right = (childIndex < parent.size) ? parent.children[childIndex + 1] : null;
+    int minimum = minimumSize(child);
+
+    if( (left != null) && (left.size > minimum) )
+    {
+      if(child instanceof BPlusTreeDictionary.LeafNode)
+      {
+        LeafNode leftLeaf = (LeafNode)left;
+        ((LeafNode)child).insertAt(0, leftLeaf.keys[left.size - 1], leftLeaf.values[left.size - 1]);
+        leftLeaf.removeAt(left.size - 1);
+        parent.keys[childIndex - 1] = child.keys[0];
+      }
+      else
+      {
+        InternalNode leftInternal = (InternalNode)left;
+        InternalNode childInternal = (InternalNode)child;
+        int moved = countOf(leftInternal.children[left.size]);
+        leftInternal.entryCount -= moved;
+        childInternal.entryCount += moved;
+        childInternal.prepend(parent.keys[childIndex - 1], leftInternal.children[left.size]);
+        parent.keys[childIndex - 1] = leftInternal.keys[left.size - 1];
+        leftInternal.removeLast();
+      } // end if
+    }
+    else if( (right != null) && (right.size > minimum) )
+    {
+      if(child instanceof BPlusTreeDictionary.LeafNode)
+      {
+        LeafNode rightLeaf = (LeafNode)right;
+        ((LeafNode)child).insertAt(child.size, rightLeaf.keys[0], rightLeaf.values[0]);
+        rightLeaf.removeAt(0);
+        parent.keys[childIndex] = right.keys[0];
+      }
+      else
+      {
+        InternalNode rightInternal = (InternalNode)right;
+        InternalNode childInternal = (InternalNode)child;
+        int moved = countOf(rightInternal.children[0]);
+        rightInternal.entryCount -= moved;
+        childInternal.entryCount += moved;
+        childInternal.insertAt(child.size, parent.keys[childIndex], rightInternal.children[0]);
+        parent.keys[childIndex] = rightInternal.keys[0];
+        rightInternal.removeFirst();
+      } // end if
+    }
+    else if(left != null)
+    {
+      mergeChildren(parent, childIndex - 1);
+    }
+    else
+    {
+      mergeChildren(parent, childIndex);
+    } // end if
+  } // end repairChild
+
+  /** Merges the child at a position with the child after it and drops
+      the separator between them from the parent.
+      @param parent     The internal node holding both children.
+      @param leftIndex  The position of the left child of the pair. */
+  private void mergeChildren(InternalNode parent, int leftIndex)
+  {
+    Node left = parent.children[leftIndex];
+    Node right = parent.children[leftIndex + 1];
+    if(left instanceof BPlusTreeDictionary.LeafNode)
+    {
+      ((LeafNode)left).append((LeafNode)right);
+    }
+    else
+    {
+      ((InternalNode)left).append(parent.keys[leftIndex], (InternalNode)right);
+    } // end if
+    parent.removeAt(leftIndex);
+  } // end mergeChildren
+
+  /** Replaces the whole tree with one built bottom up from a sorted run.
+      @param sortedKeys    Distinct search keys in ascending order.
+      @param sortedValues  The values of sortedKeys.
+      @param size          The number of entries in the run. */
+  private void buildFrom(K[] sortedKeys, V[] sortedValues, int size)
+  {
+    firstLeaf = new LeafNode();
+    root = firstLeaf;
+    numberOfEntries = size;
+    if(size > 0)
+    {
+      int fill = Math.max(minLeafSize, fanout * 3 / 4);
+      int leafCount = (size + fill - 1) / fill;
+      Node[] level = newNodeArray(leafCount);
+      @SuppressWarnings("unchecked")
+      K[] lowKeys = (K[])new Comparable[leafCount];  // Smallest key under each node.
+      LeafNode previousLeaf = null;
+      int start = 0;
+      for(int i = 0; i < leafCount; i++)
+      {
+        int end = (int)((long)size * (i + 1) / leafCount);
+        LeafNode leaf = (i == 0) ? firstLeaf : new LeafNode();
+        System.arraycopy(sortedKeys, start, leaf.keys, 0, end - start);
+        System.arraycopy(sortedValues, start, leaf.values, 0, end - start);
+        leaf.size = end - start;
+        leaf.previous = previousLeaf;
+        if(previousLeaf != null)
+        {
+          previousLeaf.next = leaf;
+        } // end if
+        previousLeaf = leaf;
+        level[i] = leaf;
+        lowKeys[i] = leaf.keys[0];
+        start = end;
+      } // end for
+
+      // Group each level under a new level of internal nodes until one is left.
+      int levelSize = leafCount;
+      int childFill = Math.max(minInternalSize + 1, fanout * 3 / 4);
+      while(levelSize > 1)
+      {
+        int parentCount = (levelSize + childFill - 1) / childFill;
+        start = 0;
+        for(int i = 0; i < parentCount; i++)
+        {
+          int end = (int)((long)levelSize * (i + 1) / parentCount);
+          InternalNode parent = new InternalNode();
+          parent.children[0] = level[start];
+          parent.entryCount = countOf(level[start]);
+          for(int j = start + 1; j < end; j++)
+          {
+            parent.keys[j - start - 1] = lowKeys[j];
+            parent.children[j - start] = level[j];
+            parent.entryCount += countOf(level[j]);
+          } // end for
+          parent.size = end - start - 1;
+          K lowKey = lowKeys[start];
+          level[i] = parent;
+          lowKeys[i] = lowKey;
+          start = end;
+        } // end for
+        Arrays.fill(level, parentCount, levelSize, null);
+        levelSize = parentCount;
+      } // end while
+      root = level[0];
+    } // end if
+  } // end buildFrom
+
+  /** Sorts the first size pairs of two parallel arrays by key with a
+      stable merge sort, so pairs with equal keys keep their order. Runs
+      that are already in order are not merged, so a sorted batch costs
+      one comparison per run and pass, O(size) in all.
+      @param sortKeys    The keys to sort.
+      @param sortValues  The values that move along with sortKeys.
+      @param size        The number of pairs to sort. */
+  private void sortBatch(K[] sortKeys, V[] sortValues, int size)
+  {
+    K[] keyBuffer = Arrays.copyOf(sortKeys, size);
+    V[] valueBuffer = Arrays.copyOf(sortValues, size);
+    for(int width = 1; width < size; width = 2 * width)
+    {
+      for(int low = 0; low < size - width; low += 2 * width)
+      {
+        int middle = low + width;
+        int high = Math.min(low + 2 * width, size);
+        if(sortKeys[middle - 1].compareTo(sortKeys[middle]) > 0)
+        {
+          System.arraycopy(sortKeys, low, keyBuffer, low, high - low);
+          System.arraycopy(sortValues, low, valueBuffer, low, high - low);
+          int left = low;
+          int right = middle;
+          for(int i = low; i < high; i++)
+          {
+            if( (right >= high) || ( (left < middle) && (keyBuffer[left].compareTo(keyBuffer[right]) <= 0) ) )
+            {
+              sortKeys[i] = keyBuffer[left];
+              sortValues[i] = valueBuffer[left];
+              left++;
+            }
+            else
+            {
+              sortKeys[i] = keyBuffer[right];
+              sortValues[i] = valueBuffer[right];
+              right++;
+            } // end if
+          } // end for
+        } // end if
+      } // end for
+    } // end for
+  } // end sortBatch
+
+  /** Creates an array of nodes.
+      @param length  The number of slots.
+      @return  The new array. */
+  @SuppressWarnings("unchecked")
+  private Node[] newNodeArray(int length)
+  {
+    return (Node[])new BPlusTreeDictionary.Node[length];
+  } // end newNodeArray
+
+  /** Private inner class that walks the leaf chain in place. */
+  private abstract class LeafIterator<T> implements Iterator<T>
+  {
+    private LeafNode nextLeaf;          // Leaf of the entry next returns, or null at the end.
+    private int keyIndex;               // Position of that entry in its leaf.
+    protected LeafNode lastLeaf;        // Leaf of the entry last returned.
+    private K lastKey;                  // Key last returned, or null after remove.
+    private int expectedModCount;
+
+    /** Creates an iterator positioned at the first entry whose key is not
+        less than fromKey.
+        @param fromKey  The key to start from, or null to start at the front. */
+    private LeafIterator(K fromKey)
+    {
+      seek(fromKey);
+      lastKey = null;
+      expectedModCount = modCount;
+    } // end constructor
+
+    public boolean hasNext()
+    {
+      return nextLeaf != null;
+    } // end hasNext
+
+    /** Advances to the next entry.
+        @return  The position of that entry within lastLeaf. */
+    protected int nextIndex()
+    {
+      checkForComodification();
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      lastLeaf = nextLeaf;
+      int result = keyIndex;
+      lastKey = lastLeaf.keys[result];
+      keyIndex++;
+      skipToEntry();
+      return result;
+    } // end nextIndex
+
+    /** Removes the entry last returned by next. The tree is repaired as
+        usual and the iterator finds its place again with one descent. */
+    public void remove()
+    {
+      if(lastKey == null)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      checkForComodification();
+      BPlusTreeDictionary.this.remove(lastKey);
+      seek(lastKey);
+      lastKey = null;
+      expectedModCount = modCount;
+    } // end remove
+
+    /** Positions the iterator at the first entry not less than fromKey.
+        @param fromKey  The key to start from, or null for the front. */
+    private void seek(K fromKey)
+    {
+      if(fromKey == null)
+      {
+        nextLeaf = firstLeaf;
+        keyIndex = 0;
+      }
+      else
+      {
+        nextLeaf = findLeaf(fromKey);
+        keyIndex = nextLeaf.locateIndex(fromKey);
+      } // end if
+      skipToEntry();
+    } // end seek
+
+    /** Moves past the end of a leaf onto the front of the next one. */
+    private void skipToEntry()
+    {
+      while( (nextLeaf != null) && (keyIndex == nextLeaf.size) )
+      {
+        nextLeaf = nextLeaf.next;
+        keyIndex = 0;
+      } // end while
+    } // end skipToEntry
+
+    /** Throws an exception if the dictionary was changed behind the iterator. */
+    private void checkForComodification()
+    {
+      if(modCount != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+  } // end LeafIterator
+
+  /** Private inner class that iterates over the search keys. */
+  private class KeyIterator extends LeafIterator<K>
+  {
+    private KeyIterator(K fromKey)
+    {
+      super(fromKey);
+    } // end constructor
+
+    public K next()
+    {
+      int index = nextIndex();
+      return lastLeaf.keys[index];
+    } // end next
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends LeafIterator<V>
+  {
+    private ValueIterator(K fromKey)
+    {
+      super(fromKey);
+    } // end constructor
+
+    public V next()
+    {
+      int index = nextIndex();
+      return lastLeaf.values[index];
+    } // end next
+  } // end ValueIterator
+
+  /** Private inner class Node, the sorted keys shared by both node kinds. */
+  private abstract class Node
+  {
+    protected K[] keys;
+    protected int size;                 // Number of keys in use.
+
+    /** Creates a node with room for a given number of keys. */
+    private Node(int capacity)
+    {
+      @SuppressWarnings("unchecked")
+      K[] tempKeys = (K[])new Comparable[capacity];
+      keys = tempKeys;
+      size = 0;
+    } // end constructor
+  } // end Node
+
+  /** Private inner class LeafNode, which holds entries. */
+  private class LeafNode extends Node
+  {
+    private V[] values;                 // values[i] belongs to keys[i].
+    private LeafNode next;
+    private LeafNode previous;
+
+    /** Creates an empty leaf with room for one entry past the fanout,
+        so that a full leaf can take the entry that makes it split. */
+    private LeafNode()
+    {
+      super(fanout + 1);
+      @SuppressWarnings("unchecked")
+      V[] tempValues = (V[])new Object[fanout + 1];
+      values = tempValues;
+    } // end constructor
+
+    /** Bisects this leaf for key.
+        @return  The index of the first entry whose key is not less than key. */
+    private int locateIndex(K key)
+    {
+      int low = 0;
+      int high = size;
+      while(low < high)
+      {
+        int mid = (low + high) >>> 1;
+        if(key.compareTo(keys[mid]) > 0)
+        {
+          low = mid + 1;
+        }
+        else
+        {
+          high = mid;
+        } // end if
+      } // end while
+      return low;
+    } // end locateIndex
+
+    /** Sees whether the entry at a given position has the given search key. */
+    private boolean isKeyAt(int index, K key)
+    {
+      return (index < size) && (key.compareTo(keys[index]) == 0);
+    } // end isKeyAt
+
+    /** Inserts an entry at a position, shifting the later ones up. */
+    private void insertAt(int index, K key, V value)
+    {
+      System.arraycopy(keys, index, keys, index + 1, size - index);
+      System.arraycopy(values, index, values, index + 1, size - index);
+      keys[index] = key;
+      values[index] = value;
+      size++;
+    } // end insertAt
+
+    /** Removes the entry at a position, shifting the later ones down. */
+    private void removeAt(int index)
+    {
+      size--;
+      System.arraycopy(keys, index + 1, keys, index, size - index);
+      System.arraycopy(values, index + 1, values, index, size - index);
+      keys[size] = null;
+      values[size] = null;
+    } // end removeAt
+
+    /** Moves the upper half of this overfull leaf into a new leaf that is
+        linked in after it, and leaves the new leaf's first key in splitKey.
+        @return  The new leaf. */
+    private LeafNode split()
+    {
+      LeafNode upperHalf = new LeafNode();
+      int half = size / 2;
+      upperHalf.size = size - half;
+      System.arraycopy(keys, half, upperHalf.keys, 0, upperHalf.size);
+      System.arraycopy(values, half, upperHalf.values, 0, upperHalf.size);
+      Arrays.fill(keys, half, size, null);
+      Arrays.fill(values, half, size, null);
+      size = half;
+
+      upperHalf.next = next;
+      upperHalf.previous = this;
+      if(next != null)
+      {
+        next.previous = upperHalf;
+      } // end if
+      next = upperHalf;
+      splitKey = upperHalf.keys[0];
+      return upperHalf;
+    } // end split
+
+    /** Moves all entries of the following leaf onto the end of this one and
+        unlinks that leaf from the chain.
+        @param right  The leaf after this one. */
+    private void append(LeafNode right)
+    {
+      System.arraycopy(right.keys, 0, keys, size, right.size);
+      System.arraycopy(right.values, 0, values, size, right.size);
+      size += right.size;
+      next = right.next;
+      if(next != null)
+      {
+        next.previous = this;
+      } // end if
+    } // end append
+  } // end LeafNode
+
+  /** Private inner class InternalNode, which routes searches to children.
+      Keys in children[i + 1] are not less than keys[i]. */
+  private class InternalNode extends Node
+  {
+    private Node[] children;
+    private int entryCount;             // Number of entries in the leaves under this node.
+
+    /** Creates an empty internal node with room for one key past the
+        limit, so that a full node can take the key that makes it split. */
+    private InternalNode()
+    {
+      super(fanout);
+      children = newNodeArray(fanout + 1);
+    } // end constructor
+
+    /** Finds the child whose range covers key.
+        @return  The number of keys in this node that are not greater than key. */
+    private int childIndex(K key)
+    {
+      int low = 0;
+      int high = size;
+      while(low < high)
+      {
+        int mid = (low + high) >>> 1;
+        if(key.compareTo(keys[mid]) >= 0)
+        {
+          low = mid + 1;
+        }
+        else
+        {
+          high = mid;
+        } // end if
+      } // end while
+      return low;
+    } // end childIndex
+
+    /** Inserts a separator and the child to its right.
+        @param index  The position of the new separator.
+        @param key    The separator.
+        @param child  The child that goes after the separator. */
+    private void insertAt(int index, K key, Node child)
+    {
+      System.arraycopy(keys, index, keys, index + 1, size - index);
+      System.arraycopy(children, index + 1, children, index + 2, size - index);
+      keys[index] = key;
+      children[index + 1] = child;
+      size++;
+    } // end insertAt
+
+    /** Puts a separator and child in front of all others. */
+    private void prepend(K key, Node child)
+    {
+      System.arraycopy(keys, 0, keys, 1, size);
+      System.arraycopy(children, 0, children, 1, size + 1);
+      keys[0] = key;
+      children[0] = child;
+      size++;
+    } // end prepend
+
+    /** Removes a separator and the child to its right. */
+    private void removeAt(int index)
+    {
+      size--;
+      System.arraycopy(keys, index + 1, keys, index, size - index);
+      System.arraycopy(children, index + 2, children, index + 1, size - index);
+      keys[size] = null;
+      children[size + 1] = null;
+    } // end removeAt
+
+    /** Removes the first child and the separator after it. */
+    private void removeFirst()
+    {
+      size--;
+      System.arraycopy(keys, 1, keys, 0, size);
+      System.arraycopy(children, 1, children, 0, size + 1);
+      keys[size] = null;
+      children[size + 1] = null;
+    } // end removeFirst
+
+    /** Removes the last separator and the last child. */
+    private void removeLast()
+    {
+      size--;
+      keys[size] = null;
+      children[size + 1] = null;
+    } // end removeLast
+
+    /** Moves the upper half of this overfull node into a new node, pushing
+        the middle separator up through splitKey.
+        @return  The new node, which follows this one in key order. */
+    private InternalNode split()
+    {
+      InternalNode upperHalf = new InternalNode();
+      int middle = size / 2;
+      splitKey = keys[middle];
+      upperHalf.size = size - middle - 1;
+      System.arraycopy(keys, middle + 1, upperHalf.keys, 0, upperHalf.size);
+      System.arraycopy(children, middle + 1, upperHalf.children, 0, upperHalf.size + 1);
+      Arrays.fill(keys, middle, size, null);
+      Arrays.fill(children, middle + 1, size + 1, null);
+      size = middle;
+      for(int i = 0; i <= upperHalf.size; i++)
+      {
+        upperHalf.entryCount += countOf(upperHalf.children[i]);
+      } // end for
+      entryCount -= upperHalf.entryCount;
+      return upperHalf;
+    } // end split
+
+    /** Pulls the separator down and moves all keys and children of the
+        following node onto the end of this one.
+        @param separator  The parent key between this node and right.
+        @param right      The node after this one. */
+    private void append(K separator, InternalNode right)
+    {
+      keys[size] = separator;
+      System.arraycopy(right.keys, 0, keys, size + 1, right.size);
+      System.arraycopy(right.children, 0, children, size + 1, right.size + 1);
+      size += right.size + 1;
+      entryCount += right.entryCount;
+    } // end append
+  } // end InternalNode
+} // end of BPlusTreeDictionary
@@ -0,0 +1,156 @@
+import java.util.function.ToIntFunction;
+/**
+   A Bloom filter: a fixed-size set of bits that answers whether an object
+   might have been put, with no false negatives and a false positive rate
+   chosen when it is created. Objects cannot be taken out again, so a
+   filter whose objects have changed is rebuilt instead. The bit positions
+   of an object come from double hashing of its hashCode, or of a hash
+   function given when the filter is created. Objects the caller treats
+   as equal must have the same hash, or the filter reports them absent.
+   @author Minwoo Soh
+*/
+public class BloomFilter<T>
+{
+  private final long[] bits;
+  private final long bitCount;
+  private final int hashCount;
+  private final int expectedInsertions;
+  private final ToIntFunction<? super T> hasher;
+  private int insertions;
+
+  /** Creates an empty filter sized so that, after expectedInsertions
+      objects are put, about falsePositiveRate of the objects never put
+      are reported as possibly present.
+      @param expectedInsertions  The number of objects the filter is sized for.
+      @param falsePositiveRate   The wanted false positive rate, between 0 and 1.
+      @throws IllegalArgumentException if either argument is out of range. */
+  public BloomFilter(int expectedInsertions, double falsePositiveRate)
+  {
+    this(expectedInsertions, falsePositiveRate, Object::hashCode);
+  } // end constructor
+
+  /** Creates an empty filter like the constructor above, hashing objects
+      with a given function instead of hashCode.
+      @param expectedInsertions  The number of objects the filter is sized for.
+      @param falsePositiveRate   The wanted false positive rate, between 0 and 1.
+      @param hasher              Gives the hash of an object; objects treated
+                                 as equal must get the same hash.
+      @throws IllegalArgumentException if either number is out of range. */
+  public BloomFilter(int expectedInsertions, double falsePositiveRate, ToIntFunction<? super T> hasher)
+  {
+    if(expectedInsertions < 1)
+    {
+      throw new IllegalArgumentException("Expected insertions must be positive: " + expectedInsertions);
+    } // end if
+    if( !(falsePositiveRate > 0) || !(falsePositiveRate < 1) )
+    {
+      throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+    } // end if
+    double ln2 = Math.log(2);
+    long wantedBits = (long)Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (ln2 * ln2));
+    bits = new long[(int)Math.max(1, (wantedBits + 63) / 64)];
+    bitCount = 64L * bits.length;
+    hashCount = (int)Math.max(1, Math.round((double)bitCount / expectedInsertions * ln2));
+    this.expectedInsertions = expectedInsertions;
+    this.hasher = hasher;
+    insertions = 0;
+  } // end constructor
+
+  /** Puts an object into this filter.
+      @param object  The object to put. */
+  public void put(T object)
+  {
+    long hash = mix(hasher.applyAsInt(object));
+    int firstHash = (int)hash;
+    int secondHash = (int)(hash >>> 32);
+    for(int i = 1; i <= hashCount; i++)
+    {
+      long bit = ((firstHash + (long)i * secondHash) & Long.MAX_VALUE) % bitCount;
+      bits[(int)(bit >>> 6)] |= 1L << bit;
+    } // end for
+    insertions++;
+  } // end put
+
+  /** Sees whether an object might have been put into this filter.
+      @param object  The object to look for.
+      @return  False if object was certainly never put, true if it might
+               have been. */
+  public boolean mightContain(T object)
+  {
+    long hash = mix(hasher.applyAsInt(object));
+    int firstHash = (int)hash;
+    int secondHash = (int)(hash >>> 32);
+    boolean result = true;
+    for(int i = 1; result && (i <= hashCount); i++)
+    {
+      long bit = ((firstHash + (long)i * secondHash) & Long.MAX_VALUE) % bitCount;
+      result = (bits[(int)(bit >>> 6)] & (1L << bit)) != 0;
+    } // end for
+    return result;
+  } // end mightContain
+
+  /** Removes every object from this filter. */
+  public void clear()
+  {
+    for(int i = 0; i < bits.length; i++)
+    {
+      bits[i] = 0;
+    } // end for
+    insertions = 0;
+  } // end clear
+
+  /** Gets the number of objects this filter was sized for.
+      @return  The expected insertions given when it was created. */
+  public int getExpectedInsertions()
+  {
+    return expectedInsertions;
+  } // end getExpectedInsertions
+
+  /** Gets the number of times put was called since the filter was
+      created or cleared.
+      @return  The count of insertions, including repeats. */
+  public int getInsertions()
+  {
+    return insertions;
+  } // end getInsertions
+
+  /** Gets the number of bits in this filter.
+      @return  The size of the filter in bits. */
+  public long getBitCount()
+  {
+    return bitCount;
+  } // end getBitCount
+
+  /** Gets the number of bits set for each object.
+      @return  The number of hash functions. */
+  public int getHashCount()
+  {
+    return hashCount;
+  } // end getHashCount
+
+  /** Estimates the false positive rate from the share of bits now set.
+      @return  The chance that an object never put is reported as
+               possibly present. */
+  public double getExpectedFalsePositiveRate()
+  {
+    long setBits = 0;
+    for(long word : bits)
+    {
+      setBits += Long.bitCount(word);
+    } // end for
+    return Math.pow((double)setBits / bitCount, hashCount);
+  } // end getExpectedFalsePositiveRate
+
+  /** Spreads a hash code over 64 bits, so that nearby hash codes, such
+      as those of consecutive Integers, set unrelated bits. */
+  private static long mix(int hashCode)
+  {
+    long result = hashCode * 0x9E3779B97F4A7C15L;
+    result ^= result >>> 33;
+    result *= 0xFF51AFD7ED558CCDL;
+    result ^= result >>> 33;
+    result *= 0xC4CEB9FE1A85EC53L;
+    result ^= result >>> 33;
+    return result;
+  } // end mix
+} // end of BloomFilter
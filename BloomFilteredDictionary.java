@@ -0,0 +1,319 @@
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import java.util.function.ToIntFunction;
+/**
+   A wrapper around any DictionaryInterface that keeps a Bloom filter of
+   its search keys, so that getValue and contains for a key that is not
+   there usually return without searching the wrapped dictionary.
+   The filter is filled on add. It cannot forget a removed key, so after
+   enough removes it is rebuilt from the remaining keys, lazily, on the
+   next lookup; until then a removed key only costs a full search. When
+   the dictionary grows past the size the filter was made for, the filter
+   is rebuilt twice as large. Counters of how often the filter answered
+   are kept for tuning the false positive rate. Like the dictionaries it
+   wraps, it is not safe for use by several threads at once.
+   The filter hashes keys with hashCode unless a key hash function is
+   given. The wrapped dictionaries match keys with compareTo, so keys
+   that compare equal must get the same hash: otherwise a key the
+   dictionary holds may be reported absent. Keys such as BigDecimal,
+   where 1.0 and 1.00 compare equal but hash differently, need a hash
+   function that agrees with compareTo, such as one of
+   stripTrailingZeros().
+   @author Minwoo Soh
+*/
+public class BloomFilteredDictionary<K, V> implements DictionaryInterface<K, V>
+{
+  private final DictionaryInterface<K, V> dictionary;
+  private final double falsePositiveRate;
+  private final ToIntFunction<? super K> keyHash;
+  private BloomFilter<K> filter;
+  private int staleKeys;                // Keys removed since the filter was built.
+  private long lookups;
+  private long definiteMisses;          // Lookups answered by the filter alone.
+  private long falsePositives;          // Lookups the filter passed that found nothing.
+  private long rebuilds;
+  private final static double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+  private final static int DEFAULT_EXPECTED_SIZE = 1024;
+  private final static int STALE_DIVISOR = 4;  // Rebuild once stale keys pass 1/4 of the filter's keys.
+
+  /** Wraps a dictionary with a filter for the default expected size and
+      a false positive rate of 1 percent.
+      @param dictionary  The dictionary to be filtered. */
+  public BloomFilteredDictionary(DictionaryInterface<K, V> dictionary)
+  {
+    this(dictionary, DEFAULT_EXPECTED_SIZE, DEFAULT_FALSE_POSITIVE_RATE);
+  } // end constructor
+
+  /** Wraps a dictionary with a filter of a given size and accuracy. Keys
+      already in the dictionary are put into the filter.
+      @param dictionary         The dictionary to be filtered.
+      @param expectedSize       The number of entries the filter is first sized for.
+      @param falsePositiveRate  The wanted share of misses that still search
+                                the dictionary, between 0 and 1.
+      @throws IllegalArgumentException if expectedSize or falsePositiveRate
+              is out of range. */
+  public BloomFilteredDictionary(DictionaryInterface<K, V> dictionary, int expectedSize, double falsePositiveRate)
+  {
+    this(dictionary, expectedSize, falsePositiveRate, Object::hashCode);
+  } // end constructor
+
+  /** Wraps a dictionary with a filter of a given size and accuracy that
+      hashes keys with a given function. Keys already in the dictionary
+      are put into the filter.
+      @param dictionary         The dictionary to be filtered.
+      @param expectedSize       The number of entries the filter is first sized for.
+      @param falsePositiveRate  The wanted share of misses that still search
+                                the dictionary, between 0 and 1.
+      @param keyHash            Gives the hash of a key; keys the dictionary
+                                treats as equal must get the same hash.
+      @throws IllegalArgumentException if expectedSize or falsePositiveRate
+              is out of range. */
+  public BloomFilteredDictionary(DictionaryInterface<K, V> dictionary, int expectedSize, double falsePositiveRate,
+                                 ToIntFunction<? super K> keyHash)
+  {
+    this.dictionary = dictionary;
+    this.falsePositiveRate = falsePositiveRate;
+    this.keyHash = keyHash;
+    rebuild(Math.max(expectedSize, dictionary.getSize()));
+    rebuilds = 0;
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    V result = dictionary.add(key, value);
+    if( (key != null) && (value != null) && (result == null) )
+    {
+      if(dictionary.getSize() > filter.getExpectedInsertions())
+      {
+        rebuild(2 * dictionary.getSize());
+      }
+      else
+      {
+        filter.put(key);
+      } // end if
+    } // end if
+    return result;
+  } // end add
+
+  /** Removes a specific entry from this dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    V result = null;
+    if( (key == null) || filter.mightContain(key) )
+    {
+      result = dictionary.remove(key);
+      if(result != null)
+      {
+        staleKeys++;
+      } // end if
+    } // end if
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(K key)
+  {
+    V result = null;
+    if(mightContain(key))
+    {
+      result = dictionary.getValue(key);
+      if(result == null)
+      {
+        falsePositives++;
+      } // end if
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(K key)
+  {
+    boolean result = false;
+    if(mightContain(key))
+    {
+      result = dictionary.contains(key);
+      if(!result)
+      {
+        falsePositives++;
+      } // end if
+    } // end if
+    return result;
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new CountingIterator<>(dictionary.getKeyIterator());
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new CountingIterator<>(dictionary.getValueIterator());
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass.
+      @param action  The action to be performed for each entry, in the
+                     order of the wrapped dictionary. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    dictionary.forEach(action);
+  } // end forEach
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return dictionary.isEmpty();
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    return dictionary.getSize();
+  } // end getSize
+
+  /** Removes all entries from this dictionary. */
+  public void clear()
+  {
+    dictionary.clear();
+    filter.clear();
+    staleKeys = 0;
+  } // end clear
+
+  /** Gets the number of getValue and contains calls made.
+      @return  The count of lookups. */
+  public long getLookupCount()
+  {
+    return lookups;
+  } // end getLookupCount
+
+  /** Gets the number of lookups the filter answered without searching.
+      @return  The count of definite misses. */
+  public long getDefiniteMissCount()
+  {
+    return definiteMisses;
+  } // end getDefiniteMissCount
+
+  /** Gets the number of lookups the filter passed that found no entry,
+      including those for keys removed since the filter was built.
+      @return  The count of false positives. */
+  public long getFalsePositiveCount()
+  {
+    return falsePositives;
+  } // end getFalsePositiveCount
+
+  /** Gets the share of misses that the filter failed to stop.
+      @return  False positives divided by all misses, or 0 if there
+               were no misses. */
+  public double getObservedFalsePositiveRate()
+  {
+    long misses = definiteMisses + falsePositives;
+    return (misses == 0) ? 0 : (double)falsePositives / misses;
+  } // end getObservedFalsePositiveRate
+
+  /** Gets the number of times the filter was rebuilt, after removes or
+      because the dictionary outgrew it.
+      @return  The count of rebuilds. */
+  public long getRebuildCount()
+  {
+    return rebuilds;
+  } // end getRebuildCount
+
+  /** Gets the filter in use, for inspecting its size and fill.
+      @return  The current filter. */
+  public BloomFilter<K> getFilter()
+  {
+    return filter;
+  } // end getFilter
+
+  /** Counts a lookup and asks the filter about its key, first rebuilding
+      the filter if enough keys were removed since it was built.
+      @param key  The key looked up.
+      @return  False if key is certainly not in the dictionary. A null
+               key is left for the wrapped dictionary to judge. */
+  private boolean mightContain(K key)
+  {
+    lookups++;
+    boolean result = true;
+    if(key != null)
+    {
+      if(staleKeys > filter.getInsertions() / STALE_DIVISOR)
+      {
+        rebuild(Math.max(filter.getExpectedInsertions(), dictionary.getSize()));
+      } // end if
+      result = filter.mightContain(key);
+      if(!result)
+      {
+        definiteMisses++;
+      } // end if
+    } // end if
+    return result;
+  } // end mightContain
+
+  /** Replaces the filter with one holding exactly the current keys.
+      @param expectedSize  The number of entries the new filter is sized for. */
+  private void rebuild(int expectedSize)
+  {
+    BloomFilter<K> newFilter = new BloomFilter<>(expectedSize, falsePositiveRate, keyHash);
+    Iterator<K> keys = dictionary.getKeyIterator();
+    while(keys.hasNext())
+    {
+      newFilter.put(keys.next());
+    } // end while
+    filter = newFilter;
+    staleKeys = 0;
+    rebuilds++;
+  } // end rebuild
+
+  /** Private inner class that counts removes made through an iterator of
+      the wrapped dictionary. */
+  private class CountingIterator<T> implements Iterator<T>
+  {
+    private final Iterator<T> iterator;
+
+    private CountingIterator(Iterator<T> iterator)
+    {
+      this.iterator = iterator;
+    } // end constructor
+
+    public boolean hasNext()
+    {
+      return iterator.hasNext();
+    } // end hasNext
+
+    public T next()
+    {
+      return iterator.next();
+    } // end next
+
+    public void remove()
+    {
+      iterator.remove();
+      staleKeys++;
+    } // end remove
+  } // end CountingIterator
+} // end of BloomFilteredDictionary
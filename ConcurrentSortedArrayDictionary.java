@@ -0,0 +1,536 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.BiConsumer;
+/**
+   A thread-safe dictionary using resizable sorted parallel arrays that
+   implements DictionaryInterface, meant to be shared by many threads that
+   mostly read. Writers take the write lock of a StampedLock, so add,
+   remove and clear are linearizable, growth included. Readers do not
+   lock: getValue and contains take an optimistic stamp, search the arrays
+   and then validate the stamp, falling back to the read lock only when a
+   writer got in between. A reader that raced a writer may have seen torn
+   state, so anything it computed, including an exception it hit, is
+   thrown away unless the stamp validates.
+   The iterators and forEach read the arrays in place, 64 entries at a
+   time, each chunk under its own optimistic stamp, and only read a chunk
+   again under the read lock if its stamp fails. They never fail, never
+   hold a lock while the caller runs, and need no copy of the whole
+   dictionary. They are weakly consistent: keys come in ascending order
+   without repeats, an entry that is there throughout is seen, and
+   changes made while they run may or may not be seen.
+   @author Minwoo Soh
+*/
+public class ConcurrentSortedArrayDictionary<K extends Comparable<? super K>, V> implements DictionaryInterface<K, V>
+{
+  private K[] keys;
+  private V[] values;                   // values[i] belongs to keys[i].
+  private int numberOfEntries;
+  private final StampedLock lock;       // Guards the three fields above.
+  private final static int DEFAULT_CAPACITY = 25;
+  private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+  private final static int CHUNK_SIZE = 64;         // Entries the iterators and forEach read per stamp.
+
+  /** Creates an empty dictionary with the default capacity of 25. */
+  public ConcurrentSortedArrayDictionary()
+  {
+    this(DEFAULT_CAPACITY);
+  } // end default constructor
+
+  /** Creates an empty dictionary with specificed capacity.
+      @param initialCapacity  The wanted size of the array capacity. */
+  public ConcurrentSortedArrayDictionary(int initialCapacity)
+  {
+    checkCapacity(initialCapacity);
+    @SuppressWarnings("unchecked")
+    K[] tempKeys = (K[])new Comparable[initialCapacity];
+    keys = tempKeys;
+    @SuppressWarnings("unchecked")
+    V[] tempValues = (V[])new Object[initialCapacity];
+    values = tempValues;
+    numberOfEntries = 0;
+    lock = new StampedLock();
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    V result = null;
+    try
+    {
+      if( (key == null) || (value == null) )
+      {
+        throw new IllegalStateException("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        long stamp = lock.writeLock();
+        try
+        {
+          int keyIndex = locateIndex(keys, numberOfEntries, key);
+          if(isKeyAt(keys, numberOfEntries, keyIndex, key))
+          {
+            // If key already exists in the dictionary.
+            result = values[keyIndex];
+            values[keyIndex] = value;
+          }
+          else // If key is new.
+          {
+            ensureCapacity();
+            makeRoom(keyIndex);
+            keys[keyIndex] = key;
+            values[keyIndex] = value;
+            numberOfEntries++;
+          } // end if
+        }
+        finally
+        {
+          lock.unlockWrite(stamp);
+        } // end try
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    return result;
+  } // end add
+
+  /** Removes a specific entry from this dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    V result = null;
+    long stamp = lock.writeLock();
+    try
+    {
+      int keyIndex = locateIndex(keys, numberOfEntries, key);
+      if(isKeyAt(keys, numberOfEntries, keyIndex, key)) // If key is found.
+      {
+        result = values[keyIndex];
+        removeGap(keyIndex);
+        numberOfEntries--;
+      } // end if
+    }
+    finally
+    {
+      lock.unlockWrite(stamp);
+    } // end try
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key. Takes no lock unless a writer is active.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(K key)
+  {
+    V result = null;
+    long stamp = lock.tryOptimisticRead();
+    if(stamp != 0L)
+    {
+      try
+      {
+        result = find(key);
+      }
+      catch(RuntimeException e) // Torn state; retry under the read lock.
+      {
+        stamp = 0L;
+      } // end try
+    } // end if
+    if(!lock.validate(stamp))
+    {
+      stamp = lock.readLock();
+      try
+      {
+        result = find(key);
+      }
+      finally
+      {
+        lock.unlockRead(stamp);
+      } // end try
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary. Takes no lock
+      unless a writer is active.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(K key)
+  {
+    return getValue(key) != null;
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator reads the arrays in place a chunk at a time and is
+      weakly consistent, so it never throws ConcurrentModificationException
+      and may or may not see later changes. Its remove removes the key from
+      the dictionary.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new KeyIterator();
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      The iterator reads the arrays in place a chunk at a time and is
+      weakly consistent, so it never throws ConcurrentModificationException
+      and may or may not see later changes. Its remove removes the entry
+      from the dictionary.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new ValueIterator();
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass. The action
+      runs on each chunk only once the chunk is validated, and no lock is
+      held while it runs, so it may change the dictionary.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    ChunkReader reader = new ChunkReader();
+    while(reader.readChunk())
+    {
+      for(int i = 0; i < reader.chunkLength; i++)
+      {
+        action.accept(reader.chunkKeys[i], reader.chunkValues[i]);
+      } // end for
+    } // end while
+  } // end forEach
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return getSize() == 0;
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    long stamp = lock.tryOptimisticRead();
+    int result = numberOfEntries;
+    if(!lock.validate(stamp))
+    {
+      stamp = lock.readLock();
+      result = numberOfEntries;
+      lock.unlockRead(stamp);
+    } // end if
+    return result;
+  } // end getSize
+
+  /** Removes all entries from this dictionary. */
+  public void clear()
+  {
+    long stamp = lock.writeLock();
+    try
+    {
+      Arrays.fill(keys, 0, numberOfEntries, null);
+      Arrays.fill(values, 0, numberOfEntries, null);
+      numberOfEntries = 0;
+    }
+    finally
+    {
+      lock.unlockWrite(stamp);
+    } // end try
+  } // end clear
+
+  /** Looks up key without locking. The fields are read once into locals
+      so that a writer swapping in grown arrays cannot mix two of them
+      within one search; the caller must validate its stamp before
+      trusting the result.
+      @param key  The search key to look for.
+      @return  Either the value of key or null if it was not seen. */
+  private V find(K key)
+  {
+    K[] currentKeys = keys;
+    V[] currentValues = values;
+    int size = Math.min(numberOfEntries, currentKeys.length);
+    V result = null;
+    int keyIndex = locateIndex(currentKeys, size, key);
+    if(isKeyAt(currentKeys, size, keyIndex, key))
+    {
+      result = currentValues[keyIndex];
+    } // end if
+    return result;
+  } // end find
+
+  /** Searches the first size keys of an array with a binary search.
+      @param searchKeys  The sorted keys to search.
+      @param size        The number of keys in use.
+      @param key         The search key to look for.
+      @return  The index of the first key that is not less than key. */
+  private static <K extends Comparable<? super K>> int locateIndex(K[] searchKeys, int size, K key)
+  {
+    int low = 0;
+    int high = size;
+    while(low < high)
+    {
+      int mid = (low + high) >>> 1;
+      if(key.compareTo(searchKeys[mid]) > 0)
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      } // end if
+    } // end while
+    return low;
+  } // end locateIndex
+
+  /** Sees whether the key at a given position equals the given search key.
+      @param searchKeys  The sorted keys searched.
+      @param size        The number of keys in use.
+      @param index       A position returned by locateIndex.
+      @param key         The search key to compare against.
+      @return  True if index holds a key that equals key. */
+  private static <K extends Comparable<? super K>> boolean isKeyAt(K[] searchKeys, int size, int index, K key)
+  {
+    return (index < size) && (key.compareTo(searchKeys[index]) == 0);
+  } // end isKeyAt
+
+  /** Makes room for a new entry at position. Shifts entries after position.
+      @param position  The position where new entry will be inserted. */
+  private void makeRoom(int position)
+  {
+    int count = numberOfEntries - position;
+    System.arraycopy(keys, position, keys, position + 1, count);
+    System.arraycopy(values, position, values, position + 1, count);
+  } // end makeRoom
+
+  /** Shifts entries that are beyond the entry to be removed to the next lower position.
+      @param position  The position of the entry being removed. */
+  private void removeGap(int position)
+  {
+    int lastIndex = numberOfEntries - 1;
+    int count = lastIndex - position;
+    System.arraycopy(keys, position + 1, keys, position, count);
+    System.arraycopy(values, position + 1, values, position, count);
+    keys[lastIndex] = null;
+    values[lastIndex] = null;
+  } // end removeGap
+
+  /** Throws an exception if the user requests a capacity that is too large.
+      @param capacity  The size of requested array. */
+  private void checkCapacity(int capacity)
+  {
+    if (capacity < 0)
+    {
+      throw new IllegalArgumentException("Dictionary capacity cannot be negative: " + capacity);
+    }
+    else if (capacity > MAX_CAPACITY)
+    {
+      throw new IllegalStateException("Attempt to create a dictionary whose capacity " +
+                                      "exceeds allowed maximum of " + MAX_CAPACITY);
+    } // end if
+  } // end checkCapacity
+
+  /** Doubles the size of the arrays if they are full. Growth is capped at
+      MAX_CAPACITY instead of overflowing past it. Called with the write
+      lock held, so readers see the new arrays only after validating. */
+  private void ensureCapacity()
+  {
+    if(numberOfEntries == keys.length)
+    {
+      if(keys.length == MAX_CAPACITY)
+      {
+        throw new IllegalStateException("Attempt to grow a dictionary past the allowed maximum of " +
+                                        MAX_CAPACITY);
+      } // end if
+      int newLength = Math.max(1, keys.length);
+      newLength = (newLength > MAX_CAPACITY - newLength) ? MAX_CAPACITY : 2 * newLength;
+      keys = Arrays.copyOf(keys, newLength);
+      values = Arrays.copyOf(values, newLength);
+    } // end if
+  } // end ensureCapacity
+
+  /** Private inner class that reads the entries in place, a chunk at a
+      time, into small buffers it reuses. Each chunk is read under an
+      optimistic stamp and kept only if the stamp validates; otherwise
+      the chunk is read again under the read lock. The next chunk starts
+      where the last one ended if no writer has got in since, and
+      otherwise just after the last key read, found by binary search, so
+      no key is skipped or repeated when a writer shifts the arrays. */
+  private class ChunkReader
+  {
+    private final K[] chunkKeys;
+    private final V[] chunkValues;
+    private int chunkLength;            // Entries in the buffers.
+    private int chunkEnd;               // Position in the arrays just after the chunk.
+    private long stamp;                 // Stamp the last chunk was read under, or 0 before the first.
+    private K lastKey;                  // Last key of the last chunk, or null before the first.
+
+    private ChunkReader()
+    {
+      // Always full size: the dictionary may grow while the reader walks it.
+      @SuppressWarnings("unchecked")
+      K[] tempKeys = (K[])new Comparable[CHUNK_SIZE];
+      chunkKeys = tempKeys;
+      @SuppressWarnings("unchecked")
+      V[] tempValues = (V[])new Object[CHUNK_SIZE];
+      chunkValues = tempValues;
+      chunkLength = 0;
+      chunkEnd = 0;
+      stamp = 0L;
+      lastKey = null;
+    } // end default constructor
+
+    /** Reads the chunk that follows the last one into the buffers.
+        @return  True if the chunk has any entries, false at the end. */
+    private boolean readChunk()
+    {
+      long newStamp = lock.tryOptimisticRead();
+      boolean read = false;
+      if(newStamp != 0L)
+      {
+        try
+        {
+          copyChunk();
+          read = true;
+        }
+        catch(RuntimeException e) // Torn state; retry under the read lock.
+        {
+          read = false;
+        } // end try
+      } // end if
+      if( !read || !lock.validate(newStamp) )
+      {
+        newStamp = lock.readLock();
+        try
+        {
+          copyChunk();
+        }
+        finally
+        {
+          lock.unlockRead(newStamp);
+        } // end try
+      } // end if
+      stamp = newStamp;
+      if(chunkLength > 0)
+      {
+        lastKey = chunkKeys[chunkLength - 1];
+      } // end if
+      return chunkLength > 0;
+    } // end readChunk
+
+    /** Copies the entries after lastKey into the buffers. The fields are
+        read once into locals, as in find. */
+    private void copyChunk()
+    {
+      K[] currentKeys = keys;
+      V[] currentValues = values;
+      int size = Math.min(numberOfEntries, currentKeys.length);
+      int start = 0;
+      if( (lastKey != null) && lock.validate(stamp) ) // No writer since the last chunk.
+      {
+        start = chunkEnd;
+      }
+      else if(lastKey != null)
+      {
+        start = locateIndex(currentKeys, size, lastKey);
+        if(isKeyAt(currentKeys, size, start, lastKey))
+        {
+          start++;
+        } // end if
+      } // end if
+      int length = Math.max(0, Math.min(chunkKeys.length, size - start));
+      System.arraycopy(currentKeys, start, chunkKeys, 0, length);
+      System.arraycopy(currentValues, start, chunkValues, 0, length);
+      if(length < chunkLength) // Drop references left from the last chunk.
+      {
+        Arrays.fill(chunkKeys, length, chunkLength, null);
+        Arrays.fill(chunkValues, length, chunkLength, null);
+      } // end if
+      chunkLength = length;
+      chunkEnd = start + length;
+    } // end copyChunk
+  } // end ChunkReader
+
+  /** Private inner class that walks the entries a chunk at a time. */
+  private abstract class ChunkIterator<T> implements Iterator<T>
+  {
+    protected final ChunkReader reader;
+    private int nextIndex;              // Position in the chunk of the entry next returns.
+    private K lastKey;                  // Key of the last entry returned, or null.
+    private boolean finished;
+
+    private ChunkIterator()
+    {
+      reader = new ChunkReader();
+      nextIndex = 0;
+      lastKey = null;
+      finished = false;
+    } // end default constructor
+
+    public boolean hasNext()
+    {
+      if( (nextIndex == reader.chunkLength) && !finished )
+      {
+        finished = !reader.readChunk();
+        nextIndex = 0;
+      } // end if
+      return nextIndex < reader.chunkLength;
+    } // end hasNext
+
+    /** Advances to the next entry.
+        @return  The position of that entry in the chunk. */
+    protected int nextIndex()
+    {
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      lastKey = reader.chunkKeys[nextIndex];
+      nextIndex++;
+      return nextIndex - 1;
+    } // end nextIndex
+
+    /** Removes the entry last returned by next from the dictionary. */
+    public void remove()
+    {
+      if(lastKey == null)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      ConcurrentSortedArrayDictionary.this.remove(lastKey);
+      lastKey = null;
+    } // end remove
+  } // end ChunkIterator
+
+  /** Private inner class that iterates over the search keys. */
+  private class KeyIterator extends ChunkIterator<K>
+  {
+    public K next()
+    {
+      return reader.chunkKeys[nextIndex()];
+    } // end next
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends ChunkIterator<V>
+  {
+    public V next()
+    {
+      return reader.chunkValues[nextIndex()];
+    } // end next
+  } // end ValueIterator
+} // end of ConcurrentSortedArrayDictionary
@@ -0,0 +1,413 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicMarkableReference;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+/**
+   A non-blocking dictionary using sorted linked data that implements
+   DictionaryInterface, after the lock-free list of Harris and Michael.
+   Nodes are linked in with a compare-and-set on the link of the node
+   before them, so adds and removes on different keys never wait for each
+   other. A node is removed in two steps: its value is first swapped to
+   null, which is the moment the entry leaves the dictionary, then the
+   link out of it is marked so no node can be linked in after it, and any
+   thread that walks past a marked node unlinks it.
+   getValue and contains walk the chain without writing anything. The
+   iterators and forEach are weakly consistent: they never throw
+   ConcurrentModificationException, and may or may not see changes made
+   while they run. getSize is exact only while no add or remove is running.
+   @author Minwoo Soh
+*/
+public class ConcurrentSortedLinkedDictionary<K extends Comparable<? super K>, V> implements DictionaryInterface<K, V>
+{
+  private final Node<K, V> head;        // Sentinel before the first entry; it has no key.
+  private final AtomicInteger numberOfEntries;
+
+  /** Create a ConcurrentSortedLinkedDictionary with no entries. */
+  public ConcurrentSortedLinkedDictionary()
+  {
+    head = new Node<>(null, null, null);
+    numberOfEntries = new AtomicInteger(0);
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    V result = null;
+    try
+    {
+      if( (key == null) || (value == null) )
+      {
+        throw new IllegalStateException("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        boolean done = false;
+        while(!done)
+        {
+          Window<K, V> window = find(key);
+          Node<K, V> currentNode = window.currentNode;
+          if( (currentNode != null) && (key.compareTo(currentNode.getKey()) == 0) )
+          {
+            // If key already exists, swap in the new value unless a remove claimed it first.
+            V oldValue = currentNode.getValue();
+            if(oldValue == null)
+            {
+              currentNode.markRemoved(); // Help the remove along, then look again.
+            }
+            else if(currentNode.value.compareAndSet(oldValue, value))
+            {
+              result = oldValue;
+              done = true;
+            } // end if
+          }
+          else // If key is new.
+          {
+            Node<K, V> newNode = new Node<>(key, value, currentNode);
+            if(window.nodeBefore.next.compareAndSet(currentNode, newNode, false, false))
+            {
+              numberOfEntries.incrementAndGet();
+              done = true;
+            } // end if
+          } // end if
+        } // end while
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    return result;
+  } // end add
+
+  /** Removes a specific entry from this dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    V result = null;
+    boolean done = false;
+    while(!done)
+    {
+      Window<K, V> window = find(key);
+      Node<K, V> currentNode = window.currentNode;
+      if( (currentNode == null) || (key.compareTo(currentNode.getKey()) != 0) )
+      {
+        done = true; // Key is not in the dictionary.
+      }
+      else
+      {
+        V oldValue = currentNode.getValue();
+        if(oldValue == null)
+        {
+          currentNode.markRemoved(); // Another remove won; unlink it and look again.
+        }
+        else if(currentNode.value.compareAndSet(oldValue, null))
+        {
+          result = oldValue;
+          numberOfEntries.decrementAndGet();
+          currentNode.markRemoved();
+          // Try to unlink the node now; if that fails, a later find will.
+          window.nodeBefore.next.compareAndSet(currentNode, currentNode.getNextNode(), false, false);
+          done = true;
+        } // end if
+      } // end if
+    } // end while
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key. The walk takes no lock and writes nothing.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(K key)
+  {
+    V result = null;
+    Node<K, V> currentNode = head.getNextNode();
+    while( (currentNode != null) && (key.compareTo(currentNode.getKey()) > 0) )
+    {
+      currentNode = currentNode.getNextNode();
+    } // end while
+    if( (currentNode != null) && (key.compareTo(currentNode.getKey()) == 0) )
+    {
+      result = currentNode.getValue(); // Null if the entry was removed.
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(K key)
+  {
+    return getValue(key) != null;
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator is weakly consistent and its remove removes the key
+      from the dictionary.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new KeyIterator();
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      The iterator is weakly consistent and its remove removes the entry
+      from the dictionary.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new ValueIterator();
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass. The walk
+      is weakly consistent, like the iterators, and the action may change
+      the dictionary.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    Node<K, V> currentNode = head.getNextNode();
+    while(currentNode != null)
+    {
+      V value = currentNode.getValue();
+      if(value != null)
+      {
+        action.accept(currentNode.getKey(), value);
+      } // end if
+      currentNode = currentNode.getNextNode();
+    } // end while
+  } // end forEach
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return getSize() == 0;
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    return numberOfEntries.get();
+  } // end getSize
+
+  /** Removes all entries from this dictionary, one at a time. Entries
+      added while clear runs may survive it. */
+  public void clear()
+  {
+    Node<K, V> currentNode = head.getNextNode();
+    while(currentNode != null)
+    {
+      remove(currentNode.getKey());
+      currentNode = currentNode.getNextNode();
+    } // end while
+  } // end clear
+
+  /** Finds the first node whose key is not less than key and the node
+      linked before it, unlinking every marked node on the way. Starts
+      over from head if an unlink fails, since the node before has
+      changed under it.
+      @param key  The search key to look for.
+      @return  The pair of nodes; currentNode is null at the end of the chain. */
+  private Window<K, V> find(K key)
+  {
+    Window<K, V> result = null;
+    boolean[] marked = {false};         // One holder for the whole search; get overwrites it.
+    while(result == null)
+    {
+      Node<K, V> nodeBefore = head;
+      Node<K, V> currentNode = head.getNextNode();
+      boolean restart = false;
+      while( (result == null) && !restart )
+      {
+        if(currentNode == null)
+        {
+          result = new Window<>(nodeBefore, null);
+        }
+        else
+        {
+          Node<K, V> nodeAfter = currentNode.next.get(marked);
+          if(marked[0]) // If currentNode was removed, unlink it.
+          {
+            if(nodeBefore.next.compareAndSet(currentNode, nodeAfter, false, false))
+            {
+              currentNode = nodeAfter;
+            }
+            else
+            {
+              restart = true;
+            } // end if
+          }
+          else if(key.compareTo(currentNode.getKey()) <= 0)
+          {
+            result = new Window<>(nodeBefore, currentNode);
+          }
+          else
+          {
+            nodeBefore = currentNode;
+            currentNode = nodeAfter;
+          } // end if
+        } // end if
+      } // end while
+    } // end while
+    return result;
+  } // end find
+
+  /** Private inner class that holds the two nodes find stops between. */
+  private static class Window<K, V>
+  {
+    private final Node<K, V> nodeBefore;
+    private final Node<K, V> currentNode;
+
+    private Window(Node<K, V> nodeBefore, Node<K, V> currentNode)
+    {
+      this.nodeBefore = nodeBefore;
+      this.currentNode = currentNode;
+    } // end constructor
+  } // end Window
+
+  /** Private inner class that walks the chain, skipping removed entries. */
+  private abstract class NodeIterator<T> implements Iterator<T>
+  {
+    private Node<K, V> nextNode;        // Node that next returns, or null at the end.
+    private V nextValue;                // Value of nextNode as it was seen.
+    protected K lastKey;                // Key last returned, or null after remove.
+    protected V lastValue;              // Value last returned.
+
+    private NodeIterator()
+    {
+      nextNode = head;
+      advance();
+      lastKey = null;
+    } // end default constructor
+
+    public boolean hasNext()
+    {
+      return nextNode != null;
+    } // end hasNext
+
+    /** Advances to the next live entry, recording its key and value. */
+    protected void nextEntry()
+    {
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      lastKey = nextNode.getKey();
+      lastValue = nextValue;
+      advance();
+    } // end nextEntry
+
+    /** Removes the entry last returned by next from the dictionary. */
+    public void remove()
+    {
+      if(lastKey == null)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      ConcurrentSortedLinkedDictionary.this.remove(lastKey);
+      lastKey = null;
+    } // end remove
+
+    /** Moves nextNode to the following node whose value is not null. */
+    private void advance()
+    {
+      nextValue = null;
+      nextNode = nextNode.getNextNode();
+      while( (nextNode != null) && (nextValue == null) )
+      {
+        nextValue = nextNode.getValue();
+        if(nextValue == null)
+        {
+          nextNode = nextNode.getNextNode();
+        } // end if
+      } // end while
+    } // end advance
+  } // end NodeIterator
+
+  /** Private inner class that iterates over the search keys. */
+  private class KeyIterator extends NodeIterator<K>
+  {
+    public K next()
+    {
+      nextEntry();
+      return lastKey;
+    } // end next
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends NodeIterator<V>
+  {
+    public V next()
+    {
+      nextEntry();
+      return lastValue;
+    } // end next
+  } // end ValueIterator
+
+  /** Private inner class Node. The value is null once the entry is
+      removed, and the mark on next is set once nothing may follow it. */
+  private static class Node<K, V>
+  {
+    private final K key;
+    private final AtomicReference<V> value;
+    private final AtomicMarkableReference<Node<K, V>> next;
+
+    /** Creates an instance that contains the key and value.
+        The new Node points to another node.
+        @param key    Set key for new Entry.
+        @param value  Set value for new Entry.
+        @param next   The node that follows this one. */
+    private Node(K key, V value, Node<K, V> next)
+    {
+      this.key = key;
+      this.value = new AtomicReference<>(value);
+      this.next = new AtomicMarkableReference<>(next, false);
+    } // end constructor
+
+    /** Returns the key.
+        @return  Key of Entry. */
+    private K getKey()
+    {
+      return key;
+    } // end getKey
+
+    /** Returns the value.
+        @return  Value of Entry, or null if it was removed. */
+    private V getValue()
+    {
+      return value.get();
+    } // end getValue
+
+    /** Returns the next Node, whether or not the link is marked. */
+    private Node<K, V> getNextNode()
+    {
+      return next.getReference();
+    } // end getNextNode
+
+    /** Marks the link out of this node so nothing can be linked in after it. */
+    private void markRemoved()
+    {
+      while(!next.isMarked())
+      {
+        next.attemptMark(next.getReference(), true);
+      } // end while
+    } // end markRemoved
+  } // end Node
+} // end of ConcurrentSortedLinkedDictionary
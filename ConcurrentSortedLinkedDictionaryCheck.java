@@ -0,0 +1,228 @@
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+/**
+   A stress check of ConcurrentSortedLinkedDictionary. Each round runs
+   three phases, with all threads released together by a latch:
+   - disjoint: each thread adds and removes only its own keys, and every
+     result must match the thread's own TreeMap of those keys;
+   - overlapping: all threads add and remove a small shared set of keys;
+   - same key: half the threads add one key while the other half remove
+     it, so removes race adds on a single node.
+   Every thread counts, per key, the adds that inserted a new entry and
+   the removes that took one out. After the threads finish, each key must
+   be present exactly when its inserts outnumber its removes by one, the
+   size must equal all inserts minus all removes, and a walk of the keys
+   must be strictly ascending. Every value handed back must belong to the
+   key it came from, since values are numbered so that value % keyCount
+   is the key. Any difference stops the run with an exception that names
+   the seed, round and phase.
+   Usage: java ConcurrentSortedLinkedDictionaryCheck [seed] [rounds] [threads] [operations per thread]
+   @author Minwoo Soh
+*/
+public class ConcurrentSortedLinkedDictionaryCheck
+{
+  private final static int DISJOINT_KEYS = 4096;
+  private final static int OVERLAPPING_KEYS = 64;
+
+  public static void main(String[] args) throws InterruptedException
+  {
+    long seed = (args.length > 0) ? Long.parseLong(args[0]) : 1;
+    int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 3;
+    int threadCount = (args.length > 2) ? Integer.parseInt(args[2])
+                                        : Math.max(4, Runtime.getRuntime().availableProcessors());
+    int operations = (args.length > 3) ? Integer.parseInt(args[3]) : 50000;
+    for(int round = 0; round < rounds; round++)
+    {
+      long roundSeed = seed * 1000 + round;
+      String where = "seed " + seed + ", round " + round;
+      runPhase(where + ", disjoint", Phase.DISJOINT, Math.max(DISJOINT_KEYS, threadCount), threadCount, operations,
+               roundSeed);
+      runPhase(where + ", overlapping", Phase.OVERLAPPING, OVERLAPPING_KEYS, threadCount, operations, roundSeed);
+      runPhase(where + ", same key", Phase.SAME_KEY, 1, threadCount, operations, roundSeed);
+      System.out.println("Round " + round + ": " + threadCount + " threads, " + operations +
+                         " operations each, no lost or stray updates.");
+    } // end for
+    System.out.println("ConcurrentSortedLinkedDictionary passed every round.");
+  } // end main
+
+  /** The kinds of work a phase gives its threads. */
+  private enum Phase
+  {
+    DISJOINT, OVERLAPPING, SAME_KEY
+  } // end Phase
+
+  /** Runs one phase on a new dictionary and checks the result.
+      @param where        Names the phase in error messages.
+      @param phase        The kind of work.
+      @param keyCount     The keys used are 0 to keyCount - 1.
+      @param threadCount  The number of threads.
+      @param operations   The operations each thread performs.
+      @param seed         Seeds the threads' random choices. */
+  private static void runPhase(String where, Phase phase, int keyCount, int threadCount,
+                               int operations, long seed) throws InterruptedException
+  {
+    ConcurrentSortedLinkedDictionary<Integer, Integer> dictionary = new ConcurrentSortedLinkedDictionary<>();
+    CountDownLatch start = new CountDownLatch(1);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Worker[] workers = new Worker[threadCount];
+    for(int t = 0; t < threadCount; t++)
+    {
+      workers[t] = new Worker(where, phase, dictionary, keyCount, threadCount, t, operations, seed, start, failure);
+      workers[t].start();
+    } // end for
+    start.countDown();
+    for(Worker worker : workers)
+    {
+      worker.join();
+    } // end for
+    if(failure.get() != null)
+    {
+      throw new IllegalStateException(where + ": a worker failed", failure.get());
+    } // end if
+
+    long expectedSize = 0;
+    for(int key = 0; key < keyCount; key++)
+    {
+      long inserted = 0;
+      long removed = 0;
+      for(Worker worker : workers)
+      {
+        inserted += worker.inserted[key];
+        removed += worker.removed[key];
+      } // end for
+      long net = inserted - removed;
+      boolean present = dictionary.contains(key);
+      if( (net < 0) || (net > 1) || (present != (net == 1)) )
+      {
+        throw new IllegalStateException(where + ": key " + key + " was inserted " + inserted + " times and removed " +
+                                        removed + " times, but contains gives " + present);
+      } // end if
+      Integer value = dictionary.getValue(key);
+      if( present && ((value == null) || (value % keyCount != key)) )
+      {
+        throw new IllegalStateException(where + ": key " + key + " holds value " + value);
+      } // end if
+      expectedSize += net;
+    } // end for
+    if(dictionary.getSize() != expectedSize)
+    {
+      throw new IllegalStateException(where + ": getSize gives " + dictionary.getSize() + " but the threads' counts give " +
+                                      expectedSize);
+    } // end if
+
+    int walked = 0;
+    Integer previous = null;
+    Iterator<Integer> keyIterator = dictionary.getKeyIterator();
+    while(keyIterator.hasNext())
+    {
+      Integer key = keyIterator.next();
+      if( (previous != null) && (previous >= key) )
+      {
+        throw new IllegalStateException(where + ": key " + key + " follows " + previous + " in the walk");
+      } // end if
+      previous = key;
+      walked++;
+    } // end while
+    if(walked != expectedSize)
+    {
+      throw new IllegalStateException(where + ": the walk found " + walked + " keys but " + expectedSize + " are present");
+    } // end if
+  } // end runPhase
+
+  /** Private class for one thread of a phase, with its own counters. */
+  private static class Worker extends Thread
+  {
+    private final String where;
+    private final Phase phase;
+    private final ConcurrentSortedLinkedDictionary<Integer, Integer> dictionary;
+    private final int keyCount;
+    private final int threadCount;
+    private final int id;
+    private final int operations;
+    private final Random random;
+    private final CountDownLatch start;
+    private final AtomicReference<Throwable> failure;
+    private final long[] inserted;      // Per key, adds that returned null.
+    private final long[] removed;       // Per key, removes that returned a value.
+
+    private Worker(String where, Phase phase, ConcurrentSortedLinkedDictionary<Integer, Integer> dictionary,
+                   int keyCount, int threadCount, int id, int operations, long seed,
+                   CountDownLatch start, AtomicReference<Throwable> failure)
+    {
+      super("check-" + id);
+      this.where = where + ", thread " + id;
+      this.phase = phase;
+      this.dictionary = dictionary;
+      this.keyCount = keyCount;
+      this.threadCount = threadCount;
+      this.id = id;
+      this.operations = operations;
+      random = new Random(seed * 31 + id);
+      this.start = start;
+      this.failure = failure;
+      inserted = new long[keyCount];
+      removed = new long[keyCount];
+    } // end constructor
+
+    public void run()
+    {
+      try
+      {
+        start.await();
+        TreeMap<Integer, Integer> own = new TreeMap<>();  // This thread's keys, in the disjoint phase.
+        for(int i = 0; (i < operations) && (failure.get() == null); i++)
+        {
+          int key;
+          boolean adding;
+          if(phase == Phase.DISJOINT)
+          {
+            key = id + threadCount * random.nextInt(keyCount / threadCount);  // Keys equal to id modulo threadCount.
+            adding = random.nextInt(100) < 55;
+          }
+          else if(phase == Phase.OVERLAPPING)
+          {
+            key = random.nextInt(keyCount);
+            adding = random.nextBoolean();
+          }
+          else
+          {
+            key = 0;
+            adding = (id % 2 == 0);
+          } // end if
+          int serial = (int)(((long)i * threadCount + id) % (Integer.MAX_VALUE / keyCount));
+          Integer value = serial * keyCount + key;  // value % keyCount == key.
+          Integer result = adding ? dictionary.add(key, value) : dictionary.remove(key);
+          if( (result != null) && (result % keyCount != key) )
+          {
+            throw new IllegalStateException(where + ": key " + key + " handed back value " + result);
+          } // end if
+          if(phase == Phase.DISJOINT)
+          {
+            Integer expected = adding ? own.put(key, value) : own.remove(key);
+            if(!Objects.equals(expected, result))
+            {
+              throw new IllegalStateException(where + ": " + (adding ? "add" : "remove") + "(" + key + ") gave " +
+                                              result + " where " + expected + " was expected");
+            } // end if
+          } // end if
+          if(adding && (result == null))
+          {
+            inserted[key]++;
+          }
+          else if(!adding && (result != null))
+          {
+            removed[key]++;
+          } // end if
+        } // end for
+      }
+      catch(Throwable e)
+      {
+        failure.compareAndSet(null, e);
+      } // end try
+    } // end run
+  } // end Worker
+} // end of ConcurrentSortedLinkedDictionaryCheck
@@ -1,5 +1,3 @@
-import java.util.Iterator;
-
 public class Demo
 {
   public static void main(String[] args)
@@ -16,6 +14,13 @@ public class Demo
     System.out.println("Created a new dictionary for SortedLinkedDictionary");
     System.out.println();
     */
+
+    /*
+    System.out.println("TESTING SORTED SKIP LIST DICTIONARY");
+    SortedSkipListDictionary dictionary = new SortedSkipListDictionary();
+    System.out.println("Created a new dictionary for SortedSkipListDictionary");
+    System.out.println();
+    */
     System.out.println("Adding entries");
     dictionary.add("Morgan", "Cypress College");
     dictionary.add("Brian", "Cypress College");
@@ -29,12 +34,7 @@ public class Demo
 
     System.out.println("The list contains " + dictionary.getSize() +
                        " items, as follows: ");
-    Iterator<String> keyIterator = dictionary.getKeyIterator();
-    Iterator<String> valueIterator = dictionary.getValueIterator();
-    while(keyIterator.hasNext())
-    {
-      System.out.println(keyIterator.next() + ", "  + valueIterator.next());
-    }
+    dictionary.forEach((key, value) -> System.out.println(key + ", " + value));
     System.out.println();
 
     System.out.println("Adding more than 10 (testing for SortedArray version), adding 4 more: Dalee, Jerry, Varun, Rohan.");
@@ -46,12 +46,7 @@ public class Demo
 
     System.out.println("The list contains " + dictionary.getSize() +
                        " items, as follows: ");
-    Iterator<String> keyIterator2 = dictionary.getKeyIterator();
-    Iterator<String> valueIterator2 = dictionary.getValueIterator();
-    while(keyIterator2.hasNext())
-    {
-      System.out.println(keyIterator2.next() + ", "  + valueIterator2.next());
-    }
+    dictionary.forEach((key, value) -> System.out.println(key + ", " + value));
     System.out.println();
 
     System.out.println("Morgan and Patrick is transfering");
@@ -78,12 +73,7 @@ public class Demo
 
     System.out.println("The list contains " + dictionary.getSize() +
                        " items, as follows: ");
-    Iterator<String> keyIterator3 = dictionary.getKeyIterator();
-    Iterator<String> valueIterator3 = dictionary.getValueIterator();
-    while(keyIterator3.hasNext())
-    {
-      System.out.println(keyIterator3.next() + ", "  + valueIterator3.next());
-    }
+    dictionary.forEach((key, value) -> System.out.println(key + ", " + value));
     System.out.println();
 
     System.out.println("Clearing dictionary");
@@ -93,12 +83,7 @@ public class Demo
 
     System.out.println("The list contains " + dictionary.getSize() +
                        " items, as follows: ");
-    Iterator<String> keyIterator4 = dictionary.getKeyIterator();
-    Iterator<String> valueIterator4 = dictionary.getValueIterator();
-    while(keyIterator4.hasNext())
-    {
-      System.out.println(keyIterator4.next() + ", "  + valueIterator4.next());
-    }
+    dictionary.forEach((key, value) -> System.out.println(key + ", " + value));
     System.out.println();
 
     System.out.println("Adding new entries");
@@ -115,12 +100,7 @@ public class Demo
 
     System.out.println("The list contains " + dictionary.getSize() +
                        " items, as follows: ");
-    Iterator<String> keyIterator5 = dictionary.getKeyIterator();
-    Iterator<String> valueIterator5 = dictionary.getValueIterator();
-    while(keyIterator5.hasNext())
-    {
-      System.out.println(keyIterator5.next() + ", "  + valueIterator5.next());
-    }
+    dictionary.forEach((key, value) -> System.out.println(key + ", " + value));
     System.out.println();
   } // end main
 } // end of Demo
@@ -0,0 +1,635 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+/**
+   A repeatable benchmark of the DictionaryInterface implementations.
+   For each engine, operation, key order and size it warms up, then
+   measures for a fixed time, timing every operation. It prints the
+   throughput, the 50th, 99th and 99.9th percentile latencies, and the
+   bytes allocated per operation as counted by the JVM for the running
+   thread. Setup, such as filling the dictionary before a remove round,
+   is neither timed nor counted.
+   Operations: add (into an emptied dictionary), remove (from a full one),
+   getValue, contains, miss (contains of keys that are not there),
+   iterate (all keys), forEach, and mixed work with
+   50, 90 or 99 percent reads, where the writes add and then remove keys
+   that are not in the dictionary. The key order decides the order in
+   which keys are added, removed or looked up; clustered order visits
+   runs of 64 ascending keys, with the runs themselves in random order.
+   Options, all optional:
+     --engines=A,B  --ops=add,get,...  --orders=sorted,reverse,clustered,random
+     --sizes=10,1000  --warmup-ms=200  --measure-ms=500  --durable
+   --durable measures DurableDictionary instead: write throughput with
+   each durability, and the time to recover from the log and from a
+   snapshot.
+   To add an engine, add one register line to the static block below;
+   the JMH benchmarks in src/jmh/java take their engines from here too.
+   @author Minwoo Soh
+*/
+public class DictionaryBenchmark
+{
+  private final static List<Engine> ENGINES = new ArrayList<>();
+  private final static com.sun.management.ThreadMXBean THREADS =
+    (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+  private static long blackhole;        // Results are summed here so the JIT cannot drop the work.
+  private final static BiConsumer<Integer, Integer> SINK = (key, value) -> blackhole += key;
+  private static Path scratch;          // Directory for engines that keep files.
+  private static int scratchCount;
+
+  static
+  {
+    // One line per engine: its name, the largest size it is run at, and
+    // how to create an empty one.
+    register("SortedArrayDictionary", 1000000, SortedArrayDictionary::new);
+    register("SortedParallelArrayDictionary", 1000000, SortedParallelArrayDictionary::new);
+    register("SortedChunkedArrayDictionary", 1000000, SortedChunkedArrayDictionary::new);
+    register("BPlusTreeDictionary", 1000000, BPlusTreeDictionary::new);
+    register("SortedSkipListDictionary", 1000000, SortedSkipListDictionary::new);
+    register("SortedLinkedDictionary", 100000, SortedLinkedDictionary::new);
+    register("AdaptiveSortedDictionary", 1000000, AdaptiveSortedDictionary::new);
+    register("ConcurrentSortedArrayDictionary", 1000000, ConcurrentSortedArrayDictionary::new);
+    register("ConcurrentSortedLinkedDictionary", 10000, ConcurrentSortedLinkedDictionary::new);
+    register("MappedSortedDictionary", 1000000, DictionaryBenchmark::newMappedDictionary);
+    register("BloomFiltered(SortedArray)", 1000000,
+             () -> new BloomFilteredDictionary<>(new SortedArrayDictionary<Integer, Integer>()));
+    register("BloomFiltered(SortedLinked)", 100000,
+             () -> new BloomFilteredDictionary<>(new SortedLinkedDictionary<Integer, Integer>()));
+  }
+
+  /** The operations that are measured. */
+  private enum Operation
+  {
+    ADD("add", -1), REMOVE("remove", -1), GET_VALUE("get", -1), CONTAINS("contains", -1), MISS("miss", -1),
+    ITERATE("iterate", -1), FOR_EACH("forEach", -1),
+    MIXED_50("mixed50", 50), MIXED_90("mixed90", 90), MIXED_99("mixed99", 99);
+
+    private final String label;
+    private final int readPercent;      // Share of reads for mixed work, or -1.
+
+    private Operation(String label, int readPercent)
+    {
+      this.label = label;
+      this.readPercent = readPercent;
+    } // end constructor
+
+    /** Sees whether the key order matters to this operation. */
+    private boolean usesKeyOrder()
+    {
+      return (this != ITERATE) && (this != FOR_EACH);
+    } // end usesKeyOrder
+  } // end Operation
+
+  /** The orders in which keys are used. */
+  enum KeyOrder
+  {
+    SORTED, REVERSE, CLUSTERED, RANDOM
+  } // end KeyOrder
+
+  private final static int CLUSTER_SIZE = 64;  // Keys per ascending run in CLUSTERED order.
+
+  public static void main(String[] args) throws IOException
+  {
+    List<String> engineNames = null;
+    List<Operation> operations = new ArrayList<>(Arrays.asList(Operation.values()));
+    List<KeyOrder> orders = new ArrayList<>(Arrays.asList(KeyOrder.values()));
+    int[] sizes = {10, 100, 1000, 10000, 100000, 1000000};
+    long warmupNanos = 200_000_000L;
+    long measureNanos = 500_000_000L;
+    boolean durable = false;
+    for(String arg : args)
+    {
+      String value = arg.substring(arg.indexOf('=') + 1);
+      if(arg.startsWith("--engines="))
+      {
+        engineNames = Arrays.asList(value.split(","));
+      }
+      else if(arg.startsWith("--ops="))
+      {
+        operations.clear();
+        for(String label : value.split(","))
+        {
+          operations.add(operationNamed(label));
+        } // end for
+      }
+      else if(arg.startsWith("--orders="))
+      {
+        orders.clear();
+        for(String name : value.split(","))
+        {
+          orders.add(KeyOrder.valueOf(name.toUpperCase()));
+        } // end for
+      }
+      else if(arg.startsWith("--sizes="))
+      {
+        sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+      }
+      else if(arg.startsWith("--warmup-ms="))
+      {
+        warmupNanos = Long.parseLong(value) * 1_000_000L;
+      }
+      else if(arg.startsWith("--measure-ms="))
+      {
+        measureNanos = Long.parseLong(value) * 1_000_000L;
+      }
+      else if(arg.equals("--durable"))
+      {
+        durable = true;
+      }
+      else
+      {
+        throw new IllegalArgumentException("Unknown option: " + arg);
+      } // end if
+    } // end for
+
+    try
+    {
+      if(durable)
+      {
+        runDurable(sizes, measureNanos);
+      }
+      else
+      {
+        System.out.println(String.format("%-33s %-9s %-8s %8s %13s %9s %9s %9s %9s",
+                                         "engine", "op", "order", "size", "ops/s",
+                                         "p50 ns", "p99 ns", "p99.9 ns", "B/op"));
+        for(Engine engine : ENGINES)
+        {
+          if( (engineNames == null) || engineNames.contains(engine.name) )
+          {
+            for(int size : sizes)
+            {
+              if(size <= engine.maxSize)
+              {
+                for(Operation operation : operations)
+                {
+                  for(KeyOrder order : orders)
+                  {
+                    if(operation.usesKeyOrder() || (order == orders.get(0)))
+                    {
+                      report(engine.name, operation, operation.usesKeyOrder() ? order.name().toLowerCase() : "-", size,
+                             run(engine, operation, order, size, warmupNanos, measureNanos));
+                    } // end if
+                  } // end for
+                } // end for
+              } // end if
+            } // end for
+          } // end if
+        } // end for
+      } // end if
+    }
+    finally
+    {
+      deleteScratch();
+    } // end try
+  } // end main
+
+  /** Gets the names of the registered engines, in the order registered.
+      @return  The names. */
+  static List<String> getEngineNames()
+  {
+    List<String> result = new ArrayList<>();
+    for(Engine engine : ENGINES)
+    {
+      result.add(engine.name);
+    } // end for
+    return result;
+  } // end getEngineNames
+
+  /** Creates a dictionary of a registered engine that holds the present
+      keys of a given size, each mapped to itself.
+      @param name  The name the engine was registered with.
+      @param size  The number of entries.
+      @return  The filled dictionary.
+      @throws IllegalArgumentException if no engine has that name, or the
+              size is above the largest the engine is run at. */
+  static DictionaryInterface<Integer, Integer> newFilledDictionary(String name, int size)
+  {
+    Engine engine = null;
+    for(Engine candidate : ENGINES)
+    {
+      if(candidate.name.equals(name))
+      {
+        engine = candidate;
+      } // end if
+    } // end for
+    if(engine == null)
+    {
+      throw new IllegalArgumentException("Unknown engine: " + name);
+    }
+    else if(size > engine.maxSize)
+    {
+      throw new IllegalArgumentException(name + " is only run at up to " + engine.maxSize + " entries");
+    } // end if
+    DictionaryInterface<Integer, Integer> result = engine.factory.get();
+    fill(result, keys(size, KeyOrder.SORTED, 0));
+    return result;
+  } // end newFilledDictionary
+
+  /** Adds an engine to the benchmark.
+      @param name     The name printed for it.
+      @param maxSize  The largest dictionary size it is run at.
+      @param factory  Creates an empty dictionary. */
+  private static void register(String name, int maxSize, Supplier<? extends DictionaryInterface<Integer, Integer>> factory)
+  {
+    ENGINES.add(new Engine(name, maxSize, factory));
+  } // end register
+
+  /** Runs one benchmark case: warms up, then measures.
+      @return  The measurement of the timed phase. */
+  private static Measurement run(Engine engine, Operation operation, KeyOrder order, int size,
+                                 long warmupNanos, long measureNanos)
+  {
+    Integer[] sortedKeys = keys(size, KeyOrder.SORTED, 0);
+    Integer[] keys = keys(size, order, 0);
+    Integer[] missingKeys = keys(size, order, 1);
+    DictionaryInterface<Integer, Integer> dictionary = engine.factory.get();
+    System.gc();
+    runPhase(dictionary, operation, keys, sortedKeys, missingKeys, warmupNanos, new Measurement());
+    Measurement result = new Measurement();
+    runPhase(dictionary, operation, keys, sortedKeys, missingKeys, measureNanos, result);
+    if(dictionary instanceof Closeable)
+    {
+      try
+      {
+        ((Closeable)dictionary).close();
+      }
+      catch(IOException e)
+      {
+        throw new UncheckedIOException(e);
+      } // end try
+    } // end if
+    return result;
+  } // end run
+
+  /** Performs an operation again and again for a given time, timing each one.
+      @param dictionary   The dictionary under test.
+      @param operation    The operation to perform.
+      @param keys         The present keys in the order of the case.
+      @param sortedKeys   The present keys in ascending order, for filling.
+      @param missingKeys  Keys that are not present, for the writes of mixed work.
+      @param duration     How long to run, in nanoseconds.
+      @param measurement  Where to add the counts, times and allocation. */
+  private static void runPhase(DictionaryInterface<Integer, Integer> dictionary, Operation operation,
+                               Integer[] keys, Integer[] sortedKeys, Integer[] missingKeys,
+                               long duration, Measurement measurement)
+  {
+    long deadline = System.nanoTime() + duration;
+    boolean done = false;
+    if( (operation == Operation.ADD) || (operation == Operation.REMOVE) )
+    {
+      // Each round starts from an empty or a full dictionary and works through all keys.
+      while(!done)
+      {
+        dictionary.clear();
+        if(operation == Operation.REMOVE)
+        {
+          fill(dictionary, sortedKeys);
+        } // end if
+        long allocated = THREADS.getCurrentThreadAllocatedBytes();
+        for(int i = 0; (i < keys.length) && !done; i++)
+        {
+          long start = System.nanoTime();
+          if(operation == Operation.ADD)
+          {
+            dictionary.add(keys[i], keys[i]);
+          }
+          else
+          {
+            dictionary.remove(keys[i]);
+          } // end if
+          long end = System.nanoTime();
+          measurement.record(end - start);
+          done = end >= deadline;
+        } // end for
+        measurement.bytes += THREADS.getCurrentThreadAllocatedBytes() - allocated;
+      } // end while
+    }
+    else
+    {
+      if(dictionary.getSize() != sortedKeys.length)
+      {
+        dictionary.clear();
+        fill(dictionary, sortedKeys);
+      } // end if
+      int next = 0;
+      int nextMissing = 0;
+      int random = 0x9E3779B9;
+      long allocated = THREADS.getCurrentThreadAllocatedBytes();
+      while(!done)
+      {
+        long start = System.nanoTime();
+        switch(operation)
+        {
+          case GET_VALUE:
+            blackhole += dictionary.getValue(keys[next]);
+            break;
+          case CONTAINS:
+            blackhole += dictionary.contains(keys[next]) ? 1 : 0;
+            break;
+          case MISS:
+            blackhole += dictionary.contains(missingKeys[next]) ? 1 : 0;
+            break;
+          case ITERATE:
+            Iterator<Integer> iterator = dictionary.getKeyIterator();
+            while(iterator.hasNext())
+            {
+              blackhole += iterator.next();
+            } // end while
+            break;
+          case FOR_EACH:
+            dictionary.forEach(SINK);
+            break;
+          default: // Mixed work.
+            random ^= random << 13;
+            random ^= random >>> 17;
+            random ^= random << 5;
+            if(Math.floorMod(random, 100) < operation.readPercent)
+            {
+              blackhole += dictionary.getValue(keys[next]);
+            }
+            else if(nextMissing % 2 == 0) // Writes add a missing key, then remove it again.
+            {
+              dictionary.add(missingKeys[nextMissing / 2], 0);
+              nextMissing++;
+            }
+            else
+            {
+              dictionary.remove(missingKeys[nextMissing / 2]);
+              nextMissing = (nextMissing + 1) % (2 * missingKeys.length);
+            } // end if
+        } // end switch
+        long end = System.nanoTime();
+        measurement.record(end - start);
+        next = (next + 1 == keys.length) ? 0 : next + 1;
+        done = end >= deadline;
+      } // end while
+      measurement.bytes += THREADS.getCurrentThreadAllocatedBytes() - allocated;
+    } // end if
+  } // end runPhase
+
+  /** Fills an empty dictionary with keys mapped to themselves, in bulk if
+      the dictionary supports it. */
+  @SuppressWarnings("unchecked")
+  static void fill(DictionaryInterface<Integer, Integer> dictionary, Integer[] sortedKeys)
+  {
+    if(dictionary instanceof SortedDictionaryInterface)
+    {
+      ((SortedDictionaryInterface<Integer, Integer>)dictionary).addAll(sortedKeys, sortedKeys);
+    }
+    else
+    {
+      for(Integer key : sortedKeys)
+      {
+        dictionary.add(key, key);
+      } // end for
+    } // end if
+  } // end fill
+
+  /** Creates size keys in a given order. Present keys are even and
+      missing keys are odd, so the two never meet.
+      @param size    The number of keys.
+      @param order   The order to put them in.
+      @param parity  0 for present keys, 1 for missing keys.
+      @return  The keys. */
+  static Integer[] keys(int size, KeyOrder order, int parity)
+  {
+    Integer[] result = new Integer[size];
+    for(int i = 0; i < size; i++)
+    {
+      result[i] = 2 * i + parity;
+    } // end for
+    if(order == KeyOrder.REVERSE)
+    {
+      Collections.reverse(Arrays.asList(result));
+    }
+    else if(order == KeyOrder.CLUSTERED)
+    {
+      List<Integer> starts = new ArrayList<>();
+      for(int start = 0; start < size; start += CLUSTER_SIZE)
+      {
+        starts.add(start);
+      } // end for
+      Collections.shuffle(starts, new Random(42 + parity));
+      int index = 0;
+      for(int start : starts)
+      {
+        for(int i = start; i < Math.min(start + CLUSTER_SIZE, size); i++)
+        {
+          result[index] = 2 * i + parity;
+          index++;
+        } // end for
+      } // end for
+    }
+    else if(order == KeyOrder.RANDOM)
+    {
+      Collections.shuffle(Arrays.asList(result), new Random(42 + parity));
+    } // end if
+    return result;
+  } // end keys
+
+  /** Prints one result line. */
+  private static void report(String engine, Operation operation, String order, int size, Measurement measurement)
+  {
+    LatencyHistogram latency = measurement.latency;
+    System.out.println(String.format("%-33s %-9s %-8s %8d %13.0f %9d %9d %9d %9.1f",
+                                     engine, operation.label, order, size,
+                                     latency.getCount() * 1e9 / Math.max(1, measurement.nanos),
+                                     latency.getPercentile(50), latency.getPercentile(99),
+                                     latency.getPercentile(99.9),
+                                     (double)measurement.bytes / Math.max(1, latency.getCount())));
+  } // end report
+
+  /** Measures DurableDictionary over a SortedArrayDictionary: write
+      throughput and latency with each durability, then the time to
+      reopen from the log alone and from a snapshot. The sizes bound
+      how many entries the writers add. */
+  private static void runDurable(int[] sizes, long measureNanos) throws IOException
+  {
+    System.out.println(String.format("%-20s %7s %8s %11s %9s %9s %12s %12s",
+                                     "durability", "threads", "size", "adds/s", "p50 ns", "p99 ns",
+                                     "log ms", "snapshot ms"));
+    Object[][] modes = {{DurableDictionary.Durability.SYNC, 1}, {DurableDictionary.Durability.SYNC, 8},
+                        {DurableDictionary.Durability.BATCHED, 1}};
+    for(int size : sizes)
+    {
+      for(Object[] mode : modes)
+      {
+        DurableDictionary.Durability durability = (DurableDictionary.Durability)mode[0];
+        int threadCount = (Integer)mode[1];
+        Path directory = newScratchPath("durable-");
+        DurableDictionary<Integer, Integer> writer =
+          new DurableDictionary<>(new SortedArrayDictionary<>(), directory, Serializer.integers(),
+                                  Serializer.integers(), durability, 10, Integer.MAX_VALUE);
+        Measurement[] perThread = new Measurement[threadCount];
+        Thread[] threads = new Thread[threadCount];
+        long deadline = System.nanoTime() + measureNanos;
+        long start = System.nanoTime();
+        for(int t = 0; t < threadCount; t++)
+        {
+          Measurement measurement = new Measurement();
+          perThread[t] = measurement;
+          int first = t;
+          threads[t] = new Thread(() ->
+          {
+            boolean done = false;
+            for(int key = first; (key < size) && !done; key += threadCount)
+            {
+              long opStart = System.nanoTime();
+              writer.add(key, key);
+              long opEnd = System.nanoTime();
+              measurement.record(opEnd - opStart);
+              done = opEnd >= deadline;
+            } // end for
+          });
+          threads[t].start();
+        } // end for
+        joinAll(threads);
+        long elapsed = System.nanoTime() - start;
+        writer.close();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        for(Measurement measurement : perThread)
+        {
+          latency.add(measurement.latency);
+        } // end for
+
+        long logStart = System.nanoTime();
+        DurableDictionary<Integer, Integer> dictionary = new DurableDictionary<>(new SortedArrayDictionary<>(), directory,
+                                             Serializer.integers(), Serializer.integers());
+        long logNanos = System.nanoTime() - logStart;
+        int entries = dictionary.getSize();
+        dictionary.checkpoint();
+        dictionary.close();
+        long snapshotStart = System.nanoTime();
+        dictionary = new DurableDictionary<>(new SortedArrayDictionary<>(), directory,
+                                             Serializer.integers(), Serializer.integers());
+        long snapshotNanos = System.nanoTime() - snapshotStart;
+        dictionary.close();
+
+        System.out.println(String.format("%-20s %7d %8d %11.0f %9d %9d %12.2f %12.2f",
+                                         durability, threadCount, entries, latency.getCount() * 1e9 / elapsed,
+                                         latency.getPercentile(50), latency.getPercentile(99),
+                                         logNanos / 1e6, snapshotNanos / 1e6));
+      } // end for
+    } // end for
+  } // end runDurable
+
+  /** Waits for threads to finish. */
+  private static void joinAll(Thread[] threads)
+  {
+    for(Thread thread : threads)
+    {
+      boolean joined = false;
+      while(!joined)
+      {
+        try
+        {
+          thread.join();
+          joined = true;
+        }
+        catch(InterruptedException e)
+        {
+          Thread.currentThread().interrupt();
+          joined = true;
+        } // end try
+      } // end while
+    } // end for
+  } // end joinAll
+
+  /** Looks up an operation by the label used in --ops. */
+  private static Operation operationNamed(String label)
+  {
+    for(Operation operation : Operation.values())
+    {
+      if(operation.label.equalsIgnoreCase(label))
+      {
+        return operation;
+      } // end if
+    } // end for
+    throw new IllegalArgumentException("Unknown operation: " + label);
+  } // end operationNamed
+
+  /** Opens a MappedSortedDictionary in new files under the scratch directory. */
+  private static DictionaryInterface<Integer, Integer> newMappedDictionary()
+  {
+    try
+    {
+      return new MappedSortedDictionary<>(newScratchPath("mapped-"), Serializer.integers(), Serializer.integers());
+    }
+    catch(IOException e)
+    {
+      throw new UncheckedIOException(e);
+    } // end try
+  } // end newMappedDictionary
+
+  /** Names a new path in the scratch directory, creating the directory
+      on first use. It is deleted when main ends or the JVM exits. */
+  private static synchronized Path newScratchPath(String prefix) throws IOException
+  {
+    if(scratch == null)
+    {
+      scratch = Files.createTempDirectory("dictionary-benchmark");
+      Runtime.getRuntime().addShutdownHook(new Thread(DictionaryBenchmark::deleteScratch));
+    } // end if
+    return scratch.resolve(prefix + scratchCount++);
+  } // end newScratchPath
+
+  /** Deletes the scratch directory and everything in it, if it was created. */
+  private static synchronized void deleteScratch()
+  {
+    if(scratch != null)
+    {
+      try (Stream<Path> files = Files.walk(scratch))
+      {
+        files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+      }
+      catch(IOException e)
+      {
+        throw new UncheckedIOException(e);
+      } // end try
+      scratch = null;
+    } // end if
+  } // end deleteScratch
+
+  /** Private inner class that names an engine and how to create it. */
+  private static class Engine
+  {
+    private final String name;
+    private final int maxSize;
+    private final Supplier<? extends DictionaryInterface<Integer, Integer>> factory;
+
+    private Engine(String name, int maxSize, Supplier<? extends DictionaryInterface<Integer, Integer>> factory)
+    {
+      this.name = name;
+      this.maxSize = maxSize;
+      this.factory = factory;
+    } // end constructor
+  } // end Engine
+
+  /** Private inner class that adds up the timed operations of a phase. */
+  private static class Measurement
+  {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long nanos;                 // Sum of the timed operations.
+    private long bytes;                 // Bytes allocated while timing.
+
+    private void record(long elapsed)
+    {
+      latency.record(elapsed);
+      nanos += elapsed;
+    } // end record
+  } // end Measurement
+} // end of DictionaryBenchmark
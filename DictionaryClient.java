@@ -0,0 +1,356 @@
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+/**
+   A client for DictionaryServer. The plain methods send one request and
+   wait for its response. A Pipeline queues many requests, sends them
+   together and then reads all the responses, so a round trip is paid
+   once per pipeline window instead of once per request, and the server
+   can apply a whole window in one pass. A client holds one
+   connection and is not safe for use by several threads at once; give
+   each thread its own.
+   @author Minwoo Soh
+*/
+public class DictionaryClient<K, V> implements Closeable
+{
+  private final SocketChannel channel;
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private ByteBuffer output;
+  private ByteBuffer input;
+  private final List<Integer> frameEnds;  // Where each request queued in output ends.
+  private final static int BUFFER_SIZE = 64 * 1024;
+  private final static int WINDOW_SIZE = 64 * 1024;  // Most request bytes sent before reading responses.
+
+  /** Connects to a server.
+      @param address          The address the server was bound to.
+      @param keySerializer    Turns search keys into bytes and back.
+      @param valueSerializer  Turns values into bytes and back.
+      @throws IOException if the server cannot be reached. */
+  public DictionaryClient(SocketAddress address, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException
+  {
+    if(address instanceof UnixDomainSocketAddress)
+    {
+      channel = SocketChannel.open(StandardProtocolFamily.UNIX);
+    }
+    else
+    {
+      channel = SocketChannel.open();
+      channel.socket().setTcpNoDelay(true);
+    } // end if
+    channel.connect(address);
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    output = ByteBuffer.allocate(BUFFER_SIZE);
+    input = ByteBuffer.allocate(BUFFER_SIZE);
+    input.flip();
+    frameEnds = new ArrayList<>();
+  } // end constructor
+
+  /** Adds a new entry to the served dictionary. If the given search key
+      already exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced.
+      @throws IOException if the server cannot be reached or fails the request. */
+  @SuppressWarnings("unchecked")
+  public V add(K key, V value) throws IOException
+  {
+    return (V)pipeline().add(key, value).sync().get(0);
+  } // end add
+
+  /** Removes a specific entry from the served dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists.
+      @throws IOException if the server cannot be reached or fails the request. */
+  @SuppressWarnings("unchecked")
+  public V remove(K key) throws IOException
+  {
+    return (V)pipeline().remove(key).sync().get(0);
+  } // end remove
+
+  /** Retrieves from the served dictionary the value associated with a
+      given search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists.
+      @throws IOException if the server cannot be reached or fails the request. */
+  @SuppressWarnings("unchecked")
+  public V getValue(K key) throws IOException
+  {
+    return (V)pipeline().getValue(key).sync().get(0);
+  } // end getValue
+
+  /** Sees whether a specific entry is in the served dictionary.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary.
+      @throws IOException if the server cannot be reached or fails the request. */
+  public boolean contains(K key) throws IOException
+  {
+    return (Boolean)pipeline().contains(key).sync().get(0);
+  } // end contains
+
+  /** Gets the size of the served dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary.
+      @throws IOException if the server cannot be reached or fails the request. */
+  public int getSize() throws IOException
+  {
+    return (Integer)pipeline().getSize().sync().get(0);
+  } // end getSize
+
+  /** Removes all entries from the served dictionary.
+      @throws IOException if the server cannot be reached or fails the request. */
+  public void clear() throws IOException
+  {
+    pipeline().clear().sync();
+  } // end clear
+
+  /** Starts a pipeline of requests on this connection. Requests queued
+      in an earlier pipeline that was not synced are dropped.
+      @return  An empty pipeline. */
+  public Pipeline pipeline()
+  {
+    return new Pipeline();
+  } // end pipeline
+
+  /** Closes the connection. */
+  public void close() throws IOException
+  {
+    channel.close();
+  } // end close
+
+  /** Queues requests and sends them together. Each method queues one
+      request and returns this pipeline, so requests can be chained. */
+  public class Pipeline
+  {
+    private Pipeline()
+    {
+      output.clear();
+      frameEnds.clear();
+    } // end constructor
+
+    /** Queues an add.
+        @param key    An object search key of the new entry.
+        @param value  An object associated with the search key.
+        @return  This pipeline. */
+    public Pipeline add(K key, V value)
+    {
+      int keySize = (key == null) ? 0 : keySerializer.sizeOf(key);
+      int valueSize = (value == null) ? 0 : valueSerializer.sizeOf(value);
+      startRequest(DictionaryServer.ADD, 2 * Integer.BYTES + keySize + valueSize);
+      putObject(keySerializer, key, keySize);
+      putObject(valueSerializer, value, valueSize);
+      return this;
+    } // end add
+
+    /** Queues a remove.
+        @param key  An object search key of the entry to be removed.
+        @return  This pipeline. */
+    public Pipeline remove(K key)
+    {
+      return keyed(DictionaryServer.REMOVE, key);
+    } // end remove
+
+    /** Queues a getValue.
+        @param key  An object search key of the entry to be retrieved.
+        @return  This pipeline. */
+    public Pipeline getValue(K key)
+    {
+      return keyed(DictionaryServer.GET_VALUE, key);
+    } // end getValue
+
+    /** Queues a contains.
+        @param key  An object search key of the desired entry.
+        @return  This pipeline. */
+    public Pipeline contains(K key)
+    {
+      return keyed(DictionaryServer.CONTAINS, key);
+    } // end contains
+
+    /** Queues a getSize.
+        @return  This pipeline. */
+    public Pipeline getSize()
+    {
+      startRequest(DictionaryServer.SIZE, 0);
+      return this;
+    } // end getSize
+
+    /** Queues a clear.
+        @return  This pipeline. */
+    public Pipeline clear()
+    {
+      startRequest(DictionaryServer.CLEAR, 0);
+      return this;
+    } // end clear
+
+    /** Gets the number of requests queued and not yet sent.
+        @return  The count of requests. */
+    public int size()
+    {
+      return frameEnds.size();
+    } // end size
+
+    /** Sends the queued requests and waits for all their responses. The
+        requests go out in windows of about 64 KiB, and the responses to
+        one window are read before the next is sent, so neither side can
+        block the other with full socket buffers.
+        @return  The results in the order the requests were queued: the
+                 value or null for add, remove and getValue, a Boolean
+                 for contains, an Integer for getSize, and null for clear.
+        @throws IOException if the server cannot be reached, or fails a
+                request, after all responses have been read. */
+    public List<Object> sync() throws IOException
+    {
+      List<Object> result = new ArrayList<>(frameEnds.size());
+      String error = null;
+      int windowStart = 0;
+      int next = 0;
+      while(next < frameEnds.size())
+      {
+        // Take whole requests up to the window size, and at least one.
+        int windowEnd = next + 1;
+        while( (windowEnd < frameEnds.size()) && (frameEnds.get(windowEnd) - windowStart <= WINDOW_SIZE) )
+        {
+          windowEnd++;
+        } // end while
+        ByteBuffer window = output.duplicate();
+        window.limit(frameEnds.get(windowEnd - 1)).position(windowStart);
+        while(window.hasRemaining())
+        {
+          channel.write(window);
+        } // end while
+        for(; next < windowEnd; next++)
+        {
+          String failure = readResult(result);
+          error = (error != null) ? error : failure;
+        } // end for
+        windowStart = frameEnds.get(windowEnd - 1);
+      } // end while
+      output.clear();
+      frameEnds.clear();
+      if(error != null)
+      {
+        throw new IOException("Server failed a request: " + error);
+      } // end if
+      return result;
+    } // end sync
+
+    /** Reads one response and adds its result to a list.
+        @return  The message of a failed request, or null. */
+    private String readResult(List<Object> results) throws IOException
+    {
+      String result = null;
+      ByteBuffer body = readFrame();
+      byte status = body.get();
+      if(status == DictionaryServer.VALUE)
+      {
+        results.add(valueSerializer.read(body));
+      }
+      else if( (status == DictionaryServer.TRUE) || (status == DictionaryServer.FALSE) )
+      {
+        results.add(status == DictionaryServer.TRUE);
+      }
+      else if(status == DictionaryServer.INT)
+      {
+        results.add(body.getInt());
+      }
+      else if(status == DictionaryServer.ERROR)
+      {
+        byte[] message = new byte[body.remaining()];
+        body.get(message);
+        result = new String(message, StandardCharsets.UTF_8);
+        results.add(null);
+      }
+      else
+      {
+        results.add(null);
+      } // end if
+      return result;
+    } // end readResult
+
+    /** Queues a request whose body is an operation and a key. */
+    private Pipeline keyed(byte operation, K key)
+    {
+      int keySize = (key == null) ? 0 : keySerializer.sizeOf(key);
+      startRequest(operation, Integer.BYTES + keySize);
+      putObject(keySerializer, key, keySize);
+      return this;
+    } // end keyed
+
+    /** Writes the frame length and operation of a request whose body
+        has a given number of bytes after the operation. */
+    private void startRequest(byte operation, int size)
+    {
+      if(output.remaining() < Integer.BYTES + 1 + size)
+      {
+        output = DictionaryServer.grow(output, output.position() + Integer.BYTES + 1 + size);
+      } // end if
+      output.putInt(1 + size).put(operation);
+      frameEnds.add(output.position() + size);
+    } // end startRequest
+
+    /** Writes one length-prefixed object, or -1 for null. */
+    private <T> void putObject(Serializer<T> serializer, T object, int size)
+    {
+      if(object == null)
+      {
+        output.putInt(-1);
+      }
+      else
+      {
+        output.putInt(size);
+        serializer.write(object, output);
+      } // end if
+    } // end putObject
+  } // end Pipeline
+
+  /** Reads one response frame.
+      @return  A buffer holding just the body of the frame. */
+  private ByteBuffer readFrame() throws IOException
+  {
+    fill(Integer.BYTES);
+    int bodyLength = input.getInt();
+    if( (bodyLength < 1) || (bodyLength > DictionaryServer.MAX_FRAME_SIZE) )
+    {
+      throw new IOException("Bad response frame length " + bodyLength);
+    } // end if
+    fill(bodyLength);
+    ByteBuffer result = input.slice(input.position(), bodyLength);
+    input.position(input.position() + bodyLength);
+    return result;
+  } // end readFrame
+
+  /** Reads from the connection until the input holds at least a given
+      number of unread bytes. */
+  private void fill(int size) throws IOException
+  {
+    if(input.remaining() < size)
+    {
+      input.compact();
+      if(input.capacity() < size)
+      {
+        input = DictionaryServer.grow(input, size);
+      } // end if
+      while(input.position() < size)
+      {
+        if(channel.read(input) < 0)
+        {
+          throw new EOFException("Server closed the connection.");
+        } // end if
+      } // end while
+      input.flip();
+    } // end if
+  } // end fill
+} // end DictionaryClient
@@ -0,0 +1,434 @@
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+/**
+   A compact binary format for shipping a sorted dictionary between
+   processes. Entries are written in search key order and grouped into
+   blocks of about 64 KiB, each with its own CRC32, so a stream can be
+   written and read one block at a time. Since neighbouring keys in
+   sorted order tend to share leading bytes, each key is stored as the
+   number of bytes it shares with the key before it in the block and the
+   bytes that follow, and lengths are stored as varints.
+   Layout: a header of magic, version and block size as ints, and the
+   CRC32 of those three; then blocks, each an int payload length, an int
+   entry count and the CRC32 of those two ints and the payload, followed
+   by the payload; then an empty block with no entries to end the stream.
+   A block of several entries is no longer than the block size. An entry
+   larger than that gets a block of its own, whose length only its CRC32
+   can vouch for, so the reader grows its buffer as those bytes arrive
+   rather than allocating the length up front, and grows its arrays only
+   as blocks pass their CRC32. An entry in a payload is a varint shared
+   prefix length, a varint suffix length, the key suffix, a varint value
+   length and the value. The first key of each block shares nothing, so
+   a block can be decoded on its own.
+   Reading collects the entries and hands them to the dictionary in one
+   addAll, which takes a sorted batch without shifting entries per add.
+   @author Minwoo Soh
+*/
+public class DictionaryCodec<K extends Comparable<? super K>, V>
+{
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private final int blockSize;
+  private final static int MAGIC = 0x53444943;          // "SDIC"
+  private final static int VERSION = 3;
+  private final static int HEADER_SIZE = 16;            // Magic, version, block size and CRC32.
+  private final static int BLOCK_HEADER_SIZE = 12;      // Payload length, entry count and CRC32.
+  private final static int DEFAULT_BLOCK_SIZE = 64 * 1024;
+  private final static int MAX_VARINT_SIZE = 5;
+  private final static int MIN_ENTRY_SIZE = 3;          // Three one-byte varints.
+  private final static int INITIAL_CAPACITY = 1024;     // Entries read before the arrays first grow.
+
+  /** Creates a codec with blocks of about 64 KiB.
+      @param keySerializer    Turns search keys into bytes and back.
+      @param valueSerializer  Turns values into bytes and back. */
+  public DictionaryCodec(Serializer<K> keySerializer, Serializer<V> valueSerializer)
+  {
+    this(keySerializer, valueSerializer, DEFAULT_BLOCK_SIZE);
+  } // end constructor
+
+  /** Creates a codec with blocks of a given size.
+      @param keySerializer    Turns search keys into bytes and back.
+      @param valueSerializer  Turns values into bytes and back.
+      @param blockSize        The payload size at which a block is closed.
+                              An entry larger than this gets a block of its own.
+      @throws IllegalArgumentException if blockSize is not positive. */
+  public DictionaryCodec(Serializer<K> keySerializer, Serializer<V> valueSerializer, int blockSize)
+  {
+    if(blockSize <= 0)
+    {
+      throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+    } // end if
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.blockSize = blockSize;
+  } // end constructor
+
+  /** Writes the entries of a dictionary to a channel, one block at a time,
+      in a single pass of forEach that serializes each key and value once.
+      @param dictionary  The dictionary to be written.
+      @param channel     The channel to write to. It is not closed.
+      @return  The number of bytes written.
+      @throws IOException if the channel cannot be written. */
+  public long write(SortedDictionaryInterface<K, V> dictionary, WritableByteChannel channel) throws IOException
+  {
+    CRC32 checksum = new CRC32();
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+    header.putInt(MAGIC).putInt(VERSION).putInt(blockSize);
+    checksum.update(header.array(), 0, HEADER_SIZE - 4);
+    header.putInt((int)checksum.getValue()).flip();
+    long result = writeFully(channel, header);
+
+    BlockWriter writer = new BlockWriter(channel);
+    try
+    {
+      dictionary.forEach(writer);
+    }
+    catch(UncheckedIOException e) // forEach cannot pass on an IOException itself.
+    {
+      throw e.getCause();
+    } // end try
+    result += writer.finish();
+    return result;
+  } // end write
+
+  /** Reads entries written by write from a channel and adds them to a
+      dictionary in one sorted batch. Entries already in the dictionary
+      stay, unless the stream has the same search key.
+      @param channel     The channel to read from. It is not closed.
+      @param dictionary  The dictionary to be filled.
+      @return  The number of entries read.
+      @throws IOException if the channel cannot be read, ends early, or
+              holds data that is not in this format or fails its CRC32. */
+  public int read(ReadableByteChannel channel, SortedDictionaryInterface<K, V> dictionary) throws IOException
+  {
+    ByteBuffer header = readFully(channel, ByteBuffer.allocate(HEADER_SIZE));
+    if(header.getInt() != MAGIC)
+    {
+      throw new IOException("Not a dictionary stream.");
+    } // end if
+    int version = header.getInt();
+    if(version != VERSION)
+    {
+      throw new IOException("Unsupported dictionary stream version " + version + ".");
+    } // end if
+    CRC32 checksum = new CRC32();
+    checksum.update(header.array(), 0, HEADER_SIZE - 4);
+    if((int)checksum.getValue() != header.getInt(HEADER_SIZE - 4))
+    {
+      throw new IOException("Corrupt dictionary stream: header fails its CRC32.");
+    } // end if
+    int streamBlockSize = header.getInt();
+    if(streamBlockSize <= 0)
+    {
+      throw new IOException("Corrupt dictionary stream: bad header.");
+    } // end if
+
+    // The arrays grow only as blocks pass their CRC32, and a payload buffer
+    // only as its bytes arrive, so a damaged length or count cannot make
+    // the reader allocate much more than the stream holds.
+    @SuppressWarnings("unchecked")
+    K[] keys = (K[])new Comparable[INITIAL_CAPACITY];
+    @SuppressWarnings("unchecked")
+    V[] values = (V[])new Object[keys.length];
+    ByteBuffer blockHeader = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+    ByteBuffer payload = ByteBuffer.allocate(Math.min(streamBlockSize, DEFAULT_BLOCK_SIZE));
+    byte[] keyBytes = new byte[64];
+    int count = 0;
+    boolean more = true;
+    while(more)
+    {
+      blockHeader.clear();
+      readFully(channel, blockHeader);
+      int payloadLength = blockHeader.getInt();
+      int blockEntries = blockHeader.getInt();
+      int expectedChecksum = blockHeader.getInt();
+      if( (payloadLength < 0) || (blockEntries < 0) || (blockEntries > payloadLength / MIN_ENTRY_SIZE) ||
+          ((blockEntries > 1) && (payloadLength > streamBlockSize)) || (blockEntries > Integer.MAX_VALUE - 8 - count) )
+      {
+        throw new IOException("Corrupt dictionary stream: bad block header.");
+      } // end if
+      payload = readPayload(channel, payload, payloadLength);
+      checksum.reset();
+      checksum.update(blockHeader.array(), 0, 8);
+      checksum.update(payload.array(), 0, payloadLength);
+      if((int)checksum.getValue() != expectedChecksum)
+      {
+        throw new IOException("Corrupt dictionary stream: block " + count + " fails its CRC32.");
+      } // end if
+      more = blockEntries > 0;
+      if(keys.length < count + blockEntries)
+      {
+        int capacity = (int)Math.max(count + blockEntries, Math.min(Integer.MAX_VALUE - 8, 2L * keys.length));
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+      } // end if
+
+      int keyLength = 0;
+      for(int i = 0; i < blockEntries; i++)
+      {
+        int shared = getVarint(payload);
+        int suffixLength = getVarint(payload);
+        if( (shared > keyLength) || (suffixLength > payload.remaining()) )
+        {
+          throw new IOException("Corrupt dictionary stream: bad key in block at entry " + count + ".");
+        } // end if
+        keyLength = shared + suffixLength;
+        if(keyBytes.length < keyLength)
+        {
+          keyBytes = Arrays.copyOf(keyBytes, Math.max(keyLength, 2 * keyBytes.length));
+        } // end if
+        payload.get(keyBytes, shared, suffixLength);
+        keys[count] = keySerializer.read(ByteBuffer.wrap(keyBytes, 0, keyLength));
+
+        int valueLength = getVarint(payload);
+        int valueStart = payload.position();
+        if(valueLength > payload.remaining())
+        {
+          throw new IOException("Corrupt dictionary stream: bad value in block at entry " + count + ".");
+        } // end if
+        payload.limit(valueStart + valueLength);
+        values[count] = valueSerializer.read(payload);
+        payload.limit(payloadLength).position(valueStart + valueLength);
+        count++;
+      } // end for
+      if(payload.hasRemaining())
+      {
+        throw new IOException("Corrupt dictionary stream: block ending at entry " + count + " has extra bytes.");
+      } // end if
+    } // end while
+    if(count < keys.length)
+    {
+      keys = Arrays.copyOf(keys, count);
+      values = Arrays.copyOf(values, count);
+    } // end if
+    dictionary.addAll(keys, values);
+    return count;
+  } // end read
+
+  /** Fills in the header of a block, writes it, and readies the buffer
+      for the next block.
+      @return  The number of bytes written. */
+  private static long flushBlock(WritableByteChannel channel, ByteBuffer block, int entries,
+                                 CRC32 checksum) throws IOException
+  {
+    int payloadLength = block.position() - BLOCK_HEADER_SIZE;
+    block.putInt(0, payloadLength).putInt(4, entries);
+    checksum.reset();
+    checksum.update(block.array(), 0, 8);
+    checksum.update(block.array(), BLOCK_HEADER_SIZE, payloadLength);
+    block.putInt(8, (int)checksum.getValue());
+    block.flip();
+    long result = writeFully(channel, block);
+    block.clear().position(BLOCK_HEADER_SIZE);
+    return result;
+  } // end flushBlock
+
+  /** Serializes an object at the start of a scratch buffer.
+      @return  The scratch buffer, grown if the object did not fit, with
+               its position just past the object's bytes. */
+  private static <T> ByteBuffer serialize(Serializer<T> serializer, T object, ByteBuffer scratch)
+  {
+    int size = serializer.sizeOf(object);
+    ByteBuffer result = (size > scratch.capacity()) ? ByteBuffer.allocate(Math.max(size, 2 * scratch.capacity())) : scratch;
+    result.clear();
+    serializer.write(object, result);
+    return result;
+  } // end serialize
+
+  /** Puts a non-negative int as a varint, seven bits per byte, low bits first. */
+  private static void putVarint(ByteBuffer buffer, int value)
+  {
+    int remaining = value;
+    while((remaining & ~0x7F) != 0)
+    {
+      buffer.put((byte)((remaining & 0x7F) | 0x80));
+      remaining >>>= 7;
+    } // end while
+    buffer.put((byte)remaining);
+  } // end putVarint
+
+  /** Gets a non-negative int put by putVarint.
+      @throws IOException if the varint is too long or runs past the buffer. */
+  private static int getVarint(ByteBuffer buffer) throws IOException
+  {
+    int result = 0;
+    int shift = 0;
+    boolean more = true;
+    while(more)
+    {
+      if( !buffer.hasRemaining() || (shift >= 7 * MAX_VARINT_SIZE) )
+      {
+        throw new IOException("Corrupt dictionary stream: bad varint.");
+      } // end if
+      byte next = buffer.get();
+      result |= (next & 0x7F) << shift;
+      shift += 7;
+      more = (next & 0x80) != 0;
+    } // end while
+    if(result < 0)
+    {
+      throw new IOException("Corrupt dictionary stream: bad varint.");
+    } // end if
+    return result;
+  } // end getVarint
+
+  /** Reads a block payload of a given length into a buffer. A buffer too
+      small for it is grown only as the bytes arrive, at most doubling each
+      time, since the length has not been checked against the CRC32 yet.
+      @return  The buffer, grown if needed, holding the payload from 0.
+      @throws EOFException if the channel ends first. */
+  private static ByteBuffer readPayload(ReadableByteChannel channel, ByteBuffer payload,
+                                        int payloadLength) throws IOException
+  {
+    ByteBuffer result = payload;
+    result.clear().limit(Math.min(payloadLength, result.capacity()));
+    readFully(channel, result);
+    while(result.limit() < payloadLength)
+    {
+      int read = result.limit();
+      ByteBuffer larger = ByteBuffer.allocate((int)Math.min(payloadLength, 2L * result.capacity()));
+      larger.put(result.array(), 0, read);
+      larger.limit(larger.capacity());
+      result = readFully(channel, larger);
+    } // end while
+    result.position(0).limit(payloadLength);
+    return result;
+  } // end readPayload
+
+  /** Writes all remaining bytes of a buffer to a channel.
+      @return  The number of bytes written. */
+  private static long writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException
+  {
+    long result = buffer.remaining();
+    while(buffer.hasRemaining())
+    {
+      channel.write(buffer);
+    } // end while
+    return result;
+  } // end writeFully
+
+  /** Fills the remaining space of a buffer from a channel.
+      @return  The buffer, flipped for reading.
+      @throws EOFException if the channel ends first. */
+  private static ByteBuffer readFully(ReadableByteChannel channel, ByteBuffer buffer) throws IOException
+  {
+    while(buffer.hasRemaining())
+    {
+      if(channel.read(buffer) < 0)
+      {
+        throw new EOFException("Dictionary stream ended early.");
+      } // end if
+    } // end while
+    buffer.flip();
+    return buffer;
+  } // end readFully
+
+  /** Private inner class that takes the entries from forEach and writes
+      them a block at a time. */
+  private class BlockWriter implements BiConsumer<K, V>
+  {
+    private final WritableByteChannel channel;
+    private final CRC32 checksum;
+    private ByteBuffer block;
+    private ByteBuffer keyBuffer;
+    private byte[] previousKey;
+    private int previousLength;         // Length of the key before, in the block.
+    private int blockEntries;
+    private long bytesWritten;
+
+    private BlockWriter(WritableByteChannel channel)
+    {
+      this.channel = channel;
+      checksum = new CRC32();
+      block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + blockSize + 3 * MAX_VARINT_SIZE);
+      block.position(BLOCK_HEADER_SIZE);
+      keyBuffer = ByteBuffer.allocate(64);
+      previousKey = new byte[64];
+      previousLength = 0;
+      blockEntries = 0;
+      bytesWritten = 0;
+    } // end constructor
+
+    /** Adds one entry to the block, first writing the block out if the
+        entry would take it past the block size.
+        @throws UncheckedIOException if the channel cannot be written. */
+    public void accept(K key, V value)
+    {
+      keyBuffer = serialize(keySerializer, key, keyBuffer);
+      int keyLength = keyBuffer.position();
+      int valueSize = valueSerializer.sizeOf(value);
+
+      // Count the bytes this key shares with the key before it in the block.
+      byte[] keyBytes = keyBuffer.array();
+      int shared = 0;
+      int sharedLimit = Math.min(keyLength, previousLength);
+      while( (shared < sharedLimit) && (keyBytes[shared] == previousKey[shared]) )
+      {
+        shared++;
+      } // end while
+
+      int entrySize = 3 * MAX_VARINT_SIZE + (keyLength - shared) + valueSize;
+      if( (blockEntries > 0) && (block.position() - BLOCK_HEADER_SIZE + entrySize > blockSize) )
+      {
+        flush();
+        shared = 0;
+        entrySize = 3 * MAX_VARINT_SIZE + keyLength + valueSize;
+      } // end if
+      if(block.remaining() < entrySize)
+      {
+        ByteBuffer larger = ByteBuffer.allocate(block.position() + entrySize);
+        block.flip();
+        larger.put(block);
+        block = larger;
+      } // end if
+
+      putVarint(block, shared);
+      putVarint(block, keyLength - shared);
+      block.put(keyBytes, shared, keyLength - shared);
+      putVarint(block, valueSize);
+      valueSerializer.write(value, block);
+      blockEntries++;
+
+      if(previousKey.length < keyLength)
+      {
+        previousKey = Arrays.copyOf(previousKey, keyBytes.length);
+      } // end if
+      System.arraycopy(keyBytes, shared, previousKey, shared, keyLength - shared);
+      previousLength = keyLength;
+    } // end accept
+
+    /** Writes the last block and the empty block that ends the stream.
+        @return  The number of bytes written since this writer was created. */
+    private long finish() throws IOException
+    {
+      if(blockEntries > 0)
+      {
+        bytesWritten += flushBlock(channel, block, blockEntries, checksum);
+      } // end if
+      bytesWritten += flushBlock(channel, block, 0, checksum);
+      return bytesWritten;
+    } // end finish
+
+    /** Writes the block out and starts an empty one. */
+    private void flush()
+    {
+      try
+      {
+        bytesWritten += flushBlock(channel, block, blockEntries, checksum);
+      }
+      catch(IOException e)
+      {
+        throw new UncheckedIOException(e);
+      } // end try
+      blockEntries = 0;
+      previousLength = 0;
+    } // end flush
+  } // end BlockWriter
+} // end DictionaryCodec
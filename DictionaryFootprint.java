@@ -0,0 +1,63 @@
+/**
+   Compares the heap taken by the Entry-array layout of SortedArrayDictionary
+   with the parallel-array layout of SortedParallelArrayDictionary. The keys
+   and values are created once and shared, so the difference printed is the
+   overhead of each layout alone. Run with a fixed heap, for example
+   java -Xms2g -Xmx2g DictionaryFootprint, for steadier numbers.
+   @author Minwoo Soh
+*/
+public class DictionaryFootprint
+{
+  public static void main(String[] args)
+  {
+    int[] sizes = {100000, 1000000};
+    for(int size : sizes)
+    {
+      Integer[] keys = new Integer[size];
+      String[] values = new String[size];
+      for(int i = 0; i < size; i++)
+      {
+        keys[i] = i;
+        values[i] = "v";
+      } // end for
+
+      long before = usedHeap();
+      SortedArrayDictionary<Integer, String> entryLayout = new SortedArrayDictionary<>(size);
+      entryLayout.addAll(keys, values);
+      long entryBytes = usedHeap() - before;
+
+      before = usedHeap();
+      SortedParallelArrayDictionary<Integer, String> parallelLayout = new SortedParallelArrayDictionary<>(size);
+      parallelLayout.addAll(keys, values);
+      long parallelBytes = usedHeap() - before;
+
+      System.out.println(size + " entries:");
+      System.out.println("  SortedArrayDictionary          " + entryBytes + " bytes, " +
+                         (entryBytes / size) + " bytes per entry");
+      System.out.println("  SortedParallelArrayDictionary  " + parallelBytes + " bytes, " +
+                         (parallelBytes / size) + " bytes per entry");
+      System.out.println("  Saved per entry                " + ((entryBytes - parallelBytes) / size) + " bytes");
+
+      // Keep the dictionaries and the shared arrays reachable until both
+      // layouts have been measured, so nothing is collected in between.
+      if( (entryLayout.getSize() != parallelLayout.getSize()) || (keys.length != values.length) )
+      {
+        System.out.println("Layouts disagree on size.");
+      } // end if
+    } // end for
+  } // end main
+
+  /** Collects garbage until the heap settles and returns the bytes in use.
+      @return  The number of bytes currently used on the heap. */
+  private static long usedHeap()
+  {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for(int i = 0; i < 5; i++)
+    {
+      System.gc();
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    } // end for
+    return used;
+  } // end usedHeap
+} // end of DictionaryFootprint
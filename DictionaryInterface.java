@@ -1,4 +1,9 @@
 import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 /**
    An interface for a dictionary with distinct search keys.
    @author Frank M. Carrano
@@ -44,6 +49,12 @@ public interface DictionaryInterface<K, V>
                 in this dictionary. */
    public Iterator<V> getValueIterator();
 
+   /** Performs an action on every entry in this dictionary, handing over
+       each search key together with its value in a single pass.
+       @param action  The action to be performed for each entry, in
+                      search key order. */
+   public void forEach(BiConsumer<? super K, ? super V> action);
+
    /** Sees whether this dictionary is empty.
        @return  True if the dictionary is empty. */
    public boolean isEmpty();
@@ -55,4 +66,28 @@ public interface DictionaryInterface<K, V>
 
    /** Removes all entries from this dictionary. */
    public void clear();
+
+   /** Creates a spliterator over the entries of this dictionary. By
+       default the entries are copied with forEach, so the spliterator
+       sees the dictionary as it was when this method was called.
+       @return  A spliterator that splits in O(1) for parallel work. */
+   public default Spliterator<Map.Entry<K, V>> spliterator()
+   {
+      return EntryArraySpliterator.copyOf(this, null);
+   } // end spliterator
+
+   /** Creates a sequential stream of the entries of this dictionary.
+       @return  A stream over spliterator(). */
+   public default Stream<Map.Entry<K, V>> stream()
+   {
+      return StreamSupport.stream(spliterator(), false);
+   } // end stream
+
+   /** Creates a parallel stream of the entries of this dictionary, which
+       runs in the common fork/join pool.
+       @return  A parallel stream over spliterator(). */
+   public default Stream<Map.Entry<K, V>> parallelStream()
+   {
+      return StreamSupport.stream(spliterator(), true);
+   } // end parallelStream
 } // end DictionaryInterface
@@ -0,0 +1,243 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+/**
+   A load generator for DictionaryServer that runs entirely on this
+   machine. It starts a server for Integer keys and values, fills it,
+   then has a number of client connections, one thread each, send
+   pipelines of random getValue, add and remove requests for a fixed
+   time. It prints the throughput, the 50th, 99th and 99.9th percentile
+   latencies and the mean number of requests the writer applied per
+   pass. The latency of a request is the round trip of its pipeline,
+   from the first write to the last response read.
+   Options, all optional:
+     --engine=array|linked  --keys=100000  --connections=16  --depth=32
+     --writes=20  --warmup-ms=1000  --measure-ms=5000  --unix
+   --writes is the percentage of requests that are adds or removes, and
+   --unix serves over a Unix domain socket instead of loopback TCP.
+   @author Minwoo Soh
+*/
+public class DictionaryLoadGenerator
+{
+  private static volatile boolean recording;
+  private static volatile boolean running;
+
+  public static void main(String[] args) throws Exception
+  {
+    String engine = "array";
+    int keyCount = 100000;
+    int connectionCount = 16;
+    int depth = 32;
+    int writePercent = 20;
+    long warmupMillis = 1000;
+    long measureMillis = 5000;
+    boolean unix = false;
+    for(String arg : args)
+    {
+      String value = arg.substring(arg.indexOf('=') + 1);
+      if(arg.startsWith("--engine="))
+      {
+        engine = value;
+      }
+      else if(arg.startsWith("--keys="))
+      {
+        keyCount = Integer.parseInt(value);
+      }
+      else if(arg.startsWith("--connections="))
+      {
+        connectionCount = Integer.parseInt(value);
+      }
+      else if(arg.startsWith("--depth="))
+      {
+        depth = Integer.parseInt(value);
+      }
+      else if(arg.startsWith("--writes="))
+      {
+        writePercent = Integer.parseInt(value);
+      }
+      else if(arg.startsWith("--warmup-ms="))
+      {
+        warmupMillis = Long.parseLong(value);
+      }
+      else if(arg.startsWith("--measure-ms="))
+      {
+        measureMillis = Long.parseLong(value);
+      }
+      else if(arg.equals("--unix"))
+      {
+        unix = true;
+      }
+      else
+      {
+        throw new IllegalArgumentException("Unknown option: " + arg);
+      } // end if
+    } // end for
+
+    DictionaryInterface<Integer, Integer> dictionary;
+    if(engine.equals("array"))
+    {
+      dictionary = new SortedArrayDictionary<>();
+    }
+    else if(engine.equals("linked"))
+    {
+      dictionary = new SortedLinkedDictionary<>();
+    }
+    else
+    {
+      throw new IllegalArgumentException("Unknown engine: " + engine);
+    } // end if
+
+    Path socketDirectory = null;
+    SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+    if(unix)
+    {
+      socketDirectory = Files.createTempDirectory("dictionary-server");
+      address = UnixDomainSocketAddress.of(socketDirectory.resolve("socket"));
+    } // end if
+
+    try (DictionaryServer<Integer, Integer> server =
+           new DictionaryServer<>(dictionary, Serializer.integers(), Serializer.integers(), address))
+    {
+      fill(server.getAddress(), keyCount);
+      List<Worker> workers = new ArrayList<>();
+      for(int i = 0; i < connectionCount; i++)
+      {
+        Worker worker = new Worker(server.getAddress(), keyCount, depth, writePercent, i);
+        workers.add(worker);
+      } // end for
+      running = true;
+      for(Worker worker : workers)
+      {
+        worker.start();
+      } // end for
+      Thread.sleep(warmupMillis);
+      long startRequests = server.getRequestCount();
+      long startBatches = server.getBatchCount();
+      recording = true;
+      long startTime = System.nanoTime();
+      Thread.sleep(measureMillis);
+      recording = false;
+      long elapsed = System.nanoTime() - startTime;
+      long requests = server.getRequestCount() - startRequests;
+      long batches = server.getBatchCount() - startBatches;
+      running = false;
+
+      LatencyHistogram latencies = new LatencyHistogram();
+      for(Worker worker : workers)
+      {
+        worker.join();
+        if(worker.failure != null)
+        {
+          throw worker.failure;
+        } // end if
+        latencies.add(worker.latencies);
+      } // end for
+
+      System.out.printf("%s over %s, %s threads, %d keys, %d connections, depth %d, %d%% writes%n",
+                        engine, unix ? "Unix socket" : "loopback TCP",
+                        server.usesVirtualThreads() ? "virtual" : "platform",
+                        keyCount, connectionCount, depth, writePercent);
+      System.out.printf("  throughput  %,.0f requests/s%n", latencies.getCount() * 1e9 / elapsed);
+      System.out.printf("  latency     p50 %,d us  p99 %,d us  p99.9 %,d us  max %,d us%n",
+                        latencies.getPercentile(50) / 1000, latencies.getPercentile(99) / 1000,
+                        latencies.getPercentile(99.9) / 1000, latencies.getMax() / 1000);
+      System.out.printf("  writer      %,d passes, %.1f requests per pass%n",
+                        batches, (batches == 0) ? 0.0 : (double)requests / batches);
+    }
+    finally
+    {
+      if(socketDirectory != null)
+      {
+        Files.deleteIfExists(socketDirectory.resolve("socket"));
+        Files.deleteIfExists(socketDirectory);
+      } // end if
+    } // end try
+  } // end main
+
+  /** Adds keys 0, 2, 4, ... so that half the keys asked for are there. */
+  private static void fill(SocketAddress address, int keyCount) throws IOException
+  {
+    try (DictionaryClient<Integer, Integer> client =
+           new DictionaryClient<>(address, Serializer.integers(), Serializer.integers()))
+    {
+      DictionaryClient<Integer, Integer>.Pipeline pipeline = client.pipeline();
+      for(int key = 0; key < keyCount; key += 2)
+      {
+        pipeline.add(key, key);
+      } // end for
+      pipeline.sync();
+    } // end try
+  } // end fill
+
+  /** Private class for one connection that sends pipelines until stopped. */
+  private static class Worker extends Thread
+  {
+    private final SocketAddress address;
+    private final int keyCount;
+    private final int depth;
+    private final int writePercent;
+    private final Random random;
+    private final LatencyHistogram latencies;
+    private Exception failure;
+
+    private Worker(SocketAddress address, int keyCount, int depth, int writePercent, int seed)
+    {
+      super("load-" + seed);
+      this.address = address;
+      this.keyCount = keyCount;
+      this.depth = depth;
+      this.writePercent = writePercent;
+      random = new Random(seed);
+      latencies = new LatencyHistogram();
+    } // end constructor
+
+    public void run()
+    {
+      try (DictionaryClient<Integer, Integer> client =
+             new DictionaryClient<>(address, Serializer.integers(), Serializer.integers()))
+      {
+        while(running)
+        {
+          DictionaryClient<Integer, Integer>.Pipeline pipeline = client.pipeline();
+          for(int i = 0; i < depth; i++)
+          {
+            int key = random.nextInt(keyCount);
+            if(random.nextInt(100) >= writePercent)
+            {
+              pipeline.getValue(key);
+            }
+            else if(random.nextBoolean())
+            {
+              pipeline.add(key, i);
+            }
+            else
+            {
+              pipeline.remove(key);
+            } // end if
+          } // end for
+          long startTime = System.nanoTime();
+          pipeline.sync();
+          long latency = System.nanoTime() - startTime;
+          if(recording)
+          {
+            for(int i = 0; i < depth; i++)
+            {
+              latencies.record(latency);
+            } // end for
+          } // end if
+        } // end while
+      }
+      catch(IOException e)
+      {
+        failure = e;
+      } // end try
+    } // end run
+  } // end Worker
+} // end DictionaryLoadGenerator
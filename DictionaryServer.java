@@ -0,0 +1,570 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+/**
+   A small server that lets other processes use one dictionary over a
+   loopback TCP port or a Unix domain socket. Each connection gets its
+   own thread, virtual where the JVM has virtual threads and a platform
+   thread otherwise. A client may pipeline requests: the connection
+   thread takes every complete request that has arrived, hands them to
+   the writer thread as one group, and writes the responses back in
+   order with one write.
+   A single writer thread owns the dictionary, so it need not be
+   thread-safe. It takes all the groups waiting for it and applies them
+   in one pass, so requests from many connections share one hand-off.
+   Reads go through the writer too, since some dictionaries, such as
+   SortedLinkedDictionary, move a search finger even when they read.
+   A request that throws, even an Error, gets an ERROR response without
+   stopping the writer; if the writer stops anyway, every request still
+   waiting for it gets an ERROR response as well.
+   Frames: an int body length, then the body. A request body is an
+   operation byte, then for keyed operations an int key length and the
+   key bytes, and for ADD an int value length and the value bytes; a
+   length of -1 stands for null. A response body is a status byte,
+   followed by the value bytes for VALUE, an int for INT, or UTF-8 text
+   for ERROR.
+   @author Minwoo Soh
+*/
+public class DictionaryServer<K, V> implements Closeable
+{
+  // Operations.
+  final static byte ADD = 1;
+  final static byte REMOVE = 2;
+  final static byte GET_VALUE = 3;
+  final static byte CONTAINS = 4;
+  final static byte SIZE = 5;
+  final static byte CLEAR = 6;
+
+  // Response statuses.
+  final static byte NULL = 0;
+  final static byte VALUE = 1;
+  final static byte TRUE = 2;
+  final static byte FALSE = 3;
+  final static byte INT = 4;
+  final static byte OK = 5;
+  final static byte ERROR = 6;
+
+  final static int MAX_FRAME_SIZE = 64 * 1024 * 1024;
+  private final static int BUFFER_SIZE = 64 * 1024;
+
+  private final DictionaryInterface<K, V> dictionary;
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private final ServerSocketChannel serverChannel;
+  private final SocketAddress localAddress;
+  private final ExecutorService connectionThreads;
+  private final Thread acceptThread;
+  private final Thread writerThread;
+  private final BlockingQueue<Batch<K, V>> pending;
+  private final Set<SocketChannel> connections;
+  private final AtomicLong connectionCount;
+  private volatile boolean closed;
+  private volatile boolean writerStopped; // Set before the writer fails the batches left to it.
+
+  // Written only by the writer thread.
+  private volatile long appliedBatches;
+  private volatile long appliedRequests;
+
+  /** Starts a server for a dictionary on a free loopback TCP port.
+      @param dictionary       The dictionary to serve. Only the server's
+                              writer thread may use it from now on.
+      @param keySerializer    Turns search keys into bytes and back.
+      @param valueSerializer  Turns values into bytes and back.
+      @throws IOException if the port cannot be opened. */
+  public DictionaryServer(DictionaryInterface<K, V> dictionary, Serializer<K> keySerializer,
+                          Serializer<V> valueSerializer) throws IOException
+  {
+    this(dictionary, keySerializer, valueSerializer, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+  } // end constructor
+
+  /** Starts a server for a dictionary on a given address.
+      @param dictionary       The dictionary to serve. Only the server's
+                              writer thread may use it from now on.
+      @param keySerializer    Turns search keys into bytes and back.
+      @param valueSerializer  Turns values into bytes and back.
+      @param address          An InetSocketAddress, or a UnixDomainSocketAddress
+                              whose file does not exist yet.
+      @throws IOException if the address cannot be bound. */
+  public DictionaryServer(DictionaryInterface<K, V> dictionary, Serializer<K> keySerializer,
+                          Serializer<V> valueSerializer, SocketAddress address) throws IOException
+  {
+    this.dictionary = dictionary;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    pending = new LinkedBlockingQueue<>();
+    connections = ConcurrentHashMap.newKeySet();
+    connectionCount = new AtomicLong();
+    if(address instanceof UnixDomainSocketAddress)
+    {
+      serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+    }
+    else
+    {
+      serverChannel = ServerSocketChannel.open();
+    } // end if
+    serverChannel.bind(address);
+    localAddress = serverChannel.getLocalAddress();
+    connectionThreads = newConnectionExecutor();
+    writerThread = new Thread(this::applyBatches, "dictionary-writer");
+    writerThread.setDaemon(true);
+    writerThread.start();
+    acceptThread = new Thread(this::acceptConnections, "dictionary-acceptor");
+    acceptThread.setDaemon(true);
+    acceptThread.start();
+  } // end constructor
+
+  /** Gets the address clients should connect to.
+      @return  The bound address, with the port chosen if 0 was asked for. */
+  public SocketAddress getAddress()
+  {
+    return localAddress;
+  } // end getAddress
+
+  /** Gets the number of passes the writer thread has made. Each pass
+      applies every group of requests that was waiting for it.
+      @return  The count of passes. */
+  public long getBatchCount()
+  {
+    return appliedBatches;
+  } // end getBatchCount
+
+  /** Gets the number of requests the writer thread has applied.
+      @return  The count of requests. */
+  public long getRequestCount()
+  {
+    return appliedRequests;
+  } // end getRequestCount
+
+  /** Sees whether connections are served by virtual threads.
+      @return  True on a JVM with virtual threads, false if platform
+               threads are used instead. */
+  public boolean usesVirtualThreads()
+  {
+    return !(connectionThreads instanceof ThreadPoolExecutor);
+  } // end usesVirtualThreads
+
+  /** Gets the number of connections accepted so far.
+      @return  The count of connections. */
+  public long getConnectionCount()
+  {
+    return connectionCount.get();
+  } // end getConnectionCount
+
+  /** Stops accepting connections, closes the open ones and stops the
+      writer thread. */
+  public void close() throws IOException
+  {
+    if(!closed)
+    {
+      closed = true;
+      serverChannel.close();
+      for(SocketChannel connection : connections)
+      {
+        connection.close();
+      } // end for
+      connectionThreads.shutdownNow();
+      writerThread.interrupt();
+    } // end if
+  } // end close
+
+  /** Creates an executor that runs each task on a new virtual thread, or
+      on a cached pool of daemon platform threads where the JVM has no
+      virtual threads. It is looked up by reflection so this compiles and
+      runs on JVMs from before virtual threads. */
+  private static ExecutorService newConnectionExecutor()
+  {
+    ExecutorService result;
+    try
+    {
+      result = (ExecutorService)Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+    catch(ReflectiveOperationException | UnsupportedOperationException e)
+    {
+      result = Executors.newCachedThreadPool(task ->
+      {
+        Thread thread = new Thread(task, "dictionary-connection");
+        thread.setDaemon(true);
+        return thread;
+      });
+    } // end try
+    return result;
+  } // end newConnectionExecutor
+
+  /** Accepts connections until the server is closed. */
+  private void acceptConnections()
+  {
+    try
+    {
+      while(!closed)
+      {
+        SocketChannel connection = serverChannel.accept();
+        connections.add(connection);
+        connectionCount.incrementAndGet();
+        connectionThreads.execute(() -> serve(connection));
+      } // end while
+    }
+    catch(IOException e)
+    {
+      if(!closed)
+      {
+        System.out.println("DictionaryServer stopped accepting: " + e.getMessage());
+      } // end if
+    } // end try
+  } // end acceptConnections
+
+  /** Reads the requests of one connection, a group at a time, and writes
+      back their responses, until the client closes it. */
+  private void serve(SocketChannel connection)
+  {
+    ByteBuffer input = ByteBuffer.allocate(BUFFER_SIZE);
+    ByteBuffer output = ByteBuffer.allocate(BUFFER_SIZE);
+    ByteBuffer scratch = ByteBuffer.allocate(256);
+    List<Request<K, V>> requests = new ArrayList<>();
+    try
+    {
+      while(connection.read(input) >= 0)
+      {
+        input.flip();
+        int frameLength = parseRequests(input, requests);
+        input.compact();
+        if( (frameLength > input.capacity()) && (frameLength <= MAX_FRAME_SIZE) )
+        {
+          input = grow(input, frameLength);
+        } // end if
+        if(!requests.isEmpty())
+        {
+          Batch<K, V> batch = new Batch<>(requests);
+          pending.put(batch);
+          if(writerStopped) // The writer may have made its last drain before the put.
+          {
+            failPending();
+          } // end if
+          batch.await();
+          output.clear();
+          for(Request<K, V> request : requests)
+          {
+            scratch = encodeResult(request, scratch);
+            scratch.flip();
+            if(output.remaining() < scratch.remaining())
+            {
+              output = grow(output, output.position() + scratch.remaining());
+            } // end if
+            output.put(scratch);
+          } // end for
+          output.flip();
+          while(output.hasRemaining())
+          {
+            connection.write(output);
+          } // end while
+          requests.clear();
+        } // end if
+      } // end while
+    }
+    catch(IOException | InterruptedException | RuntimeException e)
+    {
+      if( !closed && !(e instanceof ClosedChannelException) )
+      {
+        System.out.println("DictionaryServer dropped a connection: " + e);
+      } // end if
+    }
+    finally
+    {
+      connections.remove(connection);
+      try
+      {
+        connection.close();
+      }
+      catch(IOException e)
+      {
+        // Nothing more can be done for this connection.
+      } // end try
+    } // end try
+  } // end serve
+
+  /** Decodes every complete request frame in a buffer into a list.
+      @return  The length of the frame that is still incomplete, or 0. */
+  private int parseRequests(ByteBuffer input, List<Request<K, V>> requests) throws IOException
+  {
+    int result = 0;
+    boolean complete = true;
+    while(complete && (input.remaining() >= Integer.BYTES))
+    {
+      int bodyLength = input.getInt(input.position());
+      if( (bodyLength < 1) || (bodyLength > MAX_FRAME_SIZE) )
+      {
+        throw new IOException("Bad request frame length " + bodyLength);
+      }
+      else if(input.remaining() < Integer.BYTES + bodyLength)
+      {
+        result = Integer.BYTES + bodyLength;
+        complete = false;
+      }
+      else
+      {
+        input.getInt();
+        int end = input.position() + bodyLength;
+        int limit = input.limit();
+        input.limit(end);
+        byte operation = input.get();
+        K key = null;
+        V value = null;
+        if( (operation == ADD) || (operation == REMOVE) || (operation == GET_VALUE) || (operation == CONTAINS) )
+        {
+          key = readObject(input, keySerializer);
+        } // end if
+        if(operation == ADD)
+        {
+          value = readObject(input, valueSerializer);
+        } // end if
+        input.limit(limit).position(end);
+        requests.add(new Request<>(operation, key, value));
+      } // end if
+    } // end while
+    return result;
+  } // end parseRequests
+
+  /** Reads one length-prefixed object, or null for a length of -1. */
+  private static <T> T readObject(ByteBuffer buffer, Serializer<T> serializer) throws IOException
+  {
+    T result = null;
+    int length = buffer.getInt();
+    if( (length < -1) || (length > buffer.remaining()) )
+    {
+      throw new IOException("Bad object length " + length);
+    }
+    else if(length >= 0)
+    {
+      int end = buffer.position() + length;
+      int limit = buffer.limit();
+      buffer.limit(end);
+      result = serializer.read(buffer);
+      buffer.limit(limit).position(end);
+    } // end if
+    return result;
+  } // end readObject
+
+  /** Applies groups of requests to the dictionary until the server is
+      closed. However the writer stops, it first releases every batch
+      it took and every batch still waiting, so that no connection waits
+      for it forever. */
+  private void applyBatches()
+  {
+    List<Batch<K, V>> batches = new ArrayList<>();
+    try
+    {
+      while(!closed)
+      {
+        batches.add(pending.take());
+        pending.drainTo(batches);
+        long requestCount = appliedRequests;
+        for(Batch<K, V> batch : batches)
+        {
+          for(Request<K, V> request : batch.requests)
+          {
+            apply(request);
+          } // end for
+          requestCount += batch.requests.size();
+        } // end for
+        appliedRequests = requestCount;
+        appliedBatches++;
+        for(Batch<K, V> batch : batches)
+        {
+          batch.done.countDown();
+        } // end for
+        batches.clear();
+      } // end while
+    }
+    catch(InterruptedException e)
+    {
+      // The server is closing.
+    }
+    finally
+    {
+      writerStopped = true;
+      failBatches(batches);
+      failPending();
+    } // end try
+  } // end applyBatches
+
+  /** Releases every batch waiting in the queue after the writer has stopped. */
+  private void failPending()
+  {
+    List<Batch<K, V>> batches = new ArrayList<>();
+    pending.drainTo(batches);
+    failBatches(batches);
+  } // end failPending
+
+  /** Answers the requests of batches that were not applied with an error,
+      and releases their connections. */
+  private static <K, V> void failBatches(List<Batch<K, V>> batches)
+  {
+    for(Batch<K, V> batch : batches)
+    {
+      for(Request<K, V> request : batch.requests)
+      {
+        if(!request.applied)
+        {
+          request.error = "The server's writer thread has stopped.";
+        } // end if
+      } // end for
+      batch.done.countDown();
+    } // end for
+    batches.clear();
+  } // end failBatches
+
+  /** Applies one request, keeping its result or the message of what it
+      threw. An Error, such as one from a key's compareTo or running out
+      of memory, is kept the same way, so that it fails this request
+      rather than the writer thread. */
+  private void apply(Request<K, V> request)
+  {
+    try
+    {
+      switch(request.operation)
+      {
+        case ADD:
+          request.result = dictionary.add(request.key, request.value);
+          break;
+        case REMOVE:
+          request.result = dictionary.remove(request.key);
+          break;
+        case GET_VALUE:
+          request.result = dictionary.getValue(request.key);
+          break;
+        case CONTAINS:
+          request.result = dictionary.contains(request.key);
+          break;
+        case SIZE:
+          request.result = dictionary.getSize();
+          break;
+        case CLEAR:
+          dictionary.clear();
+          break;
+        default:
+          request.error = "Unknown operation " + request.operation;
+      } // end switch
+    }
+    catch(Throwable e)
+    {
+      request.error = String.valueOf(e);
+    }
+    finally
+    {
+      request.applied = true;
+    } // end try
+  } // end apply
+
+  /** Encodes the response to one applied request into a scratch buffer.
+      @return  The scratch buffer, grown if needed, with the frame before
+               its position. */
+  @SuppressWarnings("unchecked")
+  private ByteBuffer encodeResult(Request<K, V> request, ByteBuffer scratch)
+  {
+    ByteBuffer result = scratch;
+    result.clear();
+    if(request.error != null)
+    {
+      byte[] message = request.error.getBytes(StandardCharsets.UTF_8);
+      result = ensureRemaining(result, Integer.BYTES + 1 + message.length);
+      result.putInt(1 + message.length).put(ERROR).put(message);
+    }
+    else if(request.operation == CONTAINS)
+    {
+      result.putInt(1).put(((Boolean)request.result) ? TRUE : FALSE);
+    }
+    else if(request.operation == SIZE)
+    {
+      result.putInt(1 + Integer.BYTES).put(INT).putInt((Integer)request.result);
+    }
+    else if(request.operation == CLEAR)
+    {
+      result.putInt(1).put(OK);
+    }
+    else if(request.result == null)
+    {
+      result.putInt(1).put(NULL);
+    }
+    else
+    {
+      V value = (V)request.result;
+      int size = valueSerializer.sizeOf(value);
+      result = ensureRemaining(result, Integer.BYTES + 1 + size);
+      result.putInt(1 + size).put(VALUE);
+      valueSerializer.write(value, result);
+    } // end if
+    return result;
+  } // end encodeResult
+
+  /** Makes sure a cleared buffer has room for a given number of bytes. */
+  static ByteBuffer ensureRemaining(ByteBuffer buffer, int size)
+  {
+    return (buffer.remaining() >= size) ? buffer : ByteBuffer.allocate(Math.max(size, 2 * buffer.capacity()));
+  } // end ensureRemaining
+
+  /** Copies a buffer, which is ready for writing, into a larger one. */
+  static ByteBuffer grow(ByteBuffer buffer, int capacity)
+  {
+    ByteBuffer result = ByteBuffer.allocate(Math.max(capacity, 2 * buffer.capacity()));
+    buffer.flip();
+    result.put(buffer);
+    return result;
+  } // end grow
+
+  /** Private class for one decoded request and, once applied, its result. */
+  private static class Request<K, V>
+  {
+    private final byte operation;
+    private final K key;
+    private final V value;
+    private Object result;
+    private String error;
+    private boolean applied;            // Set by the writer once it has run the request.
+
+    private Request(byte operation, K key, V value)
+    {
+      this.operation = operation;
+      this.key = key;
+      this.value = value;
+    } // end constructor
+  } // end Request
+
+  /** Private class for the requests one connection hands to the writer
+      at a time. The latch orders the writer's changes before the
+      connection thread reads the results. */
+  private static class Batch<K, V>
+  {
+    private final List<Request<K, V>> requests;
+    private final CountDownLatch done;
+
+    private Batch(List<Request<K, V>> requests)
+    {
+      this.requests = requests;
+      done = new CountDownLatch(1);
+    } // end constructor
+
+    private void await() throws InterruptedException
+    {
+      done.await();
+    } // end await
+  } // end Batch
+} // end DictionaryServer
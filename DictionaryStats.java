@@ -0,0 +1,325 @@
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+/**
+   Counters and histograms for the hot paths of a dictionary. A dictionary
+   holds no DictionaryStats until enableStats is called on it, so when
+   instrumentation is off each operation pays only a null check.
+   Comparisons are counted per timed operation, while shifts, traversed
+   nodes and growth events are counted wherever they happen. The record
+   methods are meant to be called by the single thread that owns the
+   dictionary; snapshot and the JMX getters may be called from any thread.
+   @author Minwoo Soh
+*/
+public class DictionaryStats implements DictionaryStatsMBean
+{
+  /** The operations that are timed. */
+  public enum Operation { ADD, REMOVE, GET_VALUE, CONTAINS }
+
+  private final static Operation[] OPERATIONS = Operation.values();
+  private final LatencyHistogram[] latencies;
+  private final LatencyHistogram[] comparisons;
+  private long pendingComparisons;      // Comparisons of the operation in progress.
+  private long elementsShifted;
+  private long nodesTraversed;
+  private long growthEvents;
+  private ObjectName objectName;        // Null unless registered.
+
+  /** Creates statistics with nothing recorded. */
+  public DictionaryStats()
+  {
+    latencies = new LatencyHistogram[OPERATIONS.length];
+    comparisons = new LatencyHistogram[OPERATIONS.length];
+    for(int i = 0; i < OPERATIONS.length; i++)
+    {
+      latencies[i] = new LatencyHistogram();
+      comparisons[i] = new LatencyHistogram();
+    } // end for
+  } // end default constructor
+
+  /** Marks the start of a timed operation.
+      @return  The start time to pass to endOperation. */
+  public long startOperation()
+  {
+    pendingComparisons = 0;
+    return System.nanoTime();
+  } // end startOperation
+
+  /** Marks the end of a timed operation, recording its latency and the
+      comparisons counted since startOperation.
+      @param operation  The operation that finished.
+      @param startTime  The value returned by startOperation. */
+  public synchronized void endOperation(Operation operation, long startTime)
+  {
+    latencies[operation.ordinal()].record(System.nanoTime() - startTime);
+    comparisons[operation.ordinal()].record(pendingComparisons);
+    pendingComparisons = 0;
+  } // end endOperation
+
+  /** Counts calls to compareTo made by the operation in progress.
+      @param count  The number of comparisons. */
+  public void countComparisons(int count)
+  {
+    pendingComparisons += count;
+  } // end countComparisons
+
+  /** Counts entries moved to open or close a gap.
+      @param count  The number of entries moved. */
+  public synchronized void countShifted(int count)
+  {
+    elementsShifted += count;
+  } // end countShifted
+
+  /** Counts nodes stepped over while searching a chain.
+      @param count  The number of nodes. */
+  public synchronized void countTraversed(int count)
+  {
+    nodesTraversed += count;
+  } // end countTraversed
+
+  /** Counts one growth of the storage. */
+  public synchronized void countGrowth()
+  {
+    growthEvents++;
+  } // end countGrowth
+
+  /** Copies everything recorded so far.
+      @return  A snapshot that does not change as more is recorded. */
+  public synchronized Snapshot snapshot()
+  {
+    LatencyHistogram[] latencyCopies = new LatencyHistogram[OPERATIONS.length];
+    LatencyHistogram[] comparisonCopies = new LatencyHistogram[OPERATIONS.length];
+    for(int i = 0; i < OPERATIONS.length; i++)
+    {
+      latencyCopies[i] = latencies[i].copy();
+      comparisonCopies[i] = comparisons[i].copy();
+    } // end for
+    return new Snapshot(latencyCopies, comparisonCopies, elementsShifted, nodesTraversed, growthEvents);
+  } // end snapshot
+
+  /** Forgets everything recorded so far. */
+  public synchronized void reset()
+  {
+    for(int i = 0; i < OPERATIONS.length; i++)
+    {
+      latencies[i].reset();
+      comparisons[i].reset();
+    } // end for
+    pendingComparisons = 0;
+    elementsShifted = 0;
+    nodesTraversed = 0;
+    growthEvents = 0;
+  } // end reset
+
+  /** Registers these statistics with the platform MBean server under
+      the name dictionary:type=DictionaryStats,name=<name>.
+      @param name  A name that tells this dictionary apart from others.
+      @return  The name the statistics were registered under.
+      @throws IllegalStateException if the registration fails, as when
+              the name is already taken. */
+  public synchronized ObjectName register(String name)
+  {
+    try
+    {
+      ObjectName result = new ObjectName("dictionary:type=DictionaryStats,name=" + ObjectName.quote(name));
+      ManagementFactory.getPlatformMBeanServer().registerMBean(this, result);
+      objectName = result;
+      return result;
+    }
+    catch(JMException e)
+    {
+      throw new IllegalStateException("Cannot register dictionary statistics as " + name, e);
+    } // end try
+  } // end register
+
+  /** Removes these statistics from the platform MBean server, if
+      register was called. */
+  public synchronized void unregister()
+  {
+    if(objectName != null)
+    {
+      try
+      {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        if(server.isRegistered(objectName))
+        {
+          server.unregisterMBean(objectName);
+        } // end if
+      }
+      catch(JMException e)
+      {
+        throw new IllegalStateException("Cannot unregister dictionary statistics " + objectName, e);
+      } // end try
+      objectName = null;
+    } // end if
+  } // end unregister
+
+  public long getOperationCount()
+  {
+    return snapshot().getOperationCount();
+  } // end getOperationCount
+
+  public long getComparisonCount()
+  {
+    return snapshot().getComparisonCount();
+  } // end getComparisonCount
+
+  public double getMeanComparisons()
+  {
+    return snapshot().getMeanComparisons();
+  } // end getMeanComparisons
+
+  public synchronized long getElementsShifted()
+  {
+    return elementsShifted;
+  } // end getElementsShifted
+
+  public synchronized long getNodesTraversed()
+  {
+    return nodesTraversed;
+  } // end getNodesTraversed
+
+  public synchronized long getGrowthEvents()
+  {
+    return growthEvents;
+  } // end getGrowthEvents
+
+  public long getP50LatencyNanos()
+  {
+    return snapshot().getLatency().getPercentile(50);
+  } // end getP50LatencyNanos
+
+  public long getP99LatencyNanos()
+  {
+    return snapshot().getLatency().getPercentile(99);
+  } // end getP99LatencyNanos
+
+  public long getMaxLatencyNanos()
+  {
+    return snapshot().getLatency().getMax();
+  } // end getMaxLatencyNanos
+
+  /** Everything a DictionaryStats had recorded at one moment. */
+  public static class Snapshot
+  {
+    private final LatencyHistogram[] latencies;
+    private final LatencyHistogram[] comparisons;
+    private final long elementsShifted;
+    private final long nodesTraversed;
+    private final long growthEvents;
+
+    private Snapshot(LatencyHistogram[] latencies, LatencyHistogram[] comparisons,
+                     long elementsShifted, long nodesTraversed, long growthEvents)
+    {
+      this.latencies = latencies;
+      this.comparisons = comparisons;
+      this.elementsShifted = elementsShifted;
+      this.nodesTraversed = nodesTraversed;
+      this.growthEvents = growthEvents;
+    } // end constructor
+
+    /** Gets the latencies of one operation.
+        @param operation  The operation wanted.
+        @return  A copy of the histogram, in nanoseconds. */
+    public LatencyHistogram getLatency(Operation operation)
+    {
+      return latencies[operation.ordinal()].copy();
+    } // end getLatency
+
+    /** Gets the latencies of all operations together.
+        @return  A histogram in nanoseconds. */
+    public LatencyHistogram getLatency()
+    {
+      LatencyHistogram result = new LatencyHistogram();
+      for(LatencyHistogram histogram : latencies)
+      {
+        result.add(histogram);
+      } // end for
+      return result;
+    } // end getLatency
+
+    /** Gets the compareTo calls per call of one operation.
+        @param operation  The operation wanted.
+        @return  A copy of the histogram. */
+    public LatencyHistogram getComparisons(Operation operation)
+    {
+      return comparisons[operation.ordinal()].copy();
+    } // end getComparisons
+
+    /** Gets the number of timed operations recorded.
+        @return  The count over all operations. */
+    public long getOperationCount()
+    {
+      long result = 0;
+      for(LatencyHistogram histogram : latencies)
+      {
+        result += histogram.getCount();
+      } // end for
+      return result;
+    } // end getOperationCount
+
+    /** Gets the number of compareTo calls made by timed operations.
+        @return  The count over all operations. */
+    public long getComparisonCount()
+    {
+      long result = 0;
+      for(LatencyHistogram histogram : comparisons)
+      {
+        result += Math.round(histogram.getMean() * histogram.getCount());
+      } // end for
+      return result;
+    } // end getComparisonCount
+
+    /** Gets the mean number of compareTo calls per timed operation.
+        @return  The mean, or 0 if nothing was recorded. */
+    public double getMeanComparisons()
+    {
+      long count = getOperationCount();
+      return (count == 0) ? 0 : (double)getComparisonCount() / count;
+    } // end getMeanComparisons
+
+    /** Gets the number of entries moved to open or close a gap.
+        @return  The count of entries shifted. */
+    public long getElementsShifted()
+    {
+      return elementsShifted;
+    } // end getElementsShifted
+
+    /** Gets the number of nodes stepped over while searching a chain.
+        @return  The count of nodes traversed. */
+    public long getNodesTraversed()
+    {
+      return nodesTraversed;
+    } // end getNodesTraversed
+
+    /** Gets the number of times the storage had to grow.
+        @return  The count of growth events. */
+    public long getGrowthEvents()
+    {
+      return growthEvents;
+    } // end getGrowthEvents
+
+    /** Describes the snapshot, one line per operation that was called.
+        @return  A summary of counts, comparisons and latencies. */
+    public String toString()
+    {
+      StringBuilder result = new StringBuilder();
+      for(Operation operation : OPERATIONS)
+      {
+        LatencyHistogram latency = latencies[operation.ordinal()];
+        if(latency.getCount() > 0)
+        {
+          result.append(String.format("%-9s n=%d cmp/op=%.1f p50=%dns p99=%dns max=%dns%n",
+                                      operation, latency.getCount(),
+                                      comparisons[operation.ordinal()].getMean(),
+                                      latency.getPercentile(50), latency.getPercentile(99),
+                                      latency.getMax()));
+        } // end if
+      } // end for
+      result.append(String.format("shifted=%d traversed=%d growths=%d",
+                                  elementsShifted, nodesTraversed, growthEvents));
+      return result.toString();
+    } // end toString
+  } // end Snapshot
+} // end DictionaryStats
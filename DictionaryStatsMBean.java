@@ -0,0 +1,46 @@
+/**
+   The management interface of DictionaryStats, so that a dictionary's
+   counters can be read from a JMX console while it runs.
+   @author Minwoo Soh
+*/
+public interface DictionaryStatsMBean
+{
+   /** Gets the number of timed operations recorded.
+       @return  The count of add, remove, getValue and contains calls. */
+   public long getOperationCount();
+
+   /** Gets the number of compareTo calls made by the timed operations.
+       @return  The count of comparisons. */
+   public long getComparisonCount();
+
+   /** Gets the mean number of compareTo calls per timed operation.
+       @return  The mean, or 0 if nothing was recorded. */
+   public double getMeanComparisons();
+
+   /** Gets the number of entries moved to open or close a gap.
+       @return  The count of entries shifted. */
+   public long getElementsShifted();
+
+   /** Gets the number of nodes stepped over while searching a chain.
+       @return  The count of nodes traversed. */
+   public long getNodesTraversed();
+
+   /** Gets the number of times the storage had to grow.
+       @return  The count of growth events. */
+   public long getGrowthEvents();
+
+   /** Gets the median latency over all timed operations.
+       @return  The latency in nanoseconds. */
+   public long getP50LatencyNanos();
+
+   /** Gets the 99th percentile latency over all timed operations.
+       @return  The latency in nanoseconds. */
+   public long getP99LatencyNanos();
+
+   /** Gets the greatest latency over all timed operations.
+       @return  The latency in nanoseconds. */
+   public long getMaxLatencyNanos();
+
+   /** Forgets everything recorded so far. */
+   public void reset();
+} // end DictionaryStatsMBean
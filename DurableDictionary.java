@@ -0,0 +1,1056 @@
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+/**
+   A crash-safe wrapper around any DictionaryInterface. Every add, remove
+   and clear is appended to a write-ahead log in the given directory
+   before it is applied to the wrapped dictionary. With Durability.SYNC
+   a change returns only once its log record is on disk; threads that
+   change the dictionary at the same time share one fsync, so the cost
+   of a sync is spread over the group. With Durability.BATCHED a change
+   returns at once and the log is written and synced in the background
+   every batch interval, so a crash loses at most that much. Once a
+   write or sync of the log fails, no change after the last one synced
+   can be made durable: each waiting or later change throws
+   UncheckedIOException.
+   After a given number of logged changes the entries are copied and a
+   sorted snapshot is written on a thread of its own, so that the
+   periodic syncs of Durability.BATCHED go on while it is written. The
+   log is then started afresh and, once the directory itself has been
+   synced so that the rename of the snapshot is durable, the older log
+   and snapshot files are deleted. Opening a directory clears the wrapped dictionary and
+   rebuilds it from the newest snapshot and the log written after it. A
+   record that was only partly written when the process stopped is cut
+   off the log.
+   Every record and snapshot carries a CRC32, so a torn write is detected
+   rather than replayed. The methods are synchronized, so the wrapped
+   dictionary need not be thread-safe. The iterators are not safe for use
+   while other threads change the dictionary.
+   Files: wal-N.log is the log started after snapshot-N.snap was taken.
+   @author Minwoo Soh
+*/
+public class DurableDictionary<K, V> implements DictionaryInterface<K, V>, Closeable
+{
+  /** How long a change may wait before its log record reaches the disk. */
+  public enum Durability
+  {
+    /** Each change is synced before it returns. Concurrent changes share a sync. */
+    SYNC,
+    /** Changes are synced in the background once every batch interval. */
+    BATCHED
+  } // end Durability
+
+  private final DictionaryInterface<K, V> dictionary;
+  private final Path directory;
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private final Durability durability;
+  private final int snapshotInterval;   // Changes logged between snapshots.
+  private final ScheduledExecutorService background;   // Runs the periodic flushes of Durability.BATCHED.
+  private final ExecutorService snapshotter;          // Writes snapshots, so a long one delays no flush.
+
+  // Guarded by this.
+  private FileChannel logChannel;
+  private long generation;              // Number of the current log file.
+  private ByteBuffer pending;           // Records not yet handed to the log file.
+  private ByteBuffer spare;             // Emptied buffer ready to become pending again.
+  private int lastRecordStart;          // Position in pending of the record appended last.
+  private long appendedSequence;        // Number of records appended so far.
+  private long changesSinceSnapshot;
+  private boolean snapshotScheduled;
+  private final CRC32 checksum;
+  private IOException logFailure;       // Set once a write of the log or a snapshot fails.
+
+  // Guarded by syncLock.
+  private final Object syncLock;
+  private long durableSequence;         // Records known to be written and synced.
+  private boolean syncInProgress;
+  private long failedSequence;          // Highest sequence in a batch whose write failed.
+  private IOException syncFailure;      // Why that batch failed, or null.
+
+  private final static byte ADD = 1;
+  private final static byte REMOVE = 2;
+  private final static byte CLEAR = 3;
+  private final static int RECORD_HEADER_SIZE = 8;       // Length of the body, then its CRC32.
+  private final static int SNAPSHOT_MAGIC = 0x534E4150;
+  private final static int SNAPSHOT_VERSION = 1;
+  private final static int PENDING_LIMIT = 1 << 20;      // Bytes of BATCHED records before a writer flushes.
+  private final static int DEFAULT_SNAPSHOT_INTERVAL = 100000;
+  private final static long DEFAULT_BATCH_MILLIS = 10;
+
+  /** Opens a durable dictionary in a directory with Durability.SYNC and a
+      snapshot every 100000 changes, recovering any state kept there.
+      @param dictionary       The dictionary to keep the entries in. It is cleared first.
+      @param directory        The directory of the log and snapshot files.
+      @param keySerializer    The serializer of the search keys.
+      @param valueSerializer  The serializer of the values.
+      @throws IOException if the files cannot be read or written. */
+  public DurableDictionary(DictionaryInterface<K, V> dictionary, Path directory,
+                           Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException
+  {
+    this(dictionary, directory, keySerializer, valueSerializer, Durability.SYNC,
+         DEFAULT_BATCH_MILLIS, DEFAULT_SNAPSHOT_INTERVAL);
+  } // end constructor
+
+  /** Opens a durable dictionary in a directory, recovering any state kept there.
+      @param dictionary        The dictionary to keep the entries in. It is cleared first.
+      @param directory         The directory of the log and snapshot files.
+      @param keySerializer     The serializer of the search keys.
+      @param valueSerializer   The serializer of the values.
+      @param durability        When a change must be on disk.
+      @param batchMillis       Milliseconds between background syncs with
+                               Durability.BATCHED.
+      @param snapshotInterval  Number of changes logged between snapshots.
+      @throws IOException if the files cannot be read or written. */
+  public DurableDictionary(DictionaryInterface<K, V> dictionary, Path directory,
+                           Serializer<K> keySerializer, Serializer<V> valueSerializer,
+                           Durability durability, long batchMillis, int snapshotInterval) throws IOException
+  {
+    if( (batchMillis <= 0) || (snapshotInterval <= 0) )
+    {
+      throw new IllegalArgumentException("Batch interval and snapshot interval must be positive.");
+    } // end if
+    this.dictionary = dictionary;
+    this.directory = directory;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.durability = durability;
+    this.snapshotInterval = snapshotInterval;
+    checksum = new CRC32();
+    syncLock = new Object();
+    pending = ByteBuffer.allocate(64 * 1024);
+    Files.createDirectories(directory);
+    recover();
+
+    background = Executors.newSingleThreadScheduledExecutor(task ->
+    {
+      Thread thread = new Thread(task, "DurableDictionary " + directory.getFileName());
+      thread.setDaemon(true);
+      return thread;
+    });
+    snapshotter = Executors.newSingleThreadExecutor(task ->
+    {
+      Thread thread = new Thread(task, "DurableDictionary snapshot " + directory.getFileName());
+      thread.setDaemon(true);
+      return thread;
+    });
+    if(durability == Durability.BATCHED)
+    {
+      background.scheduleWithFixedDelay(this::flushInBackground, batchMillis, batchMillis, TimeUnit.MILLISECONDS);
+    } // end if
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    V result = null;
+    long sequence = 0;
+    try
+    {
+      if( (key == null) || (value == null) )
+      {
+        throw new IllegalStateException("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        synchronized(this)
+        {
+          sequence = append(ADD, key, value);
+          try
+          {
+            result = dictionary.add(key, value);
+          }
+          catch(RuntimeException e)
+          {
+            discardLastRecord();
+            sequence = 0;
+            throw e;
+          } // end try
+        } // end synchronized
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    if(sequence > 0)
+    {
+      awaitLog(sequence);
+    } // end if
+    return result;
+  } // end add
+
+  /** Removes a specific entry from this dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    V result;
+    long sequence = 0;
+    synchronized(this)
+    {
+      result = null;
+      if(dictionary.contains(key)) // Only changes are logged.
+      {
+        sequence = append(REMOVE, key, null);
+        try
+        {
+          result = dictionary.remove(key);
+        }
+        catch(RuntimeException e)
+        {
+          discardLastRecord();
+          throw e;
+        } // end try
+      } // end if
+    } // end synchronized
+    if(sequence > 0)
+    {
+      awaitLog(sequence);
+    } // end if
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public synchronized V getValue(K key)
+  {
+    return dictionary.getValue(key);
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public synchronized boolean contains(K key)
+  {
+    return dictionary.contains(key);
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      Its remove is logged like remove.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new LoggedIterator<K>(false);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      It walks the keys and looks up each value, so that its remove can
+      be logged like remove.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new LoggedIterator<V>(true);
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass.
+      @param action  The action to be performed for each entry, in the
+                     order of the wrapped dictionary. */
+  public synchronized void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    dictionary.forEach(action);
+  } // end forEach
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public synchronized boolean isEmpty()
+  {
+    return dictionary.isEmpty();
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public synchronized int getSize()
+  {
+    return dictionary.getSize();
+  } // end getSize
+
+  /** Removes all entries from this dictionary. */
+  public void clear()
+  {
+    long sequence;
+    synchronized(this)
+    {
+      sequence = append(CLEAR, null, null);
+      try
+      {
+        dictionary.clear();
+      }
+      catch(RuntimeException e)
+      {
+        discardLastRecord();
+        throw e;
+      } // end try
+    } // end synchronized
+    awaitLog(sequence);
+  } // end clear
+
+  /** Writes out and syncs every change logged so far, whatever the durability. */
+  public void sync()
+  {
+    long sequence;
+    synchronized(this)
+    {
+      sequence = appendedSequence;
+    } // end synchronized
+    flushLog(sequence);
+  } // end sync
+
+  /** Takes a snapshot now and waits until it is on disk and the log
+      before it is deleted.
+      @throws IOException if the snapshot cannot be written. */
+  public void checkpoint() throws IOException
+  {
+    Snapshot<K, V> snapshot = startSnapshot();
+    writeSnapshot(snapshot);
+  } // end checkpoint
+
+  /** Syncs the log, waits for a snapshot in progress to finish, and
+      closes the files. The wrapped dictionary keeps its entries, but
+      this object may not be used afterward.
+      @throws IOException if the log cannot be written or closed. */
+  public void close() throws IOException
+  {
+    background.shutdown();
+    snapshotter.shutdown();
+    try
+    {
+      background.awaitTermination(1, TimeUnit.MINUTES);
+      snapshotter.awaitTermination(1, TimeUnit.MINUTES);
+    }
+    catch(InterruptedException e)
+    {
+      Thread.currentThread().interrupt();
+    } // end try
+    try
+    {
+      sync();
+    }
+    catch(UncheckedIOException e)
+    {
+      // The failure is kept in logFailure and thrown below.
+    } // end try
+    synchronized(this)
+    {
+      logChannel.close();
+      if(logFailure != null)
+      {
+        throw logFailure;
+      } // end if
+    } // end synchronized
+  } // end close
+
+  /** Appends a record to the pending buffer. Called holding this, before
+      the change is made to the wrapped dictionary, so that a log that can
+      no longer be written refuses the change instead of leaving the
+      dictionary ahead of what recovery would rebuild.
+      @param operation  ADD, REMOVE or CLEAR.
+      @param key        The key of an ADD or REMOVE.
+      @param value      The value of an ADD.
+      @return  The sequence number of the record. */
+  private long append(byte operation, K key, V value)
+  {
+    if(logFailure != null)
+    {
+      throw new UncheckedIOException("An earlier write of the log failed.", logFailure);
+    } // end if
+    int keySize = (key == null) ? 0 : keySerializer.sizeOf(key);
+    int valueSize = (value == null) ? 0 : valueSerializer.sizeOf(value);
+    int bodySize = 1 + ((key == null) ? 0 : Integer.BYTES + keySize) + ((value == null) ? 0 : Integer.BYTES + valueSize);
+    if(pending.remaining() < RECORD_HEADER_SIZE + bodySize)
+    {
+      ByteBuffer larger = ByteBuffer.allocate(Math.max(2 * pending.capacity(), pending.position() + RECORD_HEADER_SIZE + bodySize));
+      pending.flip();
+      larger.put(pending);
+      pending = larger;
+    } // end if
+
+    int start = pending.position();
+    lastRecordStart = start;
+    pending.position(start + RECORD_HEADER_SIZE);
+    pending.put(operation);
+    if(key != null)
+    {
+      pending.putInt(keySize);
+      keySerializer.write(key, pending);
+    } // end if
+    if(value != null)
+    {
+      pending.putInt(valueSize);
+      valueSerializer.write(value, pending);
+    } // end if
+    checksum.reset();
+    checksum.update(pending.array(), start + RECORD_HEADER_SIZE, bodySize);
+    pending.putInt(start, bodySize);
+    pending.putInt(start + Integer.BYTES, (int)checksum.getValue());
+
+    appendedSequence++;
+    changesSinceSnapshot++;
+    if( (changesSinceSnapshot >= snapshotInterval) && !snapshotScheduled && (snapshotter != null) )
+    {
+      snapshotScheduled = true;
+      snapshotter.execute(this::snapshotInBackground);
+    } // end if
+    return appendedSequence;
+  } // end append
+
+  /** Takes back the record append just added, when the change it logs
+      could not be made. Called holding this, which keeps the record in
+      the pending buffer until then. */
+  private void discardLastRecord()
+  {
+    pending.position(lastRecordStart);
+    appendedSequence--;
+    changesSinceSnapshot = Math.max(0, changesSinceSnapshot - 1);
+  } // end discardLastRecord
+
+  /** Waits, as the durability asks, for a record to reach the log file. */
+  private void awaitLog(long sequence)
+  {
+    if(durability == Durability.SYNC)
+    {
+      flushLog(sequence);
+    }
+    else
+    {
+      boolean full;
+      synchronized(this)
+      {
+        full = pending.position() >= PENDING_LIMIT;
+      } // end synchronized
+      if(full)
+      {
+        flushLog(sequence);
+      } // end if
+    } // end if
+  } // end awaitLog
+
+  /** Makes sure every record up to a sequence number is written to the
+      log file and synced. One caller at a time leads: it takes all
+      pending records, including those of threads that arrived meanwhile,
+      writes them in one go and syncs once. The others wait for the
+      leader and return if it covered their records. Once a batch has
+      failed, the log has a hole, so no record after it can be made
+      durable either: every caller still waiting fails, and so does
+      every later one.
+      @param sequence  The sequence number that must be on disk.
+      @throws UncheckedIOException if the record cannot be made durable. */
+  private void flushLog(long sequence)
+  {
+    boolean leader = false;
+    boolean interrupted = false;
+    synchronized(syncLock)
+    {
+      while( (durableSequence < sequence) && syncInProgress )
+      {
+        try
+        {
+          syncLock.wait();
+        }
+        catch(InterruptedException e)
+        {
+          interrupted = true;
+        } // end try
+      } // end while
+      if( (durableSequence < sequence) && (syncFailure != null) )
+      {
+        if(interrupted)
+        {
+          Thread.currentThread().interrupt();
+        } // end if
+        throw new UncheckedIOException("The log write of records up to " + failedSequence + " failed.", syncFailure);
+      }
+      else if(durableSequence < sequence)
+      {
+        syncInProgress = true;
+        leader = true;
+      } // end if
+    } // end synchronized
+
+    if(leader)
+    {
+      long target = 0;
+      IOException failure = null;
+      try
+      {
+        ByteBuffer batch;
+        FileChannel channel;
+        synchronized(this)
+        {
+          batch = takePending();
+          target = appendedSequence;
+          channel = logChannel;
+        } // end synchronized
+        writeFully(channel, batch);
+        channel.force(false);
+        releasePending(batch);
+      }
+      catch(IOException e)
+      {
+        failure = e;
+        synchronized(this)
+        {
+          logFailure = e; // The taken records are lost, so refuse further changes.
+        } // end synchronized
+        throw new UncheckedIOException(e);
+      }
+      finally
+      {
+        finishSync(target, failure);
+      } // end try
+    } // end if
+    if(interrupted)
+    {
+      Thread.currentThread().interrupt();
+    } // end if
+  } // end flushLog
+
+  /** Ends the turn of a flushLog or startSnapshot leader. Records up to
+      target become durable if the batch was written; otherwise they are
+      marked failed and durableSequence stays below them for good.
+      @param target   The sequence number of the last record of the batch.
+      @param failure  Why the batch could not be written, or null. */
+  private void finishSync(long target, IOException failure)
+  {
+    synchronized(syncLock)
+    {
+      if(failure != null)
+      {
+        failedSequence = Math.max(failedSequence, target);
+        if(syncFailure == null)
+        {
+          syncFailure = failure;
+        } // end if
+      }
+      else if(syncFailure == null)
+      {
+        durableSequence = Math.max(durableSequence, target);
+      } // end if
+      syncInProgress = false;
+      syncLock.notifyAll();
+    } // end synchronized
+  } // end finishSync
+
+  /** Swaps out the pending buffer, flipped for writing. Called holding this. */
+  private ByteBuffer takePending()
+  {
+    ByteBuffer result = pending;
+    pending = (spare != null) ? spare : ByteBuffer.allocate(result.capacity());
+    spare = null;
+    result.flip();
+    return result;
+  } // end takePending
+
+  /** Keeps a written buffer for reuse. */
+  private synchronized void releasePending(ByteBuffer buffer)
+  {
+    buffer.clear();
+    spare = buffer;
+  } // end releasePending
+
+  /** The periodic task of Durability.BATCHED. */
+  private void flushInBackground()
+  {
+    try
+    {
+      sync();
+    }
+    catch(UncheckedIOException e)
+    {
+      // flushLog has recorded the failure; the next change will report it.
+    } // end try
+  } // end flushInBackground
+
+  /** The task that takes the snapshot scheduled by append. */
+  private void snapshotInBackground()
+  {
+    try
+    {
+      checkpoint();
+    }
+    catch(IOException e)
+    {
+      synchronized(this)
+      {
+        logFailure = e;
+      } // end synchronized
+    } // end try
+  } // end snapshotInBackground
+
+  /** Copies the entries and starts a new log file, so that the snapshot
+      of the copy plus the new log make up the whole state. The current
+      log is synced and closed first, as the leader of flushLog. The new
+      log is opened before the pending records are taken, so that failing
+      to open it loses nothing.
+      @return  The copied entries and the generation they belong to. */
+  private Snapshot<K, V> startSnapshot() throws IOException
+  {
+    boolean interrupted = false;
+    synchronized(syncLock)
+    {
+      while(syncInProgress)
+      {
+        try
+        {
+          syncLock.wait();
+        }
+        catch(InterruptedException e)
+        {
+          interrupted = true;
+        } // end try
+      } // end while
+      if(syncFailure != null)
+      {
+        if(interrupted)
+        {
+          Thread.currentThread().interrupt();
+        } // end if
+        throw new IOException("An earlier write of the log failed.", syncFailure);
+      } // end if
+      syncInProgress = true;
+    } // end synchronized
+
+    long target = 0;
+    IOException failure = null;
+    Snapshot<K, V> result;
+    try
+    {
+      ByteBuffer batch;
+      FileChannel oldChannel;
+      synchronized(this)
+      {
+        FileChannel newChannel = openLog(generation + 1);
+        batch = takePending();
+        target = appendedSequence;
+        result = new Snapshot<>(dictionary.getSize());
+        dictionary.forEach(result::put);
+        oldChannel = logChannel;
+        generation++;
+        result.generation = generation;
+        logChannel = newChannel;
+        changesSinceSnapshot = 0;
+        snapshotScheduled = false;
+      } // end synchronized
+      try
+      {
+        writeFully(oldChannel, batch);
+        oldChannel.force(false);
+        oldChannel.close();
+        releasePending(batch);
+      }
+      catch(IOException e)
+      {
+        failure = e;
+        synchronized(this)
+        {
+          logFailure = e; // The taken records are lost, so refuse further changes.
+        } // end synchronized
+        throw e;
+      } // end try
+    }
+    finally
+    {
+      finishSync(target, failure);
+    } // end try
+    if(interrupted)
+    {
+      Thread.currentThread().interrupt();
+    } // end if
+    return result;
+  } // end startSnapshot
+
+  /** Writes a snapshot to a temporary file, syncs it, renames it into
+      place, and deletes the files it makes obsolete.
+      Layout: magic, version, count, then each entry as a length-prefixed
+      key and value, then the CRC32 of everything before it. */
+  private void writeSnapshot(Snapshot<K, V> snapshot) throws IOException
+  {
+    Path finalPath = directory.resolve("snapshot-" + snapshot.generation + ".snap");
+    Path tempPath = directory.resolve("snapshot-" + snapshot.generation + ".tmp");
+    CRC32 fileChecksum = new CRC32();
+    try (OutputStream file = Files.newOutputStream(tempPath))
+    {
+      DataOutputStream output = new DataOutputStream(new BufferedOutputStream(new CheckedOutputStream(file, fileChecksum), 1 << 16));
+      output.writeInt(SNAPSHOT_MAGIC);
+      output.writeInt(SNAPSHOT_VERSION);
+      output.writeInt(snapshot.size);
+      ByteBuffer scratch = ByteBuffer.allocate(256);
+      for(int i = 0; i < snapshot.size; i++)
+      {
+        scratch = writeSerialized(output, scratch, keySerializer, snapshot.keys[i]);
+        scratch = writeSerialized(output, scratch, valueSerializer, snapshot.values[i]);
+      } // end for
+      output.flush();
+      output.writeLong(fileChecksum.getValue());
+      output.flush();
+    } // end try
+    try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE))
+    {
+      channel.force(true);
+    } // end try
+    Files.move(tempPath, finalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory();                    // The rename must be on disk before older files go.
+    deleteBefore(snapshot.generation);
+  } // end writeSnapshot
+
+  /** Writes one length-prefixed object through a scratch buffer.
+      @return  The scratch buffer, grown if the object did not fit. */
+  private static <T> ByteBuffer writeSerialized(DataOutputStream output, ByteBuffer scratch,
+                                                Serializer<T> serializer, T object) throws IOException
+  {
+    int size = serializer.sizeOf(object);
+    ByteBuffer result = (size > scratch.capacity()) ? ByteBuffer.allocate(Math.max(size, 2 * scratch.capacity())) : scratch;
+    result.clear();
+    serializer.write(object, result);
+    output.writeInt(size);
+    output.write(result.array(), 0, size);
+    return result;
+  } // end writeSerialized
+
+  /** Rebuilds the wrapped dictionary from the newest snapshot and the
+      logs after it, cuts off a torn record at the end of the last log,
+      and opens that log for appending. */
+  private void recover() throws IOException
+  {
+    long snapshotGeneration = -1;
+    long lastLog = 0;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+    {
+      for(Path file : files)
+      {
+        String name = file.getFileName().toString();
+        if(name.startsWith("snapshot-") && name.endsWith(".snap"))
+        {
+          snapshotGeneration = Math.max(snapshotGeneration, generationOf(name, "snapshot-", ".snap"));
+        }
+        else if(name.startsWith("wal-") && name.endsWith(".log"))
+        {
+          lastLog = Math.max(lastLog, generationOf(name, "wal-", ".log"));
+        } // end if
+      } // end for
+    } // end try
+
+    dictionary.clear();
+    if(snapshotGeneration >= 0)
+    {
+      loadSnapshot(directory.resolve("snapshot-" + snapshotGeneration + ".snap"));
+    } // end if
+    generation = Math.max(lastLog, Math.max(snapshotGeneration, 0));
+    for(long logGeneration = Math.max(snapshotGeneration, 0); logGeneration <= generation; logGeneration++)
+    {
+      Path path = directory.resolve("wal-" + logGeneration + ".log");
+      if(Files.exists(path))
+      {
+        replay(path);
+      } // end if
+    } // end for
+    logChannel = openLog(generation);
+    deleteBefore(Math.max(snapshotGeneration, 0));
+  } // end recover
+
+  /** Reads a snapshot into the wrapped dictionary, through addAll if it
+      is a sorted dictionary, since a snapshot is already in key order. */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private void loadSnapshot(Path path) throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+    {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      int bodyEnd = buffer.capacity() - Long.BYTES;
+      CRC32 fileChecksum = new CRC32();
+      fileChecksum.update(buffer.duplicate().limit(bodyEnd));
+      if( (bodyEnd < 3 * Integer.BYTES) || (buffer.getLong(bodyEnd) != fileChecksum.getValue()) ||
+          (buffer.getInt(0) != SNAPSHOT_MAGIC) )
+      {
+        throw new IOException("Corrupt snapshot: " + path);
+      }
+      else if(buffer.getInt(4) != SNAPSHOT_VERSION)
+      {
+        throw new IOException("Unsupported snapshot version " + buffer.getInt(4) + ": " + path);
+      } // end if
+      int size = buffer.getInt(8);
+      buffer.position(12);
+      Snapshot<K, V> snapshot = new Snapshot<>(size);
+      for(int i = 0; i < size; i++)
+      {
+        K key = readSerialized(buffer, keySerializer, bodyEnd);
+        snapshot.put(key, readSerialized(buffer, valueSerializer, bodyEnd));
+      } // end for
+      if(dictionary instanceof SortedDictionaryInterface)
+      {
+        ((SortedDictionaryInterface)dictionary).addAll(Arrays.copyOf(snapshot.keys, size, Comparable[].class),
+                                                       snapshot.values);
+      }
+      else
+      {
+        for(int i = 0; i < size; i++)
+        {
+          dictionary.add(snapshot.keys[i], snapshot.values[i]);
+        } // end for
+      } // end if
+    } // end try
+  } // end loadSnapshot
+
+  /** Applies the records of a log to the wrapped dictionary, stopping at
+      the first record that is short or fails its CRC, and truncates the
+      file there. */
+  private void replay(Path path) throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE))
+    {
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      CRC32 recordChecksum = new CRC32();
+      int position = 0;
+      boolean torn = false;
+      while( !torn && (buffer.capacity() - position >= RECORD_HEADER_SIZE) )
+      {
+        int bodySize = buffer.getInt(position);
+        int bodyStart = position + RECORD_HEADER_SIZE;
+        if( (bodySize < 1) || (bodySize > buffer.capacity() - bodyStart) )
+        {
+          torn = true;
+        }
+        else
+        {
+          recordChecksum.reset();
+          recordChecksum.update(buffer.duplicate().limit(bodyStart + bodySize).position(bodyStart));
+          if((int)recordChecksum.getValue() != buffer.getInt(position + Integer.BYTES))
+          {
+            torn = true;
+          }
+          else
+          {
+            apply(buffer, bodyStart, bodyStart + bodySize);
+            position = bodyStart + bodySize;
+          } // end if
+        } // end if
+      } // end while
+      if(position < channel.size())
+      {
+        channel.truncate(position);
+      } // end if
+    } // end try
+  } // end replay
+
+  /** Applies one log record to the wrapped dictionary. */
+  private void apply(ByteBuffer buffer, int start, int end)
+  {
+    buffer.limit(end).position(start);
+    byte operation = buffer.get();
+    if(operation == CLEAR)
+    {
+      dictionary.clear();
+    }
+    else
+    {
+      K key = readSerialized(buffer, keySerializer, end);
+      if(operation == ADD)
+      {
+        dictionary.add(key, readSerialized(buffer, valueSerializer, end));
+      }
+      else
+      {
+        dictionary.remove(key);
+      } // end if
+    } // end if
+    buffer.limit(buffer.capacity());
+  } // end apply
+
+  /** Reads one length-prefixed object at the position of a buffer. */
+  private static <T> T readSerialized(ByteBuffer buffer, Serializer<T> serializer, int end)
+  {
+    int size = buffer.getInt();
+    int start = buffer.position();
+    buffer.limit(start + size);
+    T result = serializer.read(buffer);
+    buffer.limit(end).position(start + size);
+    return result;
+  } // end readSerialized
+
+  /** Opens a log file for appending, creating it if needed, and syncs
+      the directory so that a new file is still there after a crash. */
+  private FileChannel openLog(long logGeneration) throws IOException
+  {
+    FileChannel result = FileChannel.open(directory.resolve("wal-" + logGeneration + ".log"),
+                                          StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    result.position(result.size());
+    syncDirectory();
+    return result;
+  } // end openLog
+
+  /** Syncs the directory itself, so that files created, renamed or
+      deleted in it are on disk, not just their contents. */
+  private void syncDirectory() throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ))
+    {
+      channel.force(true);
+    } // end try
+  } // end syncDirectory
+
+  /** Deletes logs and snapshots older than a generation, and leftover
+      temporary files of unfinished snapshots. */
+  private void deleteBefore(long keepGeneration) throws IOException
+  {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory))
+    {
+      for(Path file : files)
+      {
+        String name = file.getFileName().toString();
+        boolean obsolete = false;
+        if(name.startsWith("snapshot-") && name.endsWith(".snap"))
+        {
+          obsolete = generationOf(name, "snapshot-", ".snap") < keepGeneration;
+        }
+        else if(name.startsWith("snapshot-") && name.endsWith(".tmp"))
+        {
+          obsolete = generationOf(name, "snapshot-", ".tmp") < keepGeneration;
+        }
+        else if(name.startsWith("wal-") && name.endsWith(".log"))
+        {
+          obsolete = generationOf(name, "wal-", ".log") < keepGeneration;
+        } // end if
+        if(obsolete)
+        {
+          Files.deleteIfExists(file);
+        } // end if
+      } // end for
+    } // end try
+  } // end deleteBefore
+
+  /** Reads the generation number out of a file name. */
+  private static long generationOf(String name, String prefix, String suffix)
+  {
+    long result = -1;
+    try
+    {
+      result = Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()));
+    }
+    catch(NumberFormatException e)
+    {
+      result = -1; // Not one of ours.
+    } // end try
+    return result;
+  } // end generationOf
+
+  /** Writes all remaining bytes of a buffer to a channel. */
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException
+  {
+    while(buffer.hasRemaining())
+    {
+      channel.write(buffer);
+    } // end while
+  } // end writeFully
+
+  /** Private inner class that holds a copy of the entries for a snapshot. */
+  private static class Snapshot<K, V>
+  {
+    private final K[] keys;
+    private final V[] values;
+    private int size;
+    private long generation;
+
+    @SuppressWarnings("unchecked")
+    private Snapshot(int capacity)
+    {
+      keys = (K[])new Object[capacity];
+      values = (V[])new Object[capacity];
+      size = 0;
+    } // end constructor
+
+    private void put(K key, V value)
+    {
+      keys[size] = key;
+      values[size] = value;
+      size++;
+    } // end put
+  } // end Snapshot
+
+  /** Private inner class that logs the removals of an iterator. It walks
+      the keys of the wrapped dictionary, so the key of a removed entry is
+      always known, and looks up the values for a value iterator. */
+  private class LoggedIterator<T> implements Iterator<T>
+  {
+    private final Iterator<K> keys;
+    private final boolean returnValues;
+    private K lastKey;
+
+    private LoggedIterator(boolean returnValues)
+    {
+      keys = dictionary.getKeyIterator();
+      this.returnValues = returnValues;
+      lastKey = null;
+    } // end constructor
+
+    public boolean hasNext()
+    {
+      return keys.hasNext();
+    } // end hasNext
+
+    @SuppressWarnings("unchecked")
+    public T next()
+    {
+      lastKey = keys.next();
+      return returnValues ? (T)dictionary.getValue(lastKey) : (T)lastKey;
+    } // end next
+
+    /** Removes the entry last returned by next and logs the removal. */
+    public void remove()
+    {
+      if(lastKey == null)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      long sequence;
+      synchronized(DurableDictionary.this)
+      {
+        sequence = append(REMOVE, lastKey, null);
+        try
+        {
+          keys.remove();
+        }
+        catch(RuntimeException e)
+        {
+          discardLastRecord();
+          throw e;
+        } // end try
+      } // end synchronized
+      lastKey = null;
+      awaitLog(sequence);
+    } // end remove
+  } // end LoggedIterator
+} // end of DurableDictionary
@@ -0,0 +1,108 @@
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+/**
+   A spliterator over an array of dictionary entries. It splits in O(1)
+   by handing over the first half of its range, so a parallel stream can
+   spread the entries over the fork/join pool. The interfaces use it to
+   stream a copy of a dictionary's entries, which then does not change
+   as the dictionary does.
+   @author Minwoo Soh
+*/
+public class EntryArraySpliterator<K, V> implements Spliterator<Map.Entry<K, V>>
+{
+  private final Object[] entries;
+  private int index;                    // Next position to hand out.
+  private final int fence;              // One past the last position.
+  private final Comparator<? super Map.Entry<K, V>> comparator;
+  private final int characteristics;
+
+  /** Creates a spliterator over part of an array of entries.
+      @param entries     The entries, each a Map.Entry<K, V>.
+      @param from        The first position, inclusive.
+      @param to          The last position, exclusive.
+      @param comparator  The order of the entries, or null if they are in
+                         no particular order. */
+  public EntryArraySpliterator(Object[] entries, int from, int to, Comparator<? super Map.Entry<K, V>> comparator)
+  {
+    this.entries = entries;
+    index = from;
+    fence = to;
+    this.comparator = comparator;
+    int flags = ORDERED | DISTINCT | SIZED | SUBSIZED | NONNULL | IMMUTABLE;
+    characteristics = (comparator == null) ? flags : flags | SORTED;
+  } // end constructor
+
+  /** Copies the entries of a dictionary into a new spliterator.
+      @param dictionary  The dictionary to copy.
+      @param comparator  The order forEach hands over the entries in, or
+                         null if it is no particular order.
+      @return  A spliterator over the copy. */
+  public static <K, V> EntryArraySpliterator<K, V> copyOf(DictionaryInterface<K, V> dictionary,
+                                                         Comparator<? super Map.Entry<K, V>> comparator)
+  {
+    List<Map.Entry<K, V>> copy = new ArrayList<>(dictionary.getSize());
+    dictionary.forEach((key, value) -> copy.add(new AbstractMap.SimpleImmutableEntry<>(key, value)));
+    return new EntryArraySpliterator<>(copy.toArray(), 0, copy.size(), comparator);
+  } // end copyOf
+
+  @SuppressWarnings("unchecked")
+  public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action)
+  {
+    boolean result = false;
+    if(index < fence)
+    {
+      action.accept((Map.Entry<K, V>)entries[index]);
+      index++;
+      result = true;
+    } // end if
+    return result;
+  } // end tryAdvance
+
+  @SuppressWarnings("unchecked")
+  public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action)
+  {
+    for(; index < fence; index++)
+    {
+      action.accept((Map.Entry<K, V>)entries[index]);
+    } // end for
+  } // end forEachRemaining
+
+  public Spliterator<Map.Entry<K, V>> trySplit()
+  {
+    Spliterator<Map.Entry<K, V>> result = null;
+    int middle = (index + fence) >>> 1;
+    if(index < middle)
+    {
+      result = new EntryArraySpliterator<>(entries, index, middle, comparator);
+      index = middle;
+    } // end if
+    return result;
+  } // end trySplit
+
+  public long estimateSize()
+  {
+    return fence - index;
+  } // end estimateSize
+
+  public int characteristics()
+  {
+    return characteristics;
+  } // end characteristics
+
+  /** Gets the order of the entries.
+      @return  The comparator given when this spliterator was created.
+      @throws IllegalStateException if the entries are in no particular order. */
+  public Comparator<? super Map.Entry<K, V>> getComparator()
+  {
+    if(comparator == null)
+    {
+      throw new IllegalStateException("The entries are not sorted.");
+    } // end if
+    return comparator;
+  } // end getComparator
+} // end of EntryArraySpliterator
@@ -0,0 +1,152 @@
+import java.util.Arrays;
+/**
+   A histogram of non-negative long values, such as latencies in
+   nanoseconds, with fixed memory and no allocation when recording.
+   Each power of two is split into 16 buckets, so a value is kept to
+   within 1/16 of itself, and values below 16 are kept exactly.
+   @author Minwoo Soh
+*/
+public class LatencyHistogram
+{
+  private final static int SUB_BUCKET_BITS = 4;
+  private final static int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private final long[] counts;
+  private long totalCount;
+  private long sum;
+  private long max;
+
+  /** Creates an empty histogram. */
+  public LatencyHistogram()
+  {
+    counts = new long[64 * SUB_BUCKETS];
+    reset();
+  } // end default constructor
+
+  /** Records one value. Negative values are recorded as 0.
+      @param value  The value to record. */
+  public void record(long value)
+  {
+    long recorded = Math.max(0, value);
+    counts[indexOf(recorded)]++;
+    totalCount++;
+    sum += recorded;
+    if(recorded > max)
+    {
+      max = recorded;
+    } // end if
+  } // end record
+
+  /** Adds all values recorded in another histogram to this one.
+      @param other  The histogram to add. */
+  public void add(LatencyHistogram other)
+  {
+    for(int i = 0; i < counts.length; i++)
+    {
+      counts[i] += other.counts[i];
+    } // end for
+    totalCount += other.totalCount;
+    sum += other.sum;
+    max = Math.max(max, other.max);
+  } // end add
+
+  /** Creates a copy of this histogram.
+      @return  A new histogram with the same values. */
+  public LatencyHistogram copy()
+  {
+    LatencyHistogram result = new LatencyHistogram();
+    result.add(this);
+    return result;
+  } // end copy
+
+  /** Forgets all recorded values. */
+  public void reset()
+  {
+    Arrays.fill(counts, 0);
+    totalCount = 0;
+    sum = 0;
+    max = 0;
+  } // end reset
+
+  /** Gets the number of values recorded.
+      @return  The count of values. */
+  public long getCount()
+  {
+    return totalCount;
+  } // end getCount
+
+  /** Gets the greatest value recorded.
+      @return  The exact maximum, or 0 if nothing was recorded. */
+  public long getMax()
+  {
+    return max;
+  } // end getMax
+
+  /** Gets the mean of the values recorded.
+      @return  The exact mean, or 0 if nothing was recorded. */
+  public double getMean()
+  {
+    return (totalCount == 0) ? 0 : (double)sum / totalCount;
+  } // end getMean
+
+  /** Finds the value below or at which a given percentage of the recorded
+      values fall.
+      @param percentile  A percentage from 0 to 100.
+      @return  The upper end of the bucket holding that value, never more
+               than the maximum, or 0 if nothing was recorded.
+      @throws IllegalArgumentException if percentile is outside 0 to 100. */
+  public long getPercentile(double percentile)
+  {
+    if( (percentile < 0) || (percentile > 100) )
+    {
+      throw new IllegalArgumentException("Percentile must be from 0 to 100: " + percentile);
+    } // end if
+    long result = 0;
+    if(totalCount > 0)
+    {
+      long rank = Math.max(1, (long)Math.ceil(percentile / 100 * totalCount));
+      long seen = 0;
+      int index = 0;
+      while(seen + counts[index] < rank)
+      {
+        seen += counts[index];
+        index++;
+      } // end while
+      result = Math.min(highestValueAt(index), max);
+    } // end if
+    return result;
+  } // end getPercentile
+
+  /** Returns the bucket of a non-negative value. */
+  private static int indexOf(long value)
+  {
+    int result;
+    if(value < SUB_BUCKETS)
+    {
+      result = (int)value;
+    }
+    else
+    {
+      int magnitude = 63 - Long.numberOfLeadingZeros(value);
+      int subBucket = (int)(value >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+      result = ((magnitude - SUB_BUCKET_BITS + 1) << SUB_BUCKET_BITS) + subBucket;
+    } // end if
+    return result;
+  } // end indexOf
+
+  /** Returns the greatest value that falls in a bucket. */
+  private static long highestValueAt(int index)
+  {
+    long result;
+    if(index < SUB_BUCKETS)
+    {
+      result = index;
+    }
+    else
+    {
+      int shift = (index >>> SUB_BUCKET_BITS) - 1;
+      long lowest = (long)(SUB_BUCKETS + (index & (SUB_BUCKETS - 1))) << shift;
+      result = lowest + (1L << shift) - 1;
+    } // end if
+    return result;
+  } // end highestValueAt
+} // end of LatencyHistogram
@@ -0,0 +1,664 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
+/**
+   A persistent dictionary that implements DictionaryInterface, keeping
+   its entries in two memory-mapped files instead of the Java heap.
+   The data file holds one record per entry, appended in the order they
+   are written: the key bytes and the value bytes, each after its length.
+   The index file holds the record offsets sorted by key, which plays the
+   part of the Entry array of SortedArrayDictionary: lookups bisect it and
+   adds and removes shift it. A bisect compares the search key with the
+   stored bytes of the keys it probes through Serializer.compare, so no
+   key object is created; values are read only for the entry that matches.
+   Opening an existing dictionary maps the two files and reads two
+   headers, so no rebuild is needed. Changes are written into the mapped
+   files and reach the disk when the operating system writes them back,
+   or when force or close is called.
+   Each file is mapped as one region, so a file may not grow past 2 GB.
+   Replaced and removed records stay in the data file until compact.
+   Both headers carry the generation of the last compact, so a data file
+   and an index from different compacts are refused rather than mixed.
+   @author Minwoo Soh
+*/
+public class MappedSortedDictionary<K extends Comparable<? super K>, V> implements DictionaryInterface<K, V>, Closeable
+{
+  private final Path indexPath;
+  private final Path dataPath;
+  private final Serializer<K> keySerializer;
+  private final Serializer<V> valueSerializer;
+  private FileChannel indexChannel;
+  private FileChannel dataChannel;
+  private MappedByteBuffer index;       // Header, then one int offset per entry in key order.
+  private MappedByteBuffer data;        // Header, then the records.
+  private ByteBuffer cursor;            // View of data used to hand records to the serializers.
+  private int numberOfEntries;
+  private int dataEnd;                  // Offset just past the last record.
+  private int modCount;                 // Counts structural changes for the iterators.
+  private final static int MAGIC = 0x53444943;
+  private final static int VERSION = 1;
+  private final static int HEADER_SIZE = 16;        // Magic, version, count or end, generation.
+  private final static int SIZE_OFFSET = 8;         // Where the count or end is kept in a header.
+  private final static int GENERATION_OFFSET = 12;  // Where the generation is kept in a header.
+  private final static int INITIAL_INDEX_SIZE = HEADER_SIZE + 1024 * Integer.BYTES;
+  private final static int INITIAL_DATA_SIZE = 64 * 1024;
+  private final static long MAX_FILE_SIZE = Integer.MAX_VALUE;
+
+  /** Opens the dictionary kept in basePath.index and basePath.data,
+      creating empty files if they do not exist.
+      @param basePath         The path of the two files, without the suffix.
+      @param keySerializer    The serializer of the search keys.
+      @param valueSerializer  The serializer of the values.
+      A compact that was cut short by a crash is first finished or undone.
+      @throws IOException if the files cannot be opened, are not
+              dictionary files, or are from different compacts. */
+  public MappedSortedDictionary(Path basePath, Serializer<K> keySerializer, Serializer<V> valueSerializer) throws IOException
+  {
+    indexPath = Paths.get(basePath + ".index");
+    dataPath = Paths.get(basePath + ".data");
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    recoverCompact();
+    indexChannel = FileChannel.open(indexPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    dataChannel = FileChannel.open(dataPath, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    if( (indexChannel.size() == 0) && (dataChannel.size() == 0) ) // If the dictionary is new.
+    {
+      index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_INDEX_SIZE);
+      mapData(INITIAL_DATA_SIZE);
+      writeHeader(index, 0, 0);
+      writeHeader(data, HEADER_SIZE, 0);
+    }
+    else
+    {
+      index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+      mapData(dataChannel.size());
+      checkHeader(index, indexPath);
+      checkHeader(data, dataPath);
+      if(index.getInt(GENERATION_OFFSET) != data.getInt(GENERATION_OFFSET))
+      {
+        throw new IOException("Index and data files are from different compacts: " + indexPath);
+      } // end if
+    } // end if
+    numberOfEntries = index.getInt(SIZE_OFFSET);
+    dataEnd = data.getInt(SIZE_OFFSET);
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    V result = null;
+    try
+    {
+      if( (key == null) || (value == null) )
+      {
+        throw new IllegalStateException("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        int keyIndex = locateIndex(key);
+        if(isKeyAt(keyIndex, key))
+        {
+          // If key already exists in the dictionary.
+          int offset = offsetAt(keyIndex);
+          result = readValue(offset);
+          int valueOffset = valueOffsetOf(offset);
+          if(data.getInt(valueOffset) == valueSerializer.sizeOf(value))
+          {
+            writeValue(valueOffset, value); // Same size, so overwrite in place.
+          }
+          else
+          {
+            setOffsetAt(keyIndex, appendRecord(key, value));
+          } // end if
+        }
+        else // If key is new.
+        {
+          int offset = appendRecord(key, value);
+          ensureIndexCapacity();
+          makeRoom(keyIndex);
+          setOffsetAt(keyIndex, offset);
+          numberOfEntries++;
+          index.putInt(SIZE_OFFSET, numberOfEntries);
+          modCount++;
+        } // end if
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    return result;
+  } // end add
+
+  /** Removes a specific entry from this dictionary. Its record stays in
+      the data file until compact.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    V result = null;
+    int keyIndex = locateIndex(key);
+    if(isKeyAt(keyIndex, key)) // If key is found.
+    {
+      result = readValue(offsetAt(keyIndex));
+      removeAt(keyIndex);
+    } // end if
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(K key)
+  {
+    V result = null;
+    int keyIndex = locateIndex(key);
+    if(isKeyAt(keyIndex, key)) // If key is found.
+    {
+      result = readValue(offsetAt(keyIndex));
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary. No value is read.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(K key)
+  {
+    return isKeyAt(locateIndex(key), key);
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator reads the files in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new KeyIterator();
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      The iterator reads the files in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new ValueIterator();
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    int expectedModCount = modCount;
+    for(int i = 0; (i < numberOfEntries) && (modCount == expectedModCount); i++)
+    {
+      int offset = offsetAt(i);
+      action.accept(readKey(offset), readValue(offset));
+    } // end for
+    if(modCount != expectedModCount)
+    {
+      throw new ConcurrentModificationException();
+    } // end if
+  } // end forEach
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return numberOfEntries == 0;
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    return numberOfEntries;
+  } // end getSize
+
+  /** Removes all entries from this dictionary and empties the data file. */
+  public void clear()
+  {
+    numberOfEntries = 0;
+    index.putInt(SIZE_OFFSET, 0);
+    dataEnd = HEADER_SIZE;
+    data.putInt(SIZE_OFFSET, dataEnd);
+    modCount++;
+  } // end clear
+
+  /** Gets the number of bytes of the data file taken by records,
+      including records that were replaced or removed.
+      @return  The number of record bytes in the data file. */
+  public int getDataSize()
+  {
+    return dataEnd - HEADER_SIZE;
+  } // end getDataSize
+
+  /** Rewrites the data file with only the records of current entries,
+      in key order, then maps the new files in place of the old ones.
+      A new data file and a new index, both of the next generation, are
+      written and synced beside the old ones, then renamed over them:
+      first the data file, then the index. A crash before the first
+      rename leaves the old files, and the next open deletes the new
+      ones; a crash after it leaves a complete new index beside the new
+      data file, and the next open renames it into place.
+      @throws IOException if the new files cannot be written. */
+  public void compact() throws IOException
+  {
+    Path tempDataPath = Paths.get(dataPath + ".tmp");
+    Path tempIndexPath = Paths.get(indexPath + ".tmp");
+    int generation = index.getInt(GENERATION_OFFSET) + 1;
+    long liveSize = HEADER_SIZE;
+    for(int i = 0; i < numberOfEntries; i++)
+    {
+      liveSize += recordSizeOf(offsetAt(i));
+    } // end for
+    if(liveSize > MAX_FILE_SIZE)
+    {
+      throw new IllegalStateException("Data file would exceed the allowed maximum of " + MAX_FILE_SIZE + " bytes");
+    } // end if
+
+    try (FileChannel tempDataChannel = openTemp(tempDataPath);
+         FileChannel tempIndexChannel = openTemp(tempIndexPath))
+    {
+      MappedByteBuffer tempData = tempDataChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+                                                      Math.max(liveSize, INITIAL_DATA_SIZE));
+      MappedByteBuffer tempIndex = tempIndexChannel.map(FileChannel.MapMode.READ_WRITE, 0, index.capacity());
+      int newEnd = HEADER_SIZE;
+      for(int i = 0; i < numberOfEntries; i++)
+      {
+        int offset = offsetAt(i);
+        int recordSize = recordSizeOf(offset);
+        tempData.put(newEnd, data, offset, recordSize);
+        tempIndex.putInt(HEADER_SIZE + i * Integer.BYTES, newEnd);
+        newEnd += recordSize;
+      } // end for
+      writeHeader(tempData, newEnd, generation);
+      writeHeader(tempIndex, numberOfEntries, generation);
+      tempData.force();
+      tempIndex.force();
+    } // end try
+    syncDirectory();
+
+    indexChannel.close();
+    dataChannel.close();
+    Files.move(tempDataPath, dataPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory();
+    Files.move(tempIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    syncDirectory();
+    indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    dataChannel = FileChannel.open(dataPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+    mapData(dataChannel.size());
+    dataEnd = data.getInt(SIZE_OFFSET);
+    modCount++;
+  } // end compact
+
+  /** Writes all changes in the mapped files to the disk. */
+  public void force()
+  {
+    data.force();
+    index.force();
+  } // end force
+
+  /** Writes all changes to the disk and closes the files. The dictionary
+      may not be used afterward. */
+  public void close() throws IOException
+  {
+    force();
+    indexChannel.close();
+    dataChannel.close();
+  } // end close
+
+  /** Searches the index for the requested key with a binary search and
+      returns its position. If none is found, the position where the key
+      would be inserted is returned. The probed keys are compared in
+      place, without being read.
+      @param key  The search key to look for.
+      @return  The index of the first entry whose key is not less than key. */
+  private int locateIndex(K key)
+  {
+    int low = 0;
+    int high = numberOfEntries;
+    while(low < high)
+    {
+      int mid = (low + high) >>> 1;
+      if(compareKeyAt(offsetAt(mid), key) < 0)
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      } // end if
+    } // end while
+    return low;
+  } // end locateIndex
+
+  /** Sees whether the entry at a given position has the given search key.
+      @param index  A position returned by locateIndex.
+      @param key  The search key to compare against.
+      @return  True if index holds an entry whose key equals key. */
+  private boolean isKeyAt(int index, K key)
+  {
+    return (index < numberOfEntries) && (compareKeyAt(offsetAt(index), key) == 0);
+  } // end isKeyAt
+
+  /** Compares the stored key of the record at offset with a search key,
+      on the stored bytes.
+      @return  A negative integer, zero or a positive integer as the
+               stored key is less than, equal to or greater than key. */
+  private int compareKeyAt(int offset, K key)
+  {
+    return keySerializer.compare(data, offset + Integer.BYTES, data.getInt(offset), key);
+  } // end compareKeyAt
+
+  /** Returns the record offset of the entry at a position of the index. */
+  private int offsetAt(int position)
+  {
+    return index.getInt(HEADER_SIZE + position * Integer.BYTES);
+  } // end offsetAt
+
+  /** Sets the record offset of the entry at a position of the index. */
+  private void setOffsetAt(int position, int offset)
+  {
+    index.putInt(HEADER_SIZE + position * Integer.BYTES, offset);
+  } // end setOffsetAt
+
+  /** Returns the offset of the value part of the record at offset. */
+  private int valueOffsetOf(int offset)
+  {
+    return offset + Integer.BYTES + data.getInt(offset);
+  } // end valueOffsetOf
+
+  /** Returns the number of bytes of the record at offset. */
+  private int recordSizeOf(int offset)
+  {
+    int valueOffset = valueOffsetOf(offset);
+    return valueOffset + Integer.BYTES + data.getInt(valueOffset) - offset;
+  } // end recordSizeOf
+
+  /** Reads the key of the record at offset. */
+  private K readKey(int offset)
+  {
+    int size = data.getInt(offset);
+    cursor.limit(offset + Integer.BYTES + size).position(offset + Integer.BYTES);
+    return keySerializer.read(cursor);
+  } // end readKey
+
+  /** Reads the value of the record at offset. */
+  private V readValue(int offset)
+  {
+    int valueOffset = valueOffsetOf(offset);
+    int size = data.getInt(valueOffset);
+    cursor.limit(valueOffset + Integer.BYTES + size).position(valueOffset + Integer.BYTES);
+    return valueSerializer.read(cursor);
+  } // end readValue
+
+  /** Writes a value over the value part of a record whose value has the
+      same size. */
+  private void writeValue(int valueOffset, V value)
+  {
+    int size = data.getInt(valueOffset);
+    cursor.limit(valueOffset + Integer.BYTES + size).position(valueOffset + Integer.BYTES);
+    valueSerializer.write(value, cursor);
+  } // end writeValue
+
+  /** Appends a record to the data file, growing it if needed.
+      @return  The offset of the new record. */
+  private int appendRecord(K key, V value)
+  {
+    int keySize = keySerializer.sizeOf(key);
+    int valueSize = valueSerializer.sizeOf(value);
+    ensureDataCapacity(2L * Integer.BYTES + keySize + valueSize);
+    int result = dataEnd;
+    cursor.limit(cursor.capacity()).position(result);
+    cursor.putInt(keySize);
+    keySerializer.write(key, cursor);
+    cursor.putInt(valueSize);
+    valueSerializer.write(value, cursor);
+    if(cursor.position() != result + 2 * Integer.BYTES + keySize + valueSize)
+    {
+      throw new IllegalStateException("Serializer wrote a different number of bytes than sizeOf reported.");
+    } // end if
+    dataEnd = cursor.position();
+    data.putInt(SIZE_OFFSET, dataEnd);
+    return result;
+  } // end appendRecord
+
+  /** Makes room for a new offset at position. Shifts offsets after position.
+      @param position  The position where new offset will be inserted. */
+  private void makeRoom(int position)
+  {
+    int start = HEADER_SIZE + position * Integer.BYTES;
+    index.put(start + Integer.BYTES, index, start, (numberOfEntries - position) * Integer.BYTES);
+  } // end makeRoom
+
+  /** Removes the offset at a position by shifting later offsets down,
+      and counts the entry as gone.
+      @param position  The position of the entry being removed. */
+  private void removeAt(int position)
+  {
+    int start = HEADER_SIZE + position * Integer.BYTES;
+    index.put(start, index, start + Integer.BYTES, (numberOfEntries - position - 1) * Integer.BYTES);
+    numberOfEntries--;
+    index.putInt(SIZE_OFFSET, numberOfEntries);
+    modCount++;
+  } // end removeAt
+
+  /** Doubles the index file if it has no room for another offset. */
+  private void ensureIndexCapacity()
+  {
+    long needed = HEADER_SIZE + (numberOfEntries + 1L) * Integer.BYTES;
+    if(needed > index.capacity())
+    {
+      index = remap(indexChannel, needed, index.capacity());
+    } // end if
+  } // end ensureIndexCapacity
+
+  /** Doubles the data file until it has room for a record of a given size. */
+  private void ensureDataCapacity(long recordSize)
+  {
+    long needed = dataEnd + recordSize;
+    if(needed > data.capacity())
+    {
+      data = remap(dataChannel, needed, data.capacity());
+      cursor = data.duplicate();
+    } // end if
+  } // end ensureDataCapacity
+
+  /** Maps a file again with at least the needed size, doubling its
+      current size and capping it at MAX_FILE_SIZE.
+      @param channel      The channel of the file.
+      @param needed       The fewest bytes the new mapping must cover.
+      @param currentSize  The size of the current mapping.
+      @return  The new mapping. */
+  private MappedByteBuffer remap(FileChannel channel, long needed, long currentSize)
+  {
+    if(needed > MAX_FILE_SIZE)
+    {
+      throw new IllegalStateException("Attempt to grow a dictionary file past the allowed maximum of " +
+                                      MAX_FILE_SIZE + " bytes");
+    } // end if
+    long newSize = Math.min(Math.max(2 * currentSize, needed), MAX_FILE_SIZE);
+    try
+    {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, newSize);
+    }
+    catch(IOException e)
+    {
+      throw new UncheckedIOException(e);
+    } // end try
+  } // end remap
+
+  /** Finishes or undoes a compact that a crash cut short. If the new
+      data file was renamed into place but the new index was not, the
+      new index is complete and is renamed too; otherwise the old files
+      are whole and any new ones are deleted. */
+  private void recoverCompact() throws IOException
+  {
+    Path tempDataPath = Paths.get(dataPath + ".tmp");
+    Path tempIndexPath = Paths.get(indexPath + ".tmp");
+    if(Files.exists(tempIndexPath) && !Files.exists(tempDataPath))
+    {
+      Files.move(tempIndexPath, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      syncDirectory();
+    }
+    else
+    {
+      boolean deleted = Files.deleteIfExists(tempDataPath);
+      deleted = Files.deleteIfExists(tempIndexPath) || deleted;
+      if(deleted)
+      {
+        syncDirectory();
+      } // end if
+    } // end if
+  } // end recoverCompact
+
+  /** Opens a new, empty file for compact to write. */
+  private static FileChannel openTemp(Path path) throws IOException
+  {
+    return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                            StandardOpenOption.READ, StandardOpenOption.WRITE);
+  } // end openTemp
+
+  /** Syncs the directory of the files, so that renames in it are on disk. */
+  private void syncDirectory() throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(dataPath.toAbsolutePath().getParent(), StandardOpenOption.READ))
+    {
+      channel.force(true);
+    } // end try
+  } // end syncDirectory
+
+  /** Maps the data file with a given size. */
+  private void mapData(long size) throws IOException
+  {
+    data = dataChannel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    cursor = data.duplicate();
+  } // end mapData
+
+  /** Writes the magic number, version, count or end, and generation of a new file. */
+  private static void writeHeader(ByteBuffer buffer, int size, int generation)
+  {
+    buffer.putInt(0, MAGIC);
+    buffer.putInt(4, VERSION);
+    buffer.putInt(SIZE_OFFSET, size);
+    buffer.putInt(GENERATION_OFFSET, generation);
+  } // end writeHeader
+
+  /** Throws an exception if a mapped file is not a dictionary file. */
+  private static void checkHeader(ByteBuffer buffer, Path path) throws IOException
+  {
+    if( (buffer.capacity() < HEADER_SIZE) || (buffer.getInt(0) != MAGIC) )
+    {
+      throw new IOException("Not a dictionary file: " + path);
+    }
+    else if(buffer.getInt(4) != VERSION)
+    {
+      throw new IOException("Unsupported dictionary file version " + buffer.getInt(4) + ": " + path);
+    } // end if
+  } // end checkHeader
+
+  /** Private inner class that walks the index in place. */
+  private abstract class IndexIterator<T> implements Iterator<T>
+  {
+    private int nextIndex;              // Position of the entry next returns.
+    private int lastIndex;              // Position of the last entry returned, or -1.
+    private int expectedModCount;
+
+    private IndexIterator()
+    {
+      nextIndex = 0;
+      lastIndex = -1;
+      expectedModCount = modCount;
+    } // end default constructor
+
+    public boolean hasNext()
+    {
+      return nextIndex < numberOfEntries;
+    } // end hasNext
+
+    /** Advances to the next entry.
+        @return  The record offset of the entry at the iterator's position. */
+    protected int nextOffset()
+    {
+      checkForComodification();
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      lastIndex = nextIndex;
+      nextIndex++;
+      return offsetAt(lastIndex);
+    } // end nextOffset
+
+    /** Removes the entry last returned by next. Only the offsets after it
+        are shifted; no search is needed. */
+    public void remove()
+    {
+      if(lastIndex < 0)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      checkForComodification();
+      removeAt(lastIndex);
+      nextIndex = lastIndex;
+      lastIndex = -1;
+      expectedModCount = modCount;
+    } // end remove
+
+    /** Throws an exception if the dictionary was changed behind the iterator. */
+    private void checkForComodification()
+    {
+      if(modCount != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+  } // end IndexIterator
+
+  /** Private inner class that iterates over the search keys. */
+  private class KeyIterator extends IndexIterator<K>
+  {
+    public K next()
+    {
+      return readKey(nextOffset());
+    } // end next
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends IndexIterator<V>
+  {
+    public V next()
+    {
+      return readValue(nextOffset());
+    } // end next
+  } // end ValueIterator
+} // end of MappedSortedDictionary
@@ -0,0 +1,199 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+/**
+   An interface for turning keys or values into bytes and back, used by
+   the dictionaries that keep their entries outside the Java heap.
+   @author Minwoo Soh
+*/
+public interface Serializer<T>
+{
+   /** Gets the number of bytes write will use for an object.
+       @param object  The object to be written.
+       @return  The exact number of bytes write puts for object. */
+   public int sizeOf(T object);
+
+   /** Writes an object at the position of a buffer, advancing the position
+       by sizeOf(object) bytes.
+       @param object  The object to be written.
+       @param buffer  The buffer to write into. */
+   public void write(T object, ByteBuffer buffer);
+
+   /** Reads an object from the position of a buffer. The limit of the
+       buffer is set to the end of the object's bytes.
+       @param buffer  The buffer to read from.
+       @return  The object read. */
+   public T read(ByteBuffer buffer);
+
+   /** Compares the bytes of an object, as put by write, with an object,
+       in the order of the objects' compareTo, reading the buffer at
+       absolute offsets so its position and limit are not changed. This
+       version reads the stored object and calls compareTo; serializers
+       whose bytes can be compared directly override it, so a search
+       need not create an object for each key it probes.
+       @param buffer  The buffer that holds the stored bytes.
+       @param offset  Where the stored bytes start.
+       @param length  The number of stored bytes.
+       @param object  The object to compare with. It must be Comparable.
+       @return  A negative integer, zero or a positive integer as the
+                stored object is less than, equal to or greater than object. */
+   @SuppressWarnings("unchecked")
+   public default int compare(ByteBuffer buffer, int offset, int length, T object)
+   {
+      ByteBuffer view = buffer.duplicate();
+      view.limit(offset + length).position(offset);
+      return ((Comparable<? super T>)read(view)).compareTo(object);
+   } // end compare
+
+   /** Creates a serializer for Integer, four bytes each.
+       @return  The serializer. */
+   public static Serializer<Integer> integers()
+   {
+      return new Serializer<Integer>()
+      {
+         public int sizeOf(Integer object)
+         {
+            return Integer.BYTES;
+         } // end sizeOf
+
+         public void write(Integer object, ByteBuffer buffer)
+         {
+            buffer.putInt(object);
+         } // end write
+
+         public Integer read(ByteBuffer buffer)
+         {
+            return buffer.getInt();
+         } // end read
+
+         public int compare(ByteBuffer buffer, int offset, int length, Integer object)
+         {
+            return Integer.compare(buffer.getInt(offset), object);
+         } // end compare
+      };
+   } // end integers
+
+   /** Creates a serializer for Long, eight bytes each.
+       @return  The serializer. */
+   public static Serializer<Long> longs()
+   {
+      return new Serializer<Long>()
+      {
+         public int sizeOf(Long object)
+         {
+            return Long.BYTES;
+         } // end sizeOf
+
+         public void write(Long object, ByteBuffer buffer)
+         {
+            buffer.putLong(object);
+         } // end write
+
+         public Long read(ByteBuffer buffer)
+         {
+            return buffer.getLong();
+         } // end read
+
+         public int compare(ByteBuffer buffer, int offset, int length, Long object)
+         {
+            return Long.compare(buffer.getLong(offset), object);
+         } // end compare
+      };
+   } // end longs
+
+   /** Creates a serializer for String, as UTF-8 bytes.
+       @return  The serializer. */
+   public static Serializer<String> strings()
+   {
+      return new Serializer<String>()
+      {
+         public int sizeOf(String object)
+         {
+            return object.getBytes(StandardCharsets.UTF_8).length;
+         } // end sizeOf
+
+         public void write(String object, ByteBuffer buffer)
+         {
+            buffer.put(object.getBytes(StandardCharsets.UTF_8));
+         } // end write
+
+         public String read(ByteBuffer buffer)
+         {
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+         } // end read
+
+         /** Decodes the UTF-8 bytes one character at a time and compares
+             each with the matching char of object, stopping at the first
+             difference. A character outside the Basic Multilingual Plane
+             is compared as its two surrogates, as String.compareTo does. */
+         public int compare(ByteBuffer buffer, int offset, int length, String object)
+         {
+            int result = 0;
+            int end = offset + length;
+            int position = offset;
+            int objectIndex = 0;
+            int lowSurrogate = -1;      // Second half of a decoded pair, still to compare.
+            while( (result == 0) && ((lowSurrogate >= 0) || (position < end)) && (objectIndex < object.length()) )
+            {
+               char next;
+               if(lowSurrogate >= 0)
+               {
+                  next = (char)lowSurrogate;
+                  lowSurrogate = -1;
+               }
+               else
+               {
+                  int first = buffer.get(position) & 0xFF;
+                  int codePoint;
+                  if(first < 0x80)
+                  {
+                     codePoint = first;
+                     position++;
+                  }
+                  else if(first < 0xE0)
+                  {
+                     codePoint = ((first & 0x1F) << 6) | (buffer.get(position + 1) & 0x3F);
+                     position += 2;
+                  }
+                  else if(first < 0xF0)
+                  {
+                     codePoint = ((first & 0x0F) << 12) | ((buffer.get(position + 1) & 0x3F) << 6)
+                                 | (buffer.get(position + 2) & 0x3F);
+                     position += 3;
+                  }
+                  else
+                  {
+                     codePoint = ((first & 0x07) << 18) | ((buffer.get(position + 1) & 0x3F) << 12)
+                                 | ((buffer.get(position + 2) & 0x3F) << 6) | (buffer.get(position + 3) & 0x3F);
+                     position += 4;
+                  } // end if
+                  if(Character.isSupplementaryCodePoint(codePoint))
+                  {
+                     next = Character.highSurrogate(codePoint);
+                     lowSurrogate = Character.lowSurrogate(codePoint);
+                  }
+                  else
+                  {
+                     next = (char)codePoint;
+                  } // end if
+               } // end if
+               result = Character.compare(next, object.charAt(objectIndex));
+               objectIndex++;
+            } // end while
+            if(result == 0) // One is a prefix of the other, so the shorter is less.
+            {
+               if( (lowSurrogate >= 0) || (position < end) )
+               {
+                  result = 1;
+               }
+               else if(objectIndex < object.length())
+               {
+                  result = -1;
+               } // end if
+            } // end if
+            return result;
+         } // end compare
+      };
+   } // end strings
+} // end Serializer
@@ -1,18 +1,26 @@
+import java.util.AbstractMap;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.NoSuchElementException;
-import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 /**
-   A dictionary using resizable sorted array that implements DictionaryInterface.
+   A dictionary using resizable sorted array that implements SortedDictionaryInterface.
    @author Minwoo Soh
 */
-public class SortedArrayDictionary<K extends Comparable<? super K>, V> implements DictionaryInterface<K, V>
+public class SortedArrayDictionary<K extends Comparable<? super K>, V> implements SortedDictionaryInterface<K, V>
 {
   private Entry<K, V>[] dictionary;
   private int numberOfEntries;
+  private int modCount;                 // Counts structural changes for the iterators.
   private final static int DEFAULT_CAPACITY = 25;
-  private static final int MAX_CAPACITY = 10000;
+  private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
   private boolean initialized = false;
+  private DictionaryStats stats;        // Null unless enableStats was called.
 
   /** Creates an empty dictionary array with the default capacity of 10. */
   public SortedArrayDictionary()
@@ -42,6 +50,7 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
   public V add(K key, V value)
   {
     checkInitialization();
+    long startTime = (stats == null) ? 0 : stats.startOperation();
     V result = null;
     try
     {
@@ -52,7 +61,7 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
       else
       {
         int keyIndex = locateIndex(key);
-        if((keyIndex < numberOfEntries) && (key.equals(dictionary[keyIndex].getKey())) )
+        if(isKeyAt(keyIndex, key))
         {
           // If key already exists in the dictionary.
           result = dictionary[keyIndex].getValue();
@@ -60,20 +69,145 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
         }
         else // If key is new.
         {
+          ensureCapacity();
           makeRoom(keyIndex);
           dictionary[keyIndex] = new Entry<>(key, value);
           numberOfEntries++;
+          modCount++;
         } // end if
-        ensureCapacity();
       } // end if
     } // end try
     catch(IllegalStateException e)
     {
       System.out.println(e.getMessage());
     } // end catch
+    if(stats != null)
+    {
+      stats.endOperation(DictionaryStats.Operation.ADD, startTime);
+    } // end if
     return result;
   } // end add
 
+  /** Adds a batch of entries to this dictionary in one pass. The batch
+      need not be sorted. Pairs are taken in order, so when a search key
+      appears more than once the last pair wins, and a key that already
+      exists in the dictionary has its value replaced, just as with add.
+      Pairs with a null key or value are not added.
+      @param keys    The search keys of the new entries.
+      @param values  The values associated with keys, position by position.
+      @throws IllegalArgumentException if the arrays differ in length. */
+  public void addAll(K[] keys, V[] values)
+  {
+    checkInitialization();
+    if(keys.length != values.length)
+    {
+      throw new IllegalArgumentException("Got " + keys.length + " keys but " + values.length + " values.");
+    } // end if
+
+    // Collect the pairs, then sort them stably so equal keys keep their order.
+    @SuppressWarnings("unchecked")
+    Entry<K, V>[] batch = (Entry<K, V>[])new Entry[keys.length];
+    int batchSize = 0;
+    for(int i = 0; i < keys.length; i++)
+    {
+      if( (keys[i] == null) || (values[i] == null) )
+      {
+        System.out.println("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        batch[batchSize] = new Entry<>(keys[i], values[i]);
+        batchSize++;
+      } // end if
+    } // end for
+    Arrays.sort(batch, 0, batchSize, new Comparator<Entry<K, V>>()
+    {
+      public int compare(Entry<K, V> first, Entry<K, V> second)
+      {
+        return first.getKey().compareTo(second.getKey());
+      } // end compare
+    });
+
+    // Keep only the last pair of each run of equal keys.
+    int uniqueSize = 0;
+    for(int i = 0; i < batchSize; i++)
+    {
+      if( (i + 1 == batchSize) || (batch[i].getKey().compareTo(batch[i + 1].getKey()) != 0) )
+      {
+        batch[uniqueSize] = batch[i];
+        uniqueSize++;
+      } // end if
+    } // end for
+
+    // Count keys already in the dictionary to learn the merged size.
+    int duplicates = 0;
+    int oldIndex = 0;
+    int newIndex = 0;
+    while( (oldIndex < numberOfEntries) && (newIndex < uniqueSize) )
+    {
+      int comparison = dictionary[oldIndex].getKey().compareTo(batch[newIndex].getKey());
+      if(comparison < 0)
+      {
+        oldIndex++;
+      }
+      else if(comparison > 0)
+      {
+        newIndex++;
+      }
+      else
+      {
+        duplicates++;
+        oldIndex++;
+        newIndex++;
+      } // end if
+    } // end while
+
+    long mergedSize = (long)numberOfEntries + uniqueSize - duplicates;
+    if(mergedSize > MAX_CAPACITY)
+    {
+      throw new IllegalStateException("Attempt to grow a dictionary past the allowed maximum of " +
+                                      MAX_CAPACITY);
+    } // end if
+    if(mergedSize > dictionary.length)
+    {
+      dictionary = Arrays.copyOf(dictionary, (int)mergedSize);
+      if(stats != null)
+      {
+        stats.countGrowth();
+      } // end if
+    } // end if
+
+    // Merge from the back so every entry moves at most once.
+    int writeIndex = (int)mergedSize - 1;
+    oldIndex = numberOfEntries - 1;
+    newIndex = uniqueSize - 1;
+    while(newIndex >= 0)
+    {
+      int comparison = (oldIndex < 0) ? -1 : dictionary[oldIndex].getKey().compareTo(batch[newIndex].getKey());
+      if(comparison > 0)
+      {
+        dictionary[writeIndex] = dictionary[oldIndex];
+        oldIndex--;
+      }
+      else
+      {
+        if(comparison == 0) // If key already exists, the batch value replaces it.
+        {
+          oldIndex--;
+        } // end if
+        dictionary[writeIndex] = batch[newIndex];
+        newIndex--;
+      } // end if
+      writeIndex--;
+    } // end while
+
+    if(uniqueSize > duplicates)
+    {
+      modCount++;
+    } // end if
+    numberOfEntries = (int)mergedSize;
+  } // end addAll
+
   /** Removes a specific entry from this dictionary.
       @param key  An object search key of the entry to be removed.
       @return  Either the value that was associated with the search key
@@ -81,14 +215,20 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
   public V remove(K key)
   {
     checkInitialization();
+    long startTime = (stats == null) ? 0 : stats.startOperation();
     V result = null;
     int keyIndex = locateIndex(key);
-    if(keyIndex < numberOfEntries) // If key is found.
+    if(isKeyAt(keyIndex, key)) // If key is found.
     {
       result = dictionary[keyIndex].getValue();
       dictionary[keyIndex] = null;
       removeGap(keyIndex);
       numberOfEntries--;
+      modCount++;
+    } // end if
+    if(stats != null)
+    {
+      stats.endOperation(DictionaryStats.Operation.REMOVE, startTime);
     } // end if
     return result;
   } // end remove
@@ -101,12 +241,17 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
   public V getValue(K key)
   {
     checkInitialization();
+    long startTime = (stats == null) ? 0 : stats.startOperation();
     V result = null;
     int keyIndex = locateIndex(key);
-    if(keyIndex < numberOfEntries) // If key is found.
+    if(isKeyAt(keyIndex, key)) // If key is found.
     {
       result = dictionary[keyIndex].getValue();
     } // end if
+    if(stats != null)
+    {
+      stats.endOperation(DictionaryStats.Operation.GET_VALUE, startTime);
+    } // end if
     return result;
   } // end getValue
 
@@ -116,45 +261,234 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
   public boolean contains(K key)
   {
     checkInitialization();
-    boolean result = false;
-    int keyIndex = locateIndex(key);
-    if(key.compareTo(dictionary[keyIndex].getKey()) == 0)
+    long startTime = (stats == null) ? 0 : stats.startOperation();
+    boolean result = isKeyAt(locateIndex(key), key);
+    if(stats != null)
     {
-      result = true;
+      stats.endOperation(DictionaryStats.Operation.CONTAINS, startTime);
     } // end if
     return result;
   } // end contains
 
   /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator reads the array in place and fails fast if the
+      dictionary is changed other than through its own remove.
       @return  An iterator that provides sequential access to the search
                keys in the dictionary. */
   public Iterator<K> getKeyIterator()
   {
     checkInitialization();
-    ArrayList<K> keys = new ArrayList<K>();
-    for(int i = 0; i < numberOfEntries; i++)
-    {
-      keys.add(dictionary[i].getKey());
-    } // end for
-    Iterator<K> keyIterator = keys.iterator();
-    return keyIterator;
+    return new KeyIterator(0);
   } // end getKeyIterator
 
   /** Creates an iterator that traverses all values in this dictionary.
+      The iterator reads the array in place and fails fast if the
+      dictionary is changed other than through its own remove.
       @return  An iterator that provides sequential access to the values
                in this dictionary. */
   public Iterator<V> getValueIterator()
   {
     checkInitialization();
-    ArrayList<V> values = new ArrayList<V>();
-    for(int i = 0; i < numberOfEntries; i++)
+    return new ValueIterator(0);
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass. The walk
+      reads the array in place and allocates nothing per entry.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    checkInitialization();
+    int expectedModCount = modCount;
+    for(int i = 0; (i < numberOfEntries) && (modCount == expectedModCount); i++)
     {
-      values.add(dictionary[i].getValue());
+      action.accept(dictionary[i].getKey(), dictionary[i].getValue());
     } // end for
-    Iterator<V> valueIterator = values.iterator();
-    return valueIterator;
+    if(modCount != expectedModCount)
+    {
+      throw new ConcurrentModificationException();
+    } // end if
+  } // end forEach
+
+  /** Creates a spliterator over the entries of this dictionary in search
+      key order. It reads the array in place, without copying, and splits
+      in O(1) by halving its range of positions, so a parallel stream
+      spreads a scan over the common fork/join pool. Its range is fixed
+      when it is first used, and it fails fast if the dictionary is
+      changed after that.
+      @return  A SORTED, SIZED and SUBSIZED spliterator of the entries. */
+  public Spliterator<Map.Entry<K, V>> spliterator()
+  {
+    checkInitialization();
+    return new ArraySpliterator(0, -1, 0);
+  } // end spliterator
+
+  /** Finds the greatest search key that is less than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K floorKey(K key)
+  {
+    checkInitialization();
+    int keyIndex = locateIndex(key);
+    if(!isKeyAt(keyIndex, key))
+    {
+      keyIndex--;
+    } // end if
+    return keyAt(keyIndex);
+  } // end floorKey
+
+  /** Finds the least search key that is greater than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K ceilingKey(K key)
+  {
+    checkInitialization();
+    return keyAt(locateIndex(key));
+  } // end ceilingKey
+
+  /** Finds the greatest search key that is strictly less than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K lowerKey(K key)
+  {
+    checkInitialization();
+    return keyAt(locateIndex(key) - 1);
+  } // end lowerKey
+
+  /** Finds the least search key that is strictly greater than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K higherKey(K key)
+  {
+    checkInitialization();
+    int keyIndex = locateIndex(key);
+    if(isKeyAt(keyIndex, key))
+    {
+      keyIndex++;
+    } // end if
+    return keyAt(keyIndex);
+  } // end higherKey
+
+  /** Creates an iterator that traverses the search keys in this dictionary,
+      starting at the first key that is greater than or equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the search
+               keys from fromKey onward. */
+  public Iterator<K> getKeyIterator(K fromKey)
+  {
+    checkInitialization();
+    return new KeyIterator(locateIndex(fromKey));
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses the values in this dictionary,
+      starting at the entry of the first key that is greater than or
+      equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the values
+               from fromKey onward. */
+  public Iterator<V> getValueIterator(K fromKey)
+  {
+    checkInitialization();
+    return new ValueIterator(locateIndex(fromKey));
   } // end getValueIterator
 
+  /** Creates a view of the entries whose search keys are strictly less
+      than toKey. The view is backed by this dictionary, so changes to
+      either one are seen by the other.
+      @param toKey  The exclusive upper bound of the view.
+      @return  A live view of the head of this dictionary. */
+  public SortedDictionaryInterface<K, V> headDictionary(K toKey)
+  {
+    checkInitialization();
+    return new SortedSubDictionary<>(this, null, toKey);
+  } // end headDictionary
+
+  /** Creates a view of the entries whose search keys are greater than or
+      equal to fromKey. The view is backed by this dictionary, so changes
+      to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @return  A live view of the tail of this dictionary. */
+  public SortedDictionaryInterface<K, V> tailDictionary(K fromKey)
+  {
+    checkInitialization();
+    return new SortedSubDictionary<>(this, fromKey, null);
+  } // end tailDictionary
+
+  /** Creates a view of the entries whose search keys range from fromKey,
+      inclusive, to toKey, exclusive. The view is backed by this
+      dictionary, so changes to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @param toKey    The exclusive upper bound of the view.
+      @return  A live view of the range of this dictionary.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public SortedDictionaryInterface<K, V> subDictionary(K fromKey, K toKey)
+  {
+    checkInitialization();
+    return new SortedSubDictionary<>(this, fromKey, toKey);
+  } // end subDictionary
+
+  /** Counts the search keys that are strictly less than a given key
+      with one binary search, in O(log n) time.
+      @param key  An object search key to count up to.
+      @return  The number of keys less than key, which is also the
+               position key has, or would have, in search key order. */
+  public int rank(K key)
+  {
+    checkInitialization();
+    return locateIndex(key);
+  } // end rank
+
+  /** Finds the search key at a position in search key order, in O(1) time.
+      @param index  The position, from 0 to getSize() - 1.
+      @return  The key that has index keys before it.
+      @throws IndexOutOfBoundsException if index is out of range. */
+  public K select(int index)
+  {
+    checkInitialization();
+    if( (index < 0) || (index >= numberOfEntries) )
+    {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + numberOfEntries);
+    } // end if
+    return dictionary[index].getKey();
+  } // end select
+
+  /** Gets the count of structural changes its iterators check.
+      @return  A number that changes whenever an entry is added or removed. */
+  public int getModCount()
+  {
+    return modCount;
+  } // end getModCount
+
+  /** Removes every entry whose search key ranges from fromKey, inclusive,
+      to toKey, exclusive, with two binary searches and one shift of the
+      entries after the range.
+      @param fromKey  The inclusive lower bound, or null for none.
+      @param toKey    The exclusive upper bound, or null for none.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public void removeRange(K fromKey, K toKey)
+  {
+    checkInitialization();
+    if( (fromKey != null) && (toKey != null) && (fromKey.compareTo(toKey) > 0) )
+    {
+      throw new IllegalArgumentException("fromKey " + fromKey + " is greater than toKey " + toKey);
+    } // end if
+    int start = (fromKey == null) ? 0 : locateIndex(fromKey);
+    int end = (toKey == null) ? numberOfEntries : locateIndex(toKey);
+    if(start < end)
+    {
+      int moved = numberOfEntries - end;
+      System.arraycopy(dictionary, end, dictionary, start, moved);
+      Arrays.fill(dictionary, start + moved, numberOfEntries, null);
+      if(stats != null)
+      {
+        stats.countShifted(moved);
+      } // end if
+      numberOfEntries = start + moved;
+      modCount++;
+    } // end if
+  } // end removeRange
+
   /** Sees whether this dictionary is empty.
       @return  True if the dictionary is empty. */
   public boolean isEmpty()
@@ -172,6 +506,33 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
     return numberOfEntries;
   } // end getSize
 
+  /** Turns on instrumentation of this dictionary's hot paths. Until it
+      is called, the only cost is a null check per operation.
+      @return  The statistics being recorded, which are kept if
+               enableStats is called again. */
+  public DictionaryStats enableStats()
+  {
+    if(stats == null)
+    {
+      stats = new DictionaryStats();
+    } // end if
+    return stats;
+  } // end enableStats
+
+  /** Turns off instrumentation. The statistics recorded so far remain
+      readable through any reference already held. */
+  public void disableStats()
+  {
+    stats = null;
+  } // end disableStats
+
+  /** Gets the statistics being recorded.
+      @return  Either the statistics or null if instrumentation is off. */
+  public DictionaryStats getStats()
+  {
+    return stats;
+  } // end getStats
+
   /** Removes all entries from this dictionary. */
   public void clear()
   {
@@ -181,21 +542,65 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
       dictionary[i] = null;
     } // end for
     numberOfEntries = 0;
+    modCount++;
   } // end clear
 
-  /** Searches dictionary for the requested item and returns the position.
-      If none is found, last index is returned.
-      @param key   */
+  /** Searches dictionary for the requested item with a binary search and
+      returns its position. If none is found, the position where the key
+      would be inserted is returned.
+      @param key  The search key to look for.
+      @return  The index of the first entry whose key is not less than key. */
   private int locateIndex(K key)
   {
-    int index = 0;
-    while( (index < numberOfEntries) && (key.compareTo(dictionary[index].getKey()) > 0) )
+    int low = 0;
+    int high = numberOfEntries;
+    int comparisons = 0;
+    while(low < high)
     {
-      index++;
+      int mid = (low + high) >>> 1;
+      comparisons++;
+      if(key.compareTo(dictionary[mid].getKey()) > 0)
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      } // end if
     } // end while
-    return index;
+    if(stats != null)
+    {
+      stats.countComparisons(comparisons);
+    } // end if
+    return low;
   } // end locateIndex
 
+  /** Sees whether the entry at a given position has the given search key.
+      @param index  A position returned by locateIndex.
+      @param key  The search key to compare against.
+      @return  True if index holds an entry whose key equals key. */
+  private boolean isKeyAt(int index, K key)
+  {
+    if( (stats != null) && (index < numberOfEntries) )
+    {
+      stats.countComparisons(1);
+    } // end if
+    return (index < numberOfEntries) && (key.compareTo(dictionary[index].getKey()) == 0);
+  } // end isKeyAt
+
+  /** Returns the search key at a position, if there is one.
+      @param index  A position in the array, possibly out of range.
+      @return  Either the key at index or null if index holds no entry. */
+  private K keyAt(int index)
+  {
+    K result = null;
+    if( (index >= 0) && (index < numberOfEntries) )
+    {
+      result = dictionary[index].getKey();
+    } // end if
+    return result;
+  } // end keyAt
+
   /** Makes room for a new entry at position. Shifts entries after position.
       @param position  The position where new entry will be inserted. */
   private void makeRoom(int position)
@@ -207,6 +612,10 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
     {
       dictionary[i + 1] = dictionary[i];
     } // end for
+    if(stats != null)
+    {
+      stats.countShifted(lastIndex - newIndex + 1);
+    } // end if
   } // end makeRoom
 
   /** Shifts entries that are beyond the entry to be removed to the next lower position.
@@ -222,27 +631,45 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
     } // end for
 
     dictionary[lastIndex] = null;
+    if(stats != null)
+    {
+      stats.countShifted(lastIndex - removedIndex);
+    } // end if
   } // end removeGap
 
   /** Throws an exception if the user requests a capacity that is too large.
       @param capacity  The size of requested array. */
   private void checkCapacity(int capacity)
   {
-    if (capacity > MAX_CAPACITY)
+    if (capacity < 0)
+    {
+      throw new IllegalArgumentException("Dictionary capacity cannot be negative: " + capacity);
+    }
+    else if (capacity > MAX_CAPACITY)
     {
       throw new IllegalStateException("Attempt to create a dictionary whose capacity " +
                                       "exceeds allowed maximum of " + MAX_CAPACITY);
     } // end if
   } // end checkCapacity
 
-  /** Doubles the size of the array if it is full. */
+  /** Doubles the size of the array if it is full. Growth is capped at
+      MAX_CAPACITY instead of overflowing past it. */
   private void ensureCapacity()
   {
     if(numberOfEntries == dictionary.length)
     {
-      int newLength = 2 * dictionary.length;
-      checkCapacity(newLength);
+      if(dictionary.length == MAX_CAPACITY)
+      {
+        throw new IllegalStateException("Attempt to grow a dictionary past the allowed maximum of " +
+                                        MAX_CAPACITY);
+      } // end if
+      int newLength = Math.max(1, dictionary.length);
+      newLength = (newLength > MAX_CAPACITY - newLength) ? MAX_CAPACITY : 2 * newLength;
       dictionary = Arrays.copyOf(dictionary, newLength);
+      if(stats != null)
+      {
+        stats.countGrowth();
+      } // end if
     } // end if
   } // end ensureCapacity
 
@@ -255,6 +682,191 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
     } // end if
   } // end checkInitialization
 
+  /** Private inner class that walks the entry array in place. */
+  private abstract class EntryIterator<T> implements Iterator<T>
+  {
+    private int nextIndex;              // Position of the entry next returns.
+    private int lastIndex;              // Position of the last entry returned, or -1.
+    private int expectedModCount;
+
+    /** Creates an iterator positioned at an index of the array.
+        @param start  The index of the first entry to return. */
+    private EntryIterator(int start)
+    {
+      nextIndex = start;
+      lastIndex = -1;
+      expectedModCount = modCount;
+    } // end default constructor
+
+    public boolean hasNext()
+    {
+      return nextIndex < numberOfEntries;
+    } // end hasNext
+
+    /** Advances to the next entry.
+        @return  The entry at the iterator's position. */
+    protected Entry<K, V> nextEntry()
+    {
+      checkForComodification();
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      lastIndex = nextIndex;
+      nextIndex++;
+      return dictionary[lastIndex];
+    } // end nextEntry
+
+    /** Removes the entry last returned by next. Only the entries after it
+        are shifted; no search is needed. */
+    public void remove()
+    {
+      if(lastIndex < 0)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      checkForComodification();
+      dictionary[lastIndex] = null;
+      removeGap(lastIndex);
+      numberOfEntries--;
+      modCount++;
+      nextIndex = lastIndex;
+      lastIndex = -1;
+      expectedModCount = modCount;
+    } // end remove
+
+    /** Throws an exception if the dictionary was changed behind the iterator. */
+    private void checkForComodification()
+    {
+      if(modCount != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+  } // end EntryIterator
+
+  /** Private inner class that iterates over the search keys. */
+  private class KeyIterator extends EntryIterator<K>
+  {
+    private KeyIterator(int start)
+    {
+      super(start);
+    } // end constructor
+
+    public K next()
+    {
+      return nextEntry().getKey();
+    } // end next
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends EntryIterator<V>
+  {
+    private ValueIterator(int start)
+    {
+      super(start);
+    } // end constructor
+
+    public V next()
+    {
+      return nextEntry().getValue();
+    } // end next
+  } // end ValueIterator
+
+  /** Private inner class that splits the entry array by positions. */
+  private class ArraySpliterator implements Spliterator<Map.Entry<K, V>>
+  {
+    private int index;                  // Position of the next entry.
+    private int fence;                  // One past the last position, or -1 until first use.
+    private int expectedModCount;
+
+    /** Creates a spliterator over a range of positions.
+        @param index             The first position.
+        @param fence             One past the last position, or -1 to
+                                 cover the entries present at first use.
+        @param expectedModCount  The modCount the range was taken at. */
+    private ArraySpliterator(int index, int fence, int expectedModCount)
+    {
+      this.index = index;
+      this.fence = fence;
+      this.expectedModCount = expectedModCount;
+    } // end constructor
+
+    /** Fixes the range on first use.
+        @return  One past the last position. */
+    private int getFence()
+    {
+      if(fence < 0)
+      {
+        fence = numberOfEntries;
+        expectedModCount = modCount;
+      } // end if
+      return fence;
+    } // end getFence
+
+    public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action)
+    {
+      boolean result = false;
+      if(index < getFence())
+      {
+        Entry<K, V> entry = dictionary[index];
+        index++;
+        action.accept(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), entry.getValue()));
+        checkForComodification();
+        result = true;
+      } // end if
+      return result;
+    } // end tryAdvance
+
+    public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action)
+    {
+      int last = getFence();
+      Entry<K, V>[] entries = dictionary;
+      for(; (index < last) && (modCount == expectedModCount); index++)
+      {
+        action.accept(new AbstractMap.SimpleImmutableEntry<>(entries[index].getKey(), entries[index].getValue()));
+      } // end for
+      checkForComodification();
+    } // end forEachRemaining
+
+    public Spliterator<Map.Entry<K, V>> trySplit()
+    {
+      Spliterator<Map.Entry<K, V>> result = null;
+      int last = getFence();
+      int middle = (index + last) >>> 1;
+      if(index < middle)
+      {
+        result = new ArraySpliterator(index, middle, expectedModCount);
+        index = middle;
+      } // end if
+      return result;
+    } // end trySplit
+
+    public long estimateSize()
+    {
+      return getFence() - index;
+    } // end estimateSize
+
+    public int characteristics()
+    {
+      return ORDERED | SORTED | DISTINCT | SIZED | SUBSIZED | NONNULL;
+    } // end characteristics
+
+    public Comparator<? super Map.Entry<K, V>> getComparator()
+    {
+      return Map.Entry.comparingByKey();
+    } // end getComparator
+
+    /** Throws an exception if the dictionary was changed behind the spliterator. */
+    private void checkForComodification()
+    {
+      if(modCount != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+  } // end ArraySpliterator
+
   /** Private inner class Entry. */
   private class Entry<K, V>
   {
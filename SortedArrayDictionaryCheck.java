@@ -0,0 +1,180 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.TreeMap;
+/**
+   Checks the binary search of SortedArrayDictionary against the linear
+   search it replaced and against a TreeMap. Random sequences of add,
+   remove, getValue and contains run on all three, and every result,
+   the size and, now and then, the full key and value order must agree.
+   One round grows the dictionary from a capacity of 10 to well past the
+   old 10,000-entry cap. Any difference stops the run with an exception
+   that names the seed, round and operation.
+   Usage: java SortedArrayDictionaryCheck [seed] [operations per round]
+   @author Minwoo Soh
+*/
+public class SortedArrayDictionaryCheck
+{
+  private final static int[] KEY_RANGES = {10, 1000, 40000};  // One round per range of keys.
+  private final static int OLD_MAX_CAPACITY = 10000;
+  private final static int FULL_CHECK_INTERVAL = 5000;         // Operations between full order checks.
+
+  public static void main(String[] args)
+  {
+    long seed = (args.length > 0) ? Long.parseLong(args[0]) : 1;
+    int operations = (args.length > 1) ? Integer.parseInt(args[1]) : 60000;
+    Random random = new Random(seed);
+    for(int round = 0; round < KEY_RANGES.length; round++)
+    {
+      int keyRange = KEY_RANGES[round];
+      SortedArrayDictionary<Integer, Integer> dictionary = new SortedArrayDictionary<>(10);
+      LinearDictionary<Integer, Integer> linear = new LinearDictionary<>();
+      TreeMap<Integer, Integer> tree = new TreeMap<>();
+      int largest = 0;
+      for(int i = 0; i < operations; i++)
+      {
+        String where = "seed " + seed + ", round " + round + ", operation " + i;
+        Integer key = random.nextInt(keyRange);
+        int choice = random.nextInt(100);
+        if(choice < 50) // Mostly adds, so the last round passes the old cap.
+        {
+          Integer value = random.nextInt();
+          Integer result = dictionary.add(key, value);
+          expect(where + ": add(" + key + ")", result, linear.add(key, value), tree.put(key, value));
+        }
+        else if(choice < 65)
+        {
+          Integer result = dictionary.remove(key);
+          expect(where + ": remove(" + key + ")", result, linear.remove(key), tree.remove(key));
+        }
+        else if(choice < 85)
+        {
+          Integer result = dictionary.getValue(key);
+          expect(where + ": getValue(" + key + ")", result, linear.getValue(key), tree.get(key));
+        }
+        else
+        {
+          Boolean result = dictionary.contains(key);
+          expect(where + ": contains(" + key + ")", result, linear.contains(key), tree.containsKey(key));
+        } // end if
+        expect(where + ": getSize()", dictionary.getSize(), linear.getSize(), tree.size());
+        largest = Math.max(largest, dictionary.getSize());
+        if( (i % FULL_CHECK_INTERVAL == 0) || (i == operations - 1) )
+        {
+          checkOrder(where, dictionary, linear, tree);
+        } // end if
+      } // end for
+      if( (round == KEY_RANGES.length - 1) && (largest <= OLD_MAX_CAPACITY) )
+      {
+        throw new IllegalStateException("The last round reached only " + largest + " entries; use more operations.");
+      } // end if
+      dictionary.clear();
+      expect("seed " + seed + ", round " + round + ": isEmpty() after clear()", dictionary.isEmpty(), true, true);
+      System.out.println("Round " + round + ": " + operations + " operations on keys below " + keyRange +
+                         ", up to " + largest + " entries, all results agree.");
+    } // end for
+    System.out.println("SortedArrayDictionary matches the linear search and TreeMap.");
+  } // end main
+
+  /** Throws an exception unless three results are equal. */
+  private static void expect(String where, Object actual, Object linear, Object tree)
+  {
+    if( !Objects.equals(actual, linear) || !Objects.equals(actual, tree) )
+    {
+      throw new IllegalStateException(where + " gave " + actual + "; linear search gave " + linear +
+                                      " and TreeMap gave " + tree);
+    } // end if
+  } // end expect
+
+  /** Throws an exception unless the iterators and forEach of the
+      dictionary visit the same entries in the same order as the others. */
+  private static void checkOrder(String where, SortedArrayDictionary<Integer, Integer> dictionary,
+                                 LinearDictionary<Integer, Integer> linear, TreeMap<Integer, Integer> tree)
+  {
+    Iterator<Integer> keyIterator = dictionary.getKeyIterator();
+    Iterator<Integer> valueIterator = dictionary.getValueIterator();
+    int position = 0;
+    for(Map.Entry<Integer, Integer> entry : tree.entrySet())
+    {
+      String at = where + ": entry " + position;
+      expect(at + " key", keyIterator.next(), linear.keys.get(position), entry.getKey());
+      expect(at + " value", valueIterator.next(), linear.values.get(position), entry.getValue());
+      position++;
+    } // end for
+    expect(where + ": iterator past the end", keyIterator.hasNext() || valueIterator.hasNext(), false, false);
+    TreeMap<Integer, Integer> visited = new TreeMap<>();
+    dictionary.forEach(visited::put);
+    expect(where + ": forEach", visited, tree, tree);
+  } // end checkOrder
+
+  /** Private class that keeps sorted parallel lists and finds keys with
+      the linear search SortedArrayDictionary used before, one compareTo
+      per entry until the first key that is not less than the search key. */
+  private static class LinearDictionary<K extends Comparable<? super K>, V>
+  {
+    private final ArrayList<K> keys = new ArrayList<>();
+    private final ArrayList<V> values = new ArrayList<>();
+
+    private V add(K key, V value)
+    {
+      V result = null;
+      int keyIndex = locateIndex(key);
+      if( (keyIndex < keys.size()) && key.equals(keys.get(keyIndex)) )
+      {
+        result = values.set(keyIndex, value);
+      }
+      else
+      {
+        keys.add(keyIndex, key);
+        values.add(keyIndex, value);
+      } // end if
+      return result;
+    } // end add
+
+    private V remove(K key)
+    {
+      V result = null;
+      int keyIndex = locateIndex(key);
+      if( (keyIndex < keys.size()) && key.equals(keys.get(keyIndex)) )
+      {
+        keys.remove(keyIndex);
+        result = values.remove(keyIndex);
+      } // end if
+      return result;
+    } // end remove
+
+    private V getValue(K key)
+    {
+      V result = null;
+      int keyIndex = locateIndex(key);
+      if( (keyIndex < keys.size()) && key.equals(keys.get(keyIndex)) )
+      {
+        result = values.get(keyIndex);
+      } // end if
+      return result;
+    } // end getValue
+
+    private boolean contains(K key)
+    {
+      int keyIndex = locateIndex(key);
+      return (keyIndex < keys.size()) && key.equals(keys.get(keyIndex));
+    } // end contains
+
+    private int getSize()
+    {
+      return keys.size();
+    } // end getSize
+
+    private int locateIndex(K key)
+    {
+      int index = 0;
+      while( (index < keys.size()) && (key.compareTo(keys.get(index)) > 0) )
+      {
+        index++;
+      } // end while
+      return index;
+    } // end locateIndex
+  } // end LinearDictionary
+} // end of SortedArrayDictionaryCheck
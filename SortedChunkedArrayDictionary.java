@@ -0,0 +1,988 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
+/**
+   A dictionary using a list of small sorted arrays (chunks) that implements
+   SortedDictionaryInterface. Each chunk holds at most chunkCapacity entries
+   in parallel key and value arrays, and a top-level array of chunks is kept
+   in key order. A search bisects the chunks and then one chunk, and an add
+   or remove shifts entries inside a single chunk only, so the cost of
+   moving entries is bounded by the chunk size instead of the dictionary
+   size. Full chunks are split in two; chunks that run low are merged with
+   a neighbor. Iteration still walks each chunk sequentially in memory.
+   snapshot makes a read-only copy in O(1) by sharing the chunks. Chunks
+   are then copied on write: the first change to a shared chunk, or to
+   the shared top-level array, copies just that chunk or array.
+   @author Minwoo Soh
+*/
+public class SortedChunkedArrayDictionary<K extends Comparable<? super K>, V> implements SortedDictionaryInterface<K, V>
+{
+  private Chunk[] chunks;
+  private int numberOfChunks;
+  private int numberOfEntries;
+  private int modCount;                 // Counts structural changes for the iterators.
+  private final int chunkCapacity;
+  private long epoch;                   // Chunks made before the last snapshot are shared.
+  private boolean chunksShared;         // True if a snapshot uses the top-level array.
+  private final boolean readOnly;       // True for a snapshot.
+  private final static int DEFAULT_CHUNK_CAPACITY = 512;
+  private final static int MIN_CHUNK_CAPACITY = 4;
+  private final static int INITIAL_CHUNK_SLOTS = 8;
+
+  /** Creates an empty dictionary whose chunks hold up to 512 entries. */
+  public SortedChunkedArrayDictionary()
+  {
+    this(DEFAULT_CHUNK_CAPACITY);
+  } // end default constructor
+
+  /** Creates an empty dictionary with the given chunk size.
+      @param chunkCapacity  The most entries one chunk may hold. */
+  public SortedChunkedArrayDictionary(int chunkCapacity)
+  {
+    if(chunkCapacity < MIN_CHUNK_CAPACITY)
+    {
+      throw new IllegalArgumentException("Chunk capacity must be at least " + MIN_CHUNK_CAPACITY +
+                                         ": " + chunkCapacity);
+    } // end if
+    this.chunkCapacity = chunkCapacity;
+    chunks = newChunkArray(INITIAL_CHUNK_SLOTS);
+    numberOfChunks = 0;
+    numberOfEntries = 0;
+    epoch = 0;
+    chunksShared = false;
+    readOnly = false;
+  } // end constructor
+
+  /** Creates a read-only snapshot that shares the chunks of a dictionary.
+      @param source  The dictionary to take the snapshot of. */
+  private SortedChunkedArrayDictionary(SortedChunkedArrayDictionary<K, V> source)
+  {
+    chunkCapacity = source.chunkCapacity;
+    chunks = source.chunks;
+    numberOfChunks = source.numberOfChunks;
+    numberOfEntries = source.numberOfEntries;
+    epoch = source.epoch;
+    chunksShared = true;
+    readOnly = true;
+  } // end constructor
+
+  /** Takes a consistent, read-only view of this dictionary as it is now,
+      in O(1) time. Nothing is copied until this dictionary next changes,
+      and then only the chunks that change are copied, once each, so a
+      reader may walk the snapshot for as long as it likes while writers
+      go on. Keys and values always agree, since they come from the same
+      chunks. Like the other methods, snapshot must not run at the same
+      time as a change to this dictionary, but it is over at once; the
+      snapshot itself never changes and may be read by any number of
+      threads once it has been handed to them safely, for example
+      through a volatile field or a concurrent queue.
+      @return  A dictionary with the current entries whose add, addAll,
+               remove and clear throw UnsupportedOperationException. */
+  public SortedChunkedArrayDictionary<K, V> snapshot()
+  {
+    SortedChunkedArrayDictionary<K, V> result = new SortedChunkedArrayDictionary<>(this);
+    chunksShared = true;
+    epoch++;
+    return result;
+  } // end snapshot
+
+  /** Sees whether this dictionary is a snapshot, which cannot be changed.
+      @return  True if this dictionary was made by snapshot. */
+  public boolean isReadOnly()
+  {
+    return readOnly;
+  } // end isReadOnly
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    checkWritable();
+    V result = null;
+    try
+    {
+      if( (key == null) || (value == null) )
+      {
+        throw new IllegalStateException("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        if(numberOfChunks == 0)
+        {
+          insertChunk(0, new Chunk());
+        } // end if
+        int chunkIndex = locateChunk(key);
+        Chunk chunk = writableChunk(chunkIndex);
+        int keyIndex = chunk.locateIndex(key);
+        if(chunk.isKeyAt(keyIndex, key))
+        {
+          // If key already exists in the dictionary.
+          result = chunk.getValue(keyIndex);
+          chunk.setValue(keyIndex, value);
+        }
+        else // If key is new.
+        {
+          if(chunk.size == chunkCapacity)
+          {
+            Chunk upperHalf = chunk.split();
+            insertChunk(chunkIndex + 1, upperHalf);
+            if(keyIndex > chunk.size)
+            {
+              keyIndex = keyIndex - chunk.size;
+              chunk = upperHalf;
+            } // end if
+          } // end if
+          chunk.insert(keyIndex, key, value);
+          numberOfEntries++;
+          modCount++;
+        } // end if
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    return result;
+  } // end add
+
+  /** Adds a batch of entries to this dictionary in one pass. The batch
+      need not be sorted. Pairs are taken in order, so when a search key
+      appears more than once the last pair wins, and a key that already
+      exists in the dictionary has its value replaced, just as with add.
+      Pairs with a null key or value are not added.
+      The batch is merge sorted once and merged with the current entries
+      into freshly packed chunks, each filled to three quarters so that
+      later adds do not split them right away.
+      @param keys    The search keys of the new entries.
+      @param values  The values associated with keys, position by position.
+      @throws IllegalArgumentException if the arrays differ in length. */
+  public void addAll(K[] keys, V[] values)
+  {
+    checkWritable();
+    if(keys.length != values.length)
+    {
+      throw new IllegalArgumentException("Got " + keys.length + " keys but " + values.length + " values.");
+    } // end if
+
+    // Collect the pairs, then sort them stably so equal keys keep their order.
+    K[] sortedKeys = Arrays.copyOf(keys, keys.length);
+    V[] sortedValues = Arrays.copyOf(values, values.length);
+    int batchSize = 0;
+    for(int i = 0; i < keys.length; i++)
+    {
+      if( (keys[i] == null) || (values[i] == null) )
+      {
+        System.out.println("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        sortedKeys[batchSize] = keys[i];
+        sortedValues[batchSize] = values[i];
+        batchSize++;
+      } // end if
+    } // end for
+    sortBatch(sortedKeys, sortedValues, batchSize);
+
+    // Merge the old chunks and the batch into new chunks in one pass.
+    Chunk[] oldChunks = chunks;
+    int oldNumberOfChunks = numberOfChunks;
+    int oldNumberOfEntries = numberOfEntries;
+    chunks = newChunkArray(Math.max(INITIAL_CHUNK_SLOTS, 2 * ((numberOfEntries + batchSize) / chunkCapacity + 1)));
+    chunksShared = false;
+    numberOfChunks = 0;
+    numberOfEntries = 0;
+    int fillLimit = Math.max(1, chunkCapacity * 3 / 4);
+
+    int oldChunk = 0;
+    int oldIndex = 0;
+    int newIndex = 0;
+    while( (oldChunk < oldNumberOfChunks) || (newIndex < batchSize) )
+    {
+      int comparison;
+      if(oldChunk == oldNumberOfChunks)
+      {
+        comparison = 1;
+      }
+      else if(newIndex == batchSize)
+      {
+        comparison = -1;
+      }
+      else
+      {
+        comparison = oldChunks[oldChunk].keys[oldIndex].compareTo(sortedKeys[newIndex]);
+      } // end if
+
+      K key;
+      V value;
+      if(comparison < 0)
+      {
+        key = oldChunks[oldChunk].keys[oldIndex];
+        value = oldChunks[oldChunk].values[oldIndex];
+      }
+      else
+      {
+        // Skip ahead to the last pair of a run of equal batch keys.
+        while( (newIndex + 1 < batchSize) && (sortedKeys[newIndex].compareTo(sortedKeys[newIndex + 1]) == 0) )
+        {
+          newIndex++;
+        } // end while
+        key = sortedKeys[newIndex];
+        value = sortedValues[newIndex];
+        newIndex++;
+      } // end if
+
+      if(comparison <= 0) // The old entry is used or replaced.
+      {
+        oldIndex++;
+        if(oldIndex == oldChunks[oldChunk].size)
+        {
+          oldChunk++;
+          oldIndex = 0;
+        } // end if
+      } // end if
+
+      if( (numberOfChunks == 0) || (chunks[numberOfChunks - 1].size == fillLimit) )
+      {
+        insertChunk(numberOfChunks, new Chunk());
+      } // end if
+      Chunk last = chunks[numberOfChunks - 1];
+      last.keys[last.size] = key;
+      last.values[last.size] = value;
+      last.size++;
+      numberOfEntries++;
+    } // end while
+
+    if(numberOfEntries != oldNumberOfEntries)
+    {
+      modCount++;
+    } // end if
+  } // end addAll
+
+  /** Removes a specific entry from this dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    checkWritable();
+    V result = null;
+    if(numberOfChunks > 0)
+    {
+      int chunkIndex = locateChunk(key);
+      Chunk chunk = chunks[chunkIndex];
+      int keyIndex = chunk.locateIndex(key);
+      if(chunk.isKeyAt(keyIndex, key)) // If key is found.
+      {
+        result = chunk.getValue(keyIndex);
+        writableChunk(chunkIndex).removeAt(keyIndex);
+        numberOfEntries--;
+        modCount++;
+        rebalance(chunkIndex);
+      } // end if
+    } // end if
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(K key)
+  {
+    V result = null;
+    if(numberOfChunks > 0)
+    {
+      Chunk chunk = chunks[locateChunk(key)];
+      int keyIndex = chunk.locateIndex(key);
+      if(chunk.isKeyAt(keyIndex, key)) // If key is found.
+      {
+        result = chunk.getValue(keyIndex);
+      } // end if
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(K key)
+  {
+    boolean result = false;
+    if(numberOfChunks > 0)
+    {
+      Chunk chunk = chunks[locateChunk(key)];
+      result = chunk.isKeyAt(chunk.locateIndex(key), key);
+    } // end if
+    return result;
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator walks the chunks in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new KeyIterator(null);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      The iterator walks the chunks in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new ValueIterator(null);
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass. The walk
+      reads each chunk in place and allocates nothing per entry.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    int expectedModCount = modCount;
+    for(int c = 0; (c < numberOfChunks) && (modCount == expectedModCount); c++)
+    {
+      Chunk chunk = chunks[c];
+      for(int i = 0; (i < chunk.size) && (modCount == expectedModCount); i++)
+      {
+        action.accept(chunk.keys[i], chunk.values[i]);
+      } // end for
+    } // end for
+    if(modCount != expectedModCount)
+    {
+      throw new ConcurrentModificationException();
+    } // end if
+  } // end forEach
+
+  /** Finds the greatest search key that is less than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K floorKey(K key)
+  {
+    K result = null;
+    if(numberOfChunks > 0)
+    {
+      Chunk chunk = chunks[locateChunk(key)];
+      int keyIndex = chunk.locateIndex(key);
+      if(chunk.isKeyAt(keyIndex, key))
+      {
+        result = chunk.keys[keyIndex];
+      }
+      else if(keyIndex > 0)
+      {
+        result = chunk.keys[keyIndex - 1];
+      } // end if
+    } // end if
+    return result;
+  } // end floorKey
+
+  /** Finds the least search key that is greater than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K ceilingKey(K key)
+  {
+    K result = null;
+    if(numberOfChunks > 0)
+    {
+      int chunkIndex = locateChunk(key);
+      result = keyAtOrAfter(chunkIndex, chunks[chunkIndex].locateIndex(key));
+    } // end if
+    return result;
+  } // end ceilingKey
+
+  /** Finds the greatest search key that is strictly less than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K lowerKey(K key)
+  {
+    K result = null;
+    if(numberOfChunks > 0)
+    {
+      int chunkIndex = locateChunk(key);
+      int keyIndex = chunks[chunkIndex].locateIndex(key);
+      if(keyIndex > 0)
+      {
+        result = chunks[chunkIndex].keys[keyIndex - 1];
+      }
+      else if(chunkIndex > 0)
+      {
+        Chunk before = chunks[chunkIndex - 1];
+        result = before.keys[before.size - 1];
+      } // end if
+    } // end if
+    return result;
+  } // end lowerKey
+
+  /** Finds the least search key that is strictly greater than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K higherKey(K key)
+  {
+    K result = null;
+    if(numberOfChunks > 0)
+    {
+      int chunkIndex = locateChunk(key);
+      Chunk chunk = chunks[chunkIndex];
+      int keyIndex = chunk.locateIndex(key);
+      if(chunk.isKeyAt(keyIndex, key))
+      {
+        keyIndex++;
+      } // end if
+      result = keyAtOrAfter(chunkIndex, keyIndex);
+    } // end if
+    return result;
+  } // end higherKey
+
+  /** Creates an iterator that traverses the search keys in this dictionary,
+      starting at the first key that is greater than or equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the search
+               keys from fromKey onward. */
+  public Iterator<K> getKeyIterator(K fromKey)
+  {
+    return new KeyIterator(fromKey);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses the values in this dictionary,
+      starting at the entry of the first key that is greater than or
+      equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the values
+               from fromKey onward. */
+  public Iterator<V> getValueIterator(K fromKey)
+  {
+    return new ValueIterator(fromKey);
+  } // end getValueIterator
+
+  /** Creates a view of the entries whose search keys are strictly less
+      than toKey. The view is backed by this dictionary, so changes to
+      either one are seen by the other.
+      @param toKey  The exclusive upper bound of the view.
+      @return  A live view of the head of this dictionary. */
+  public SortedDictionaryInterface<K, V> headDictionary(K toKey)
+  {
+    return new SortedSubDictionary<>(this, null, toKey);
+  } // end headDictionary
+
+  /** Creates a view of the entries whose search keys are greater than or
+      equal to fromKey. The view is backed by this dictionary, so changes
+      to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @return  A live view of the tail of this dictionary. */
+  public SortedDictionaryInterface<K, V> tailDictionary(K fromKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, null);
+  } // end tailDictionary
+
+  /** Creates a view of the entries whose search keys range from fromKey,
+      inclusive, to toKey, exclusive. The view is backed by this
+      dictionary, so changes to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @param toKey    The exclusive upper bound of the view.
+      @return  A live view of the range of this dictionary.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public SortedDictionaryInterface<K, V> subDictionary(K fromKey, K toKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, toKey);
+  } // end subDictionary
+
+  /** Counts the search keys that are strictly less than a given key. The
+      chunks before the one holding key are counted by their sizes alone,
+      so it costs one step per chunk instead of one per key.
+      @param key  An object search key to count up to.
+      @return  The number of keys less than key, which is also the
+               position key has, or would have, in search key order. */
+  public int rank(K key)
+  {
+    int result = 0;
+    if(numberOfChunks > 0)
+    {
+      int chunkIndex = locateChunk(key);
+      for(int c = 0; c < chunkIndex; c++)
+      {
+        result += chunks[c].size;
+      } // end for
+      result += chunks[chunkIndex].locateIndex(key);
+    } // end if
+    return result;
+  } // end rank
+
+  /** Finds the search key at a position in search key order, stepping
+      over whole chunks by their sizes.
+      @param index  The position, from 0 to getSize() - 1.
+      @return  The key that has index keys before it.
+      @throws IndexOutOfBoundsException if index is out of range. */
+  public K select(int index)
+  {
+    if( (index < 0) || (index >= numberOfEntries) )
+    {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + numberOfEntries);
+    } // end if
+    int chunkIndex = 0;
+    int keyIndex = index;
+    while(keyIndex >= chunks[chunkIndex].size)
+    {
+      keyIndex -= chunks[chunkIndex].size;
+      chunkIndex++;
+    } // end while
+    return chunks[chunkIndex].keys[keyIndex];
+  } // end select
+
+  /** Gets the count of structural changes its iterators check.
+      @return  A number that changes whenever an entry is added or removed. */
+  public int getModCount()
+  {
+    return modCount;
+  } // end getModCount
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return numberOfEntries == 0;
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    return numberOfEntries;
+  } // end getSize
+
+  /** Removes all entries from this dictionary. */
+  public void clear()
+  {
+    checkWritable();
+    chunks = newChunkArray(INITIAL_CHUNK_SLOTS);
+    chunksShared = false;
+    numberOfChunks = 0;
+    numberOfEntries = 0;
+    modCount++;
+  } // end clear
+
+  /** Bisects the chunks for the one that would hold key.
+      @param key  The search key to look for.
+      @return  The index of the last chunk whose first key is not greater
+               than key, or 0 if key is below every chunk. */
+  private int locateChunk(K key)
+  {
+    int low = 0;
+    int high = numberOfChunks - 1;
+    while(low < high)
+    {
+      int mid = (low + high + 1) >>> 1;
+      if(key.compareTo(chunks[mid].keys[0]) < 0)
+      {
+        high = mid - 1;
+      }
+      else
+      {
+        low = mid;
+      } // end if
+    } // end while
+    return low;
+  } // end locateChunk
+
+  /** Returns the search key at a position, moving on to the next chunk if
+      the position is just past the end of its chunk.
+      @param chunkIndex  The chunk of the position.
+      @param keyIndex    The position within the chunk.
+      @return  Either the key found or null if the dictionary ends there. */
+  private K keyAtOrAfter(int chunkIndex, int keyIndex)
+  {
+    K result = null;
+    if(keyIndex < chunks[chunkIndex].size)
+    {
+      result = chunks[chunkIndex].keys[keyIndex];
+    }
+    else if(chunkIndex + 1 < numberOfChunks)
+    {
+      result = chunks[chunkIndex + 1].keys[0];
+    } // end if
+    return result;
+  } // end keyAtOrAfter
+
+  /** Drops a chunk that became empty, or merges a chunk that fell below a
+      quarter full into a neighbor when the two fit in three quarters of a
+      chunk, so that a merge is never followed at once by a split.
+      @param chunkIndex  The chunk an entry was just removed from. */
+  private void rebalance(int chunkIndex)
+  {
+    Chunk chunk = chunks[chunkIndex];
+    int mergeLimit = chunkCapacity * 3 / 4;
+    if(chunk.size == 0)
+    {
+      removeChunk(chunkIndex);
+    }
+    else if(chunk.size < chunkCapacity / 4)
+    {
+      if( (chunkIndex + 1 < numberOfChunks) && (chunk.size + chunks[chunkIndex + 1].size <= mergeLimit) )
+      {
+        chunk.append(chunks[chunkIndex + 1]);
+        removeChunk(chunkIndex + 1);
+      }
+      else if( (chunkIndex > 0) && (chunks[chunkIndex - 1].size + chunk.size <= mergeLimit) )
+      {
+        writableChunk(chunkIndex - 1).append(chunk);
+        removeChunk(chunkIndex);
+      } // end if
+    } // end if
+  } // end rebalance
+
+  /** Inserts a chunk into the top-level array, growing it if it is full.
+      @param chunkIndex  The position of the new chunk.
+      @param chunk       The chunk to insert. */
+  private void insertChunk(int chunkIndex, Chunk chunk)
+  {
+    if(numberOfChunks == chunks.length)
+    {
+      chunks = Arrays.copyOf(chunks, 2 * chunks.length);
+      chunksShared = false;
+    } // end if
+    ensureChunksWritable();
+    System.arraycopy(chunks, chunkIndex, chunks, chunkIndex + 1, numberOfChunks - chunkIndex);
+    chunks[chunkIndex] = chunk;
+    numberOfChunks++;
+  } // end insertChunk
+
+  /** Gets a chunk that may be changed, first copying it in place of
+      the original if a snapshot shares it.
+      @param chunkIndex  The position of the chunk.
+      @return  A chunk that belongs to this dictionary alone. */
+  private Chunk writableChunk(int chunkIndex)
+  {
+    Chunk result = chunks[chunkIndex];
+    if(result.epoch != epoch)
+    {
+      ensureChunksWritable();
+      result = result.copy();
+      chunks[chunkIndex] = result;
+    } // end if
+    return result;
+  } // end writableChunk
+
+  /** Copies the top-level array of chunks if a snapshot shares it. */
+  private void ensureChunksWritable()
+  {
+    if(chunksShared)
+    {
+      chunks = Arrays.copyOf(chunks, chunks.length);
+      chunksShared = false;
+    } // end if
+  } // end ensureChunksWritable
+
+  /** Throws an exception if this dictionary is a snapshot. */
+  private void checkWritable()
+  {
+    if(readOnly)
+    {
+      throw new UnsupportedOperationException("A snapshot of a dictionary cannot be changed.");
+    } // end if
+  } // end checkWritable
+
+  /** Creates an empty top-level array of chunks.
+      @param length  The number of chunk slots.
+      @return  The new array. */
+  @SuppressWarnings("unchecked")
+  private Chunk[] newChunkArray(int length)
+  {
+    return (Chunk[])new SortedChunkedArrayDictionary.Chunk[length];
+  } // end newChunkArray
+
+  /** Removes a chunk from the top-level array.
+      @param chunkIndex  The position of the chunk to remove. */
+  private void removeChunk(int chunkIndex)
+  {
+    ensureChunksWritable();
+    numberOfChunks--;
+    System.arraycopy(chunks, chunkIndex + 1, chunks, chunkIndex, numberOfChunks - chunkIndex);
+    chunks[numberOfChunks] = null;
+  } // end removeChunk
+
+  /** Sorts the first size pairs of two parallel arrays by key with a
+      stable merge sort, so pairs with equal keys keep their order.
+      @param sortKeys    The keys to sort.
+      @param sortValues  The values that move along with sortKeys.
+      @param size        The number of pairs to sort. */
+  private void sortBatch(K[] sortKeys, V[] sortValues, int size)
+  {
+    K[] keyBuffer = Arrays.copyOf(sortKeys, size);
+    V[] valueBuffer = Arrays.copyOf(sortValues, size);
+    for(int width = 1; width < size; width = 2 * width)
+    {
+      for(int low = 0; low < size - width; low += 2 * width)
+      {
+        int middle = low + width;
+        int high = Math.min(low + 2 * width, size);
+        System.arraycopy(sortKeys, low, keyBuffer, low, high - low);
+        System.arraycopy(sortValues, low, valueBuffer, low, high - low);
+        int left = low;
+        int right = middle;
+        for(int i = low; i < high; i++)
+        {
+          if( (right >= high) || ( (left < middle) && (keyBuffer[left].compareTo(keyBuffer[right]) <= 0) ) )
+          {
+            sortKeys[i] = keyBuffer[left];
+            sortValues[i] = valueBuffer[left];
+            left++;
+          }
+          else
+          {
+            sortKeys[i] = keyBuffer[right];
+            sortValues[i] = valueBuffer[right];
+            right++;
+          } // end if
+        } // end for
+      } // end for
+    } // end for
+  } // end sortBatch
+
+  /** Private inner class that walks the chunks in place. */
+  private abstract class ChunkIterator<T> implements Iterator<T>
+  {
+    private int chunkIndex;             // Chunk of the entry next returns.
+    private int keyIndex;               // Position of that entry in its chunk.
+    protected Chunk lastChunk;          // Chunk of the entry last returned.
+    private K lastKey;                  // Key last returned, or null after remove.
+    private int expectedModCount;
+
+    /** Creates an iterator positioned at the first entry whose key is not
+        less than fromKey.
+        @param fromKey  The key to start from, or null to start at the front. */
+    private ChunkIterator(K fromKey)
+    {
+      seek(fromKey);
+      lastKey = null;
+      expectedModCount = modCount;
+    } // end constructor
+
+    public boolean hasNext()
+    {
+      return chunkIndex < numberOfChunks;
+    } // end hasNext
+
+    /** Advances to the next entry.
+        @return  The position of that entry within lastChunk. */
+    protected int nextIndex()
+    {
+      checkForComodification();
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      lastChunk = chunks[chunkIndex];
+      int result = keyIndex;
+      lastKey = lastChunk.keys[result];
+      keyIndex++;
+      if(keyIndex == lastChunk.size)
+      {
+        chunkIndex++;
+        keyIndex = 0;
+      } // end if
+      return result;
+    } // end nextIndex
+
+    /** Removes the entry last returned by next. Only its chunk is shifted,
+        and the iterator finds its place again with one search. */
+    public void remove()
+    {
+      if(lastKey == null)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      checkForComodification();
+      SortedChunkedArrayDictionary.this.remove(lastKey);
+      seek(lastKey);
+      lastKey = null;
+      expectedModCount = modCount;
+    } // end remove
+
+    /** Positions the iterator at the first entry not less than fromKey.
+        @param fromKey  The key to start from, or null for the front. */
+    private void seek(K fromKey)
+    {
+      chunkIndex = 0;
+      keyIndex = 0;
+      if( (fromKey != null) && (numberOfChunks > 0) )
+      {
+        chunkIndex = locateChunk(fromKey);
+        keyIndex = chunks[chunkIndex].locateIndex(fromKey);
+        if(keyIndex == chunks[chunkIndex].size)
+        {
+          chunkIndex++;
+          keyIndex = 0;
+        } // end if
+      } // end if
+    } // end seek
+
+    /** Throws an exception if the dictionary was changed behind the iterator. */
+    private void checkForComodification()
+    {
+      if(modCount != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+  } // end ChunkIterator
+
+  /** Private inner class that iterates over the search keys. */
+  private class KeyIterator extends ChunkIterator<K>
+  {
+    private KeyIterator(K fromKey)
+    {
+      super(fromKey);
+    } // end constructor
+
+    public K next()
+    {
+      int index = nextIndex();
+      return lastChunk.keys[index];
+    } // end next
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends ChunkIterator<V>
+  {
+    private ValueIterator(K fromKey)
+    {
+      super(fromKey);
+    } // end constructor
+
+    public V next()
+    {
+      int index = nextIndex();
+      return lastChunk.values[index];
+    } // end next
+  } // end ValueIterator
+
+  /** Private inner class Chunk, a small sorted array of entries. */
+  private class Chunk
+  {
+    private K[] keys;
+    private V[] values;                 // values[i] belongs to keys[i].
+    private int size;
+    private final long epoch;           // The dictionary's epoch when this chunk was made.
+
+    /** Creates an empty chunk with room for chunkCapacity entries. */
+    private Chunk()
+    {
+      @SuppressWarnings("unchecked")
+      K[] tempKeys = (K[])new Comparable[chunkCapacity];
+      keys = tempKeys;
+      @SuppressWarnings("unchecked")
+      V[] tempValues = (V[])new Object[chunkCapacity];
+      values = tempValues;
+      size = 0;
+      epoch = SortedChunkedArrayDictionary.this.epoch;
+    } // end constructor
+
+    /** Copies this chunk for the dictionary to change while a snapshot
+        keeps the original.
+        @return  A chunk with the same entries, made in the current epoch. */
+    private Chunk copy()
+    {
+      Chunk result = new Chunk();
+      System.arraycopy(keys, 0, result.keys, 0, size);
+      System.arraycopy(values, 0, result.values, 0, size);
+      result.size = size;
+      return result;
+    } // end copy
+
+    /** Bisects this chunk for key.
+        @param key  The search key to look for.
+        @return  The index of the first entry whose key is not less than key. */
+    private int locateIndex(K key)
+    {
+      int low = 0;
+      int high = size;
+      while(low < high)
+      {
+        int mid = (low + high) >>> 1;
+        if(key.compareTo(keys[mid]) > 0)
+        {
+          low = mid + 1;
+        }
+        else
+        {
+          high = mid;
+        } // end if
+      } // end while
+      return low;
+    } // end locateIndex
+
+    /** Sees whether the entry at a given position has the given search key. */
+    private boolean isKeyAt(int index, K key)
+    {
+      return (index < size) && (key.compareTo(keys[index]) == 0);
+    } // end isKeyAt
+
+    /** Returns the value at a position. */
+    private V getValue(int index)
+    {
+      return values[index];
+    } // end getValue
+
+    /** Replaces the value at a position. */
+    private void setValue(int index, V value)
+    {
+      values[index] = value;
+    } // end setValue
+
+    /** Inserts an entry at a position, shifting the later ones up. */
+    private void insert(int index, K key, V value)
+    {
+      System.arraycopy(keys, index, keys, index + 1, size - index);
+      System.arraycopy(values, index, values, index + 1, size - index);
+      keys[index] = key;
+      values[index] = value;
+      size++;
+    } // end insert
+
+    /** Removes the entry at a position, shifting the later ones down. */
+    private void removeAt(int index)
+    {
+      size--;
+      System.arraycopy(keys, index + 1, keys, index, size - index);
+      System.arraycopy(values, index + 1, values, index, size - index);
+      keys[size] = null;
+      values[size] = null;
+    } // end removeAt
+
+    /** Moves the upper half of this full chunk into a new chunk.
+        @return  The new chunk, which follows this one in key order. */
+    private Chunk split()
+    {
+      Chunk upperHalf = new Chunk();
+      int half = size / 2;
+      upperHalf.size = size - half;
+      System.arraycopy(keys, half, upperHalf.keys, 0, upperHalf.size);
+      System.arraycopy(values, half, upperHalf.values, 0, upperHalf.size);
+      Arrays.fill(keys, half, size, null);
+      Arrays.fill(values, half, size, null);
+      size = half;
+      return upperHalf;
+    } // end split
+
+    /** Moves all entries of the following chunk onto the end of this one.
+        @param next  The chunk after this one in key order. */
+    private void append(Chunk next)
+    {
+      System.arraycopy(next.keys, 0, keys, size, next.size);
+      System.arraycopy(next.values, 0, values, size, next.size);
+      size += next.size;
+    } // end append
+  } // end Chunk
+} // end of SortedChunkedArrayDictionary
@@ -0,0 +1,281 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.function.BinaryOperator;
+/**
+   Set operations between two sorted dictionaries. Each one walks both
+   dictionaries side by side in search key order, the way the merge step
+   of merge sort does, so it takes a single O(n + m) pass instead of a
+   search in one dictionary for every key of the other. The results are
+   collected in sorted arrays and handed to a new SortedArrayDictionary
+   with one addAll, which on sorted input also runs in linear time.
+   @author Minwoo Soh
+*/
+public final class SortedDictionaries
+{
+  /** Receives the differences found by diff, in search key order. */
+  public interface DiffListener<K, V>
+  {
+    /** Called for a search key that is only in the newer dictionary.
+        @param key    The search key.
+        @param value  Its value in the newer dictionary. */
+    public void added(K key, V value);
+
+    /** Called for a search key that is only in the older dictionary.
+        @param key    The search key.
+        @param value  Its value in the older dictionary. */
+    public void removed(K key, V value);
+
+    /** Called for a search key in both dictionaries whose values are not equal.
+        @param key       The search key.
+        @param oldValue  Its value in the older dictionary.
+        @param newValue  Its value in the newer dictionary. */
+    public void changed(K key, V oldValue, V newValue);
+  } // end DiffListener
+
+  private SortedDictionaries()
+  {
+  } // end default constructor
+
+  /** Creates a dictionary holding the entries of both dictionaries.
+      @param first     A dictionary.
+      @param second    Another dictionary.
+      @param resolver  Gives the value of a search key found in both, from
+                       its value in first and its value in second. It must
+                       not return null.
+      @return  A new dictionary with every search key of first or second. */
+  public static <K extends Comparable<? super K>, V> SortedDictionaryInterface<K, V>
+         union(SortedDictionaryInterface<K, V> first, SortedDictionaryInterface<K, V> second,
+               BinaryOperator<V> resolver)
+  {
+    Objects.requireNonNull(resolver, "resolver");
+    Merger<K, V> merger = new Merger<>(first.getSize() + second.getSize());
+    Cursor<K, V> left = new Cursor<>(first);
+    Cursor<K, V> right = new Cursor<>(second);
+    while(left.hasEntry() || right.hasEntry())
+    {
+      int comparison = compare(left, right);
+      if(comparison < 0)
+      {
+        merger.append(left.key, left.value);
+        left.advance();
+      }
+      else if(comparison > 0)
+      {
+        merger.append(right.key, right.value);
+        right.advance();
+      }
+      else
+      {
+        merger.append(left.key, resolver.apply(left.value, right.value));
+        left.advance();
+        right.advance();
+      } // end if
+    } // end while
+    return merger.toDictionary();
+  } // end union
+
+  /** Creates a dictionary holding the search keys found in both dictionaries.
+      @param first     A dictionary.
+      @param second    Another dictionary.
+      @param resolver  Gives the value of each search key, from its value
+                       in first and its value in second. It must not
+                       return null.
+      @return  A new dictionary with every search key of both first and second. */
+  public static <K extends Comparable<? super K>, V> SortedDictionaryInterface<K, V>
+         intersection(SortedDictionaryInterface<K, V> first, SortedDictionaryInterface<K, V> second,
+                      BinaryOperator<V> resolver)
+  {
+    Objects.requireNonNull(resolver, "resolver");
+    Merger<K, V> merger = new Merger<>(Math.min(first.getSize(), second.getSize()));
+    Cursor<K, V> left = new Cursor<>(first);
+    Cursor<K, V> right = new Cursor<>(second);
+    while(left.hasEntry() && right.hasEntry())
+    {
+      int comparison = compare(left, right);
+      if(comparison < 0)
+      {
+        left.advance();
+      }
+      else if(comparison > 0)
+      {
+        right.advance();
+      }
+      else
+      {
+        merger.append(left.key, resolver.apply(left.value, right.value));
+        left.advance();
+        right.advance();
+      } // end if
+    } // end while
+    return merger.toDictionary();
+  } // end intersection
+
+  /** Creates a dictionary holding the entries of one dictionary whose
+      search keys are not in another.
+      @param first   The dictionary whose entries are kept.
+      @param second  The dictionary whose search keys are taken away.
+      @return  A new dictionary with the entries of first whose search
+               keys are not in second. */
+  public static <K extends Comparable<? super K>, V> SortedDictionaryInterface<K, V>
+         difference(SortedDictionaryInterface<K, V> first, SortedDictionaryInterface<K, ?> second)
+  {
+    Merger<K, V> merger = new Merger<>(first.getSize());
+    Cursor<K, V> left = new Cursor<>(first);
+    Iterator<K> rightKeys = second.getKeyIterator();
+    K rightKey = rightKeys.hasNext() ? rightKeys.next() : null;
+    while(left.hasEntry())
+    {
+      int comparison = (rightKey == null) ? -1 : left.key.compareTo(rightKey);
+      if(comparison < 0)
+      {
+        merger.append(left.key, left.value);
+        left.advance();
+      }
+      else
+      {
+        if(comparison == 0)
+        {
+          left.advance();
+        } // end if
+        rightKey = rightKeys.hasNext() ? rightKeys.next() : null;
+      } // end if
+    } // end while
+    return merger.toDictionary();
+  } // end difference
+
+  /** Reports how one dictionary differs from an older one, calling the
+      listener once per added, removed or changed search key, in search
+      key order. Values are compared with equals.
+      @param older     The dictionary as it was.
+      @param newer     The dictionary as it is.
+      @param listener  Receives the differences.
+      @return  The number of differences reported. */
+  public static <K extends Comparable<? super K>, V> int diff(SortedDictionaryInterface<K, V> older,
+                                                             SortedDictionaryInterface<K, V> newer,
+                                                             DiffListener<? super K, ? super V> listener)
+  {
+    Objects.requireNonNull(listener, "listener");
+    int result = 0;
+    Cursor<K, V> left = new Cursor<>(older);
+    Cursor<K, V> right = new Cursor<>(newer);
+    while(left.hasEntry() || right.hasEntry())
+    {
+      int comparison = compare(left, right);
+      if(comparison < 0)
+      {
+        listener.removed(left.key, left.value);
+        result++;
+        left.advance();
+      }
+      else if(comparison > 0)
+      {
+        listener.added(right.key, right.value);
+        result++;
+        right.advance();
+      }
+      else
+      {
+        if(!left.value.equals(right.value))
+        {
+          listener.changed(left.key, left.value, right.value);
+          result++;
+        } // end if
+        left.advance();
+        right.advance();
+      } // end if
+    } // end while
+    return result;
+  } // end diff
+
+  /** Compares the current search keys of two cursors, where a cursor
+      that has run out sorts after every key. */
+  private static <K extends Comparable<? super K>, V> int compare(Cursor<K, V> left, Cursor<K, V> right)
+  {
+    int result;
+    if(!right.hasEntry())
+    {
+      result = -1;
+    }
+    else if(!left.hasEntry())
+    {
+      result = 1;
+    }
+    else
+    {
+      result = left.key.compareTo(right.key);
+    } // end if
+    return result;
+  } // end compare
+
+  /** Private class that walks the keys and values of a dictionary together. */
+  private static class Cursor<K, V>
+  {
+    private final Iterator<K> keyIterator;
+    private final Iterator<V> valueIterator;
+    private K key;                      // Current search key, or null when done.
+    private V value;
+
+    private Cursor(DictionaryInterface<K, V> dictionary)
+    {
+      keyIterator = dictionary.getKeyIterator();
+      valueIterator = dictionary.getValueIterator();
+      advance();
+    } // end constructor
+
+    private boolean hasEntry()
+    {
+      return key != null;
+    } // end hasEntry
+
+    private void advance()
+    {
+      if(keyIterator.hasNext())
+      {
+        key = keyIterator.next();
+        value = valueIterator.next();
+      }
+      else
+      {
+        key = null;
+        value = null;
+      } // end if
+    } // end advance
+  } // end Cursor
+
+  /** Private class that collects entries in search key order and turns
+      them into a dictionary. */
+  private static class Merger<K extends Comparable<? super K>, V>
+  {
+    private K[] keys;
+    private V[] values;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    private Merger(int capacity)
+    {
+      keys = (K[])new Comparable[capacity];
+      values = (V[])new Object[capacity];
+      size = 0;
+    } // end constructor
+
+    private void append(K key, V value)
+    {
+      keys[size] = key;
+      values[size] = value;
+      size++;
+    } // end append
+
+    private SortedDictionaryInterface<K, V> toDictionary()
+    {
+      if(size < keys.length)
+      {
+        keys = Arrays.copyOf(keys, size);
+        values = Arrays.copyOf(values, size);
+      } // end if
+      SortedDictionaryInterface<K, V> result = new SortedArrayDictionary<>(0);
+      result.addAll(keys, values);
+      return result;
+    } // end toDictionary
+  } // end Merger
+} // end SortedDictionaries
@@ -0,0 +1,183 @@
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Spliterator;
+/**
+   An interface for a dictionary whose distinct search keys are kept in
+   sorted order, adding navigation and range operations to DictionaryInterface.
+   @author Minwoo Soh
+*/
+public interface SortedDictionaryInterface<K extends Comparable<? super K>, V> extends DictionaryInterface<K, V>
+{
+   /** Adds a batch of entries to this dictionary in one pass. The batch
+       need not be sorted. Pairs are taken in order, so when a search key
+       appears more than once the last pair wins, and a key that already
+       exists in the dictionary has its value replaced, just as with add.
+       Pairs with a null key or value are not added.
+       @param keys    The search keys of the new entries.
+       @param values  The values associated with keys, position by position.
+       @throws IllegalArgumentException if the arrays differ in length. */
+   public void addAll(K[] keys, V[] values);
+
+   /** Finds the greatest search key that is less than or equal to a given key.
+       @param key  An object search key to navigate from.
+       @return  Either that search key or null if there is no such key. */
+   public K floorKey(K key);
+
+   /** Finds the least search key that is greater than or equal to a given key.
+       @param key  An object search key to navigate from.
+       @return  Either that search key or null if there is no such key. */
+   public K ceilingKey(K key);
+
+   /** Finds the greatest search key that is strictly less than a given key.
+       @param key  An object search key to navigate from.
+       @return  Either that search key or null if there is no such key. */
+   public K lowerKey(K key);
+
+   /** Finds the least search key that is strictly greater than a given key.
+       @param key  An object search key to navigate from.
+       @return  Either that search key or null if there is no such key. */
+   public K higherKey(K key);
+
+   /** Creates an iterator that traverses the search keys in this dictionary,
+       starting at the first key that is greater than or equal to fromKey.
+       @param fromKey  An object search key where the traversal starts.
+       @return  An iterator that provides sequential access to the search
+                keys from fromKey onward. */
+   public Iterator<K> getKeyIterator(K fromKey);
+
+   /** Creates an iterator that traverses the values in this dictionary,
+       starting at the entry of the first key that is greater than or
+       equal to fromKey.
+       @param fromKey  An object search key where the traversal starts.
+       @return  An iterator that provides sequential access to the values
+                from fromKey onward. */
+   public Iterator<V> getValueIterator(K fromKey);
+
+   /** Creates a view of the entries whose search keys are strictly less
+       than toKey. The view is backed by this dictionary, so changes to
+       either one are seen by the other.
+       @param toKey  The exclusive upper bound of the view.
+       @return  A live view of the head of this dictionary. */
+   public SortedDictionaryInterface<K, V> headDictionary(K toKey);
+
+   /** Creates a view of the entries whose search keys are greater than or
+       equal to fromKey. The view is backed by this dictionary, so changes
+       to either one are seen by the other.
+       @param fromKey  The inclusive lower bound of the view.
+       @return  A live view of the tail of this dictionary. */
+   public SortedDictionaryInterface<K, V> tailDictionary(K fromKey);
+
+   /** Creates a view of the entries whose search keys range from fromKey,
+       inclusive, to toKey, exclusive. The view is backed by this
+       dictionary, so changes to either one are seen by the other.
+       @param fromKey  The inclusive lower bound of the view.
+       @param toKey    The exclusive upper bound of the view.
+       @return  A live view of the range of this dictionary.
+       @throws IllegalArgumentException if fromKey is greater than toKey. */
+   public SortedDictionaryInterface<K, V> subDictionary(K fromKey, K toKey);
+
+   /** Counts the search keys that are strictly less than a given key. By
+       default the keys are walked in order, so it costs one step per key
+       counted; the engines answer it from their own structure.
+       @param key  An object search key to count up to.
+       @return  The number of keys less than key, which is also the
+                position key has, or would have, in search key order. */
+   public default int rank(K key)
+   {
+      int result = 0;
+      Iterator<K> keyIterator = getKeyIterator();
+      boolean below = true;
+      while(below && keyIterator.hasNext())
+      {
+         if(keyIterator.next().compareTo(key) < 0)
+         {
+            result++;
+         }
+         else
+         {
+            below = false;
+         } // end if
+      } // end while
+      return result;
+   } // end rank
+
+   /** Finds the search key at a position in search key order. By default
+       the keys are walked from the front.
+       @param index  The position, from 0 to getSize() - 1.
+       @return  The key that has index keys before it.
+       @throws IndexOutOfBoundsException if index is out of range. */
+   public default K select(int index)
+   {
+      if( (index < 0) || (index >= getSize()) )
+      {
+         throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + getSize());
+      } // end if
+      Iterator<K> keyIterator = getKeyIterator();
+      for(int i = 0; i < index; i++)
+      {
+         keyIterator.next();
+      } // end for
+      return keyIterator.next();
+   } // end select
+
+   /** Counts the search keys that range from fromKey, inclusive, to toKey,
+       exclusive, the same keys subDictionary(fromKey, toKey) would hold.
+       @param fromKey  The inclusive lower bound.
+       @param toKey    The exclusive upper bound.
+       @return  The number of keys in the range.
+       @throws IllegalArgumentException if fromKey is greater than toKey. */
+   public default int countInRange(K fromKey, K toKey)
+   {
+      if(fromKey.compareTo(toKey) > 0)
+      {
+         throw new IllegalArgumentException("fromKey " + fromKey + " is greater than toKey " + toKey);
+      } // end if
+      return rank(toKey) - rank(fromKey);
+   } // end countInRange
+
+   /** Removes every entry whose search key ranges from fromKey, inclusive,
+       to toKey, exclusive; a null bound leaves that side open. By default
+       the range is walked once and each entry is taken out by the
+       iterator's remove, so no search is repeated; the array engines
+       close the gap with one shift instead.
+       @param fromKey  The inclusive lower bound, or null for none.
+       @param toKey    The exclusive upper bound, or null for none.
+       @throws IllegalArgumentException if fromKey is greater than toKey. */
+   public default void removeRange(K fromKey, K toKey)
+   {
+      if( (fromKey != null) && (toKey != null) && (fromKey.compareTo(toKey) > 0) )
+      {
+         throw new IllegalArgumentException("fromKey " + fromKey + " is greater than toKey " + toKey);
+      } // end if
+      Iterator<K> keyIterator = (fromKey == null) ? getKeyIterator() : getKeyIterator(fromKey);
+      boolean done = false;
+      while(!done && keyIterator.hasNext())
+      {
+         K key = keyIterator.next();
+         done = (toKey != null) && (key.compareTo(toKey) >= 0);
+         if(!done)
+         {
+            keyIterator.remove();
+         } // end if
+      } // end while
+   } // end removeRange
+
+   /** Gets a count of the structural changes made to this dictionary, so
+       that views such as subDictionary can fail fast when the dictionary
+       changes behind their iterators. By default 0, which lets no change
+       be seen; the engines return the count their own iterators check.
+       @return  A number that changes whenever an entry is added or removed. */
+   public default int getModCount()
+   {
+      return 0;
+   } // end getModCount
+
+   /** Creates a spliterator over the entries of this dictionary in search
+       key order. By default the entries are copied with forEach, so the
+       spliterator sees the dictionary as it was when this method was called.
+       @return  A SORTED spliterator that splits in O(1) for parallel work. */
+   public default Spliterator<Map.Entry<K, V>> spliterator()
+   {
+      return EntryArraySpliterator.copyOf(this, Map.Entry.<K, V>comparingByKey());
+   } // end spliterator
+} // end SortedDictionaryInterface
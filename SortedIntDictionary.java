@@ -0,0 +1,343 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+/**
+   A dictionary with primitive int search keys, using a resizable sorted
+   int array next to a parallel array of values. It follows the add,
+   remove, getValue and contains rules of SortedArrayDictionary, but keys
+   are never boxed and no Entry object is made per entry, so a lookup
+   allocates nothing.
+   @author Minwoo Soh
+*/
+public class SortedIntDictionary<V>
+{
+  private int[] keys;
+  private Object[] values;              // values[i] belongs to keys[i].
+  private int numberOfEntries;
+  private int modCount;                 // Counts structural changes for the iterators.
+  private final static int DEFAULT_CAPACITY = 25;
+  private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+  /** Creates an empty dictionary with the default capacity of 25. */
+  public SortedIntDictionary()
+  {
+    this(DEFAULT_CAPACITY);
+  } // end default constructor
+
+  /** Creates an empty dictionary with specificed capacity.
+      @param initialCapacity  The wanted size of the array capacity. */
+  public SortedIntDictionary(int initialCapacity)
+  {
+    checkCapacity(initialCapacity);
+    keys = new int[initialCapacity];
+    values = new Object[initialCapacity];
+    numberOfEntries = 0;
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    The search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(int key, V value)
+  {
+    V result = null;
+    try
+    {
+      if(value == null)
+      {
+        throw new IllegalStateException("IllegalStateException: Cannot enter null for values. Entry is not added.");
+      }
+      else
+      {
+        int keyIndex = locateIndex(key);
+        if(keyIndex >= 0)
+        {
+          // If key already exists in the dictionary.
+          result = valueAt(keyIndex);
+          values[keyIndex] = value;
+        }
+        else // If key is new.
+        {
+          keyIndex = -(keyIndex + 1);
+          ensureCapacity();
+          makeRoom(keyIndex);
+          keys[keyIndex] = key;
+          values[keyIndex] = value;
+          numberOfEntries++;
+          modCount++;
+        } // end if
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    return result;
+  } // end add
+
+  /** Removes a specific entry from this dictionary.
+      @param key  The search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(int key)
+  {
+    V result = null;
+    int keyIndex = locateIndex(key);
+    if(keyIndex >= 0) // If key is found.
+    {
+      result = valueAt(keyIndex);
+      removeGap(keyIndex);
+      numberOfEntries--;
+      modCount++;
+    } // end if
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key.
+      @param key  The search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(int key)
+  {
+    V result = null;
+    int keyIndex = locateIndex(key);
+    if(keyIndex >= 0) // If key is found.
+    {
+      result = valueAt(keyIndex);
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary.
+      @param key  The search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(int key)
+  {
+    return locateIndex(key) >= 0;
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary
+      as primitives. The iterator reads the key array in place and fails
+      fast if the dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary through nextInt. */
+  public PrimitiveIterator.OfInt getKeyIterator()
+  {
+    return new KeyIterator();
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      The iterator reads the value array in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new ValueIterator();
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass, without
+      boxing the keys.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(EntryConsumer<? super V> action)
+  {
+    int expectedModCount = modCount;
+    for(int i = 0; (i < numberOfEntries) && (modCount == expectedModCount); i++)
+    {
+      action.accept(keys[i], valueAt(i));
+    } // end for
+    if(modCount != expectedModCount)
+    {
+      throw new ConcurrentModificationException();
+    } // end if
+  } // end forEach
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return numberOfEntries == 0;
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    return numberOfEntries;
+  } // end getSize
+
+  /** Removes all entries from this dictionary. */
+  public void clear()
+  {
+    Arrays.fill(values, 0, numberOfEntries, null);
+    numberOfEntries = 0;
+    modCount++;
+  } // end clear
+
+  /** Searches the key array with a binary search.
+      @param key  The search key to look for.
+      @return  The index of key if it is found, otherwise
+               (-(insertion point) - 1). */
+  private int locateIndex(int key)
+  {
+    return Arrays.binarySearch(keys, 0, numberOfEntries, key);
+  } // end locateIndex
+
+  /** Returns the value at a position.
+      @param index  The position of an entry.
+      @return  The value stored there. */
+  @SuppressWarnings("unchecked")
+  private V valueAt(int index)
+  {
+    return (V)values[index];
+  } // end valueAt
+
+  /** Makes room for a new entry at position. Shifts entries after position.
+      @param position  The position where new entry will be inserted. */
+  private void makeRoom(int position)
+  {
+    int count = numberOfEntries - position;
+    System.arraycopy(keys, position, keys, position + 1, count);
+    System.arraycopy(values, position, values, position + 1, count);
+  } // end makeRoom
+
+  /** Shifts entries that are beyond the entry to be removed to the next lower position.
+      @param position  The position of the entry being removed. */
+  private void removeGap(int position)
+  {
+    int lastIndex = numberOfEntries - 1;
+    int count = lastIndex - position;
+    System.arraycopy(keys, position + 1, keys, position, count);
+    System.arraycopy(values, position + 1, values, position, count);
+    values[lastIndex] = null;
+  } // end removeGap
+
+  /** Throws an exception if the user requests a capacity that is too large.
+      @param capacity  The size of requested array. */
+  private void checkCapacity(int capacity)
+  {
+    if (capacity < 0)
+    {
+      throw new IllegalArgumentException("Dictionary capacity cannot be negative: " + capacity);
+    }
+    else if (capacity > MAX_CAPACITY)
+    {
+      throw new IllegalStateException("Attempt to create a dictionary whose capacity " +
+                                      "exceeds allowed maximum of " + MAX_CAPACITY);
+    } // end if
+  } // end checkCapacity
+
+  /** Doubles the size of the arrays if they are full. Growth is capped at
+      MAX_CAPACITY instead of overflowing past it. */
+  private void ensureCapacity()
+  {
+    if(numberOfEntries == keys.length)
+    {
+      if(keys.length == MAX_CAPACITY)
+      {
+        throw new IllegalStateException("Attempt to grow a dictionary past the allowed maximum of " +
+                                        MAX_CAPACITY);
+      } // end if
+      int newLength = Math.max(1, keys.length);
+      newLength = (newLength > MAX_CAPACITY - newLength) ? MAX_CAPACITY : 2 * newLength;
+      keys = Arrays.copyOf(keys, newLength);
+      values = Arrays.copyOf(values, newLength);
+    } // end if
+  } // end ensureCapacity
+
+  /** An action on one entry, taking the search key as a primitive. */
+  public interface EntryConsumer<V>
+  {
+    /** Performs the action on an entry.
+        @param key    The search key of the entry.
+        @param value  The value of the entry. */
+    public void accept(int key, V value);
+  } // end EntryConsumer
+
+  /** Private inner class that walks the parallel arrays in place. */
+  private abstract class ArrayIterator
+  {
+    private int nextIndex;              // Position of the entry next returns.
+    private int lastIndex;              // Position of the last entry returned, or -1.
+    private int expectedModCount;
+
+    private ArrayIterator()
+    {
+      nextIndex = 0;
+      lastIndex = -1;
+      expectedModCount = modCount;
+    } // end default constructor
+
+    public boolean hasNext()
+    {
+      return nextIndex < numberOfEntries;
+    } // end hasNext
+
+    /** Advances to the next entry.
+        @return  The position of the entry at the iterator's position. */
+    protected int nextIndex()
+    {
+      checkForComodification();
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      lastIndex = nextIndex;
+      nextIndex++;
+      return lastIndex;
+    } // end nextIndex
+
+    /** Removes the entry last returned by next. Only the entries after it
+        are shifted; no search is needed. */
+    public void remove()
+    {
+      if(lastIndex < 0)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      checkForComodification();
+      removeGap(lastIndex);
+      numberOfEntries--;
+      modCount++;
+      nextIndex = lastIndex;
+      lastIndex = -1;
+      expectedModCount = modCount;
+    } // end remove
+
+    /** Throws an exception if the dictionary was changed behind the iterator. */
+    private void checkForComodification()
+    {
+      if(modCount != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+  } // end ArrayIterator
+
+  /** Private inner class that iterates over the search keys as primitives. */
+  private class KeyIterator extends ArrayIterator implements PrimitiveIterator.OfInt
+  {
+    public int nextInt()
+    {
+      return keys[nextIndex()];
+    } // end nextInt
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends ArrayIterator implements Iterator<V>
+  {
+    public V next()
+    {
+      return valueAt(nextIndex());
+    } // end next
+  } // end ValueIterator
+} // end of SortedIntDictionary
@@ -1,20 +1,29 @@
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
-import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
 /**
-   A dictionary using sorted linked data that implements DictionaryInterface.
+   A dictionary using sorted linked data that implements SortedDictionaryInterface.
    @author Minwoo Soh
 */
-public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implements DictionaryInterface<K, V>
+public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implements SortedDictionaryInterface<K, V>
 {
   private Node<K, V> firstNode;
   private int numberOfEntries;
+  private int modCount;                 // Counts structural changes for the iterators.
+  private Node<K, V> finger;            // Node before the last position searched, or null.
+  private int fingerIndex;              // Position of finger in the chain, or -1 if it is null.
+  private DictionaryStats stats;        // Null unless enableStats was called.
 
   /** Create a SortedLinkedDictionary with no entries. */
   public SortedLinkedDictionary()
   {
     firstNode = null;
     numberOfEntries = 0;
+    finger = null;
+    fingerIndex = -1;
   } // end constructor
 
   /** Adds a new entry to this dictionary. If the given search key already
@@ -26,6 +35,7 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implemen
                was replaced. */
   public V add(K key, V value)
   {
+    long startTime = (stats == null) ? 0 : stats.startOperation();
     V result = null;
     try
     {
@@ -35,16 +45,11 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implemen
       }
       else
       {
-        Node<K, V> currentNode = firstNode;
-        Node<K, V> nodeBefore = null;
-        while ((currentNode != null) && (key.compareTo(currentNode.getKey()) > 0) )
-        {
-          nodeBefore = currentNode;
-          currentNode = currentNode.getNextNode();
-        } // end while
+        Node<K, V> nodeBefore = findNodeBefore(key);
+        Node<K, V> currentNode = nodeAfter(nodeBefore);
 
         // If key already exists.
-        if ( (currentNode != null) && (key.equals(currentNode.getKey())) )
+        if (isKeyAt(currentNode, key))
         {
           result = currentNode.getValue();
           currentNode.setValue(value);
@@ -63,6 +68,7 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implemen
             nodeBefore.setNextNode(newNode);
           } // end if
           numberOfEntries++;
+          modCount++;
         } // end if
       } // end if
     } // end try
@@ -70,25 +76,110 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implemen
     {
       System.out.println(e.getMessage());
     } // end catch
+    if(stats != null)
+    {
+      stats.endOperation(DictionaryStats.Operation.ADD, startTime);
+    } // end if
     return result;
   } // end add
 
+  /** Adds a batch of entries to this dictionary in one pass. The batch
+      need not be sorted. Pairs are taken in order, so when a search key
+      appears more than once the last pair wins, and a key that already
+      exists in the dictionary has its value replaced, just as with add.
+      Pairs with a null key or value are not added.
+      @param keys    The search keys of the new entries.
+      @param values  The values associated with keys, position by position.
+      @throws IllegalArgumentException if the arrays differ in length. */
+  public void addAll(K[] keys, V[] values)
+  {
+    if(keys.length != values.length)
+    {
+      throw new IllegalArgumentException("Got " + keys.length + " keys but " + values.length + " values.");
+    } // end if
+
+    // Collect the pairs, then sort them stably so equal keys keep their order.
+    @SuppressWarnings("unchecked")
+    Node<K, V>[] batch = (Node<K, V>[])new Node[keys.length];
+    int batchSize = 0;
+    for(int i = 0; i < keys.length; i++)
+    {
+      if( (keys[i] == null) || (values[i] == null) )
+      {
+        System.out.println("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        batch[batchSize] = new Node<>(keys[i], values[i]);
+        batchSize++;
+      } // end if
+    } // end for
+    Arrays.sort(batch, 0, batchSize, new Comparator<Node<K, V>>()
+    {
+      public int compare(Node<K, V> first, Node<K, V> second)
+      {
+        return first.getKey().compareTo(second.getKey());
+      } // end compare
+    });
+
+    // Walk the chain once, splicing in each batch node at its place.
+    Node<K, V> currentNode = firstNode;
+    Node<K, V> nodeBefore = null;
+    int added = 0;
+    for(int i = 0; i < batchSize; i++)
+    {
+      Node<K, V> newNode = batch[i];
+      boolean lastOfRun = (i + 1 == batchSize) || (newNode.getKey().compareTo(batch[i + 1].getKey()) != 0);
+      if(lastOfRun) // Only the last pair of each run of equal keys is kept.
+      {
+        while( (currentNode != null) && (newNode.getKey().compareTo(currentNode.getKey()) > 0) )
+        {
+          nodeBefore = currentNode;
+          currentNode = currentNode.getNextNode();
+        } // end while
+
+        if( (currentNode != null) && (newNode.getKey().compareTo(currentNode.getKey()) == 0) )
+        {
+          currentNode.setValue(newNode.getValue());
+        }
+        else
+        {
+          newNode.setNextNode(currentNode);
+          if(nodeBefore == null)
+          {
+            firstNode = newNode;
+          }
+          else
+          {
+            nodeBefore.setNextNode(newNode);
+          } // end if
+          nodeBefore = newNode;
+          added++;
+        } // end if
+      } // end if
+    } // end for
+
+    if(added > 0)
+    {
+      numberOfEntries += added;
+      modCount++;
+      finger = null;                    // Nodes may have gone in before it.
+      fingerIndex = -1;
+    } // end if
+  } // end addAll
+
   /** Removes a specific entry from this dictionary.
       @param key  An object search key of the entry to be removed.
       @return  Either the value that was associated with the search key
                or null if no such object exists. */
   public V remove(K key)
   {
+    long startTime = (stats == null) ? 0 : stats.startOperation();
     V result = null;
-    Node<K, V> currentNode = firstNode;
-    Node<K, V> nodeBefore = null;
-    while ((currentNode != null) && (key.compareTo(currentNode.getKey()) != 0) )
-    {
-      nodeBefore = currentNode;
-      currentNode = currentNode.getNextNode();
-    } // end while
+    Node<K, V> nodeBefore = findNodeBefore(key);
+    Node<K, V> currentNode = nodeAfter(nodeBefore);
 
-    if(currentNode != null) // If key is found.
+    if(isKeyAt(currentNode, key)) // If key is found.
     {
       if(currentNode == firstNode) // If key is the first node in the dictionary.
       {
@@ -100,6 +191,12 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implemen
         result = currentNode.getValue();
         nodeBefore.setNextNode(currentNode.getNextNode());
       } // end if
+      numberOfEntries--;
+      modCount++;
+    } // end if
+    if(stats != null)
+    {
+      stats.endOperation(DictionaryStats.Operation.REMOVE, startTime);
     } // end if
     return result;
   } // end remove
@@ -111,17 +208,18 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implemen
                or null if no such object exists. */
   public V getValue(K key)
   {
+    long startTime = (stats == null) ? 0 : stats.startOperation();
     V result = null;
-    Node<K, V> currentNode = firstNode;
-    while ((currentNode != null) && (key.compareTo(currentNode.getKey()) != 0) )
-    {
-      currentNode = currentNode.getNextNode();
-    } // end while
+    Node<K, V> currentNode = nodeAfter(findNodeBefore(key));
 
-    if(currentNode != null) // If key is found.
+    if(isKeyAt(currentNode, key)) // If key is found.
     {
       result = currentNode.getValue();
     } // end if
+    if(stats != null)
+    {
+      stats.endOperation(DictionaryStats.Operation.GET_VALUE, startTime);
+    } // end if
     return result;
   } // end getValue
 
@@ -130,52 +228,219 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implemen
       @return  True if key is associated with an entry in the dictionary. */
   public boolean contains(K key)
   {
-    boolean result = false;
-    Node<K, V> currentNode = firstNode;
-    while ((currentNode != null) && (key.compareTo(currentNode.getKey()) != 0) )
-    {
-      currentNode = currentNode.getNextNode();
-    } // end while
-
-    if(currentNode != null)
+    long startTime = (stats == null) ? 0 : stats.startOperation();
+    boolean result = isKeyAt(nodeAfter(findNodeBefore(key)), key);
+    if(stats != null)
     {
-      result = true;
+      stats.endOperation(DictionaryStats.Operation.CONTAINS, startTime);
     } // end if
     return result;
   } // end contains
 
   /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator follows the node chain in place and fails fast if the
+      dictionary is changed other than through its own remove.
       @return  An iterator that provides sequential access to the search
                keys in the dictionary. */
   public Iterator<K> getKeyIterator()
   {
-    ArrayList<K> keys = new ArrayList<K>();
-    Node<K, V> currentNode = firstNode;
-    while(currentNode != null)
-    {
-      keys.add(currentNode.getKey());
-      currentNode = currentNode.getNextNode();
-    }
-    Iterator<K> keyIterator = keys.iterator();
-    return keyIterator;
+    return new KeyIterator(null);
   } // end getKeyIterator
 
   /** Creates an iterator that traverses all values in this dictionary.
+      The iterator follows the node chain in place and fails fast if the
+      dictionary is changed other than through its own remove.
       @return  An iterator that provides sequential access to the values
                in this dictionary. */
   public Iterator<V> getValueIterator()
   {
-    ArrayList<V> values = new ArrayList<V>();
+    return new ValueIterator(null);
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass. The walk
+      follows the node chain in place and allocates nothing per entry.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    int expectedModCount = modCount;
     Node<K, V> currentNode = firstNode;
-    while(currentNode != null)
+    while( (currentNode != null) && (modCount == expectedModCount) )
     {
-      values.add(currentNode.getValue());
+      action.accept(currentNode.getKey(), currentNode.getValue());
       currentNode = currentNode.getNextNode();
-    }
-    Iterator<V> valueIterator = values.iterator();
-    return valueIterator;
+    } // end while
+    if(modCount != expectedModCount)
+    {
+      throw new ConcurrentModificationException();
+    } // end if
+  } // end forEach
+
+  /** Finds the greatest search key that is less than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K floorKey(K key)
+  {
+    K result = null;
+    Node<K, V> currentNode = firstNode;
+    while( (currentNode != null) && (key.compareTo(currentNode.getKey()) >= 0) )
+    {
+      result = currentNode.getKey();
+      currentNode = currentNode.getNextNode();
+    } // end while
+    return result;
+  } // end floorKey
+
+  /** Finds the least search key that is greater than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K ceilingKey(K key)
+  {
+    K result = null;
+    Node<K, V> currentNode = nodeAfter(findNodeBefore(key));
+    if(currentNode != null)
+    {
+      result = currentNode.getKey();
+    } // end if
+    return result;
+  } // end ceilingKey
+
+  /** Finds the greatest search key that is strictly less than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K lowerKey(K key)
+  {
+    K result = null;
+    Node<K, V> nodeBefore = findNodeBefore(key);
+    if(nodeBefore != null)
+    {
+      result = nodeBefore.getKey();
+    } // end if
+    return result;
+  } // end lowerKey
+
+  /** Finds the least search key that is strictly greater than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K higherKey(K key)
+  {
+    K result = null;
+    Node<K, V> currentNode = firstNode;
+    while( (currentNode != null) && (key.compareTo(currentNode.getKey()) >= 0) )
+    {
+      currentNode = currentNode.getNextNode();
+    } // end while
+
+    if(currentNode != null)
+    {
+      result = currentNode.getKey();
+    } // end if
+    return result;
+  } // end higherKey
+
+  /** Creates an iterator that traverses the search keys in this dictionary,
+      starting at the first key that is greater than or equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the search
+               keys from fromKey onward. */
+  public Iterator<K> getKeyIterator(K fromKey)
+  {
+    return new KeyIterator(fromKey);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses the values in this dictionary,
+      starting at the entry of the first key that is greater than or
+      equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the values
+               from fromKey onward. */
+  public Iterator<V> getValueIterator(K fromKey)
+  {
+    return new ValueIterator(fromKey);
   } // end getValueIterator
 
+  /** Creates a view of the entries whose search keys are strictly less
+      than toKey. The view is backed by this dictionary, so changes to
+      either one are seen by the other.
+      @param toKey  The exclusive upper bound of the view.
+      @return  A live view of the head of this dictionary. */
+  public SortedDictionaryInterface<K, V> headDictionary(K toKey)
+  {
+    return new SortedSubDictionary<>(this, null, toKey);
+  } // end headDictionary
+
+  /** Creates a view of the entries whose search keys are greater than or
+      equal to fromKey. The view is backed by this dictionary, so changes
+      to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @return  A live view of the tail of this dictionary. */
+  public SortedDictionaryInterface<K, V> tailDictionary(K fromKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, null);
+  } // end tailDictionary
+
+  /** Creates a view of the entries whose search keys range from fromKey,
+      inclusive, to toKey, exclusive. The view is backed by this
+      dictionary, so changes to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @param toKey    The exclusive upper bound of the view.
+      @return  A live view of the range of this dictionary.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public SortedDictionaryInterface<K, V> subDictionary(K fromKey, K toKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, toKey);
+  } // end subDictionary
+
+  /** Counts the search keys that are strictly less than a given key. The
+      chain has no index, so the count is read off the finger's position
+      after the usual search from the finger; it costs O(1) amortized for
+      keys in ascending order and O(n) otherwise.
+      @param key  An object search key to count up to.
+      @return  The number of keys less than key, which is also the
+               position key has, or would have, in search key order. */
+  public int rank(K key)
+  {
+    findNodeBefore(key);
+    return fingerIndex + 1;
+  } // end rank
+
+  /** Finds the search key at a position in search key order, walking
+      from the finger when the position is at or past it, so paging
+      forward through the keys costs O(1) amortized per key.
+      @param index  The position, from 0 to getSize() - 1.
+      @return  The key that has index keys before it.
+      @throws IndexOutOfBoundsException if index is out of range. */
+  public K select(int index)
+  {
+    if( (index < 0) || (index >= numberOfEntries) )
+    {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + numberOfEntries);
+    } // end if
+    Node<K, V> currentNode = firstNode;
+    int position = 0;
+    if( (finger != null) && (fingerIndex <= index) )
+    {
+      currentNode = finger;
+      position = fingerIndex;
+    } // end if
+    while(position < index)
+    {
+      currentNode = currentNode.getNextNode();
+      position++;
+    } // end while
+    finger = currentNode;
+    fingerIndex = index;
+    return currentNode.getKey();
+  } // end select
+
+  /** Gets the count of structural changes its iterators check.
+      @return  A number that changes whenever an entry is added or removed. */
+  public int getModCount()
+  {
+    return modCount;
+  } // end getModCount
+
   /** Sees whether this dictionary is empty.
       @return  True if the dictionary is empty. */
   public boolean isEmpty()
@@ -191,13 +456,227 @@ public class SortedLinkedDictionary<K extends Comparable<? super K>, V> implemen
     return numberOfEntries;
   } // end getSize
 
+  /** Turns on instrumentation of this dictionary's hot paths. Until it
+      is called, the only cost is a null check per operation.
+      @return  The statistics being recorded, which are kept if
+               enableStats is called again. */
+  public DictionaryStats enableStats()
+  {
+    if(stats == null)
+    {
+      stats = new DictionaryStats();
+    } // end if
+    return stats;
+  } // end enableStats
+
+  /** Turns off instrumentation. The statistics recorded so far remain
+      readable through any reference already held. */
+  public void disableStats()
+  {
+    stats = null;
+  } // end disableStats
+
+  /** Gets the statistics being recorded.
+      @return  Either the statistics or null if instrumentation is off. */
+  public DictionaryStats getStats()
+  {
+    return stats;
+  } // end getStats
+
   /** Removes all entries from this dictionary. */
   public void clear()
   {
     firstNode = null;
+    finger = null;
+    fingerIndex = -1;
     numberOfEntries = 0;
+    modCount++;
   } // end clear
 
+  /** Finds the last node whose search key is less than a given key. The
+      search starts from the finger when key lies beyond it, so a run of
+      keys in ascending or clustered order walks the chain about once in
+      all instead of once per key. The finger is left at the node found,
+      and fingerIndex at its position.
+      @param key  The search key to look for.
+      @return  Either that node or null if no key is less than key. */
+  private Node<K, V> findNodeBefore(K key)
+  {
+    Node<K, V> nodeBefore = null;
+    Node<K, V> currentNode = firstNode;
+    int index = -1;
+    int comparisons = 0;
+    int traversed = 0;
+    if(finger != null)
+    {
+      comparisons++;
+      if(key.compareTo(finger.getKey()) > 0)
+      {
+        nodeBefore = finger;
+        currentNode = finger.getNextNode();
+        index = fingerIndex;
+      } // end if
+    } // end if
+    while( (currentNode != null) && (key.compareTo(currentNode.getKey()) > 0) )
+    {
+      comparisons++;
+      nodeBefore = currentNode;
+      currentNode = currentNode.getNextNode();
+      index++;
+      traversed++;
+    } // end while
+    finger = nodeBefore;
+    fingerIndex = index;
+
+    if(stats != null)
+    {
+      stats.countTraversed(traversed);
+      stats.countComparisons((currentNode == null) ? comparisons : comparisons + 1);
+    } // end if
+    return nodeBefore;
+  } // end findNodeBefore
+
+  /** Gets the node linked after a given node.
+      @param nodeBefore  A node in the chain, or null for the head.
+      @return  Either the next node or null at the end of the chain. */
+  private Node<K, V> nodeAfter(Node<K, V> nodeBefore)
+  {
+    return (nodeBefore == null) ? firstNode : nodeBefore.getNextNode();
+  } // end nodeAfter
+
+  /** Sees whether a node holds a given search key.
+      @param node  A node returned by nodeAfter, possibly null.
+      @param key   The search key to compare against.
+      @return  True if node is not null and its key equals key. */
+  private boolean isKeyAt(Node<K, V> node, K key)
+  {
+    if( (stats != null) && (node != null) )
+    {
+      stats.countComparisons(1);
+    } // end if
+    return (node != null) && (key.compareTo(node.getKey()) == 0);
+  } // end isKeyAt
+
+  /** Private inner class that walks the node chain in place. */
+  private abstract class NodeIterator<T> implements Iterator<T>
+  {
+    private Node<K, V> nextNode;        // Node that next returns.
+    private Node<K, V> lastNode;        // Node last returned, or null after remove.
+    private Node<K, V> priorNode;       // Node linked before the current position.
+    private int expectedModCount;
+
+    /** Creates an iterator positioned at the first node whose key is not
+        less than fromKey.
+        @param fromKey  The key to start from, or null to start at firstNode. */
+    private NodeIterator(K fromKey)
+    {
+      nextNode = firstNode;
+      lastNode = null;
+      priorNode = null;
+      if(fromKey != null)
+      {
+        while( (nextNode != null) && (fromKey.compareTo(nextNode.getKey()) > 0) )
+        {
+          priorNode = nextNode;
+          nextNode = nextNode.getNextNode();
+        } // end while
+      } // end if
+      expectedModCount = modCount;
+    } // end constructor
+
+    public boolean hasNext()
+    {
+      return nextNode != null;
+    } // end hasNext
+
+    /** Advances to the next node.
+        @return  The node at the iterator's position. */
+    protected Node<K, V> nextNode()
+    {
+      checkForComodification();
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      if(lastNode != null)
+      {
+        priorNode = lastNode;
+      } // end if
+      lastNode = nextNode;
+      nextNode = nextNode.getNextNode();
+      return lastNode;
+    } // end nextNode
+
+    /** Removes the entry last returned by next by unlinking it from the
+        node before it; no search is needed. */
+    public void remove()
+    {
+      if(lastNode == null)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      checkForComodification();
+      if(priorNode == null) // If lastNode is the first node in the dictionary.
+      {
+        firstNode = nextNode;
+      }
+      else
+      {
+        priorNode.setNextNode(nextNode);
+      } // end if
+      if(finger == lastNode)
+      {
+        finger = priorNode;
+        fingerIndex--;
+      }
+      else if( (finger != null) && (lastNode.getKey().compareTo(finger.getKey()) < 0) )
+      {
+        fingerIndex--;
+      } // end if
+      lastNode = null;
+      numberOfEntries--;
+      modCount++;
+      expectedModCount = modCount;
+    } // end remove
+
+    /** Throws an exception if the dictionary was changed behind the iterator. */
+    private void checkForComodification()
+    {
+      if(modCount != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+  } // end NodeIterator
+
+  /** Private inner class that iterates over the search keys. */
+  private class KeyIterator extends NodeIterator<K>
+  {
+    private KeyIterator(K fromKey)
+    {
+      super(fromKey);
+    } // end constructor
+
+    public K next()
+    {
+      return nextNode().getKey();
+    } // end next
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends NodeIterator<V>
+  {
+    private ValueIterator(K fromKey)
+    {
+      super(fromKey);
+    } // end constructor
+
+    public V next()
+    {
+      return nextNode().getValue();
+    } // end next
+  } // end ValueIterator
+
   /** Private inner class Node. */
   private class Node<K, V>
   {
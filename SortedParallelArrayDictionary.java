@@ -0,0 +1,685 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
+/**
+   A dictionary using resizable sorted parallel arrays that implements
+   SortedDictionaryInterface. It behaves like SortedArrayDictionary, but
+   keeps the search keys and the values in two arrays side by side instead
+   of one array of Entry objects. A search touches only the key array and
+   adding an entry allocates nothing beyond occasional array growth.
+   @author Minwoo Soh
+*/
+public class SortedParallelArrayDictionary<K extends Comparable<? super K>, V> implements SortedDictionaryInterface<K, V>
+{
+  private K[] keys;
+  private V[] values;                   // values[i] belongs to keys[i].
+  private int numberOfEntries;
+  private int modCount;                 // Counts structural changes for the iterators.
+  private final static int DEFAULT_CAPACITY = 25;
+  private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+  /** Creates an empty dictionary with the default capacity of 25. */
+  public SortedParallelArrayDictionary()
+  {
+    this(DEFAULT_CAPACITY);
+  } // end default constructor
+
+  /** Creates an empty dictionary with specificed capacity.
+      @param initialCapacity  The wanted size of the array capacity. */
+  public SortedParallelArrayDictionary(int initialCapacity)
+  {
+    checkCapacity(initialCapacity);
+    @SuppressWarnings("unchecked")
+    K[] tempKeys = (K[])new Comparable[initialCapacity];
+    keys = tempKeys;
+    @SuppressWarnings("unchecked")
+    V[] tempValues = (V[])new Object[initialCapacity];
+    values = tempValues;
+    numberOfEntries = 0;
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    V result = null;
+    try
+    {
+      if( (key == null) || (value == null) )
+      {
+        throw new IllegalStateException("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        int keyIndex = locateIndex(key);
+        if(isKeyAt(keyIndex, key))
+        {
+          // If key already exists in the dictionary.
+          result = values[keyIndex];
+          values[keyIndex] = value;
+        }
+        else // If key is new.
+        {
+          ensureCapacity();
+          makeRoom(keyIndex);
+          keys[keyIndex] = key;
+          values[keyIndex] = value;
+          numberOfEntries++;
+          modCount++;
+        } // end if
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    return result;
+  } // end add
+
+  /** Adds a batch of entries to this dictionary in one pass. The batch
+      need not be sorted. Pairs are taken in order, so when a search key
+      appears more than once the last pair wins, and a key that already
+      exists in the dictionary has its value replaced, just as with add.
+      Pairs with a null key or value are not added.
+      The batch is merge sorted as parallel arrays and merged backward
+      into the dictionary, which grows at most once to exactly the merged
+      size.
+      @param batchKeys    The search keys of the new entries.
+      @param batchValues  The values associated with batchKeys, position by position.
+      @throws IllegalArgumentException if the arrays differ in length. */
+  public void addAll(K[] batchKeys, V[] batchValues)
+  {
+    if(batchKeys.length != batchValues.length)
+    {
+      throw new IllegalArgumentException("Got " + batchKeys.length + " keys but " + batchValues.length + " values.");
+    } // end if
+
+    // Collect the pairs, then sort them stably so equal keys keep their order.
+    K[] sortedKeys = Arrays.copyOf(batchKeys, batchKeys.length);
+    V[] sortedValues = Arrays.copyOf(batchValues, batchValues.length);
+    int batchSize = 0;
+    for(int i = 0; i < batchKeys.length; i++)
+    {
+      if( (batchKeys[i] == null) || (batchValues[i] == null) )
+      {
+        System.out.println("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        sortedKeys[batchSize] = batchKeys[i];
+        sortedValues[batchSize] = batchValues[i];
+        batchSize++;
+      } // end if
+    } // end for
+    sortBatch(sortedKeys, sortedValues, batchSize);
+
+    // Keep only the last pair of each run of equal keys.
+    int uniqueSize = 0;
+    for(int i = 0; i < batchSize; i++)
+    {
+      if( (i + 1 == batchSize) || (sortedKeys[i].compareTo(sortedKeys[i + 1]) != 0) )
+      {
+        sortedKeys[uniqueSize] = sortedKeys[i];
+        sortedValues[uniqueSize] = sortedValues[i];
+        uniqueSize++;
+      } // end if
+    } // end for
+
+    // Count keys already in the dictionary to learn the merged size.
+    int duplicates = 0;
+    int oldIndex = 0;
+    int newIndex = 0;
+    while( (oldIndex < numberOfEntries) && (newIndex < uniqueSize) )
+    {
+      int comparison = keys[oldIndex].compareTo(sortedKeys[newIndex]);
+      if(comparison < 0)
+      {
+        oldIndex++;
+      }
+      else if(comparison > 0)
+      {
+        newIndex++;
+      }
+      else
+      {
+        duplicates++;
+        oldIndex++;
+        newIndex++;
+      } // end if
+    } // end while
+
+    long mergedSize = (long)numberOfEntries + uniqueSize - duplicates;
+    if(mergedSize > MAX_CAPACITY)
+    {
+      throw new IllegalStateException("Attempt to grow a dictionary past the allowed maximum of " +
+                                      MAX_CAPACITY);
+    } // end if
+    if(mergedSize > keys.length)
+    {
+      keys = Arrays.copyOf(keys, (int)mergedSize);
+      values = Arrays.copyOf(values, (int)mergedSize);
+    } // end if
+
+    // Merge from the back so every entry moves at most once.
+    int writeIndex = (int)mergedSize - 1;
+    oldIndex = numberOfEntries - 1;
+    newIndex = uniqueSize - 1;
+    while(newIndex >= 0)
+    {
+      int comparison = (oldIndex < 0) ? -1 : keys[oldIndex].compareTo(sortedKeys[newIndex]);
+      if(comparison > 0)
+      {
+        keys[writeIndex] = keys[oldIndex];
+        values[writeIndex] = values[oldIndex];
+        oldIndex--;
+      }
+      else
+      {
+        if(comparison == 0) // If key already exists, the batch value replaces it.
+        {
+          oldIndex--;
+        } // end if
+        keys[writeIndex] = sortedKeys[newIndex];
+        values[writeIndex] = sortedValues[newIndex];
+        newIndex--;
+      } // end if
+      writeIndex--;
+    } // end while
+
+    if(uniqueSize > duplicates)
+    {
+      modCount++;
+    } // end if
+    numberOfEntries = (int)mergedSize;
+  } // end addAll
+
+  /** Removes a specific entry from this dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    V result = null;
+    int keyIndex = locateIndex(key);
+    if(isKeyAt(keyIndex, key)) // If key is found.
+    {
+      result = values[keyIndex];
+      removeGap(keyIndex);
+      numberOfEntries--;
+      modCount++;
+    } // end if
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(K key)
+  {
+    V result = null;
+    int keyIndex = locateIndex(key);
+    if(isKeyAt(keyIndex, key)) // If key is found.
+    {
+      result = values[keyIndex];
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(K key)
+  {
+    return isKeyAt(locateIndex(key), key);
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator reads the arrays in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new KeyIterator(0);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      The iterator reads the arrays in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new ValueIterator(0);
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass. The walk
+      reads the arrays in place and allocates nothing per entry.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    int expectedModCount = modCount;
+    for(int i = 0; (i < numberOfEntries) && (modCount == expectedModCount); i++)
+    {
+      action.accept(keys[i], values[i]);
+    } // end for
+    if(modCount != expectedModCount)
+    {
+      throw new ConcurrentModificationException();
+    } // end if
+  } // end forEach
+
+  /** Finds the greatest search key that is less than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K floorKey(K key)
+  {
+    int keyIndex = locateIndex(key);
+    if(!isKeyAt(keyIndex, key))
+    {
+      keyIndex--;
+    } // end if
+    return keyAt(keyIndex);
+  } // end floorKey
+
+  /** Finds the least search key that is greater than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K ceilingKey(K key)
+  {
+    return keyAt(locateIndex(key));
+  } // end ceilingKey
+
+  /** Finds the greatest search key that is strictly less than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K lowerKey(K key)
+  {
+    return keyAt(locateIndex(key) - 1);
+  } // end lowerKey
+
+  /** Finds the least search key that is strictly greater than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K higherKey(K key)
+  {
+    int keyIndex = locateIndex(key);
+    if(isKeyAt(keyIndex, key))
+    {
+      keyIndex++;
+    } // end if
+    return keyAt(keyIndex);
+  } // end higherKey
+
+  /** Creates an iterator that traverses the search keys in this dictionary,
+      starting at the first key that is greater than or equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the search
+               keys from fromKey onward. */
+  public Iterator<K> getKeyIterator(K fromKey)
+  {
+    return new KeyIterator(locateIndex(fromKey));
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses the values in this dictionary,
+      starting at the entry of the first key that is greater than or
+      equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the values
+               from fromKey onward. */
+  public Iterator<V> getValueIterator(K fromKey)
+  {
+    return new ValueIterator(locateIndex(fromKey));
+  } // end getValueIterator
+
+  /** Creates a view of the entries whose search keys are strictly less
+      than toKey. The view is backed by this dictionary, so changes to
+      either one are seen by the other.
+      @param toKey  The exclusive upper bound of the view.
+      @return  A live view of the head of this dictionary. */
+  public SortedDictionaryInterface<K, V> headDictionary(K toKey)
+  {
+    return new SortedSubDictionary<>(this, null, toKey);
+  } // end headDictionary
+
+  /** Creates a view of the entries whose search keys are greater than or
+      equal to fromKey. The view is backed by this dictionary, so changes
+      to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @return  A live view of the tail of this dictionary. */
+  public SortedDictionaryInterface<K, V> tailDictionary(K fromKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, null);
+  } // end tailDictionary
+
+  /** Creates a view of the entries whose search keys range from fromKey,
+      inclusive, to toKey, exclusive. The view is backed by this
+      dictionary, so changes to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @param toKey    The exclusive upper bound of the view.
+      @return  A live view of the range of this dictionary.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public SortedDictionaryInterface<K, V> subDictionary(K fromKey, K toKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, toKey);
+  } // end subDictionary
+
+  /** Counts the search keys that are strictly less than a given key
+      with one binary search, in O(log n) time.
+      @param key  An object search key to count up to.
+      @return  The number of keys less than key, which is also the
+               position key has, or would have, in search key order. */
+  public int rank(K key)
+  {
+    return locateIndex(key);
+  } // end rank
+
+  /** Finds the search key at a position in search key order, in O(1) time.
+      @param index  The position, from 0 to getSize() - 1.
+      @return  The key that has index keys before it.
+      @throws IndexOutOfBoundsException if index is out of range. */
+  public K select(int index)
+  {
+    if( (index < 0) || (index >= numberOfEntries) )
+    {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + numberOfEntries);
+    } // end if
+    return keys[index];
+  } // end select
+
+  /** Gets the count of structural changes its iterators check.
+      @return  A number that changes whenever an entry is added or removed. */
+  public int getModCount()
+  {
+    return modCount;
+  } // end getModCount
+
+  /** Removes every entry whose search key ranges from fromKey, inclusive,
+      to toKey, exclusive, with two binary searches and one shift of the
+      entries after the range.
+      @param fromKey  The inclusive lower bound, or null for none.
+      @param toKey    The exclusive upper bound, or null for none.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public void removeRange(K fromKey, K toKey)
+  {
+    if( (fromKey != null) && (toKey != null) && (fromKey.compareTo(toKey) > 0) )
+    {
+      throw new IllegalArgumentException("fromKey " + fromKey + " is greater than toKey " + toKey);
+    } // end if
+    int start = (fromKey == null) ? 0 : locateIndex(fromKey);
+    int end = (toKey == null) ? numberOfEntries : locateIndex(toKey);
+    if(start < end)
+    {
+      int moved = numberOfEntries - end;
+      System.arraycopy(keys, end, keys, start, moved);
+      System.arraycopy(values, end, values, start, moved);
+      Arrays.fill(keys, start + moved, numberOfEntries, null);
+      Arrays.fill(values, start + moved, numberOfEntries, null);
+      numberOfEntries = start + moved;
+      modCount++;
+    } // end if
+  } // end removeRange
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return numberOfEntries == 0;
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    return numberOfEntries;
+  } // end getSize
+
+  /** Removes all entries from this dictionary. */
+  public void clear()
+  {
+    Arrays.fill(keys, 0, numberOfEntries, null);
+    Arrays.fill(values, 0, numberOfEntries, null);
+    numberOfEntries = 0;
+    modCount++;
+  } // end clear
+
+  /** Searches dictionary for the requested item with a binary search and
+      returns its position. If none is found, the position where the key
+      would be inserted is returned.
+      @param key  The search key to look for.
+      @return  The index of the first entry whose key is not less than key. */
+  private int locateIndex(K key)
+  {
+    int low = 0;
+    int high = numberOfEntries;
+    while(low < high)
+    {
+      int mid = (low + high) >>> 1;
+      if(key.compareTo(keys[mid]) > 0)
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      } // end if
+    } // end while
+    return low;
+  } // end locateIndex
+
+  /** Sees whether the entry at a given position has the given search key.
+      @param index  A position returned by locateIndex.
+      @param key  The search key to compare against.
+      @return  True if index holds an entry whose key equals key. */
+  private boolean isKeyAt(int index, K key)
+  {
+    return (index < numberOfEntries) && (key.compareTo(keys[index]) == 0);
+  } // end isKeyAt
+
+  /** Returns the search key at a position, if there is one.
+      @param index  A position in the array, possibly out of range.
+      @return  Either the key at index or null if index holds no entry. */
+  private K keyAt(int index)
+  {
+    K result = null;
+    if( (index >= 0) && (index < numberOfEntries) )
+    {
+      result = keys[index];
+    } // end if
+    return result;
+  } // end keyAt
+
+  /** Makes room for a new entry at position. Shifts entries after position.
+      @param position  The position where new entry will be inserted. */
+  private void makeRoom(int position)
+  {
+    int count = numberOfEntries - position;
+    System.arraycopy(keys, position, keys, position + 1, count);
+    System.arraycopy(values, position, values, position + 1, count);
+  } // end makeRoom
+
+  /** Shifts entries that are beyond the entry to be removed to the next lower position.
+      @param position  The position of the entry being removed. */
+  private void removeGap(int position)
+  {
+    int lastIndex = numberOfEntries - 1;
+    int count = lastIndex - position;
+    System.arraycopy(keys, position + 1, keys, position, count);
+    System.arraycopy(values, position + 1, values, position, count);
+    keys[lastIndex] = null;
+    values[lastIndex] = null;
+  } // end removeGap
+
+  /** Sorts the first size pairs of two parallel arrays by key with a
+      stable merge sort, so pairs with equal keys keep their order.
+      @param sortKeys    The keys to sort.
+      @param sortValues  The values that move along with sortKeys.
+      @param size        The number of pairs to sort. */
+  private void sortBatch(K[] sortKeys, V[] sortValues, int size)
+  {
+    K[] keyBuffer = Arrays.copyOf(sortKeys, size);
+    V[] valueBuffer = Arrays.copyOf(sortValues, size);
+    for(int width = 1; width < size; width = 2 * width)
+    {
+      for(int low = 0; low < size - width; low += 2 * width)
+      {
+        int middle = low + width;
+        int high = Math.min(low + 2 * width, size);
+        System.arraycopy(sortKeys, low, keyBuffer, low, high - low);
+        System.arraycopy(sortValues, low, valueBuffer, low, high - low);
+        int left = low;
+        int right = middle;
+        for(int i = low; i < high; i++)
+        {
+          if( (right >= high) || ( (left < middle) && (keyBuffer[left].compareTo(keyBuffer[right]) <= 0) ) )
+          {
+            sortKeys[i] = keyBuffer[left];
+            sortValues[i] = valueBuffer[left];
+            left++;
+          }
+          else
+          {
+            sortKeys[i] = keyBuffer[right];
+            sortValues[i] = valueBuffer[right];
+            right++;
+          } // end if
+        } // end for
+      } // end for
+    } // end for
+  } // end sortBatch
+
+  /** Throws an exception if the user requests a capacity that is too large.
+      @param capacity  The size of requested array. */
+  private void checkCapacity(int capacity)
+  {
+    if (capacity < 0)
+    {
+      throw new IllegalArgumentException("Dictionary capacity cannot be negative: " + capacity);
+    }
+    else if (capacity > MAX_CAPACITY)
+    {
+      throw new IllegalStateException("Attempt to create a dictionary whose capacity " +
+                                      "exceeds allowed maximum of " + MAX_CAPACITY);
+    } // end if
+  } // end checkCapacity
+
+  /** Doubles the size of the arrays if they are full. Growth is capped at
+      MAX_CAPACITY instead of overflowing past it. */
+  private void ensureCapacity()
+  {
+    if(numberOfEntries == keys.length)
+    {
+      if(keys.length == MAX_CAPACITY)
+      {
+        throw new IllegalStateException("Attempt to grow a dictionary past the allowed maximum of " +
+                                        MAX_CAPACITY);
+      } // end if
+      int newLength = Math.max(1, keys.length);
+      newLength = (newLength > MAX_CAPACITY - newLength) ? MAX_CAPACITY : 2 * newLength;
+      keys = Arrays.copyOf(keys, newLength);
+      values = Arrays.copyOf(values, newLength);
+    } // end if
+  } // end ensureCapacity
+
+  /** Private inner class that walks the parallel arrays in place. */
+  private abstract class ArrayIterator<T> implements Iterator<T>
+  {
+    private int nextIndex;              // Position of the entry next returns.
+    private int lastIndex;              // Position of the last entry returned, or -1.
+    private int expectedModCount;
+
+    /** Creates an iterator positioned at an index of the array.
+        @param start  The index of the first entry to return. */
+    private ArrayIterator(int start)
+    {
+      nextIndex = start;
+      lastIndex = -1;
+      expectedModCount = modCount;
+    } // end default constructor
+
+    public boolean hasNext()
+    {
+      return nextIndex < numberOfEntries;
+    } // end hasNext
+
+    /** Advances to the next entry.
+        @return  The position of the entry at the iterator's position. */
+    protected int nextIndex()
+    {
+      checkForComodification();
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      lastIndex = nextIndex;
+      nextIndex++;
+      return lastIndex;
+    } // end nextIndex
+
+    /** Removes the entry last returned by next. Only the entries after it
+        are shifted; no search is needed. */
+    public void remove()
+    {
+      if(lastIndex < 0)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      checkForComodification();
+      removeGap(lastIndex);
+      numberOfEntries--;
+      modCount++;
+      nextIndex = lastIndex;
+      lastIndex = -1;
+      expectedModCount = modCount;
+    } // end remove
+
+    /** Throws an exception if the dictionary was changed behind the iterator. */
+    private void checkForComodification()
+    {
+      if(modCount != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+  } // end ArrayIterator
+
+  /** Private inner class that iterates over the search keys. */
+  private class KeyIterator extends ArrayIterator<K>
+  {
+    private KeyIterator(int start)
+    {
+      super(start);
+    } // end constructor
+
+    public K next()
+    {
+      return keys[nextIndex()];
+    } // end next
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends ArrayIterator<V>
+  {
+    private ValueIterator(int start)
+    {
+      super(start);
+    } // end constructor
+
+    public V next()
+    {
+      return values[nextIndex()];
+    } // end next
+  } // end ValueIterator
+} // end of SortedParallelArrayDictionary
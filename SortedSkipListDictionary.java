@@ -0,0 +1,746 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
+import java.util.Random;
+/**
+   A dictionary using a sorted skip list that implements SortedDictionaryInterface.
+   Entries are kept in a sorted chain of nodes like SortedLinkedDictionary,
+   but each node also carries a random number of express links so that
+   searches skip over most of the chain in O(log n) expected time. Every
+   link also records its width, the number of bottom-level steps it
+   skips, so rank and select run in O(log n) expected time as well.
+   @author Minwoo Soh
+*/
+public class SortedSkipListDictionary<K extends Comparable<? super K>, V> implements SortedDictionaryInterface<K, V>
+{
+  private static final int MAX_LEVEL = 32;
+  private final Node<K, V> head;        // Sentinel whose links start every level.
+  private final Node<K, V>[] update;    // Reused search path for add and remove.
+  private final int[] updateRank;       // Position of each node in update; the head is 0.
+  private final Random random;
+  private int level;                    // Number of levels currently in use.
+  private int numberOfEntries;
+  private int modCount;                 // Counts structural changes for the iterators.
+
+  /** Create a SortedSkipListDictionary with no entries. */
+  public SortedSkipListDictionary()
+  {
+    this(new Random());
+  } // end default constructor
+
+  /** Create a SortedSkipListDictionary with no entries that draws node
+      heights from the given source, for reproducible layouts.
+      @param random  The random source used to pick node heights. */
+  public SortedSkipListDictionary(Random random)
+  {
+    this.random = random;
+    head = new Node<>(null, null, MAX_LEVEL);
+    @SuppressWarnings("unchecked")
+    Node<K, V>[] tempUpdate = (Node<K, V>[])new Node[MAX_LEVEL];
+    update = tempUpdate;
+    updateRank = new int[MAX_LEVEL];
+    level = 1;
+    numberOfEntries = 0;
+  } // end constructor
+
+  /** Adds a new entry to this dictionary. If the given search key already
+      exists in the dictionary, replaces the corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    V result = null;
+    try
+    {
+      if( (key == null) || (value == null) )
+      {
+        throw new IllegalStateException("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        Node<K, V> currentNode = findPredecessors(key).getNextNode(0);
+
+        // If key already exists.
+        if( (currentNode != null) && (key.compareTo(currentNode.getKey()) == 0) )
+        {
+          result = currentNode.getValue();
+          currentNode.setValue(value);
+        }
+        else // If key is new.
+        {
+          int nodeLevel = randomLevel();
+          if(nodeLevel > level)
+          {
+            for(int i = level; i < nodeLevel; i++)
+            {
+              update[i] = head;
+              updateRank[i] = 0;
+            } // end for
+            level = nodeLevel;
+          } // end if
+
+          // The new node goes just after update[0]; a link from update[i]
+          // is cut in two around it, and links passing over it grow by one.
+          Node<K, V> newNode = new Node<>(key, value, nodeLevel);
+          for(int i = 0; i < nodeLevel; i++)
+          {
+            int stepsBefore = updateRank[0] - updateRank[i];
+            newNode.setNextNode(i, update[i].getNextNode(i));
+            newNode.setWidth(i, update[i].getWidth(i) - stepsBefore);
+            update[i].setNextNode(i, newNode);
+            update[i].setWidth(i, stepsBefore + 1);
+          } // end for
+          for(int i = nodeLevel; i < level; i++)
+          {
+            update[i].setWidth(i, update[i].getWidth(i) + 1);
+          } // end for
+          numberOfEntries++;
+          modCount++;
+        } // end if
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    return result;
+  } // end add
+
+  /** Adds a batch of entries to this dictionary in one pass. The batch
+      need not be sorted. Pairs are taken in order, so when a search key
+      appears more than once the last pair wins, and a key that already
+      exists in the dictionary has its value replaced, just as with add.
+      Pairs with a null key or value are not added.
+      @param keys    The search keys of the new entries.
+      @param values  The values associated with keys, position by position.
+      @throws IllegalArgumentException if the arrays differ in length. */
+  public void addAll(K[] keys, V[] values)
+  {
+    if(keys.length != values.length)
+    {
+      throw new IllegalArgumentException("Got " + keys.length + " keys but " + values.length + " values.");
+    } // end if
+
+    // Collect the pairs, then sort them stably so equal keys keep their order.
+    @SuppressWarnings("unchecked")
+    Node<K, V>[] batch = (Node<K, V>[])new Node[keys.length];
+    int batchSize = 0;
+    for(int i = 0; i < keys.length; i++)
+    {
+      if( (keys[i] == null) || (values[i] == null) )
+      {
+        System.out.println("IllegalStateException: Cannot enter null for keys and values. Entry is not added.");
+      }
+      else
+      {
+        batch[batchSize] = new Node<>(keys[i], values[i], randomLevel());
+        batchSize++;
+      } // end if
+    } // end for
+    Arrays.sort(batch, 0, batchSize, new Comparator<Node<K, V>>()
+    {
+      public int compare(Node<K, V> first, Node<K, V> second)
+      {
+        return first.getKey().compareTo(second.getKey());
+      } // end compare
+    });
+
+    // Splice the batch into the bottom level in one walk.
+    Node<K, V> nodeBefore = head;
+    int added = 0;
+    for(int i = 0; i < batchSize; i++)
+    {
+      Node<K, V> newNode = batch[i];
+      boolean lastOfRun = (i + 1 == batchSize) || (newNode.getKey().compareTo(batch[i + 1].getKey()) != 0);
+      if(lastOfRun) // Only the last pair of each run of equal keys is kept.
+      {
+        Node<K, V> currentNode = nodeBefore.getNextNode(0);
+        while( (currentNode != null) && (newNode.getKey().compareTo(currentNode.getKey()) > 0) )
+        {
+          nodeBefore = currentNode;
+          currentNode = currentNode.getNextNode(0);
+        } // end while
+
+        if( (currentNode != null) && (newNode.getKey().compareTo(currentNode.getKey()) == 0) )
+        {
+          currentNode.setValue(newNode.getValue());
+        }
+        else
+        {
+          newNode.setNextNode(0, currentNode);
+          nodeBefore.setNextNode(0, newNode);
+          nodeBefore = newNode;
+          added++;
+        } // end if
+      } // end if
+    } // end for
+
+    if(added > 0)
+    {
+      relinkUpperLevels();
+      numberOfEntries += added;
+      modCount++;
+    } // end if
+  } // end addAll
+
+  /** Removes a specific entry from this dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists. */
+  public V remove(K key)
+  {
+    V result = null;
+    Node<K, V> currentNode = findPredecessors(key).getNextNode(0);
+    if( (currentNode != null) && (key.compareTo(currentNode.getKey()) == 0) ) // If key is found.
+    {
+      result = currentNode.getValue();
+      for(int i = 0; i < level; i++)
+      {
+        if(update[i].getNextNode(i) == currentNode)
+        {
+          update[i].setWidth(i, update[i].getWidth(i) + currentNode.getWidth(i) - 1);
+          update[i].setNextNode(i, currentNode.getNextNode(i));
+        }
+        else // The link passes over the removed node.
+        {
+          update[i].setWidth(i, update[i].getWidth(i) - 1);
+        } // end if
+      } // end for
+
+      while( (level > 1) && (head.getNextNode(level - 1) == null) )
+      {
+        level--;
+      } // end while
+      numberOfEntries--;
+      modCount++;
+    } // end if
+    return result;
+  } // end remove
+
+  /** Retrieves from this dictionary the value associated with a given
+      search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists. */
+  public V getValue(K key)
+  {
+    V result = null;
+    Node<K, V> currentNode = findNode(key);
+    if(currentNode != null) // If key is found.
+    {
+      result = currentNode.getValue();
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this dictionary.
+      @param key  An object search key of the desired entry.
+      @return  True if key is associated with an entry in the dictionary. */
+  public boolean contains(K key)
+  {
+    return findNode(key) != null;
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this dictionary.
+      The iterator follows the bottom level in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the search
+               keys in the dictionary. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new KeyIterator(null);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this dictionary.
+      The iterator follows the bottom level in place and fails fast if the
+      dictionary is changed other than through its own remove.
+      @return  An iterator that provides sequential access to the values
+               in this dictionary. */
+  public Iterator<V> getValueIterator()
+  {
+    return new ValueIterator(null);
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this dictionary, handing over
+      each search key together with its value in a single pass. The walk
+      follows the bottom level in place and allocates nothing per entry.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    int expectedModCount = modCount;
+    Node<K, V> currentNode = head.getNextNode(0);
+    while( (currentNode != null) && (modCount == expectedModCount) )
+    {
+      action.accept(currentNode.getKey(), currentNode.getValue());
+      currentNode = currentNode.getNextNode(0);
+    } // end while
+    if(modCount != expectedModCount)
+    {
+      throw new ConcurrentModificationException();
+    } // end if
+  } // end forEach
+
+  /** Finds the greatest search key that is less than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K floorKey(K key)
+  {
+    Node<K, V> nodeBefore = findPredecessors(key);
+    Node<K, V> currentNode = nodeBefore.getNextNode(0);
+    if( (currentNode != null) && (key.compareTo(currentNode.getKey()) == 0) )
+    {
+      nodeBefore = currentNode;
+    } // end if
+    return nodeBefore.getKey(); // The head sentinel holds a null key.
+  } // end floorKey
+
+  /** Finds the least search key that is greater than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K ceilingKey(K key)
+  {
+    return keyOf(findPredecessors(key).getNextNode(0));
+  } // end ceilingKey
+
+  /** Finds the greatest search key that is strictly less than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K lowerKey(K key)
+  {
+    return findPredecessors(key).getKey(); // The head sentinel holds a null key.
+  } // end lowerKey
+
+  /** Finds the least search key that is strictly greater than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K higherKey(K key)
+  {
+    Node<K, V> currentNode = findPredecessors(key).getNextNode(0);
+    if( (currentNode != null) && (key.compareTo(currentNode.getKey()) == 0) )
+    {
+      currentNode = currentNode.getNextNode(0);
+    } // end if
+    return keyOf(currentNode);
+  } // end higherKey
+
+  /** Creates an iterator that traverses the search keys in this dictionary,
+      starting at the first key that is greater than or equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the search
+               keys from fromKey onward. */
+  public Iterator<K> getKeyIterator(K fromKey)
+  {
+    return new KeyIterator(fromKey);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses the values in this dictionary,
+      starting at the entry of the first key that is greater than or
+      equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the values
+               from fromKey onward. */
+  public Iterator<V> getValueIterator(K fromKey)
+  {
+    return new ValueIterator(fromKey);
+  } // end getValueIterator
+
+  /** Creates a view of the entries whose search keys are strictly less
+      than toKey. The view is backed by this dictionary, so changes to
+      either one are seen by the other.
+      @param toKey  The exclusive upper bound of the view.
+      @return  A live view of the head of this dictionary. */
+  public SortedDictionaryInterface<K, V> headDictionary(K toKey)
+  {
+    return new SortedSubDictionary<>(this, null, toKey);
+  } // end headDictionary
+
+  /** Creates a view of the entries whose search keys are greater than or
+      equal to fromKey. The view is backed by this dictionary, so changes
+      to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @return  A live view of the tail of this dictionary. */
+  public SortedDictionaryInterface<K, V> tailDictionary(K fromKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, null);
+  } // end tailDictionary
+
+  /** Creates a view of the entries whose search keys range from fromKey,
+      inclusive, to toKey, exclusive. The view is backed by this
+      dictionary, so changes to either one are seen by the other.
+      @param fromKey  The inclusive lower bound of the view.
+      @param toKey    The exclusive upper bound of the view.
+      @return  A live view of the range of this dictionary.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public SortedDictionaryInterface<K, V> subDictionary(K fromKey, K toKey)
+  {
+    return new SortedSubDictionary<>(this, fromKey, toKey);
+  } // end subDictionary
+
+  /** Counts the search keys that are strictly less than a given key by
+      adding up the widths of the links a search follows, in O(log n)
+      expected time.
+      @param key  An object search key to count up to.
+      @return  The number of keys less than key, which is also the
+               position key has, or would have, in search key order. */
+  public int rank(K key)
+  {
+    findPredecessors(key);
+    return updateRank[0];
+  } // end rank
+
+  /** Finds the search key at a position in search key order by following
+      links while their widths do not overshoot it, in O(log n) expected time.
+      @param index  The position, from 0 to getSize() - 1.
+      @return  The key that has index keys before it.
+      @throws IndexOutOfBoundsException if index is out of range. */
+  public K select(int index)
+  {
+    if( (index < 0) || (index >= numberOfEntries) )
+    {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + numberOfEntries);
+    } // end if
+    Node<K, V> currentNode = head;
+    int position = 0;
+    int target = index + 1;             // Position of the wanted node; the head is 0.
+    for(int i = level - 1; i >= 0; i--)
+    {
+      Node<K, V> nextNode = currentNode.getNextNode(i);
+      while( (nextNode != null) && (position + currentNode.getWidth(i) <= target) )
+      {
+        position += currentNode.getWidth(i);
+        currentNode = nextNode;
+        nextNode = currentNode.getNextNode(i);
+      } // end while
+    } // end for
+    return currentNode.getKey();
+  } // end select
+
+  /** Gets the count of structural changes its iterators check.
+      @return  A number that changes whenever an entry is added or removed. */
+  public int getModCount()
+  {
+    return modCount;
+  } // end getModCount
+
+  /** Sees whether this dictionary is empty.
+      @return  True if the dictionary is empty. */
+  public boolean isEmpty()
+  {
+    return numberOfEntries == 0;
+  } // end isEmpty
+
+  /** Gets the size of this dictionary.
+      @return  The number of entries (key-value pairs) currently
+               in the dictionary. */
+  public int getSize()
+  {
+    return numberOfEntries;
+  } // end getSize
+
+  /** Removes all entries from this dictionary. */
+  public void clear()
+  {
+    for(int i = 0; i < MAX_LEVEL; i++)
+    {
+      head.setNextNode(i, null);
+      update[i] = null;
+    } // end for
+    level = 1;
+    numberOfEntries = 0;
+    modCount++;
+  } // end clear
+
+  /** Rebuilds every level above the bottom one from the node heights,
+      along with the widths of their links, in a single pass along the
+      bottom level. */
+  private void relinkUpperLevels()
+  {
+    for(int i = 1; i < MAX_LEVEL; i++)
+    {
+      head.setNextNode(i, null);
+      update[i] = head;
+      updateRank[i] = 0;
+    } // end for
+
+    level = 1;
+    int position = 0;
+    Node<K, V> currentNode = head.getNextNode(0);
+    while(currentNode != null)
+    {
+      position++;
+      int nodeLevel = currentNode.getLevel();
+      for(int i = 1; i < nodeLevel; i++)
+      {
+        update[i].setNextNode(i, currentNode);
+        update[i].setWidth(i, position - updateRank[i]);
+        update[i] = currentNode;
+        updateRank[i] = position;
+      } // end for
+      if(nodeLevel > level)
+      {
+        level = nodeLevel;
+      } // end if
+      currentNode = currentNode.getNextNode(0);
+    } // end while
+
+    for(int i = 1; i < MAX_LEVEL; i++)
+    {
+      update[i].setNextNode(i, null);
+    } // end for
+  } // end relinkUpperLevels
+
+  /** Walks down the levels toward key, recording in update the last node
+      on each level whose key is less than key, and in updateRank the
+      position of that node.
+      @param key  The search key to look for.
+      @return  The last node on the bottom level whose key is less than key. */
+  private Node<K, V> findPredecessors(K key)
+  {
+    Node<K, V> currentNode = head;
+    int position = 0;
+    for(int i = level - 1; i >= 0; i--)
+    {
+      Node<K, V> nextNode = currentNode.getNextNode(i);
+      while( (nextNode != null) && (key.compareTo(nextNode.getKey()) > 0) )
+      {
+        position += currentNode.getWidth(i);
+        currentNode = nextNode;
+        nextNode = currentNode.getNextNode(i);
+      } // end while
+      update[i] = currentNode;
+      updateRank[i] = position;
+    } // end for
+    return currentNode;
+  } // end findPredecessors
+
+  /** Searches the skip list for the node holding key without recording
+      the search path.
+      @param key  The search key to look for.
+      @return  The node whose key equals key, or null if there is none. */
+  private Node<K, V> findNode(K key)
+  {
+    Node<K, V> currentNode = head;
+    for(int i = level - 1; i >= 0; i--)
+    {
+      Node<K, V> nextNode = currentNode.getNextNode(i);
+      while( (nextNode != null) && (key.compareTo(nextNode.getKey()) > 0) )
+      {
+        currentNode = nextNode;
+        nextNode = currentNode.getNextNode(i);
+      } // end while
+    } // end for
+
+    Node<K, V> result = currentNode.getNextNode(0);
+    if( (result != null) && (key.compareTo(result.getKey()) != 0) )
+    {
+      result = null;
+    } // end if
+    return result;
+  } // end findNode
+
+  /** Returns the search key of a node, if there is one.
+      @param node  A node on the bottom level, or null.
+      @return  Either the key of node or null. */
+  private K keyOf(Node<K, V> node)
+  {
+    K result = null;
+    if(node != null)
+    {
+      result = node.getKey();
+    } // end if
+    return result;
+  } // end keyOf
+
+  /** Picks the height of a new node. Each extra level is kept with
+      probability 1/2, up to MAX_LEVEL.
+      @return  A level between 1 and MAX_LEVEL. */
+  private int randomLevel()
+  {
+    return Integer.numberOfTrailingZeros(random.nextInt() | (1 << (MAX_LEVEL - 1))) + 1;
+  } // end randomLevel
+
+  /** Private inner class that walks the bottom level in place. */
+  private abstract class NodeIterator<T> implements Iterator<T>
+  {
+    private Node<K, V> nextNode;        // Node that next returns.
+    private Node<K, V> lastNode;        // Node last returned, or null after remove.
+    private int expectedModCount;
+
+    /** Creates an iterator positioned at the first node whose key is not
+        less than fromKey.
+        @param fromKey  The key to start from, or null to start at the front. */
+    private NodeIterator(K fromKey)
+    {
+      if(fromKey == null)
+      {
+        nextNode = head.getNextNode(0);
+      }
+      else
+      {
+        nextNode = findPredecessors(fromKey).getNextNode(0);
+      } // end if
+      lastNode = null;
+      expectedModCount = modCount;
+    } // end default constructor
+
+    public boolean hasNext()
+    {
+      return nextNode != null;
+    } // end hasNext
+
+    /** Advances to the next node.
+        @return  The node at the iterator's position. */
+    protected Node<K, V> nextNode()
+    {
+      checkForComodification();
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      lastNode = nextNode;
+      nextNode = nextNode.getNextNode(0);
+      return lastNode;
+    } // end nextNode
+
+    /** Removes the entry last returned by next. The unlinking descends
+        the towers once, in O(log n) expected time. */
+    public void remove()
+    {
+      if(lastNode == null)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      checkForComodification();
+      SortedSkipListDictionary.this.remove(lastNode.getKey());
+      lastNode = null;
+      expectedModCount = modCount;
+    } // end remove
+
+    /** Throws an exception if the dictionary was changed behind the iterator. */
+    private void checkForComodification()
+    {
+      if(modCount != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+  } // end NodeIterator
+
+  /** Private inner class that iterates over the search keys. */
+  private class KeyIterator extends NodeIterator<K>
+  {
+    private KeyIterator(K fromKey)
+    {
+      super(fromKey);
+    } // end constructor
+
+    public K next()
+    {
+      return nextNode().getKey();
+    } // end next
+  } // end KeyIterator
+
+  /** Private inner class that iterates over the values. */
+  private class ValueIterator extends NodeIterator<V>
+  {
+    private ValueIterator(K fromKey)
+    {
+      super(fromKey);
+    } // end constructor
+
+    public V next()
+    {
+      return nextNode().getValue();
+    } // end next
+  } // end ValueIterator
+
+  /** Private inner class Node. */
+  private class Node<K, V>
+  {
+    private K key;
+    private V value;
+    private Node<K, V>[] next;
+    private int[] width;                // Bottom-level steps each link skips; 1 on the bottom level.
+
+    /** Creates an instance that contains the key and value.
+        The new node points to null on every level.
+        @param key  Set key for new Entry.
+        @param value  Set value for new Entry.
+        @param nodeLevel  The number of levels the node is linked into. */
+    private Node(K key, V value, int nodeLevel)
+    {
+      this.key = key;
+      this.value = value;
+      @SuppressWarnings("unchecked")
+      Node<K, V>[] tempNext = (Node<K, V>[])new Node[nodeLevel];
+      next = tempNext;
+      width = new int[nodeLevel];
+      Arrays.fill(width, 1);
+    } // end constructor
+
+    /** Returns the key.
+        @return  Key of Entry. */
+    private K getKey()
+    {
+      return key;
+    } // end getKey
+
+    /** Returns the value.
+        @return  Value of Entry. */
+    private V getValue()
+    {
+      return value;
+    } // end getValue
+
+    /** Returns the number of levels the node is linked into. */
+    private int getLevel()
+    {
+      return next.length;
+    } // end getLevel
+
+    /** Returns the next Node on a level.
+        @param nodeLevel  The level to follow. */
+    private Node<K, V> getNextNode(int nodeLevel)
+    {
+      return next[nodeLevel];
+    } // end getNextNode
+
+    /** Sets a new value that will replace the old value.
+        @param value  The new value to be set. */
+    private void setValue(V value)
+    {
+      this.value = value;
+    } // end setValue
+
+    /** Returns the number of bottom-level steps the link on a level skips.
+        It is only kept up to date while the link is not null.
+        @param nodeLevel  The level of the link. */
+    private int getWidth(int nodeLevel)
+    {
+      return width[nodeLevel];
+    } // end getWidth
+
+    /** Sets the number of bottom-level steps the link on a level skips.
+        @param nodeLevel  The level of the link.
+        @param width  The new width. */
+    private void setWidth(int nodeLevel, int width)
+    {
+      this.width[nodeLevel] = width;
+    } // end setWidth
+
+    /** Sets another Node for next on a level.
+        @param nodeLevel  The level to relink.
+        @param next  The new next Node to be set. */
+    private void setNextNode(int nodeLevel, Node<K, V> next)
+    {
+      this.next[nodeLevel] = next;
+    } // end setNextNode
+  } // end Node
+} // end of SortedSkipListDictionary
@@ -0,0 +1,528 @@
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+/**
+   A live view of the entries of a sorted dictionary whose search keys
+   fall in a range. Every operation is passed through to the backing
+   dictionary, which positions itself at the lower bound with its own
+   search, so a range walk costs the backing search plus one step per
+   entry in the range. Its iterators fail fast, like those of the backing
+   dictionary, when the backing dictionary changes behind them.
+   @author Minwoo Soh
+*/
+class SortedSubDictionary<K extends Comparable<? super K>, V> implements SortedDictionaryInterface<K, V>
+{
+  private final SortedDictionaryInterface<K, V> backing;
+  private final K fromKey;              // Inclusive lower bound, or null if unbounded.
+  private final K toKey;                // Exclusive upper bound, or null if unbounded.
+
+  /** Creates a view of a range of a dictionary.
+      @param backing  The dictionary that holds the entries.
+      @param fromKey  The inclusive lower bound, or null for no lower bound.
+      @param toKey    The exclusive upper bound, or null for no upper bound. */
+  SortedSubDictionary(SortedDictionaryInterface<K, V> backing, K fromKey, K toKey)
+  {
+    if( (fromKey != null) && (toKey != null) && (fromKey.compareTo(toKey) > 0) )
+    {
+      throw new IllegalArgumentException("fromKey " + fromKey + " is greater than toKey " + toKey);
+    } // end if
+    this.backing = backing;
+    this.fromKey = fromKey;
+    this.toKey = toKey;
+  } // end constructor
+
+  /** Adds a new entry to the backing dictionary if its search key lies in
+      this view. If the given search key already exists, replaces the
+      corresponding value.
+      @param key    An object search key of the new entry.
+      @param value  An object associated with the search key.
+      @return  Either null if the new entry was added to the dictionary
+               or the value that was associated with key if that value
+               was replaced. */
+  public V add(K key, V value)
+  {
+    V result = null;
+    try
+    {
+      if( (key != null) && !inRange(key) )
+      {
+        throw new IllegalStateException("IllegalStateException: Key " + key + " is outside of this view. Entry is not added.");
+      }
+      else
+      {
+        result = backing.add(key, value);
+      } // end if
+    } // end try
+    catch(IllegalStateException e)
+    {
+      System.out.println(e.getMessage());
+    } // end catch
+    return result;
+  } // end add
+
+  /** Adds a batch of entries to this dictionary in one pass. The batch
+      need not be sorted. Pairs are taken in order, so when a search key
+      appears more than once the last pair wins, and a key that already
+      exists in the dictionary has its value replaced, just as with add.
+      Pairs with a null key or value are not added.
+      @param keys    The search keys of the new entries.
+      @param values  The values associated with keys, position by position.
+      @throws IllegalArgumentException if the arrays differ in length. */
+  public void addAll(K[] keys, V[] values)
+  {
+    if(keys.length != values.length)
+    {
+      throw new IllegalArgumentException("Got " + keys.length + " keys but " + values.length + " values.");
+    } // end if
+
+    K[] keysInRange = Arrays.copyOf(keys, keys.length);
+    V[] valuesInRange = Arrays.copyOf(values, values.length);
+    int count = 0;
+    for(int i = 0; i < keys.length; i++)
+    {
+      if( (keys[i] != null) && !inRange(keys[i]) )
+      {
+        System.out.println("IllegalStateException: Key " + keys[i] + " is outside of this view. Entry is not added.");
+      }
+      else
+      {
+        keysInRange[count] = keys[i];
+        valuesInRange[count] = values[i];
+        count++;
+      } // end if
+    } // end for
+    backing.addAll(Arrays.copyOf(keysInRange, count), Arrays.copyOf(valuesInRange, count));
+  } // end addAll
+
+  /** Removes a specific entry from this view and the backing dictionary.
+      @param key  An object search key of the entry to be removed.
+      @return  Either the value that was associated with the search key
+               or null if no such object exists in this view. */
+  public V remove(K key)
+  {
+    V result = null;
+    if(inRange(key))
+    {
+      result = backing.remove(key);
+    } // end if
+    return result;
+  } // end remove
+
+  /** Retrieves from this view the value associated with a given search key.
+      @param key  An object search key of the entry to be retrieved.
+      @return  Either the value that is associated with the search key
+               or null if no such object exists in this view. */
+  public V getValue(K key)
+  {
+    V result = null;
+    if(inRange(key))
+    {
+      result = backing.getValue(key);
+    } // end if
+    return result;
+  } // end getValue
+
+  /** Sees whether a specific entry is in this view.
+      @param key  An object search key of the desired entry.
+      @return  True if key is in range and associated with an entry. */
+  public boolean contains(K key)
+  {
+    return inRange(key) && backing.contains(key);
+  } // end contains
+
+  /** Creates an iterator that traverses all search keys in this view.
+      @return  An iterator that provides sequential access to the search
+               keys in the view. */
+  public Iterator<K> getKeyIterator()
+  {
+    return new RangeIterator<K>(fromKey, false);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses all values in this view.
+      @return  An iterator that provides sequential access to the values
+               in the view. */
+  public Iterator<V> getValueIterator()
+  {
+    return new RangeIterator<V>(fromKey, true);
+  } // end getValueIterator
+
+  /** Performs an action on every entry in this view, handing over each
+      search key together with its value in a single pass.
+      @param action  The action to be performed for each entry, in
+                     search key order. */
+  public void forEach(BiConsumer<? super K, ? super V> action)
+  {
+    Iterator<K> keyIterator = backingKeys(fromKey);
+    Iterator<V> valueIterator = backingValues(fromKey);
+    boolean done = false;
+    while(!done && keyIterator.hasNext())
+    {
+      K key = keyIterator.next();
+      V value = valueIterator.next();
+      done = !belowUpperBound(key);
+      if(!done)
+      {
+        action.accept(key, value);
+      } // end if
+    } // end while
+  } // end forEach
+
+  /** Sees whether this view is empty.
+      @return  True if no entry of the backing dictionary is in range. */
+  public boolean isEmpty()
+  {
+    return !getKeyIterator().hasNext();
+  } // end isEmpty
+
+  /** Gets the size of this view from the ranks of its bounds in the
+      backing dictionary.
+      @return  The number of entries (key-value pairs) currently in the view. */
+  public int getSize()
+  {
+    return upperRank() - lowerRank();
+  } // end getSize
+
+  /** Removes all entries in this view from the backing dictionary with
+      one removeRange, which the array engines do in a single shift. */
+  public void clear()
+  {
+    backing.removeRange(fromKey, toKey);
+  } // end clear
+
+  /** Removes every entry of this view whose search key ranges from
+      fromKey, inclusive, to toKey, exclusive. Bounds outside this view
+      are narrowed to it.
+      @param fromKey  The inclusive lower bound, or null for none.
+      @param toKey    The exclusive upper bound, or null for none.
+      @throws IllegalArgumentException if fromKey is greater than toKey. */
+  public void removeRange(K fromKey, K toKey)
+  {
+    if( (fromKey != null) && (toKey != null) && (fromKey.compareTo(toKey) > 0) )
+    {
+      throw new IllegalArgumentException("fromKey " + fromKey + " is greater than toKey " + toKey);
+    } // end if
+    K lower = (fromKey == null) ? this.fromKey : clampFrom(fromKey);
+    K upper = (toKey == null) ? this.toKey : clampTo(toKey);
+    if( (lower == null) || (upper == null) || (lower.compareTo(upper) < 0) ) // Else the range misses the view.
+    {
+      backing.removeRange(lower, upper);
+    } // end if
+  } // end removeRange
+
+  /** Gets the count of structural changes of the backing dictionary.
+      @return  A number that changes whenever an entry is added or removed. */
+  public int getModCount()
+  {
+    return backing.getModCount();
+  } // end getModCount
+
+  /** Finds the greatest search key that is less than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K floorKey(K key)
+  {
+    K result;
+    if( (toKey != null) && (key.compareTo(toKey) >= 0) )
+    {
+      result = backing.lowerKey(toKey);
+    }
+    else
+    {
+      result = backing.floorKey(key);
+    } // end if
+    return inRangeOrNull(result);
+  } // end floorKey
+
+  /** Finds the least search key that is greater than or equal to a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K ceilingKey(K key)
+  {
+    K result;
+    if( (fromKey != null) && (key.compareTo(fromKey) < 0) )
+    {
+      result = backing.ceilingKey(fromKey);
+    }
+    else
+    {
+      result = backing.ceilingKey(key);
+    } // end if
+    return inRangeOrNull(result);
+  } // end ceilingKey
+
+  /** Finds the greatest search key that is strictly less than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K lowerKey(K key)
+  {
+    K result;
+    if( (toKey != null) && (key.compareTo(toKey) > 0) )
+    {
+      result = backing.lowerKey(toKey);
+    }
+    else
+    {
+      result = backing.lowerKey(key);
+    } // end if
+    return inRangeOrNull(result);
+  } // end lowerKey
+
+  /** Finds the least search key that is strictly greater than a given key.
+      @param key  An object search key to navigate from.
+      @return  Either that search key or null if there is no such key. */
+  public K higherKey(K key)
+  {
+    K result;
+    if( (fromKey != null) && (key.compareTo(fromKey) < 0) )
+    {
+      result = backing.ceilingKey(fromKey);
+    }
+    else
+    {
+      result = backing.higherKey(key);
+    } // end if
+    return inRangeOrNull(result);
+  } // end higherKey
+
+  /** Creates an iterator that traverses the search keys in this view,
+      starting at the first key that is greater than or equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the search
+               keys from fromKey onward. */
+  public Iterator<K> getKeyIterator(K fromKey)
+  {
+    return new RangeIterator<K>(clampFrom(fromKey), false);
+  } // end getKeyIterator
+
+  /** Creates an iterator that traverses the values in this view,
+      starting at the entry of the first key that is greater than or
+      equal to fromKey.
+      @param fromKey  An object search key where the traversal starts.
+      @return  An iterator that provides sequential access to the values
+               from fromKey onward. */
+  public Iterator<V> getValueIterator(K fromKey)
+  {
+    return new RangeIterator<V>(clampFrom(fromKey), true);
+  } // end getValueIterator
+
+  /** Creates a view of the part of this view below toKey. Bounds outside
+      this view are narrowed to it. */
+  public SortedDictionaryInterface<K, V> headDictionary(K toKey)
+  {
+    return new SortedSubDictionary<>(backing, fromKey, clampTo(toKey));
+  } // end headDictionary
+
+  /** Creates a view of the part of this view from fromKey on. Bounds
+      outside this view are narrowed to it. */
+  public SortedDictionaryInterface<K, V> tailDictionary(K fromKey)
+  {
+    return new SortedSubDictionary<>(backing, clampFrom(fromKey), toKey);
+  } // end tailDictionary
+
+  /** Creates a view of the part of this view from fromKey up to toKey.
+      Bounds outside this view are narrowed to it. */
+  public SortedDictionaryInterface<K, V> subDictionary(K fromKey, K toKey)
+  {
+    if(fromKey.compareTo(toKey) > 0)
+    {
+      throw new IllegalArgumentException("fromKey " + fromKey + " is greater than toKey " + toKey);
+    } // end if
+    return new SortedSubDictionary<>(backing, clampFrom(fromKey), clampTo(toKey));
+  } // end subDictionary
+
+  /** Counts the search keys in this view that are strictly less than a
+      given key, using the ranks of the backing dictionary.
+      @param key  An object search key to count up to.
+      @return  The number of keys in the view less than key. */
+  public int rank(K key)
+  {
+    int result = upperRank();
+    if( (toKey == null) || (key.compareTo(toKey) < 0) )
+    {
+      result = backing.rank(clampFrom(key));
+    } // end if
+    return result - lowerRank();
+  } // end rank
+
+  /** Finds the search key at a position in this view.
+      @param index  The position, from 0 to getSize() - 1.
+      @return  The key that has index keys of the view before it.
+      @throws IndexOutOfBoundsException if index is out of range. */
+  public K select(int index)
+  {
+    int lowerRank = lowerRank();
+    int size = upperRank() - lowerRank;
+    if( (index < 0) || (index >= size) )
+    {
+      throw new IndexOutOfBoundsException("Index " + index + " is out of range for size " + size);
+    } // end if
+    return backing.select(lowerRank + index);
+  } // end select
+
+  /** Gets the number of backing keys below the lower bound of this view. */
+  private int lowerRank()
+  {
+    return (fromKey == null) ? 0 : backing.rank(fromKey);
+  } // end lowerRank
+
+  /** Gets the number of backing keys below the upper bound of this view. */
+  private int upperRank()
+  {
+    return (toKey == null) ? backing.getSize() : backing.rank(toKey);
+  } // end upperRank
+
+  /** Sees whether a search key lies between the bounds of this view.
+      @param key  The search key to test.
+      @return  True if key is within the view. */
+  private boolean inRange(K key)
+  {
+    return ( (fromKey == null) || (key.compareTo(fromKey) >= 0) ) && belowUpperBound(key);
+  } // end inRange
+
+  /** Sees whether a search key lies below the upper bound of this view.
+      @param key  The search key to test.
+      @return  True if key is less than toKey or there is no upper bound. */
+  private boolean belowUpperBound(K key)
+  {
+    return (toKey == null) || (key.compareTo(toKey) < 0);
+  } // end belowUpperBound
+
+  /** Returns a navigation result only if it lies within this view.
+      @param key  A search key returned by the backing dictionary, or null.
+      @return  Either key or null. */
+  private K inRangeOrNull(K key)
+  {
+    K result = null;
+    if( (key != null) && inRange(key) )
+    {
+      result = key;
+    } // end if
+    return result;
+  } // end inRangeOrNull
+
+  /** Narrows a requested lower bound to this view. */
+  private K clampFrom(K key)
+  {
+    K result = key;
+    if( (fromKey != null) && (key.compareTo(fromKey) < 0) )
+    {
+      result = fromKey;
+    } // end if
+    return result;
+  } // end clampFrom
+
+  /** Narrows a requested upper bound to this view. */
+  private K clampTo(K key)
+  {
+    K result = key;
+    if( (toKey != null) && (key.compareTo(toKey) > 0) )
+    {
+      result = toKey;
+    } // end if
+    return result;
+  } // end clampTo
+
+  /** Positions a key iterator of the backing dictionary at start. */
+  private Iterator<K> backingKeys(K start)
+  {
+    return (start == null) ? backing.getKeyIterator() : backing.getKeyIterator(start);
+  } // end backingKeys
+
+  /** Positions a value iterator of the backing dictionary at start. */
+  private Iterator<V> backingValues(K start)
+  {
+    return (start == null) ? backing.getValueIterator() : backing.getValueIterator(start);
+  } // end backingValues
+
+  /** Private inner class that walks the backing dictionary from a start
+      key until the upper bound, looking one entry ahead. Since the entry
+      looked at may be stale once the backing dictionary changes, next
+      checks the backing modCount before it hands the entry over. */
+  private class RangeIterator<T> implements Iterator<T>
+  {
+    private final boolean returnValues;
+    private Iterator<K> keyIterator;
+    private Iterator<V> valueIterator;
+    private K nextKey;                  // Key next returns, or null at the end.
+    private V nextValue;
+    private K lastKey;                  // Key last returned, or null after remove.
+    private int expectedModCount;
+
+    private RangeIterator(K start, boolean returnValues)
+    {
+      this.returnValues = returnValues;
+      seek(start);
+    } // end constructor
+
+    public boolean hasNext()
+    {
+      return nextKey != null;
+    } // end hasNext
+
+    @SuppressWarnings("unchecked")
+    public T next()
+    {
+      if(!hasNext())
+      {
+        throw new NoSuchElementException("Illegal call to next(); iterator is after end of dictionary.");
+      } // end if
+      checkForComodification();
+      T result = returnValues ? (T)nextValue : (T)nextKey;
+      lastKey = nextKey;
+      advance();
+      return result;
+    } // end next
+
+    /** Removes the entry last returned by next from the backing
+        dictionary and repositions just after it. */
+    public void remove()
+    {
+      if(lastKey == null)
+      {
+        throw new IllegalStateException("Illegal call to remove(); next() was not called.");
+      } // end if
+      checkForComodification();
+      backing.remove(lastKey);
+      seek(lastKey);
+      lastKey = null;
+    } // end remove
+
+    /** Opens backing iterators at start and reads the first entry. */
+    private void seek(K start)
+    {
+      keyIterator = backingKeys(start);
+      valueIterator = returnValues ? backingValues(start) : null;
+      expectedModCount = backing.getModCount();
+      advance();
+    } // end seek
+
+    /** Throws an exception if the backing dictionary was changed behind
+        the iterator. */
+    private void checkForComodification()
+    {
+      if(backing.getModCount() != expectedModCount)
+      {
+        throw new ConcurrentModificationException();
+      } // end if
+    } // end checkForComodification
+
+    /** Reads the next entry in range, or marks the end of the view. */
+    private void advance()
+    {
+      nextKey = null;
+      nextValue = null;
+      if(keyIterator.hasNext())
+      {
+        K key = keyIterator.next();
+        V value = returnValues ? valueIterator.next() : null;
+        if(belowUpperBound(key))
+        {
+          nextKey = key;
+          nextValue = value;
+        } // end if
+      } // end if
+    } // end advance
+  } // end RangeIterator
+} // end of SortedSubDictionary
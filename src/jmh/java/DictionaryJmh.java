@@ -0,0 +1,125 @@
+import benchmarks.DictionaryTarget;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+/**
+   Runs the JMH benchmarks in the benchmarks package, and gives them the
+   engines registered in DictionaryBenchmark. It takes the usual JMH
+   options. Unless -p engine=... is given, every registered engine is
+   run, and unless a profiler is given, -prof gc is added so that the
+   allocation rate and bytes per operation are reported. An engine is
+   not run at sizes above the largest it was registered with; JMH
+   reports those cases as failed and moves on.
+   @author Minwoo Soh
+*/
+public class DictionaryJmh
+{
+  public static void main(String[] args) throws Exception
+  {
+    CommandLineOptions options = new CommandLineOptions(args);
+    if(options.shouldHelp())
+    {
+      options.showHelp();
+    }
+    else if(options.shouldList())
+    {
+      new Runner(options).list();
+    }
+    else
+    {
+      ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+      if(!options.getParameter("engine").hasValue())
+      {
+        builder.param("engine", DictionaryBenchmark.getEngineNames().toArray(new String[0]));
+      } // end if
+      if(options.getProfilers().isEmpty())
+      {
+        builder.addProfiler(GCProfiler.class);
+      } // end if
+      new Runner(builder.build()).run();
+    } // end if
+  } // end main
+
+  /** Opens a dictionary of a registered engine that holds the present
+      keys of a given size. Called by DictionaryTarget.open.
+      @param engine  The name the engine was registered with.
+      @param size    The number of entries.
+      @return  The filled dictionary. */
+  public static DictionaryTarget open(String engine, int size)
+  {
+    return new Target(DictionaryBenchmark.newFilledDictionary(engine, size));
+  } // end open
+
+  /** Creates keys in a given order. Called by DictionaryTarget.keys.
+      @param size    The number of keys.
+      @param order   The name of a DictionaryBenchmark.KeyOrder.
+      @param parity  0 for present keys, 1 for missing keys.
+      @return  The keys. */
+  public static Integer[] keys(int size, String order, int parity)
+  {
+    return DictionaryBenchmark.keys(size, DictionaryBenchmark.KeyOrder.valueOf(order), parity);
+  } // end keys
+
+  /** Private class that passes each call on to a dictionary. */
+  private static class Target implements DictionaryTarget
+  {
+    private final DictionaryInterface<Integer, Integer> dictionary;
+
+    private Target(DictionaryInterface<Integer, Integer> dictionary)
+    {
+      this.dictionary = dictionary;
+    } // end constructor
+
+    public Integer add(Integer key, Integer value)
+    {
+      return dictionary.add(key, value);
+    } // end add
+
+    public Integer remove(Integer key)
+    {
+      return dictionary.remove(key);
+    } // end remove
+
+    public Integer getValue(Integer key)
+    {
+      return dictionary.getValue(key);
+    } // end getValue
+
+    public boolean contains(Integer key)
+    {
+      return dictionary.contains(key);
+    } // end contains
+
+    public Iterator<Integer> getKeyIterator()
+    {
+      return dictionary.getKeyIterator();
+    } // end getKeyIterator
+
+    public void forEach(BiConsumer<Integer, Integer> action)
+    {
+      dictionary.forEach(action);
+    } // end forEach
+
+    public void close()
+    {
+      if(dictionary instanceof Closeable)
+      {
+        try
+        {
+          ((Closeable)dictionary).close();
+        }
+        catch(IOException e)
+        {
+          throw new UncheckedIOException(e);
+        } // end try
+      } // end if
+    } // end close
+  } // end Target
+} // end DictionaryJmh
@@ -0,0 +1,68 @@
+package benchmarks;
+
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+/**
+   Full traversals of a dictionary that holds size entries, with the key
+   iterator and with forEach. One operation is one whole traversal; key
+   order does not apply.
+   @author Minwoo Soh
+*/
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DictionaryIteration
+{
+  @Param({"SortedArrayDictionary"})     // DictionaryJmh passes every registered engine.
+  public String engine;
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  private DictionaryTarget dictionary;
+
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    dictionary = DictionaryTarget.open(engine, size);
+  } // end setUp
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    dictionary.close();
+  } // end tearDown
+
+  @Benchmark
+  public void iterate(Blackhole blackhole)
+  {
+    Iterator<Integer> iterator = dictionary.getKeyIterator();
+    while(iterator.hasNext())
+    {
+      blackhole.consume(iterator.next());
+    } // end while
+  } // end iterate
+
+  @Benchmark
+  public void forEach(Blackhole blackhole)
+  {
+    dictionary.forEach((key, value) -> blackhole.consume(key));
+  } // end forEach
+} // end DictionaryIteration
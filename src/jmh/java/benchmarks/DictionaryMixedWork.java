@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+   Mixed reads and writes on a dictionary that holds size entries. Each
+   operation is a getValue of a present key with a chance of readPercent
+   in 100, and otherwise a write. The writes take turns adding a missing
+   key and removing it again, so the size never drifts. The choices come
+   from a fixed xorshift sequence, so every engine sees the same work.
+   @author Minwoo Soh
+*/
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DictionaryMixedWork
+{
+  @Param({"SortedArrayDictionary"})     // DictionaryJmh passes every registered engine.
+  public String engine;
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  @Param({"SORTED", "REVERSE", "CLUSTERED", "RANDOM"})
+  public String order;
+
+  @Param({"50", "90", "99"})
+  public int readPercent;
+
+  private DictionaryTarget dictionary;
+  private Integer[] keys;
+  private Integer[] missingKeys;
+  private int next;
+  private int nextMissing;              // Twice the index of the next missing key, plus 1 once it is added.
+  private int random;
+
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    dictionary = DictionaryTarget.open(engine, size);
+    keys = DictionaryTarget.keys(size, order, 0);
+    missingKeys = DictionaryTarget.keys(size, order, 1);
+    random = 0x9E3779B9;
+  } // end setUp
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    dictionary.close();
+  } // end tearDown
+
+  @Benchmark
+  public Integer mixed()
+  {
+    Integer result = null;
+    random ^= random << 13;
+    random ^= random >>> 17;
+    random ^= random << 5;
+    if(Math.floorMod(random, 100) < readPercent)
+    {
+      result = dictionary.getValue(keys[next]);
+      next = (next + 1 == keys.length) ? 0 : next + 1;
+    }
+    else if(nextMissing % 2 == 0)
+    {
+      result = dictionary.add(missingKeys[nextMissing / 2], 0);
+      nextMissing++;
+    }
+    else
+    {
+      result = dictionary.remove(missingKeys[nextMissing / 2]);
+      nextMissing = (nextMissing + 1) % (2 * missingKeys.length);
+    } // end if
+    return result;
+  } // end mixed
+} // end DictionaryMixedWork
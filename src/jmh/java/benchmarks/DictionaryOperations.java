@@ -0,0 +1,98 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+/**
+   Single operations on a dictionary that holds size entries: getValue,
+   contains of present keys, contains of missing keys (miss), and a
+   write that adds a missing key and then removes it again, so the size
+   never drifts. The key order decides the order in which keys are
+   looked up or written. Each case reports throughput and, from the
+   sampled times, latency percentiles.
+   @author Minwoo Soh
+*/
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DictionaryOperations
+{
+  @Param({"SortedArrayDictionary"})     // DictionaryJmh passes every registered engine.
+  public String engine;
+
+  @Param({"10", "100", "1000", "10000", "100000", "1000000"})
+  public int size;
+
+  @Param({"SORTED", "REVERSE", "CLUSTERED", "RANDOM"})
+  public String order;
+
+  private DictionaryTarget dictionary;
+  private Integer[] keys;
+  private Integer[] missingKeys;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp()
+  {
+    dictionary = DictionaryTarget.open(engine, size);
+    keys = DictionaryTarget.keys(size, order, 0);
+    missingKeys = DictionaryTarget.keys(size, order, 1);
+  } // end setUp
+
+  @TearDown(Level.Trial)
+  public void tearDown()
+  {
+    dictionary.close();
+  } // end tearDown
+
+  @Benchmark
+  public Integer getValue()
+  {
+    return dictionary.getValue(keys[advance()]);
+  } // end getValue
+
+  @Benchmark
+  public boolean contains()
+  {
+    return dictionary.contains(keys[advance()]);
+  } // end contains
+
+  @Benchmark
+  public boolean miss()
+  {
+    return dictionary.contains(missingKeys[advance()]);
+  } // end miss
+
+  @Benchmark
+  @OperationsPerInvocation(2)
+  public Integer addThenRemove()
+  {
+    Integer key = missingKeys[advance()];
+    dictionary.add(key, key);
+    return dictionary.remove(key);
+  } // end addThenRemove
+
+  /** Moves on to the next key, wrapping around at the end.
+      @return  The index of the current key. */
+  private int advance()
+  {
+    int result = next;
+    next = (next + 1 == keys.length) ? 0 : next + 1;
+    return result;
+  } // end advance
+} // end DictionaryOperations
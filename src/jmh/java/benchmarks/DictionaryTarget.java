@@ -0,0 +1,91 @@
+package benchmarks;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Iterator;
+import java.util.function.BiConsumer;
+/**
+   The dictionary operations a JMH benchmark calls. JMH will not generate
+   code for a benchmark in the default package, and a class in a named
+   package cannot name the dictionaries, which are in the default package,
+   so DictionaryJmh wraps each one in this interface. The benchmarks reach
+   DictionaryJmh through reflection once per trial; the calls they time
+   are plain interface calls, which the JIT inlines.
+   @author Minwoo Soh
+*/
+public interface DictionaryTarget
+{
+   /** Adds a new entry, or replaces the value of an existing one.
+       @param key    An object search key of the new entry.
+       @param value  An object associated with the search key.
+       @return  Either null or the value that was replaced. */
+   public Integer add(Integer key, Integer value);
+
+   /** Removes a specific entry.
+       @param key  An object search key of the entry to be removed.
+       @return  Either the value that was associated with the search key
+                or null if no such object exists. */
+   public Integer remove(Integer key);
+
+   /** Retrieves the value associated with a given search key.
+       @param key  An object search key of the entry to be retrieved.
+       @return  Either the value or null if no such object exists. */
+   public Integer getValue(Integer key);
+
+   /** Sees whether a specific entry is in the dictionary.
+       @param key  An object search key of the desired entry.
+       @return  True if key is associated with an entry. */
+   public boolean contains(Integer key);
+
+   /** Creates an iterator that traverses all search keys in order.
+       @return  An iterator over the keys. */
+   public Iterator<Integer> getKeyIterator();
+
+   /** Performs an action on every entry, in key order.
+       @param action  The action to perform. */
+   public void forEach(BiConsumer<Integer, Integer> action);
+
+   /** Releases any files the dictionary keeps open. */
+   public void close();
+
+   /** Opens a dictionary of a registered engine that holds the present
+       keys of a given size.
+       @param engine  The name the engine was registered with in DictionaryBenchmark.
+       @param size    The number of entries.
+       @return  The filled dictionary. */
+   public static DictionaryTarget open(String engine, int size)
+   {
+      return (DictionaryTarget)bridge("open", new Class<?>[] {String.class, int.class}, engine, size);
+   } // end open
+
+   /** Creates keys as DictionaryBenchmark does. Present keys are even and
+       missing keys are odd.
+       @param size    The number of keys.
+       @param order   SORTED, REVERSE, CLUSTERED or RANDOM.
+       @param parity  0 for present keys, 1 for missing keys.
+       @return  The keys. */
+   public static Integer[] keys(int size, String order, int parity)
+   {
+      return (Integer[])bridge("keys", new Class<?>[] {int.class, String.class, int.class}, size, order, parity);
+   } // end keys
+
+   /** Calls a public static method of DictionaryJmh. */
+   private static Object bridge(String name, Class<?>[] types, Object... arguments)
+   {
+      try
+      {
+         return Class.forName("DictionaryJmh").getMethod(name, types).invoke(null, arguments);
+      }
+      catch(InvocationTargetException e)
+      {
+         if(e.getCause() instanceof RuntimeException)
+         {
+            throw (RuntimeException)e.getCause();
+         } // end if
+         throw new IllegalStateException(e.getCause());
+      }
+      catch(ReflectiveOperationException e)
+      {
+         throw new IllegalStateException(e);
+      } // end try
+   } // end bridge
+} // end DictionaryTarget